@@ -0,0 +1,84 @@
+package io.github.jgfurlan2.nttdata_test.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.jgfurlan2.nttdata_test.OrderFixtures;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.util.OffHeapOrderLog;
+import io.github.jgfurlan2.nttdata_test.util.OrderFields;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization of order lists, as a JSON array and as NDJSON lines written the way the streaming endpoint
+ * writes them, as a JSON array of the fields a stock-control poller selects, and as a JSON array copied from the hot
+ * window's off-heap log.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrdersSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int orders;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectWriter ndjsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private List<Order> list;
+    private List<Order> projected;
+    private OffHeapOrderLog.Snapshot hotWindow;
+
+    @Setup
+    public void setUp() throws Exception {
+        list = OrderFixtures.createOrders(orders, 2);
+
+        OrderFields fields = OrderFields.parse("orderNumber,orderedAt,products.gs1,products.quantity");
+        projected = list.stream().map(fields::project).toList();
+
+        OffHeapOrderLog log = new OffHeapOrderLog(1 << 20);
+        ObjectWriter orderWriter = objectMapper.writerFor(Order.class);
+        for (Order order : list) {
+            log.append(order.getOrderedAt(), order.getOrderNumber(), orderWriter.writeValueAsBytes(order));
+        }
+        hotWindow = log.snapshot();
+    }
+
+    @Benchmark
+    public byte[] jsonArray() throws IOException {
+        return objectMapper.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public byte[] projectedJsonArray() throws IOException {
+        return objectMapper.writeValueAsBytes(projected);
+    }
+
+    @Benchmark
+    public void hotWindowJsonArray() throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        out.write('[');
+        hotWindow.writeTo(Long.MIN_VALUE, Long.MAX_VALUE, out, (byte) ',', true);
+        out.write(']');
+    }
+
+    @Benchmark
+    public void ndjson() throws IOException {
+        try (JsonGenerator generator = ndjsonWriter.createGenerator(OutputStream.nullOutputStream())) {
+            for (Order order : list) {
+                ndjsonWriter.writeValue(generator, order);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+}
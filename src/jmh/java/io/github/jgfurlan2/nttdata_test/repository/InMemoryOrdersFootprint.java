@@ -0,0 +1,57 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.OrderFixtures;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import org.openjdk.jol.info.GraphStats;
+import org.openjdk.jol.vm.VM;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retained heap of {@link InMemoryOrdersRepository} per stored order, walking the object graph with JOL: the whole
+ * repository, the orders alone, and the difference, which is what its indexes cost.
+ * <p>
+ * Options, all optional: {@code --orders=1000000 --clients=10000 --products=2}. The repository is sized for exactly
+ * {@code orders}, as {@code orders.memory.expected-orders} would size it.
+ */
+public class InMemoryOrdersFootprint {
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+
+        int count = Integer.parseInt(options.getOrDefault("orders", "1000000"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "10000"));
+        int products = Integer.parseInt(options.getOrDefault("products", "2"));
+
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = OrderFixtures.createOrder(1 + i % clients, products);
+            order.setOrderNumber(i + 1L);
+            // A few orders per millisecond, like a busy gateway
+            order.setOrderedAt(1_700_000_000_000L + i / 4);
+            orders.add(order);
+        }
+
+        InMemoryOrdersRepository repository = new InMemoryOrdersRepository(count);
+        repository.insertIgnoringDuplicates(orders);
+
+        // Totals only, keeping a record per object would take more heap than the orders themselves
+        Object[] roots = orders.toArray();
+        long total = GraphStats.parseInstance(repository).totalSize();
+        long data = GraphStats.parseInstance(roots).totalSize() - VM.current().sizeOf(roots);
+        long indexes = total - data;
+
+        System.out.printf("orders: %d, clients: %d, products per order: %d%n", count, clients, products);
+        System.out.printf("repository: %d MB, %d B/order%n", total >> 20, total / count);
+        System.out.printf("orders:     %d MB, %d B/order%n", data >> 20, data / count);
+        System.out.printf("indexes:    %d MB, %d B/order%n", indexes >> 20, indexes / count);
+    }
+
+}
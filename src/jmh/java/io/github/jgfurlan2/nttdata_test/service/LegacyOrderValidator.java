@@ -0,0 +1,78 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.*;
+import io.github.jgfurlan2.nttdata_test.model.Address;
+import io.github.jgfurlan2.nttdata_test.model.Client;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+import io.github.jgfurlan2.nttdata_test.util.Strings;
+
+/**
+ * Copy of the validator that threw on the first invalid field, kept as the baseline of
+ * {@link OrderValidationBenchmark}. Like the original, it skips the last product.
+ */
+final class LegacyOrderValidator {
+
+    public void validate(Order order) throws Exception {
+        if (order == null) {
+            throw new InvalidOrderException("Missing order");
+        }
+
+        if (Strings.isNullOrEmpty(order.getChecksum())) {
+            throw new InvalidOrderException("Missing order checksum");
+        }
+
+        Client client = order.getClient();
+        if (client == null) {
+            throw new InvalidClientException("Missing client");
+        } else if (client.getId() == null || client.getId() <= 0) {
+            throw new InvalidClientException("Missing or invalid client id");
+        } else if (Strings.isNullOrEmpty(client.getName())) {
+            throw new InvalidClientException("Null or empty client name");
+        } else if (Strings.isNullOrEmpty(client.getTaxId())) {
+            throw new InvalidClientException("Null or empty client tax id");
+        }
+
+        Address address = client.getAddress();
+        if (client.getAddress() == null) {
+            throw new InvalidClientAddressException("Missing client address");
+        } else if (Strings.isNullOrEmpty(address.getZipCode())) {
+            throw new InvalidClientAddressException("Missing client address zip code");
+        } else if (Strings.isNullOrEmpty(address.getStreetName())) {
+            throw new InvalidClientAddressException("Missing client address street name");
+        } else if (Strings.isNullOrEmpty(address.getStreetNumber())) {
+            throw new InvalidClientAddressException("Missing client address street number");
+        } else if (Strings.isNullOrEmpty(address.getNeighborhood())) {
+            throw new InvalidClientAddressException("Missing client address neighborhood");
+        } else if (Strings.isNullOrEmpty(address.getCity())) {
+            throw new InvalidClientAddressException("Missing client address city");
+        } else if (Strings.isNullOrEmpty(address.getState())) {
+            throw new InvalidClientAddressException("Missing client address state");
+        } else if (Strings.isNullOrEmpty(address.getCountry())) {
+            throw new InvalidClientAddressException("Missing client address country");
+        }
+
+        if (order.getProducts() == null || order.getProducts().isEmpty()) {
+            throw new InvalidProductException("Products list is null or empty");
+        } else {
+            for (int i = 0; i < order.getProducts().size() - 1; i++) {
+                Product product = order.getProducts().get(i);
+
+                if (product == null) {
+                    throw new InvalidProductException("Product " + (i + 1) + " is null");
+                } else if (product.getId() == null || product.getId() <= 0) {
+                    throw new InvalidProductException("Product " + (i + 1) + " missing id");
+                } else if (Strings.isNullOrEmpty(product.getGs1())) {
+                    throw new InvalidProductException("Product " + (i + 1) + " missing GS1 code");
+                } else if (Strings.isNullOrEmpty(product.getName())) {
+                    throw new InvalidProductException("Product " + (i + 1) + " missing name");
+                } else if (product.getQuantity() == null || product.getQuantity() <= 0) {
+                    throw new InvalidProductException("Product " + (i + 1) + " missing or invalid quantity");
+                } else if (product.getPrice() == null || product.getPrice() <= 0) {
+                    throw new InvalidProductException("Product " + (i + 1) + " missing or invalid price");
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.OrderFixtures;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.repository.InMemoryOrdersRepository;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of {@code /orders/order/{orderNumber}} lookups with the order cache on ({@code cacheWeight > 0})
+ * and off, over a skewed key set where 80% of the lookups hit 10% of the orders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class OrderLookupBenchmark {
+
+    private static final int ORDERS = 100_000;
+    private static final int KEYS = 1 << 16;
+
+    @Param({"0", "100000"})
+    private long cacheWeight;
+
+    /**
+     * CPU tokens burned per repository lookup, standing in for the Mongo round trip; 0 measures the {@code memory}
+     * profile as is.
+     */
+    @Param({"0", "5000"})
+    private long lookupCost;
+
+    private OrdersService ordersService;
+    private long[] keys;
+
+    @Setup
+    public void setUp() throws Exception {
+        OrdersRepository repository = new InMemoryOrdersRepository(ORDERS) {
+            @Override
+            public Order findByOrderNumber(Long orderNumber) {
+                Blackhole.consumeCPU(lookupCost);
+                return super.findByOrderNumber(orderNumber);
+            }
+        };
+        repository.insertIgnoringDuplicates(OrderFixtures.createOrders(ORDERS, 2));
+
+        ChecksumDedupFilter checksumFilter = new ChecksumDedupFilter(repository, new SimpleMeterRegistry(), ORDERS, 0.01, 10_000);
+        OrdersCache ordersCache = new OrdersCache(repository, new SimpleMeterRegistry(), cacheWeight, 5_000);
+        OrdersMetrics metrics = new OrdersMetrics(new SimpleMeterRegistry());
+        ordersService = new OrdersService(
+                repository,
+                new OrdersIngest(new OrderValidator(), new OrderNumberAllocator(size -> ORDERS + 1, 100), checksumFilter, ordersCache, metrics),
+                checksumFilter,
+                ordersCache,
+                metrics,
+                new OrdersListeners(List.of(new OrdersSubscriptions(repository, new OrdersMetrics(new SimpleMeterRegistry()), 1000, 100_000, 500, 5000))),
+                0,
+                1000
+        );
+
+        Random random = new Random(42);
+        keys = new long[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            int hot = ORDERS / 10;
+            keys[i] = 1 + (random.nextInt(10) < 8 ? random.nextInt(hot) : hot + random.nextInt(ORDERS - hot));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Benchmark
+    public Order getOrderByOrderNumber(Cursor cursor) throws Exception {
+        return ordersService.getOrderByOrderNumber(keys[cursor.next++ & (KEYS - 1)]);
+    }
+
+}
@@ -0,0 +1,114 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.OrderFixtures;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderValidationBenchmark {
+
+    private static final int MIXED_ORDERS = 1024;
+
+    @Param({"2", "20"})
+    private int products;
+
+    private final OrderValidator validator = new OrderValidator();
+    private final LegacyOrderValidator legacyValidator = new LegacyOrderValidator();
+    private final OrderViolations violations = new OrderViolations();
+    private Order valid;
+    private Order invalid;
+    private List<Order> mixed;
+
+    @Setup
+    public void setUp() {
+        valid = OrderFixtures.createOrder(1L, products);
+        invalid = OrderFixtures.createOrder(1L, products);
+        invalid.getProducts().get(0).setPrice(0d);
+
+        // Half of the orders are invalid, each broken in a different part of the order
+        mixed = new ArrayList<>(MIXED_ORDERS);
+        for (int i = 0; i < MIXED_ORDERS; i++) {
+            Order order = OrderFixtures.createOrder(1L + i, products);
+            switch (i % 8) {
+                case 1 -> order.setChecksum(null);
+                case 3 -> order.getClient().setTaxId("");
+                case 5 -> order.getClient().getAddress().setCity(null);
+                case 7 -> order.getProducts().get(0).setQuantity(0L);
+                default -> {
+                }
+            }
+
+            mixed.add(order);
+        }
+    }
+
+    @Benchmark
+    public Order validOrder() throws Exception {
+        validator.validate(valid);
+        return valid;
+    }
+
+    @Benchmark
+    public Exception invalidOrder() {
+        try {
+            validator.validate(invalid);
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Exception legacyInvalidOrder() {
+        try {
+            legacyValidator.validate(invalid);
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    /**
+     * Rejecting by exception, as {@code receiveOrders} did before: one thrown exception with a stack trace per invalid
+     * order.
+     */
+    @Benchmark
+    @OperationsPerInvocation(MIXED_ORDERS)
+    public void legacyMixedOrders(Blackhole blackhole) {
+        for (Order order : mixed) {
+            try {
+                legacyValidator.validate(order);
+                blackhole.consume(order);
+            } catch (Exception e) {
+                blackhole.consume(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rejecting with a reused {@link OrderViolations}, building only the ack message of the invalid orders.
+     */
+    @Benchmark
+    @OperationsPerInvocation(MIXED_ORDERS)
+    public void mixedOrders(Blackhole blackhole) {
+        for (Order order : mixed) {
+            violations.clear();
+            if (validator.check(order, violations)) {
+                blackhole.consume(order);
+            } else {
+                blackhole.consume(violations.describe());
+            }
+        }
+    }
+
+}
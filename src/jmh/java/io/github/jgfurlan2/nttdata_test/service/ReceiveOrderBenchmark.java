@@ -0,0 +1,81 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.OrderFixtures;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.repository.InMemoryOrdersRepository;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end ingestion through {@link OrdersService} against the {@code memory} profile's repository. Stored orders
+ * are dropped after every iteration, so the heap only holds one iteration's worth of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ReceiveOrderBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int EXPECTED_ORDERS = 1_000_000;
+
+    private final AtomicLong counter = new AtomicLong();
+    private final AtomicLong checksums = new AtomicLong();
+    private final Order template = OrderFixtures.createOrder(1L, 2);
+
+    private OrdersService ordersService;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        OrdersRepository repository = new InMemoryOrdersRepository(EXPECTED_ORDERS);
+        ChecksumDedupFilter checksumFilter = new ChecksumDedupFilter(repository, new SimpleMeterRegistry(), 10_000_000, 0.01, 10_000);
+        OrdersCache ordersCache = new OrdersCache(repository, new SimpleMeterRegistry(), 100_000, 5_000);
+        OrdersMetrics metrics = new OrdersMetrics(new SimpleMeterRegistry());
+        ordersService = new OrdersService(
+                repository,
+                new OrdersIngest(new OrderValidator(), new OrderNumberAllocator(size -> counter.getAndAdd(size) + 1, 100), checksumFilter, ordersCache, metrics),
+                checksumFilter,
+                ordersCache,
+                metrics,
+                new OrdersListeners(List.of(new OrdersSubscriptions(repository, new OrdersMetrics(new SimpleMeterRegistry()), 1000, 100_000, 500, 5000))),
+                0,
+                1000
+        );
+    }
+
+    @Benchmark
+    public Long receiveOrder() throws Exception {
+        return ordersService.receiveOrder(nextOrder());
+    }
+
+    /**
+     * One operation is a batch of {@value #BATCH_SIZE} orders, as sent in a single WebSocket frame.
+     */
+    @Benchmark
+    public List<OrderAck> receiveOrders() throws Exception {
+        List<Order> orders = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            orders.add(nextOrder());
+        }
+
+        return ordersService.receiveOrders(orders);
+    }
+
+    private Order nextOrder() {
+        Order order = new Order();
+        order.setChecksum("checksum-" + checksums.incrementAndGet());
+        order.setClient(template.getClient());
+        order.setProducts(template.getProducts());
+        return order;
+    }
+
+}
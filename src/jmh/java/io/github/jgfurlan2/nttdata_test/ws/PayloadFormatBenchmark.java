@@ -0,0 +1,61 @@
+package io.github.jgfurlan2.nttdata_test.ws;
+
+import com.google.gson.Gson;
+import io.github.jgfurlan2.nttdata_test.OrderFixtures;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode cost of the JSON and binary frame formats for the same orders. The encoded size of each frame, the bytes on
+ * the wire, is printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    /**
+     * Orders per frame, spread over 10 clients as a gateway batch usually is.
+     */
+    @Param({"1", "100"})
+    private int orders;
+
+    @Param({"2", "50"})
+    private int products;
+
+    @Param({"json", "binary"})
+    private String format;
+
+    private String json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() {
+        List<Order> frame = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            frame.add(OrderFixtures.createOrder(1L + i % 10, products));
+        }
+
+        Gson gson = new Gson();
+        json = orders == 1 ? gson.toJson(frame.get(0)) : gson.toJson(frame);
+        binary = orders == 1 ? OrderBinaryCodec.encode(frame.get(0)) : OrderBinaryCodec.encodeAll(frame);
+
+        int size = format.equals("json") ? json.getBytes(StandardCharsets.UTF_8).length : binary.length;
+        System.out.println("Frame size: " + size + " bytes");
+    }
+
+    @Benchmark
+    public OrderFrames.Frame decode() throws Exception {
+        return format.equals("json") ? OrderFrames.parse(json) : OrderBinaryCodec.decode(ByteBuffer.wrap(binary));
+    }
+
+}
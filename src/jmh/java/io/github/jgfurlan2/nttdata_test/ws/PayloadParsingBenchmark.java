@@ -0,0 +1,63 @@
+package io.github.jgfurlan2.nttdata_test.ws;
+
+import com.google.gson.Gson;
+import io.github.jgfurlan2.nttdata_test.OrderFixtures;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket frame handling around the service: parsing a frame into orders and rendering its acks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadParsingBenchmark {
+
+    /**
+     * Orders per frame; a single order is sent as a bare object, more as a JSON array.
+     */
+    @Param({"1", "100"})
+    private int orders;
+
+    /**
+     * Products per order, from a typical order up to a large basket.
+     */
+    @Param({"2", "50"})
+    private int products;
+
+    private String payload;
+    private List<OrderAck> acks;
+
+    @Setup
+    public void setUp() {
+        List<Order> frame = new ArrayList<>(orders);
+        acks = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            frame.add(OrderFixtures.createOrder(1L + i, products));
+            acks.add(OrderAck.registered(i + 1L));
+        }
+
+        Gson gson = new Gson();
+        payload = orders == 1 ? gson.toJson(frame.get(0)) : gson.toJson(frame);
+    }
+
+    @Benchmark
+    public OrderFrames.Frame parse() throws IOException {
+        return OrderFrames.parse(payload);
+    }
+
+    @Benchmark
+    public String ackMessages() {
+        return orders == 1 ? OrderFrames.ackMessage(acks.get(0)) : OrderFrames.ackMessages(acks);
+    }
+
+}
@@ -0,0 +1,123 @@
+package io.github.jgfurlan2.nttdata_test.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One WebSocket session of the load generator. The server acks the frames of a session in the order they were sent,
+ * so each ack is matched to the oldest frame still waiting for one.
+ */
+class LoadSession implements WebSocket.Listener {
+
+    private static final String REGISTERED = "Successfully registered order";
+    private static final String DUPLICATED = "Duplicated order detected!";
+
+    private final ConcurrentHistogram latencies;
+    private final Queue<Long> pending = new ConcurrentLinkedQueue<>();
+    private final StringBuilder partial = new StringBuilder();
+
+    final AtomicLong registered = new AtomicLong();
+    final AtomicLong duplicated = new AtomicLong();
+    final AtomicLong errors = new AtomicLong();
+
+    private CompletableFuture<WebSocket> sending;
+
+    LoadSession(ConcurrentHistogram latencies) {
+        this.latencies = latencies;
+    }
+
+    CompletableFuture<LoadSession> connect(HttpClient client, URI uri) {
+        return client.newWebSocketBuilder().buildAsync(uri, this).thenApply(ws -> {
+            sending = CompletableFuture.completedFuture(ws);
+            return this;
+        });
+    }
+
+    /**
+     * Queues a frame behind the previous one, as the client allows a single outstanding send per session. Only called
+     * from the scheduler thread.
+     *
+     * @param intendedAt {@link System#nanoTime()} at which the frame was due, so a late send counts against latency
+     */
+    void send(String frame, long intendedAt) {
+        pending.add(intendedAt);
+        sending = sending.thenCompose(ws -> ws.sendText(frame, true));
+    }
+
+    void resetCounters() {
+        registered.set(0);
+        duplicated.set(0);
+        errors.set(0);
+    }
+
+    int outstanding() {
+        return pending.size();
+    }
+
+    void close() {
+        sending.thenCompose(ws -> ws.sendClose(WebSocket.NORMAL_CLOSURE, "done"));
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            long now = System.nanoTime();
+            Long intendedAt = pending.poll();
+            if (intendedAt != null) {
+                latencies.recordValue(Math.max(0, now - intendedAt));
+            }
+
+            count(partial);
+            partial.setLength(0);
+        }
+
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        if (statusCode != WebSocket.NORMAL_CLOSURE) {
+            System.err.printf("Session closed by the server with %d %s, %d frames unacked%n", statusCode, reason, pending.size());
+        }
+
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        errors.incrementAndGet();
+        System.err.println("Session failed: " + error.getMessage());
+    }
+
+    private void count(CharSequence ack) {
+        String text = ack.toString();
+        int registeredAcks = occurrences(text, REGISTERED);
+        int duplicatedAcks = occurrences(text, DUPLICATED);
+        registered.addAndGet(registeredAcks);
+        duplicated.addAndGet(duplicatedAcks);
+
+        if (registeredAcks + duplicatedAcks == 0 || text.contains("An error occurred")) {
+            errors.addAndGet(Math.max(1, occurrences(text, "An error occurred")));
+        }
+    }
+
+    private static int occurrences(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + token.length())) {
+            count++;
+        }
+
+        return count;
+    }
+
+}
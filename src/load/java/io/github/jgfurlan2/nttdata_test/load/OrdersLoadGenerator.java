@@ -0,0 +1,241 @@
+package io.github.jgfurlan2.nttdata_test.load;
+
+import com.google.gson.Gson;
+import io.github.jgfurlan2.nttdata_test.model.Address;
+import io.github.jgfurlan2.nttdata_test.model.Client;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the {@code /order} WebSocket endpoint.
+ * <p>
+ * Frames are due at a fixed rate spread round-robin over the sessions, whatever the server's response time, and each
+ * ack's latency is measured from the moment its frame was due rather than from when it was actually sent, so a
+ * stalled server shows up in the percentiles instead of silently lowering the offered load.
+ * <p>
+ * Options, all optional: {@code --url=ws://localhost:8080/order --sessions=100 --rate=1000 --duration=60
+ * --warmup=10 --batch=1 --clients=10000 --duplicates=0 --connect-concurrency=200 --histogram=<file.hgrm>}. {@code rate}
+ * is in frames per second, {@code batch} orders per frame, {@code duplicates} the fraction of orders resent with an
+ * already used checksum and {@code connect-concurrency} the sessions whose handshakes are in flight at once.
+ */
+public class OrdersLoadGenerator {
+
+    private static final Gson GSON = new Gson();
+    private static final long DRAIN_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+    private static final String[][] CATALOG = {
+            {"7908887777776", "Something Product", "10.9"},
+            {"7908884443339", "Another Product", "5.28"},
+            {"7891000100103", "Leite Condensado", "7.49"},
+            {"7894900011517", "Refrigerante 2L", "9.99"},
+            {"7891910000197", "Acucar Refinado 1kg", "4.79"},
+            {"7896004000015", "Cafe Torrado 500g", "18.9"},
+            {"7891080000072", "Arroz Tipo 1 5kg", "27.5"},
+            {"7896036090244", "Feijao Carioca 1kg", "8.99"}
+    };
+
+    private final Map<String, String> options;
+    private final int clients;
+    private final double duplicates;
+    private final List<String> checksums = new ArrayList<>();
+
+    public OrdersLoadGenerator(Map<String, String> options) {
+        this.options = options;
+        this.clients = Integer.parseInt(option("clients", "10000"));
+        this.duplicates = Double.parseDouble(option("duplicates", "0"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+
+        new OrdersLoadGenerator(options).run();
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        URI uri = URI.create(option("url", "ws://localhost:8080/order"));
+        int sessionCount = Integer.parseInt(option("sessions", "100"));
+        double rate = Double.parseDouble(option("rate", "1000"));
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(option("duration", "60")));
+        long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(option("warmup", "10")));
+        int batch = Integer.parseInt(option("batch", "1"));
+        int connectConcurrency = Integer.parseInt(option("connect-concurrency", "200"));
+
+        // Latencies from 1us up to 1 minute, with 3 significant digits
+        ConcurrentHistogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+        // Connected in waves, so thousands of sessions do not overflow the server's accept backlog and time out
+        List<LoadSession> sessions = new ArrayList<>(sessionCount);
+        for (int first = 0; first < sessionCount; first += connectConcurrency) {
+            List<CompletableFuture<LoadSession>> connecting = new ArrayList<>(connectConcurrency);
+            for (int i = first; i < Math.min(sessionCount, first + connectConcurrency); i++) {
+                connecting.add(new LoadSession(latencies).connect(client, uri));
+            }
+
+            for (CompletableFuture<LoadSession> session : connecting) {
+                sessions.add(session.get(30, TimeUnit.SECONDS));
+            }
+        }
+
+        System.out.printf("Connected %d sessions to %s, sending %.0f frames/s of %d order(s)%n", sessionCount, uri, rate, batch);
+
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup;
+        long end = measureFrom + duration;
+        long sent = 0;
+        long measuredFrames = 0;
+        boolean measuring = false;
+
+        for (long due = start; due < end; due = start + sent * interval) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            if (!measuring && due >= measureFrom) {
+                // Warm-up acks still in flight may be recorded after the reset; they are few compared to the run
+                latencies.reset();
+                sessions.forEach(LoadSession::resetCounters);
+                measuring = true;
+            }
+
+            sessions.get((int) (sent % sessionCount)).send(frame(batch), due);
+            sent++;
+            if (measuring) {
+                measuredFrames++;
+            }
+        }
+
+        long drainUntil = System.nanoTime() + DRAIN_TIMEOUT;
+        while (outstanding(sessions) > 0 && System.nanoTime() < drainUntil) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        long elapsed = System.nanoTime() - measureFrom;
+        report(sessions, latencies.copy(), measuredFrames, batch, elapsed);
+        sessions.forEach(LoadSession::close);
+    }
+
+    private void report(List<LoadSession> sessions, Histogram latencies, long frames, int batch, long elapsed) throws Exception {
+        long registered = 0;
+        long duplicated = 0;
+        long errors = 0;
+        for (LoadSession session : sessions) {
+            registered += session.registered.get();
+            duplicated += session.duplicated.get();
+            errors += session.errors.get();
+        }
+
+        double seconds = elapsed / 1e9;
+        System.out.printf("Frames sent:      %d (%d orders)%n", frames, frames * batch);
+        System.out.printf("Acked frames:     %d, unacked after drain: %d%n", latencies.getTotalCount(), outstanding(sessions));
+        System.out.printf("Orders:           %d registered, %d duplicated, %d errors%n", registered, duplicated, errors);
+        System.out.printf("Throughput:       %.1f frames/s, %.1f orders/s%n", latencies.getTotalCount() / seconds, (registered + duplicated) / seconds);
+        System.out.printf("Latency (ms):     p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f%n",
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()));
+
+        String histogram = options.get("histogram");
+        if (histogram != null) {
+            try (PrintStream out = new PrintStream(new FileOutputStream(histogram))) {
+                latencies.outputPercentileDistribution(out, 1e6);
+            }
+            System.out.println("Percentile distribution (ms) written to " + histogram);
+        }
+    }
+
+    private String frame(int batch) {
+        if (batch == 1) {
+            return GSON.toJson(nextOrder());
+        }
+
+        List<Order> orders = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            orders.add(nextOrder());
+        }
+
+        return GSON.toJson(orders);
+    }
+
+    private Order nextOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        Order order = new Order();
+        if (!checksums.isEmpty() && random.nextDouble() < duplicates) {
+            order.setChecksum(checksums.get(random.nextInt(checksums.size())));
+        } else {
+            order.setChecksum(UUID.randomUUID().toString());
+            if (checksums.size() < 100_000) {
+                checksums.add(order.getChecksum());
+            }
+        }
+
+        long clientId = 1 + random.nextInt(clients);
+        order.setClient(new Client());
+        order.getClient().setId(clientId);
+        order.getClient().setName("Client " + clientId);
+        order.getClient().setTaxId(String.format("%011d", clientId));
+        order.getClient().setAddress(new Address());
+        order.getClient().getAddress().setZipCode("01310200");
+        order.getClient().getAddress().setStreetName("Avenida Paulista");
+        order.getClient().getAddress().setStreetNumber(String.valueOf(1 + random.nextInt(3000)));
+        order.getClient().getAddress().setNeighborhood("Bela Vista");
+        order.getClient().getAddress().setCity("São Paulo");
+        order.getClient().getAddress().setState("São Paulo");
+        order.getClient().getAddress().setCountry("Brazil");
+
+        int products = 1 + random.nextInt(5);
+        order.setProducts(new ArrayList<>(products));
+        for (int i = 0; i < products; i++) {
+            String[] item = CATALOG[random.nextInt(CATALOG.length)];
+            Product product = new Product();
+            product.setId(79138421386L + i);
+            product.setGs1(item[0]);
+            product.setName(item[1]);
+            product.setQuantity(1L + random.nextInt(10));
+            product.setPrice(Double.parseDouble(item[2]));
+            order.getProducts().add(product);
+        }
+
+        return order;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private static int outstanding(List<LoadSession> sessions) {
+        int outstanding = 0;
+        for (LoadSession session : sessions) {
+            outstanding += session.outstanding();
+        }
+
+        return outstanding;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+}
@@ -2,11 +2,7 @@ package io.github.jgfurlan2.nttdata_test;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
-import org.springframework.web.socket.config.annotation.EnableWebSocket;
 
-@EnableWebSocket
-@EnableMongoRepositories
 @SpringBootApplication
 public class Main {
 
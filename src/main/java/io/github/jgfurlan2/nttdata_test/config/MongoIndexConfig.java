@@ -0,0 +1,87 @@
+package io.github.jgfurlan2.nttdata_test.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the {@link Document} classes before the application starts serving, instead of
+ * relying on the lazy and silently failing auto index creation.
+ * <p>
+ * A unique index can't be created over a collection that already holds duplicated values, which databases written
+ * before the index existed may do. The application then refuses to start, naming some of the duplicated values, until
+ * they are removed.
+ */
+@Component
+@Profile("!memory")
+public class MongoIndexConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoIndexConfig.class);
+    private static final int DUPLICATES_SHOWN = 5;
+
+    private final MongoTemplate template;
+
+    public MongoIndexConfig(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void provisionIndexes() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                template.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+
+            IndexOperations indexOperations = template.indexOps(entity.getType());
+            resolver.resolveIndexFor(entity.getTypeInformation()).forEach(index -> {
+                String name;
+                try {
+                    name = indexOperations.ensureIndex(index);
+                } catch (DuplicateKeyException e) {
+                    throw new IllegalStateException(duplicatesMessage(entity.getCollection(), index), e);
+                }
+
+                LOGGER.info("Ensured index {} on {}", name, entity.getCollection());
+            });
+        }
+    }
+
+    private String duplicatesMessage(String collection, IndexDefinition index) {
+        String field = index.getIndexKeys().keySet().iterator().next();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group(field).count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)),
+                Aggregation.limit(DUPLICATES_SHOWN)
+        );
+
+        List<Object> duplicated = template.aggregate(aggregation, collection, org.bson.Document.class)
+                .getMappedResults()
+                .stream()
+                .map(group -> group.get("_id"))
+                .toList();
+
+        return "Can't create unique index on " + collection + "." + field + ", the collection holds duplicated values "
+                + "(some of them: " + duplicated + "). Remove the duplicates and restart";
+    }
+
+}
@@ -0,0 +1,15 @@
+package io.github.jgfurlan2.nttdata_test.config;
+
+import io.github.jgfurlan2.nttdata_test.Main;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+/**
+ * Backs the repositories with Mongo, except in the {@code memory} profile where the in-memory ones are used instead.
+ */
+@Configuration
+@Profile("!memory")
+@EnableMongoRepositories(basePackageClasses = Main.class)
+public class MongoRepositoriesConfig {
+}
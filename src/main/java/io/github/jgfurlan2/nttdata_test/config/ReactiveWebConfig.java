@@ -0,0 +1,50 @@
+package io.github.jgfurlan2.nttdata_test.config;
+
+import io.github.jgfurlan2.nttdata_test.service.OrdersMetrics;
+import io.github.jgfurlan2.nttdata_test.service.ReactiveOrdersService;
+import io.github.jgfurlan2.nttdata_test.ws.ReactiveOrdersWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import reactor.netty.http.server.WebsocketServerSpec;
+
+import java.util.Map;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    private final int maxFrameSize;
+
+    public ReactiveWebConfig(@Value("${orders.ws.max-frame-size:1048576}") int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        // Tomcat is also on the classpath for the servlet stack and would otherwise be picked first
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public HandlerMapping ordersWebSocketMapping(ReactiveOrdersService ordersService, OrdersMetrics metrics) {
+        // Ahead of the annotated controllers, which would otherwise claim the upgrade request
+        return new SimpleUrlHandlerMapping(Map.of("/order", new ReactiveOrdersWebSocketHandler(ordersService, metrics)), -1);
+    }
+
+    @Override
+    public WebSocketService getWebSocketService() {
+        // Reactor Netty rejects frames over 64KB by default, which a batch frame can exceed
+        WebsocketServerSpec.Builder spec = WebsocketServerSpec.builder().maxFramePayloadLength(maxFrameSize);
+        return new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy(() -> spec));
+    }
+
+}
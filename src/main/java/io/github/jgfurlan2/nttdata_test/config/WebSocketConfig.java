@@ -1,25 +1,57 @@
 package io.github.jgfurlan2.nttdata_test.config;
 
+import io.github.jgfurlan2.nttdata_test.service.OrdersIngestPipeline;
+import io.github.jgfurlan2.nttdata_test.service.OrdersMetrics;
+import io.github.jgfurlan2.nttdata_test.service.OrdersReceiver;
 import io.github.jgfurlan2.nttdata_test.service.OrdersService;
+import io.github.jgfurlan2.nttdata_test.service.OrdersSubscriptions;
+import io.github.jgfurlan2.nttdata_test.wal.OrdersWalIngestor;
+import io.github.jgfurlan2.nttdata_test.ws.OrdersSubscriptionHandler;
 import io.github.jgfurlan2.nttdata_test.ws.OrdersWebSocketHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 
 @Configuration
+@Profile("!reactive")
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
-    private final OrdersService ordersService;
+    private final OrdersReceiver ordersReceiver;
+    private final OrdersIngestPipeline pipeline;
+    private final OrdersMetrics metrics;
+    private final OrdersSubscriptions subscriptions;
+    private final int maxFrameSize;
 
-    public WebSocketConfig(OrdersService ordersService) {
-        this.ordersService = ordersService;
+    public WebSocketConfig(
+            OrdersService ordersService,
+            OrdersMetrics metrics,
+            OrdersSubscriptions subscriptions,
+            ObjectProvider<OrdersWalIngestor> walIngestor,
+            ObjectProvider<OrdersIngestPipeline> pipeline,
+            @Value("${orders.ws.max-frame-size:1048576}") int maxFrameSize
+    ) {
+        OrdersWalIngestor wal = walIngestor.getIfAvailable();
+        this.ordersReceiver = wal != null ? wal : ordersService;
+        this.pipeline = pipeline.getIfAvailable();
+
+        // The pipeline writes straight to Mongo, so with both enabled orders would be acknowledged without the WAL
+        if (wal != null && this.pipeline != null) {
+            throw new IllegalArgumentException("orders.pipeline.enabled and orders.wal.enabled can't be enabled together");
+        }
+        this.metrics = metrics;
+        this.subscriptions = subscriptions;
+        this.maxFrameSize = maxFrameSize;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(new OrdersWebSocketHandler(ordersService), "/order").setAllowedOrigins("*");
+        registry.addHandler(new OrdersWebSocketHandler(ordersReceiver, pipeline, metrics, maxFrameSize), "/order").setAllowedOrigins("*");
+        registry.addHandler(new OrdersSubscriptionHandler(subscriptions), "/orders/subscribe").setAllowedOrigins("*");
     }
 
 }
@@ -1,33 +1,193 @@
 package io.github.jgfurlan2.nttdata_test.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.ClientStats;
 import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrdersRollup;
+import io.github.jgfurlan2.nttdata_test.model.TopProduct;
+import io.github.jgfurlan2.nttdata_test.model.OrdersPage;
+import io.github.jgfurlan2.nttdata_test.model.OrdersVersion;
+import io.github.jgfurlan2.nttdata_test.service.ClientStatsService;
+import io.github.jgfurlan2.nttdata_test.service.OrdersHotWindow;
+import io.github.jgfurlan2.nttdata_test.service.OrdersRollups;
 import io.github.jgfurlan2.nttdata_test.service.OrdersService;
+import io.github.jgfurlan2.nttdata_test.service.TopProducts;
 import io.github.jgfurlan2.nttdata_test.util.Dates;
+import io.github.jgfurlan2.nttdata_test.util.ETags;
+import io.github.jgfurlan2.nttdata_test.util.OrderFields;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
+@Profile("!reactive")
 public class OrdersController {
     private static final Logger LOGGER = LoggerFactory.getLogger(OrdersController.class);
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_TOP_PRODUCTS = 10;
+
     private final OrdersService ordersService;
+    private final ClientStatsService clientStatsService;
+    private final OrdersRollups ordersRollups;
+    private final TopProducts topProducts;
+    private final OrdersHotWindow hotWindow;
+    private final ObjectWriter streamWriter;
 
-    public OrdersController(OrdersService ordersService) {
+    public OrdersController(
+            OrdersService ordersService,
+            ClientStatsService clientStatsService,
+            OrdersRollups ordersRollups,
+            TopProducts topProducts,
+            ObjectProvider<OrdersHotWindow> hotWindow,
+            ObjectMapper objectMapper
+    ) {
         this.ordersService = ordersService;
+        this.clientStatsService = clientStatsService;
+        this.ordersRollups = ordersRollups;
+        this.topProducts = topProducts;
+        this.hotWindow = hotWindow.getIfAvailable();
+        this.streamWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
+    /**
+     * Whole orders of a range. Recent ranges are written from the hot window as stored, without going to Mongo or
+     * encoding them again, so the response is always a streamed body.
+     */
+    @GetMapping(value = "/orders", params = {"!cursor", "!limit", "!fields"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listOrders(
+            @RequestParam(required = false) Long begin,
+            @RequestParam(required = false) Long end,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        try {
+            if (end == null) {
+                end = System.currentTimeMillis();
+            }
+
+            if (begin == null) {
+                begin = end - Dates.DAY_TIMESTAMP;
+            }
+
+            OrdersHotWindow.Slice slice = hotWindow != null ? hotWindow.slice(begin, end) : null;
+            if (slice != null) {
+                OrdersVersion version = slice.version();
+                if (ETags.matches(ifNoneMatch, version.getEtag())) {
+                    return versioned(304, version).build();
+                }
+
+                return versioned(200, version).contentType(MediaType.APPLICATION_JSON).body(slice::writeTo);
+            }
+
+            ResponseEntity<List<Order>> response = getOrdersByRange(begin, end, null, ifNoneMatch);
+            if (!response.hasBody()) {
+                return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders()).build();
+            }
+
+            List<Order> orders = response.getBody();
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(orders, out));
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            Map<String, String> error = Map.of("message", e.getMessage());
+            return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON).body(out -> writeJson(error, out));
+        }
+    }
+
+    /**
+     * Pages and projections of a range, which never come from the hot window.
+     */
     @GetMapping("/orders")
-    public ResponseEntity<?> listOrders(
+    public ResponseEntity<?> queryOrders(
+            @RequestParam(required = false) Long begin,
+            @RequestParam(required = false) Long end,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        try {
+            if (end == null) {
+                end = System.currentTimeMillis();
+            }
+
+            if (begin == null) {
+                begin = end - Dates.DAY_TIMESTAMP;
+            }
+
+            OrderFields selected = OrderFields.parse(fields);
+            if (cursor != null || limit != null) {
+                OrdersPage page = ordersService.getOrdersPageByRange(begin, end, cursor, pageSize(limit), selected);
+                return ResponseEntity.status(200).body(page);
+            }
+
+            return getOrdersByRange(begin, end, selected, ifNoneMatch);
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/orders", produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamOrders(
             @RequestParam(required = false) Long begin,
             @RequestParam(required = false) Long end
+    ) throws InvalidOrderFilterException {
+        if (end == null) {
+            end = System.currentTimeMillis();
+        }
+
+        if (begin == null) {
+            begin = end - Dates.DAY_TIMESTAMP;
+        }
+
+        // The cursor is only opened once the body is written, so it is always closed along with it
+        ordersService.validateStreamRange(begin, end);
+        long from = begin, to = end;
+        StreamingResponseBody body = out -> writeNdjson(from, to, out);
+        return ResponseEntity.status(200).contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(body);
+    }
+
+    /**
+     * Reports the filter errors the streaming endpoints throw. Their responses must be declared as
+     * {@link StreamingResponseBody} to be written at all, so they can't answer an error body themselves.
+     */
+    @ExceptionHandler(InvalidOrderFilterException.class)
+    public ResponseEntity<Map<String, String>> invalidFilter(InvalidOrderFilterException e) {
+        LOGGER.error(e.getMessage(), e);
+        return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON).body(Map.of("message", e.getMessage()));
+    }
+
+    @GetMapping("/orders/rollups")
+    public ResponseEntity<?> listRollups(
+            @RequestParam(required = false) Long begin,
+            @RequestParam(required = false) Long end,
+            @RequestParam(required = false) String granularity
     ) {
         try {
             if (end == null) {
@@ -38,8 +198,22 @@ public class OrdersController {
                 begin = end - Dates.DAY_TIMESTAMP;
             }
 
-            List<Order> orders = ordersService.getOrdersByRange(begin, end);
-            return ResponseEntity.status(200).body(orders);
+            OrdersRollup rollup = ordersRollups.getRollup(begin, end, granularity);
+            return ResponseEntity.status(200).body(rollup);
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/orders/products/top")
+    public ResponseEntity<?> listTopProducts(
+            @RequestParam(required = false) String window,
+            @RequestParam(required = false) Integer limit
+    ) {
+        try {
+            List<TopProduct> products = topProducts.getTopProducts(window, limit == null ? DEFAULT_TOP_PRODUCTS : limit);
+            return ResponseEntity.status(200).body(products);
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
             return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
@@ -47,10 +221,32 @@ public class OrdersController {
     }
 
     @GetMapping("/orders/order/{orderNumber}")
-    public ResponseEntity<?> findOrderByOrderNumber(@PathVariable("orderNumber") Long orderNumber) {
+    public ResponseEntity<?> findOrderByOrderNumber(
+            @PathVariable("orderNumber") Long orderNumber,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         try {
-            Order order = ordersService.getOrderByOrderNumber(orderNumber);
-            return ResponseEntity.status(200).body(order);
+            OrderFields selected = OrderFields.parse(fields);
+            OrdersVersion version = null;
+            if (ifNoneMatch != null) {
+                version = ordersService.getOrderVersion(orderNumber);
+                if (version != null && ETags.matches(ifNoneMatch, version.getEtag())) {
+                    return versioned(304, version).build();
+                }
+            }
+
+            // Projections always read the fields the tag is computed from, and drop them once it is
+            Order order = ordersService.getOrderByOrderNumber(orderNumber, selected == null ? null : selected.withVersion());
+            if (order == null) {
+                return ResponseEntity.status(200).body(order);
+            }
+
+            if (version == null) {
+                version = ETags.order(order);
+            }
+
+            return versioned(200, version).body(selected == null ? order : selected.trim(order));
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
             return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
@@ -58,9 +254,20 @@ public class OrdersController {
     }
 
     @GetMapping("/orders/client/{clientId}")
-    public ResponseEntity<?> listOrdersByClientId(@PathVariable("clientId") Long clientId) {
+    public ResponseEntity<?> listOrdersByClientId(
+            @PathVariable("clientId") Long clientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields
+    ) {
         try {
-            List<Order> orders = ordersService.getOrdersByClientId(clientId);
+            OrderFields selected = OrderFields.parse(fields);
+            if (cursor != null || limit != null) {
+                OrdersPage page = ordersService.getOrdersPageByClientId(clientId, cursor, pageSize(limit), selected);
+                return ResponseEntity.status(200).body(page);
+            }
+
+            List<Order> orders = ordersService.getOrdersByClientId(clientId, selected);
             return ResponseEntity.status(200).body(orders);
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
@@ -68,4 +275,74 @@ public class OrdersController {
         }
     }
 
+    @GetMapping("/orders/client/{clientId}/stats")
+    public ResponseEntity<?> findClientStats(@PathVariable("clientId") Long clientId) {
+        try {
+            ClientStats stats = clientStatsService.get(clientId);
+            return ResponseEntity.status(200).body(stats);
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<List<Order>> getOrdersByRange(long begin, long end, OrderFields selected, String ifNoneMatch) throws Exception {
+        // A conditional request is answered from the index alone, without reading the orders
+        OrdersVersion version = null;
+        if (ifNoneMatch != null) {
+            version = ordersService.getOrdersVersionByRange(begin, end);
+            if (ETags.matches(ifNoneMatch, version.getEtag())) {
+                return versioned(304, version).build();
+            }
+        }
+
+        // Projections always read the fields the tag is computed from, and drop them once it is
+        List<Order> orders = ordersService.getOrdersByRange(begin, end, selected == null ? null : selected.withKeyset());
+        if (version == null) {
+            version = ETags.range(orders);
+        }
+
+        if (selected != null) {
+            orders.forEach(selected::trim);
+        }
+
+        return versioned(200, version).body(orders);
+    }
+
+    private static ResponseEntity.BodyBuilder versioned(int status, OrdersVersion version) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status).eTag(version.getEtag());
+        if (version.getLastModified() > 0) {
+            response.lastModified(version.getLastModified());
+        }
+
+        return response;
+    }
+
+    private static int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_SIZE : limit;
+    }
+
+    private void writeJson(Object value, OutputStream out) throws IOException {
+        try (JsonGenerator generator = streamWriter.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            streamWriter.writeValue(generator, value);
+        }
+    }
+
+    private void writeNdjson(long begin, long end, OutputStream out) throws IOException {
+        try (Stream<Order> orders = ordersService.streamOrdersByRange(begin, end);
+             JsonGenerator generator = streamWriter.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                streamWriter.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+            }
+        } catch (InvalidOrderFilterException e) {
+            // Already validated before the response was started
+            throw new IllegalStateException(e);
+        }
+    }
+
 }
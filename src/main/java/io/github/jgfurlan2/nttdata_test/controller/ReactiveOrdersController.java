@@ -0,0 +1,117 @@
+package io.github.jgfurlan2.nttdata_test.controller;
+
+import io.github.jgfurlan2.nttdata_test.model.ClientStats;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrdersRollup;
+import io.github.jgfurlan2.nttdata_test.model.TopProduct;
+import io.github.jgfurlan2.nttdata_test.service.ReactiveOrdersService;
+import io.github.jgfurlan2.nttdata_test.util.Dates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@Profile("reactive")
+public class ReactiveOrdersController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveOrdersController.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_TOP_PRODUCTS = 10;
+
+    private final ReactiveOrdersService ordersService;
+
+    public ReactiveOrdersController(ReactiveOrdersService ordersService) {
+        this.ordersService = ordersService;
+    }
+
+    @GetMapping("/orders")
+    public Mono<?> listOrders(
+            @RequestParam(required = false) Long begin,
+            @RequestParam(required = false) Long end,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        long to = end == null ? System.currentTimeMillis() : end;
+        long from = begin == null ? to - Dates.DAY_TIMESTAMP : begin;
+
+        if (cursor != null || limit != null) {
+            return ordersService.getOrdersPageByRange(from, to, cursor, pageSize(limit));
+        }
+
+        return ordersService.getOrdersByRange(from, to).collectList();
+    }
+
+    @GetMapping(value = "/orders", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Order> streamOrders(
+            @RequestParam(required = false) Long begin,
+            @RequestParam(required = false) Long end
+    ) {
+        long to = end == null ? System.currentTimeMillis() : end;
+        long from = begin == null ? to - Dates.DAY_TIMESTAMP : begin;
+
+        return ordersService.streamOrdersByRange(from, to);
+    }
+
+    @GetMapping("/orders/rollups")
+    public Mono<OrdersRollup> listRollups(
+            @RequestParam(required = false) Long begin,
+            @RequestParam(required = false) Long end,
+            @RequestParam(required = false) String granularity
+    ) {
+        long to = end == null ? System.currentTimeMillis() : end;
+        long from = begin == null ? to - Dates.DAY_TIMESTAMP : begin;
+
+        return ordersService.getRollup(from, to, granularity);
+    }
+
+    @GetMapping("/orders/products/top")
+    public Mono<List<TopProduct>> listTopProducts(
+            @RequestParam(required = false) String window,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ordersService.getTopProducts(window, limit == null ? DEFAULT_TOP_PRODUCTS : limit);
+    }
+
+    @GetMapping("/orders/order/{orderNumber}")
+    public Mono<Order> findOrderByOrderNumber(@PathVariable("orderNumber") Long orderNumber) {
+        return ordersService.getOrderByOrderNumber(orderNumber);
+    }
+
+    @GetMapping("/orders/client/{clientId}")
+    public Mono<?> listOrdersByClientId(
+            @PathVariable("clientId") Long clientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        if (cursor != null || limit != null) {
+            return ordersService.getOrdersPageByClientId(clientId, cursor, pageSize(limit));
+        }
+
+        return ordersService.getOrdersByClientId(clientId).collectList();
+    }
+
+    @GetMapping("/orders/client/{clientId}/stats")
+    public Mono<ClientStats> findClientStats(@PathVariable("clientId") Long clientId) {
+        return ordersService.getClientStats(clientId);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<?> handleException(Exception e) {
+        // Errors are signalled before the first order is written, so the response can still become a 500
+        LOGGER.error(e.getMessage(), e);
+        return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON).body(Map.of("message", e.getMessage()));
+    }
+
+    private static int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_SIZE : limit;
+    }
+
+}
@@ -6,4 +6,8 @@ public class InvalidClientAddressException extends Exception {
         super(message);
     }
 
+    public InvalidClientAddressException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
 }
@@ -6,4 +6,8 @@ public class InvalidClientException extends Exception {
         super(message);
     }
 
+    public InvalidClientException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
 }
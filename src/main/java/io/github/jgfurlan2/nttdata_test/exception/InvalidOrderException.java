@@ -6,4 +6,8 @@ public class InvalidOrderException extends Exception {
         super(message);
     }
 
+    public InvalidOrderException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
 }
@@ -6,4 +6,8 @@ public class InvalidProductException extends Exception {
         super(message);
     }
 
+    public InvalidProductException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
 }
@@ -0,0 +1,9 @@
+package io.github.jgfurlan2.nttdata_test.exception;
+
+public class OrderQueueFullException extends Exception {
+
+    public OrderQueueFullException(String message) {
+        super(message);
+    }
+
+}
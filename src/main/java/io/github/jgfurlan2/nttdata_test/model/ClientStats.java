@@ -0,0 +1,23 @@
+package io.github.jgfurlan2.nttdata_test.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "client_stats")
+public class ClientStats {
+
+    @Id
+    private Long clientId;
+    private long orders;
+    private long items;
+    private double revenue;
+    private Long firstOrderedAt;
+    private Long lastOrderedAt;
+
+}
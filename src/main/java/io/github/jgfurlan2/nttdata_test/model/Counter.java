@@ -0,0 +1,19 @@
+package io.github.jgfurlan2.nttdata_test.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "counters")
+public class Counter {
+
+    @Id
+    private String id;
+    private Long value;
+
+}
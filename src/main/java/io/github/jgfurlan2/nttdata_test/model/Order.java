@@ -1,8 +1,11 @@
 package io.github.jgfurlan2.nttdata_test.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -10,13 +13,21 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Document(collection = "orders")
+@CompoundIndex(name = "orderedAt_orderNumber", def = "{ 'orderedAt': 1, 'orderNumber': 1 }")
+@CompoundIndex(name = "client_orderedAt_orderNumber", def = "{ 'client._id': 1, 'orderedAt': 1, 'orderNumber': 1 }")
 public class Order {
 
+    public static final String ORDER_NUMBER_INDEX = "orderNumber";
+    public static final String CHECKSUM_INDEX = "checksum";
+
+    @Indexed(name = ORDER_NUMBER_INDEX, unique = true)
     private Long orderNumber;
     private Client client;
     private List<Product> products;
     private Long orderedAt;
+    @Indexed(name = CHECKSUM_INDEX, unique = true)
     private String checksum;
 
 }
@@ -0,0 +1,28 @@
+package io.github.jgfurlan2.nttdata_test.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderAck {
+
+    private Long orderNumber;
+    private boolean duplicated;
+    private String error;
+
+    public static OrderAck registered(Long orderNumber) {
+        return new OrderAck(orderNumber, false, null);
+    }
+
+    public static OrderAck duplicated() {
+        return new OrderAck(null, true, null);
+    }
+
+    public static OrderAck error(String error) {
+        return new OrderAck(null, false, error);
+    }
+
+}
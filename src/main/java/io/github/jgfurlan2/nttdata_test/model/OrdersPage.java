@@ -0,0 +1,17 @@
+package io.github.jgfurlan2.nttdata_test.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrdersPage {
+
+    private List<Order> orders;
+    private String next;
+
+}
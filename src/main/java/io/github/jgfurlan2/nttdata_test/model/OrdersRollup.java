@@ -0,0 +1,18 @@
+package io.github.jgfurlan2.nttdata_test.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrdersRollup {
+
+    private RollupGranularity granularity;
+    private List<RollupBucket> buckets;
+    private RollupBucket total;
+
+}
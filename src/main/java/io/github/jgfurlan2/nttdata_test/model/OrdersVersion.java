@@ -0,0 +1,19 @@
+package io.github.jgfurlan2.nttdata_test.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Validators of an order or of the orders of a range, sent as the {@code ETag} and {@code Last-Modified} headers.
+ * {@code lastModified} is 0 when there is no order to date it by.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrdersVersion {
+
+    private String etag;
+    private long lastModified;
+
+}
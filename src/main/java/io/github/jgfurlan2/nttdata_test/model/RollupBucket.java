@@ -0,0 +1,44 @@
+package io.github.jgfurlan2.nttdata_test.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "order_rollups")
+@CompoundIndex(name = "granularity_start", def = "{ 'granularity': 1, 'start': 1 }")
+public class RollupBucket {
+
+    @Id
+    @JsonIgnore
+    private String id;
+    @JsonIgnore
+    private RollupGranularity granularity;
+    private long start;
+    private long orders;
+    private long items;
+    private double revenue;
+    @JsonIgnore
+    @Indexed(expireAfter = "0s")
+    private Date expiresAt;
+
+    public static RollupBucket empty(RollupGranularity granularity, long start) {
+        return new RollupBucket(granularity.id(start), granularity, start, 0, 0, 0, null);
+    }
+
+    public void add(RollupBucket other) {
+        orders += other.orders;
+        items += other.items;
+        revenue += other.revenue;
+    }
+
+}
@@ -0,0 +1,29 @@
+package io.github.jgfurlan2.nttdata_test.model;
+
+/**
+ * Width of the order rollup buckets, aligned to the epoch so every bucket of a granularity starts at a multiple of its
+ * width (UTC minutes, hours and days).
+ */
+public enum RollupGranularity {
+
+    MINUTE(60_000L), HOUR(3_600_000L), DAY(86_400_000L);
+
+    private final long millis;
+
+    RollupGranularity(long millis) {
+        this.millis = millis;
+    }
+
+    public long millis() {
+        return millis;
+    }
+
+    public long start(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, millis);
+    }
+
+    public String id(long start) {
+        return name() + ":" + start;
+    }
+
+}
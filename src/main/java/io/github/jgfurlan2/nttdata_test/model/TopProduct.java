@@ -0,0 +1,16 @@
+package io.github.jgfurlan2.nttdata_test.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopProduct {
+
+    private String gs1;
+    private long quantity;
+    private long error;
+
+}
@@ -0,0 +1,7 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.ClientStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface ClientStatsRepository extends MongoRepository<ClientStats, Long>, ClientStatsRepositoryCustom {
+}
@@ -0,0 +1,20 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.ClientStats;
+
+import java.util.Collection;
+
+public interface ClientStatsRepositoryCustom {
+
+    /**
+     * Adds the counters of each delta to its client's document, creating it when missing, in a single round trip.
+     */
+    void increment(Collection<ClientStats> deltas);
+
+    /**
+     * Recomputes every client's document from the stored orders, replacing the incremented counters. Increments made
+     * while it runs may be lost or counted twice, so it is meant to run while no orders are being stored.
+     */
+    void rebuild();
+
+}
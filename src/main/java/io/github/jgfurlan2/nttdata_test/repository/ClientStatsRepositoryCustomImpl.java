@@ -0,0 +1,70 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.ClientStats;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class ClientStatsRepositoryCustomImpl implements ClientStatsRepositoryCustom {
+
+    private static final List<Document> REBUILD = List.of(
+            new Document("$match", new Document("client._id", new Document("$ne", null))),
+            new Document("$group", new Document("_id", "$client._id")
+                    .append("orders", new Document("$sum", 1L))
+                    .append("items", new Document("$sum", new Document("$sum", "$products.quantity")))
+                    .append("revenue", new Document("$sum", new Document("$sum", new Document("$map", new Document()
+                            .append("input", new Document("$ifNull", List.of("$products", List.of())))
+                            .append("as", "product")
+                            .append("in", new Document("$multiply", List.of(
+                                    new Document("$ifNull", List.of("$$product.price", 0)),
+                                    new Document("$ifNull", List.of("$$product.quantity", 0))
+                            )))))))
+                    .append("firstOrderedAt", new Document("$min", "$orderedAt"))
+                    .append("lastOrderedAt", new Document("$max", "$orderedAt"))),
+            new Document("$merge", new Document("into", "client_stats")
+                    .append("on", "_id")
+                    .append("whenMatched", "replace")
+                    .append("whenNotMatched", "insert"))
+    );
+
+    private final MongoTemplate template;
+
+    public ClientStatsRepositoryCustomImpl(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public void increment(Collection<ClientStats> deltas) {
+        BulkOperations operations = template.bulkOps(BulkOperations.BulkMode.UNORDERED, ClientStats.class);
+        for (ClientStats delta : deltas) {
+            Update update = new Update()
+                    .inc("orders", delta.getOrders())
+                    .inc("items", delta.getItems())
+                    .inc("revenue", delta.getRevenue())
+                    .min("firstOrderedAt", delta.getFirstOrderedAt())
+                    .max("lastOrderedAt", delta.getLastOrderedAt());
+
+            operations.upsert(query(where("_id").is(delta.getClientId())), update);
+        }
+
+        operations.execute();
+    }
+
+    @Override
+    public void rebuild() {
+        // Runs and writes on the server, the orders never leave Mongo
+        template.getCollection(template.getCollectionName(Order.class))
+                .aggregate(REBUILD)
+                .allowDiskUse(true)
+                .toCollection();
+    }
+
+}
@@ -0,0 +1,101 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.ClientStats;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * {@link ClientStatsRepository} of the {@code memory} profile. Each update replaces the client's stats with a new
+ * object, so callers never see them change under them.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryClientStatsRepository extends InMemoryRepositorySupport<ClientStats, Long> implements ClientStatsRepository {
+
+    private final Map<Long, ClientStats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public void increment(Collection<ClientStats> deltas) {
+        for (ClientStats delta : deltas) {
+            stats.compute(delta.getClientId(), (clientId, current) -> {
+                if (current == null) {
+                    return copy(delta);
+                }
+
+                return new ClientStats(
+                        clientId,
+                        current.getOrders() + delta.getOrders(),
+                        current.getItems() + delta.getItems(),
+                        current.getRevenue() + delta.getRevenue(),
+                        min(current.getFirstOrderedAt(), delta.getFirstOrderedAt()),
+                        max(current.getLastOrderedAt(), delta.getLastOrderedAt())
+                );
+            });
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        // The stats live and die with the in-memory orders and their increments cannot fail, so they never drift
+    }
+
+    @Override
+    public <S extends ClientStats> S save(S entity) {
+        stats.put(entity.getClientId(), copy(entity));
+        return entity;
+    }
+
+    @Override
+    public <S extends ClientStats> S insert(S entity) {
+        if (stats.putIfAbsent(entity.getClientId(), copy(entity)) != null) {
+            throw new DuplicateKeyException("E11000 duplicate key error: client " + entity.getClientId());
+        }
+
+        return entity;
+    }
+
+    @Override
+    public void deleteAll() {
+        stats.clear();
+    }
+
+    @Override
+    protected ClientStats get(Long clientId) {
+        return clientId == null ? null : stats.get(clientId);
+    }
+
+    @Override
+    protected Stream<ClientStats> all() {
+        return stats.values().stream();
+    }
+
+    @Override
+    protected Long id(ClientStats entity) {
+        return entity.getClientId();
+    }
+
+    @Override
+    protected void remove(Long clientId) {
+        stats.remove(clientId);
+    }
+
+    private static ClientStats copy(ClientStats stats) {
+        return new ClientStats(stats.getClientId(), stats.getOrders(), stats.getItems(), stats.getRevenue(),
+                stats.getFirstOrderedAt(), stats.getLastOrderedAt());
+    }
+
+    private static Long min(Long a, Long b) {
+        return a == null ? b : b == null ? a : Long.valueOf(Math.min(a, b));
+    }
+
+    private static Long max(Long a, Long b) {
+        return a == null ? b : b == null ? a : Long.valueOf(Math.max(a, b));
+    }
+
+}
@@ -0,0 +1,29 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.service.OrderNumberBlockSource;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link OrderNumberBlockSource} of the {@code memory} profile, where a single instance owns all the orders.
+ */
+@Component
+@Profile("memory")
+public class InMemoryOrderNumberBlockSource implements OrderNumberBlockSource {
+
+    private final AtomicLong counter;
+
+    public InMemoryOrderNumberBlockSource(OrdersRepository repository) {
+        Order highestOrderNumber = repository.findFirstByOrderByOrderNumberDesc();
+        counter = new AtomicLong(highestOrderNumber != null ? highestOrderNumber.getOrderNumber() : 0L);
+    }
+
+    @Override
+    public long reserve(int size) {
+        return counter.addAndGet(size) - size + 1;
+    }
+
+}
@@ -0,0 +1,377 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrdersVersion;
+import io.github.jgfurlan2.nttdata_test.util.DuplicateKeys;
+import io.github.jgfurlan2.nttdata_test.util.ETags;
+import io.github.jgfurlan2.nttdata_test.util.LongHashMap;
+import io.github.jgfurlan2.nttdata_test.util.OrderFields;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * {@link OrdersRepository} kept in memory, for running without Mongo. Orders are lost on restart.
+ * <p>
+ * Orders are stored by number in a {@link LongHashMap} and indexed by checksum, by client id (a list of order numbers
+ * per client) and by {@code orderedAt} (a sorted map from each millisecond to the numbers of its orders). Writes are
+ * serialized by a lock and readers never block: each index publishes an order only once it is fully stored in it, and
+ * {@link #count()} only counts it once it is in all of them.
+ * Results follow the sort of the matching Mongo query; the {@code Pageable} arguments only provide offset and size.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryOrdersRepository extends InMemoryRepositorySupport<Order, Long> implements OrdersRepository {
+
+    private static final Comparator<Order> KEYSET_ORDER = Comparator.comparing(Order::getOrderedAt).thenComparing(Order::getOrderNumber);
+
+    private final ReentrantLock writer = new ReentrantLock();
+    private final LongHashMap<Order> byNumber;
+    private final Map<String, Order> byChecksum;
+    private final LongHashMap<OrderNumbers> byClient;
+    private final ConcurrentSkipListMap<Long, long[]> byOrderedAt = new ConcurrentSkipListMap<>();
+    private volatile long maxOrderNumber;
+    private volatile int size;
+
+    public InMemoryOrdersRepository(@Value("${orders.memory.expected-orders:1000000}") int expectedOrders) {
+        byNumber = new LongHashMap<>(expectedOrders);
+        byChecksum = new ConcurrentHashMap<>(expectedOrders);
+        byClient = new LongHashMap<>(Math.max(16, expectedOrders / 16));
+    }
+
+    @Override
+    public Order findFirstByOrderByOrderNumberDesc() {
+        long max = maxOrderNumber;
+        return max == 0 ? null : byNumber.get(max);
+    }
+
+    @Override
+    public Order findByChecksum(String checksum) {
+        return byChecksum.get(checksum);
+    }
+
+    @Override
+    public List<Order> findByChecksumIn(Collection<String> checksums) {
+        List<Order> found = new ArrayList<>();
+        for (String checksum : checksums) {
+            Order order = byChecksum.get(checksum);
+            if (order != null) {
+                found.add(order);
+            }
+        }
+
+        return found;
+    }
+
+    @Override
+    public Stream<Order> streamAllChecksums() {
+        return byChecksum.values().stream();
+    }
+
+    @Override
+    public Order findByOrderNumber(Long orderNumber) {
+        return orderNumber == null || orderNumber <= 0 ? null : byNumber.get(orderNumber);
+    }
+
+    @Override
+    public Order findVersionByOrderNumber(Long orderNumber) {
+        return findByOrderNumber(orderNumber);
+    }
+
+    @Override
+    public List<Order> listByClientId(Long clientId) {
+        return clientOrders(clientId).toList();
+    }
+
+    @Override
+    public List<Order> listByClientIdAfter(Long clientId, Long orderedAt, Long orderNumber, Pageable page) {
+        return page(clientOrders(clientId).filter(order -> after(order, orderedAt, orderNumber)).sorted(KEYSET_ORDER), page);
+    }
+
+    @Override
+    public List<Order> listByRange(Long begin, Long end) {
+        return range(begin, end).toList();
+    }
+
+    @Override
+    public Stream<Order> streamByRange(Long begin, Long end) {
+        return range(begin, end);
+    }
+
+    @Override
+    public List<Order> listByRangeAfter(Long orderedAt, Long orderNumber, Long end, Pageable page) {
+        return page(range(orderedAt, end).filter(order -> after(order, orderedAt, orderNumber)), page);
+    }
+
+    @Override
+    public OrdersInsert insertIgnoringDuplicates(List<Order> orders) {
+        // Like an unordered bulk insert, a collision other than the checksum fails only its own order
+        List<Order> duplicated = new ArrayList<>();
+        Map<Order, String> failed = new IdentityHashMap<>();
+        writer.lock();
+        try {
+            for (Order order : orders) {
+                String index = violatedIndex(order);
+                if (index == null) {
+                    index(order);
+                } else if (Order.CHECKSUM_INDEX.equals(index)) {
+                    duplicated.add(order);
+                } else {
+                    failed.put(order, DuplicateKeys.message(index, order.getOrderNumber()));
+                }
+            }
+        } finally {
+            writer.unlock();
+        }
+
+        return new OrdersInsert(duplicated, failed);
+    }
+
+    @Override
+    public OrdersVersion findRangeVersion(long begin, long end) {
+        // Read from the time index alone, like the covered aggregation of the Mongo repository
+        long count = 0;
+        long maxNumber = 0;
+        long numberSum = 0;
+        long lastOrderedAt = 0;
+        for (Map.Entry<Long, long[]> entry : byOrderedAt.subMap(begin, true, end, true).entrySet()) {
+            for (long orderNumber : entry.getValue()) {
+                count++;
+                maxNumber = Math.max(maxNumber, orderNumber);
+                numberSum += orderNumber;
+            }
+
+            lastOrderedAt = entry.getKey();
+        }
+
+        return ETags.range(count, maxNumber, numberSum, lastOrderedAt);
+    }
+
+    @Override
+    public Order projectByOrderNumber(long orderNumber, OrderFields fields) {
+        Order order = findByOrderNumber(orderNumber);
+        return order == null ? null : fields.project(order);
+    }
+
+    @Override
+    public List<Order> projectByClientId(long clientId, OrderFields fields) {
+        return project(listByClientId(clientId), fields);
+    }
+
+    @Override
+    public List<Order> projectByClientIdAfter(long clientId, long orderedAt, long orderNumber, Pageable page, OrderFields fields) {
+        return project(listByClientIdAfter(clientId, orderedAt, orderNumber, page), fields);
+    }
+
+    @Override
+    public List<Order> projectByRange(long begin, long end, OrderFields fields) {
+        return project(listByRange(begin, end), fields);
+    }
+
+    @Override
+    public List<Order> projectByRangeAfter(long orderedAt, long orderNumber, long end, Pageable page, OrderFields fields) {
+        return project(listByRangeAfter(orderedAt, orderNumber, end, page), fields);
+    }
+
+    @Override
+    public <S extends Order> S save(S order) {
+        // Orders never change once stored, so saving is inserting
+        return insert(order);
+    }
+
+    @Override
+    public <S extends Order> S insert(S order) {
+        writer.lock();
+        try {
+            String index = violatedIndex(order);
+            if (index != null) {
+                Object key = Order.CHECKSUM_INDEX.equals(index) ? order.getChecksum() : order.getOrderNumber();
+                throw new DuplicateKeyException(DuplicateKeys.message(index, key));
+            }
+
+            index(order);
+            return order;
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        return size;
+    }
+
+    @Override
+    public void deleteAll() {
+        writer.lock();
+        try {
+            clear();
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    @Override
+    protected Order get(Long orderNumber) {
+        return findByOrderNumber(orderNumber);
+    }
+
+    @Override
+    protected Stream<Order> all() {
+        List<Order> orders = new ArrayList<>(byNumber.size());
+        byNumber.forEachValue(orders::add);
+        return orders.stream();
+    }
+
+    @Override
+    protected Long id(Order order) {
+        return order.getOrderNumber();
+    }
+
+    @Override
+    protected void remove(Long orderNumber) {
+        // Orders are only deleted by tests, so the indexes are simply rebuilt without it
+        writer.lock();
+        try {
+            if (findByOrderNumber(orderNumber) == null) {
+                return;
+            }
+
+            List<Order> kept = all().filter(order -> !order.getOrderNumber().equals(orderNumber)).toList();
+            clear();
+            kept.forEach(this::index);
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    private String violatedIndex(Order order) {
+        if (byNumber.get(order.getOrderNumber()) != null) {
+            return Order.ORDER_NUMBER_INDEX;
+        }
+
+        return byChecksum.containsKey(order.getChecksum()) ? Order.CHECKSUM_INDEX : null;
+    }
+
+    private void index(Order order) {
+        long orderNumber = order.getOrderNumber();
+        byNumber.put(orderNumber, order);
+        byChecksum.put(order.getChecksum(), order);
+
+        if (order.getClient() != null && order.getClient().getId() != null) {
+            OrderNumbers numbers = byClient.get(order.getClient().getId());
+            if (numbers == null) {
+                numbers = new OrderNumbers();
+                byClient.put(order.getClient().getId(), numbers);
+            }
+
+            numbers.add(orderNumber);
+        }
+
+        // Each millisecond's numbers are replaced by a sorted copy, so readers iterate either the old or the new one
+        byOrderedAt.merge(order.getOrderedAt(), new long[]{orderNumber}, InMemoryOrdersRepository::insertSorted);
+
+        if (orderNumber > maxOrderNumber) {
+            maxOrderNumber = orderNumber;
+        }
+
+        // Written last, so an order counted is in every index
+        size = size + 1;
+    }
+
+    private void clear() {
+        byNumber.clear();
+        byChecksum.clear();
+        byClient.clear();
+        byOrderedAt.clear();
+        maxOrderNumber = 0;
+        size = 0;
+    }
+
+    private Stream<Order> clientOrders(Long clientId) {
+        OrderNumbers numbers = clientId == null || clientId <= 0 ? null : byClient.get(clientId);
+        if (numbers == null) {
+            return Stream.empty();
+        }
+
+        return Arrays.stream(numbers.snapshot()).mapToObj(byNumber::get);
+    }
+
+    private Stream<Order> range(long begin, long end) {
+        if (begin > end) {
+            return Stream.empty();
+        }
+
+        ConcurrentNavigableMap<Long, long[]> window = byOrderedAt.subMap(begin, true, end, true);
+        return window.values().stream().flatMap(numbers -> Arrays.stream(numbers).mapToObj(byNumber::get));
+    }
+
+    private static boolean after(Order order, long orderedAt, long orderNumber) {
+        return order.getOrderedAt() > orderedAt || (order.getOrderedAt() == orderedAt && order.getOrderNumber() > orderNumber);
+    }
+
+    private static List<Order> page(Stream<Order> orders, Pageable page) {
+        return orders.skip(page.getOffset()).limit(page.getPageSize()).toList();
+    }
+
+    private static List<Order> project(List<Order> orders, OrderFields fields) {
+        List<Order> projected = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            projected.add(fields.project(order));
+        }
+
+        return projected;
+    }
+
+    private static long[] insertSorted(long[] numbers, long[] added) {
+        long orderNumber = added[0];
+        int position = Arrays.binarySearch(numbers, orderNumber);
+        if (position >= 0) {
+            return numbers;
+        }
+
+        position = -position - 1;
+        long[] merged = new long[numbers.length + 1];
+        System.arraycopy(numbers, 0, merged, 0, position);
+        merged[position] = orderNumber;
+        System.arraycopy(numbers, position, merged, position + 1, numbers.length - position);
+        return merged;
+    }
+
+    /**
+     * Order numbers of a client, appended by the writer while readers take snapshots. The array is published before
+     * the size that covers it, so a reader never reads past what was written.
+     */
+    private static final class OrderNumbers {
+
+        private volatile long[] numbers = new long[4];
+        private volatile int size;
+
+        private void add(long orderNumber) {
+            long[] current = numbers;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+
+            current[size] = orderNumber;
+            numbers = current;
+            size = size + 1;
+        }
+
+        private long[] snapshot() {
+            int count = size;
+            return Arrays.copyOf(numbers, count);
+        }
+
+    }
+
+}
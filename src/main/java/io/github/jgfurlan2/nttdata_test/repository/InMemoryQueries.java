@@ -0,0 +1,219 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.*;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.support.ExampleMatcherAccessor;
+
+import java.beans.PropertyDescriptor;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Sorting, paging and query by example over the entities of the in-memory repositories, reading their properties
+ * through the getters. Like Mongo, nulls sort first, strings follow the example's string matcher and any other value
+ * (collections included) must be equal.
+ */
+final class InMemoryQueries {
+
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    private InMemoryQueries() {
+    }
+
+    static <T> Stream<T> sorted(Stream<T> entities, Sort sort) {
+        return sort.isSorted() ? entities.sorted(comparator(sort)) : entities;
+    }
+
+    static <T> Page<T> page(Stream<T> entities, Pageable pageable) {
+        List<T> all = sorted(entities, pageable.getSort()).toList();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all, pageable, all.size());
+        }
+
+        List<T> content = all.stream().skip(pageable.getOffset()).limit(pageable.getPageSize()).toList();
+        return new PageImpl<>(content, pageable, all.size());
+    }
+
+    static <T> Optional<T> one(Stream<T> entities) {
+        List<T> found = entities.limit(2).toList();
+        if (found.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, found.size());
+        }
+
+        return found.stream().findFirst();
+    }
+
+    static <T, S extends T> Stream<S> matching(Stream<T> entities, Example<S> example) {
+        Class<S> type = example.getProbeType();
+        ExampleMatcherAccessor matcher = new ExampleMatcherAccessor(example.getMatcher());
+        boolean all = example.getMatcher().isAllMatching();
+
+        return entities.filter(type::isInstance)
+                .map(type::cast)
+                .filter(entity -> matches(example.getProbe(), entity, "", matcher, all));
+    }
+
+    static <T> FluentQuery.FetchableFluentQuery<T> query(List<T> entities, Class<T> type) {
+        return new ListQuery<>(entities, type, Sort.unsorted(), 0);
+    }
+
+    private static Comparator<Object> comparator(Sort sort) {
+        Comparator<Object> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Object> byProperty = Comparator.comparing(
+                    entity -> comparable(new BeanWrapperImpl(entity).getPropertyValue(order.getProperty())),
+                    Comparator.nullsFirst(Comparator.naturalOrder())
+            );
+
+            if (order.isDescending()) {
+                byProperty = byProperty.reversed();
+            }
+
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+
+        return comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> comparable(Object value) {
+        return (Comparable<Object>) value;
+    }
+
+    /**
+     * Returns whether the entity has the values set in the probe, walking into nested objects. With {@code all} false
+     * a single matching value is enough.
+     */
+    private static boolean matches(Object probe, Object entity, String prefix, ExampleMatcherAccessor matcher, boolean all) {
+        BeanWrapper probeValues = new BeanWrapperImpl(probe);
+        BeanWrapper entityValues = entity == null ? null : new BeanWrapperImpl(entity);
+
+        boolean compared = false;
+        for (PropertyDescriptor property : probeValues.getPropertyDescriptors()) {
+            String name = property.getName();
+            String path = prefix + name;
+            if (property.getReadMethod() == null || name.equals("class") || matcher.isIgnoredPath(path)) {
+                continue;
+            }
+
+            Object expected = matcher.getValueTransformerForPath(path)
+                    .apply(Optional.ofNullable(probeValues.getPropertyValue(name)))
+                    .orElse(null);
+            if (expected == null && matcher.getNullHandler() == ExampleMatcher.NullHandler.IGNORE) {
+                continue;
+            }
+
+            Object actual = entityValues == null ? null : entityValues.getPropertyValue(name);
+            boolean match;
+            if (expected == null) {
+                match = actual == null;
+            } else if (expected instanceof String text) {
+                match = actual instanceof String value && matches(text, value, matcher, path);
+            } else if (BeanUtils.isSimpleValueType(expected.getClass()) || expected instanceof Collection || expected instanceof Map) {
+                match = Objects.equals(expected, actual);
+            } else {
+                match = matches(expected, actual, path + ".", matcher, all);
+            }
+
+            if (match != all) {
+                return match;
+            }
+
+            compared = true;
+        }
+
+        // Nothing to compare matches everything, like an empty Mongo query
+        return all || !compared;
+    }
+
+    private static boolean matches(String expected, String actual, ExampleMatcherAccessor matcher, String path) {
+        boolean ignoreCase = matcher.isIgnoreCaseForPath(path);
+        return switch (matcher.getStringMatcherForPath(path)) {
+            case DEFAULT, EXACT -> ignoreCase ? expected.equalsIgnoreCase(actual) : expected.equals(actual);
+            case STARTING -> actual.regionMatches(ignoreCase, 0, expected, 0, expected.length());
+            case ENDING -> actual.regionMatches(ignoreCase, actual.length() - expected.length(), expected, 0, expected.length());
+            case CONTAINING -> ignoreCase
+                    ? actual.toLowerCase(Locale.ROOT).contains(expected.toLowerCase(Locale.ROOT))
+                    : actual.contains(expected);
+            case REGEX -> Pattern.compile(expected, ignoreCase ? Pattern.CASE_INSENSITIVE : 0).matcher(actual).find();
+        };
+    }
+
+    /**
+     * Fluent query over entities already matched. Every property of an in-memory entity is at hand, so selecting the
+     * properties to read changes nothing.
+     */
+    private record ListQuery<R>(List<?> entities, Class<R> type, Sort sort, int limit) implements FluentQuery.FetchableFluentQuery<R> {
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> sortBy(Sort sort) {
+            return new ListQuery<>(entities, type, this.sort.and(sort), limit);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> limit(int limit) {
+            return new ListQuery<>(entities, type, sort, limit);
+        }
+
+        @Override
+        public <N> FluentQuery.FetchableFluentQuery<N> as(Class<N> type) {
+            return new ListQuery<>(entities, type, sort, limit);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> project(Collection<String> properties) {
+            return this;
+        }
+
+        @Override
+        public R oneValue() {
+            return InMemoryQueries.one(stream()).orElse(null);
+        }
+
+        @Override
+        public R firstValue() {
+            return stream().findFirst().orElse(null);
+        }
+
+        @Override
+        public List<R> all() {
+            return stream().toList();
+        }
+
+        @Override
+        public Page<R> page(Pageable pageable) {
+            Stream<?> ordered = sorted(entities.stream(), sort);
+            return InMemoryQueries.page(ordered, pageable).map(this::cast);
+        }
+
+        @Override
+        public Stream<R> stream() {
+            Stream<?> ordered = sorted(entities.stream(), sort);
+            return (limit > 0 ? ordered.limit(limit) : ordered).map(this::cast);
+        }
+
+        @Override
+        public long count() {
+            return entities.size();
+        }
+
+        @Override
+        public boolean exists() {
+            return !entities.isEmpty();
+        }
+
+        private R cast(Object entity) {
+            // Interface projections are proxies over the entity, like those of the Mongo repositories
+            return type.isInstance(entity) ? type.cast(entity) : PROJECTIONS.createProjection(type, entity);
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The generic {@code MongoRepository} methods of the in-memory repositories of the {@code memory} profile, on top of
+ * a few storage methods. Sorted, paged and query by example lookups scan every entity ({@link InMemoryQueries}).
+ */
+public abstract class InMemoryRepositorySupport<T, ID> {
+
+    protected abstract T get(ID id);
+
+    protected abstract Stream<T> all();
+
+    protected abstract ID id(T entity);
+
+    protected abstract void remove(ID id);
+
+    public abstract <S extends T> S save(S entity);
+
+    public abstract <S extends T> S insert(S entity);
+
+    public abstract void deleteAll();
+
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+
+        return saved;
+    }
+
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        // Like an ordered insert, a duplicate fails the batch after the entities before it were stored
+        List<S> inserted = new ArrayList<>();
+        for (S entity : entities) {
+            inserted.add(insert(entity));
+        }
+
+        return inserted;
+    }
+
+    public Optional<T> findById(ID id) {
+        return Optional.ofNullable(get(id));
+    }
+
+    public boolean existsById(ID id) {
+        return get(id) != null;
+    }
+
+    public List<T> findAll() {
+        return all().toList();
+    }
+
+    public List<T> findAllById(Iterable<ID> ids) {
+        List<T> found = new ArrayList<>();
+        for (ID id : ids) {
+            T entity = get(id);
+            if (entity != null) {
+                found.add(entity);
+            }
+        }
+
+        return found;
+    }
+
+    public long count() {
+        return all().count();
+    }
+
+    public void deleteById(ID id) {
+        remove(id);
+    }
+
+    public void delete(T entity) {
+        remove(id(entity));
+    }
+
+    public void deleteAllById(Iterable<? extends ID> ids) {
+        for (ID id : ids) {
+            remove(id);
+        }
+    }
+
+    public void deleteAll(Iterable<? extends T> entities) {
+        for (T entity : entities) {
+            delete(entity);
+        }
+    }
+
+    public List<T> findAll(Sort sort) {
+        return InMemoryQueries.sorted(all(), sort).toList();
+    }
+
+    public Page<T> findAll(Pageable pageable) {
+        return InMemoryQueries.page(all(), pageable);
+    }
+
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        return InMemoryQueries.one(InMemoryQueries.matching(all(), example));
+    }
+
+    public <S extends T> List<S> findAll(Example<S> example) {
+        return InMemoryQueries.matching(all(), example).toList();
+    }
+
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        return InMemoryQueries.sorted(InMemoryQueries.matching(all(), example), sort).toList();
+    }
+
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return InMemoryQueries.page(InMemoryQueries.matching(all(), example), pageable);
+    }
+
+    public <S extends T> long count(Example<S> example) {
+        return InMemoryQueries.matching(all(), example).count();
+    }
+
+    public <S extends T> boolean exists(Example<S> example) {
+        return InMemoryQueries.matching(all(), example).findAny().isPresent();
+    }
+
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        List<S> matched = InMemoryQueries.matching(all(), example).toList();
+        return queryFunction.apply(InMemoryQueries.query(matched, example.getProbeType()));
+    }
+
+}
@@ -0,0 +1,115 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.RollupBucket;
+import io.github.jgfurlan2.nttdata_test.model.RollupGranularity;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * {@link RollupBucketRepository} of the {@code memory} profile: the buckets of each granularity sorted by start. Since
+ * a bucket expires a fixed time after its start, expired buckets are always at the head and are dropped from there on
+ * each increment, taking the place of the TTL index.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryRollupBucketRepository extends InMemoryRepositorySupport<RollupBucket, String> implements RollupBucketRepository {
+
+    private final Map<RollupGranularity, ConcurrentSkipListMap<Long, RollupBucket>> buckets = new EnumMap<>(RollupGranularity.class);
+
+    public InMemoryRollupBucketRepository() {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            buckets.put(granularity, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    @Override
+    public List<RollupBucket> listByRange(RollupGranularity granularity, long from, long to) {
+        if (from > to) {
+            return List.of();
+        }
+
+        long now = System.currentTimeMillis();
+        return buckets.get(granularity).subMap(from, true, to, true).values().stream()
+                .filter(bucket -> !isExpired(bucket, now))
+                .toList();
+    }
+
+    @Override
+    public void increment(Collection<RollupBucket> deltas) {
+        long now = System.currentTimeMillis();
+        for (RollupBucket delta : deltas) {
+            ConcurrentSkipListMap<Long, RollupBucket> granularity = buckets.get(delta.getGranularity());
+            granularity.compute(delta.getStart(), (start, current) -> {
+                RollupBucket updated = copy(current != null ? current : delta);
+                if (current != null) {
+                    updated.add(delta);
+                }
+
+                return updated;
+            });
+
+            Map.Entry<Long, RollupBucket> head;
+            while ((head = granularity.firstEntry()) != null && isExpired(head.getValue(), now)) {
+                granularity.remove(head.getKey(), head.getValue());
+            }
+        }
+    }
+
+    @Override
+    public <S extends RollupBucket> S save(S entity) {
+        buckets.get(entity.getGranularity()).put(entity.getStart(), copy(entity));
+        return entity;
+    }
+
+    @Override
+    public <S extends RollupBucket> S insert(S entity) {
+        if (buckets.get(entity.getGranularity()).putIfAbsent(entity.getStart(), copy(entity)) != null) {
+            throw new DuplicateKeyException("E11000 duplicate key error: rollup bucket " + entity.getId());
+        }
+
+        return entity;
+    }
+
+    @Override
+    public void deleteAll() {
+        buckets.values().forEach(Map::clear);
+    }
+
+    @Override
+    protected RollupBucket get(String id) {
+        return all().filter(bucket -> bucket.getId().equals(id)).findFirst().orElse(null);
+    }
+
+    @Override
+    protected Stream<RollupBucket> all() {
+        return buckets.values().stream().flatMap(granularity -> granularity.values().stream());
+    }
+
+    @Override
+    protected String id(RollupBucket entity) {
+        return entity.getId();
+    }
+
+    @Override
+    protected void remove(String id) {
+        RollupBucket bucket = get(id);
+        if (bucket != null) {
+            buckets.get(bucket.getGranularity()).remove(bucket.getStart());
+        }
+    }
+
+    private static boolean isExpired(RollupBucket bucket, long now) {
+        return bucket.getExpiresAt() != null && bucket.getExpiresAt().getTime() <= now;
+    }
+
+    private static RollupBucket copy(RollupBucket bucket) {
+        return new RollupBucket(bucket.getId(), bucket.getGranularity(), bucket.getStart(), bucket.getOrders(),
+                bucket.getItems(), bucket.getRevenue(), bucket.getExpiresAt());
+    }
+
+}
@@ -0,0 +1,48 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.Counter;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.service.OrderNumberBlockSource;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.data.mongodb.core.FindAndModifyOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+@Profile("!memory")
+public class MongoOrderNumberBlockSource implements OrderNumberBlockSource {
+
+    private static final String COUNTER_ID = "orderNumber";
+
+    private final MongoTemplate template;
+
+    public MongoOrderNumberBlockSource(MongoTemplate template, OrdersRepository repository) {
+        this.template = template;
+
+        // Never hand out numbers below the ones already stored, e.g. when the counter is created on an existing database
+        Order highestOrderNumber = repository.findFirstByOrderByOrderNumberDesc();
+        long latestOrderNumber = highestOrderNumber != null ? highestOrderNumber.getOrderNumber() : 0L;
+        template.upsert(counterQuery(), new Update().max("value", latestOrderNumber), Counter.class);
+    }
+
+    @Override
+    public long reserve(int size) {
+        Counter counter = template.findAndModify(
+                counterQuery(),
+                new Update().inc("value", size),
+                options().returnNew(true).upsert(true),
+                Counter.class
+        );
+
+        return counter.getValue() - size + 1;
+    }
+
+    private static Query counterQuery() {
+        return Query.query(where("_id").is(COUNTER_ID));
+    }
+
+}
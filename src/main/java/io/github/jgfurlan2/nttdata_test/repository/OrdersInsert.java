@@ -0,0 +1,48 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.util.DuplicateKeys;
+import org.springframework.data.mongodb.BulkOperationException;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of an unordered insert of orders: the ones rejected by the unique checksum index, which were already stored,
+ * and the ones that failed for any other reason, with the error of each. All the others were stored.
+ */
+public record OrdersInsert(List<Order> duplicated, Map<Order, String> failed) {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    public static OrdersInsert stored() {
+        return new OrdersInsert(List.of(), Map.of());
+    }
+
+    /**
+     * Splits the errors of an unordered bulk insert of the orders. Throws the error back when it tells no order apart,
+     * as then nothing says which ones were stored.
+     */
+    static OrdersInsert of(List<Order> orders, BulkOperationException e) {
+        if (e.getErrors().isEmpty()) {
+            throw e;
+        }
+
+        List<Order> duplicated = new ArrayList<>();
+        Map<Order, String> failed = new IdentityHashMap<>();
+        for (BulkWriteError error : e.getErrors()) {
+            Order order = orders.get(error.getIndex());
+            if (error.getCode() == DUPLICATE_KEY && DuplicateKeys.isChecksum(error.getMessage())) {
+                duplicated.add(order);
+            } else {
+                failed.put(order, error.getMessage());
+            }
+        }
+
+        return new OrdersInsert(duplicated, failed);
+    }
+
+}
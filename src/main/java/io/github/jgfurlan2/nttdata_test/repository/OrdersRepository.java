@@ -1,22 +1,47 @@
 package io.github.jgfurlan2.nttdata_test.repository;
 
 import io.github.jgfurlan2.nttdata_test.model.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Hint;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface OrdersRepository extends MongoRepository<Order, Long> {
+public interface OrdersRepository extends MongoRepository<Order, Long>, OrdersRepositoryCustom {
 
     Order findFirstByOrderByOrderNumberDesc();
 
     Order findByChecksum(String checksum);
 
+    @Query(value = "{ 'checksum': { $in: ?0 } }", fields = "{ 'checksum': 1, 'orderNumber': 1 }")
+    List<Order> findByChecksumIn(Collection<String> checksums);
+
+    // Walks the checksum index alone instead of every order document
+    @Hint(Order.CHECKSUM_INDEX)
+    @Query(value = "{}", fields = "{ 'checksum': 1, '_id': 0 }")
+    Stream<Order> streamAllChecksums();
+
     Order findByOrderNumber(Long orderNumber);
 
+    @Query(value = "{ 'orderNumber': ?0 }", fields = "{ 'orderNumber': 1, 'checksum': 1, 'orderedAt': 1 }")
+    Order findVersionByOrderNumber(Long orderNumber);
+
     @Query("{ 'client._id': ?0 }")
     List<Order> listByClientId(Long clientId);
 
+    @Query("{ 'client._id': ?0, 'orderedAt': { $gte: ?1 }, $or: [ { 'orderedAt': { $gt: ?1 } }, { 'orderNumber': { $gt: ?2 } } ] }")
+    List<Order> listByClientIdAfter(Long clientId, Long orderedAt, Long orderNumber, Pageable page);
+
     @Query("{ 'orderedAt': { $gte: ?0, $lte: ?1 } }")
     List<Order> listByRange(Long begin, Long end);
+
+    @Query("{ 'orderedAt': { $gte: ?0, $lte: ?1 } }")
+    Stream<Order> streamByRange(Long begin, Long end);
+
+    @Query("{ 'orderedAt': { $gte: ?0, $lte: ?2 }, $or: [ { 'orderedAt': { $gt: ?0 } }, { 'orderNumber': { $gt: ?1 } } ] }")
+    List<Order> listByRangeAfter(Long orderedAt, Long orderNumber, Long end, Pageable page);
+
 }
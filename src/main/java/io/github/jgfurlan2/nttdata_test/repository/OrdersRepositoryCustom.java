@@ -0,0 +1,36 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrdersVersion;
+import io.github.jgfurlan2.nttdata_test.util.OrderFields;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface OrdersRepositoryCustom {
+
+    /**
+     * Inserts all orders in one unordered bulk write. An order that fails does not keep the others from being stored.
+     */
+    OrdersInsert insertIgnoringDuplicates(List<Order> orders);
+
+    /**
+     * Computes the version of the orders of a range from the {@code orderedAt_orderNumber} index alone.
+     */
+    OrdersVersion findRangeVersion(long begin, long end);
+
+    /**
+     * Runs the same filter as the {@code OrdersRepository} query of the same name, reading only the selected fields of
+     * each order. So do the other {@code projectBy} methods.
+     */
+    Order projectByOrderNumber(long orderNumber, OrderFields fields);
+
+    List<Order> projectByClientId(long clientId, OrderFields fields);
+
+    List<Order> projectByClientIdAfter(long clientId, long orderedAt, long orderNumber, Pageable page, OrderFields fields);
+
+    List<Order> projectByRange(long begin, long end, OrderFields fields);
+
+    List<Order> projectByRangeAfter(long orderedAt, long orderNumber, long end, Pageable page, OrderFields fields);
+
+}
@@ -0,0 +1,96 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrdersVersion;
+import io.github.jgfurlan2.nttdata_test.util.ETags;
+import io.github.jgfurlan2.nttdata_test.util.OrderFields;
+import org.bson.Document;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+public class OrdersRepositoryCustomImpl implements OrdersRepositoryCustom {
+
+    private final MongoTemplate template;
+
+    public OrdersRepositoryCustomImpl(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public OrdersInsert insertIgnoringDuplicates(List<Order> orders) {
+        try {
+            template.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class).insert(orders).execute();
+            return OrdersInsert.stored();
+        } catch (BulkOperationException e) {
+            return OrdersInsert.of(orders, e);
+        }
+    }
+
+    @Override
+    public OrdersVersion findRangeVersion(long begin, long end) {
+        // Only indexed fields are read, so the plan is covered and no order document is fetched
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("orderedAt").gte(begin).lte(end)),
+                Aggregation.group()
+                        .count().as("count")
+                        .max("orderNumber").as("maxOrderNumber")
+                        .sum("orderNumber").as("orderNumberSum")
+                        .max("orderedAt").as("lastOrderedAt")
+        );
+
+        Document summary = template.aggregate(aggregation, Order.class, Document.class).getUniqueMappedResult();
+        if (summary == null) {
+            return ETags.range(0, 0, 0, 0);
+        }
+
+        return ETags.range(
+                summary.get("count", Number.class).longValue(),
+                summary.get("maxOrderNumber", Number.class).longValue(),
+                summary.get("orderNumberSum", Number.class).longValue(),
+                summary.get("lastOrderedAt", Number.class).longValue()
+        );
+    }
+
+    @Override
+    public Order projectByOrderNumber(long orderNumber, OrderFields fields) {
+        return template.findOne(project(new Query(Criteria.where("orderNumber").is(orderNumber)), fields), Order.class);
+    }
+
+    @Override
+    public List<Order> projectByClientId(long clientId, OrderFields fields) {
+        return template.find(project(new Query(Criteria.where("client._id").is(clientId)), fields), Order.class);
+    }
+
+    @Override
+    public List<Order> projectByClientIdAfter(long clientId, long orderedAt, long orderNumber, Pageable page, OrderFields fields) {
+        Criteria criteria = Criteria.where("client._id").is(clientId).and("orderedAt").gte(orderedAt)
+                .orOperator(Criteria.where("orderedAt").gt(orderedAt), Criteria.where("orderNumber").gt(orderNumber));
+        return template.find(project(new Query(criteria).with(page), fields), Order.class);
+    }
+
+    @Override
+    public List<Order> projectByRange(long begin, long end, OrderFields fields) {
+        return template.find(project(new Query(Criteria.where("orderedAt").gte(begin).lte(end)), fields), Order.class);
+    }
+
+    @Override
+    public List<Order> projectByRangeAfter(long orderedAt, long orderNumber, long end, Pageable page, OrderFields fields) {
+        Criteria criteria = Criteria.where("orderedAt").gte(orderedAt).lte(end)
+                .orOperator(Criteria.where("orderedAt").gt(orderedAt), Criteria.where("orderNumber").gt(orderNumber));
+        return template.find(project(new Query(criteria).with(page), fields), Order.class);
+    }
+
+    private static Query project(Query query, OrderFields fields) {
+        // The other fields are left out by the server, so they are neither read into the response nor decoded
+        query.fields().include(fields.paths().toArray(String[]::new)).exclude("_id");
+        return query;
+    }
+
+}
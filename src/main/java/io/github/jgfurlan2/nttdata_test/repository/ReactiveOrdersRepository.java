@@ -0,0 +1,32 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveOrdersRepository extends ReactiveMongoRepository<Order, Long>, ReactiveOrdersRepositoryCustom {
+
+    Mono<Order> findByChecksum(String checksum);
+
+    @Query(value = "{ 'checksum': { $in: ?0 } }", fields = "{ 'checksum': 1 }")
+    Flux<Order> findByChecksumIn(Collection<String> checksums);
+
+    Mono<Order> findByOrderNumber(Long orderNumber);
+
+    @Query("{ 'client._id': ?0 }")
+    Flux<Order> listByClientId(Long clientId);
+
+    @Query("{ 'client._id': ?0, 'orderedAt': { $gte: ?1 }, $or: [ { 'orderedAt': { $gt: ?1 } }, { 'orderNumber': { $gt: ?2 } } ] }")
+    Flux<Order> listByClientIdAfter(Long clientId, Long orderedAt, Long orderNumber, Pageable page);
+
+    @Query("{ 'orderedAt': { $gte: ?0, $lte: ?1 } }")
+    Flux<Order> listByRange(Long begin, Long end);
+
+    @Query("{ 'orderedAt': { $gte: ?0, $lte: ?2 }, $or: [ { 'orderedAt': { $gt: ?0 } }, { 'orderNumber': { $gt: ?1 } } ] }")
+    Flux<Order> listByRangeAfter(Long orderedAt, Long orderNumber, Long end, Pageable page);
+}
@@ -0,0 +1,15 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveOrdersRepositoryCustom {
+
+    /**
+     * Inserts all orders in one unordered bulk write. An order that fails does not keep the others from being stored.
+     */
+    Mono<OrdersInsert> insertIgnoringDuplicates(List<Order> orders);
+
+}
@@ -0,0 +1,28 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public class ReactiveOrdersRepositoryCustomImpl implements ReactiveOrdersRepositoryCustom {
+
+    private final ReactiveMongoTemplate template;
+
+    public ReactiveOrdersRepositoryCustomImpl(ReactiveMongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public Mono<OrdersInsert> insertIgnoringDuplicates(List<Order> orders) {
+        return template.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)
+                .insert(orders)
+                .execute()
+                .thenReturn(OrdersInsert.stored())
+                .onErrorResume(BulkOperationException.class, e -> Mono.fromCallable(() -> OrdersInsert.of(orders, e)));
+    }
+
+}
@@ -0,0 +1,15 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.RollupBucket;
+import io.github.jgfurlan2.nttdata_test.model.RollupGranularity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.List;
+
+public interface RollupBucketRepository extends MongoRepository<RollupBucket, String>, RollupBucketRepositoryCustom {
+
+    @Query("{ 'granularity': ?0, 'start': { $gte: ?1, $lte: ?2 } }")
+    List<RollupBucket> listByRange(RollupGranularity granularity, long from, long to);
+
+}
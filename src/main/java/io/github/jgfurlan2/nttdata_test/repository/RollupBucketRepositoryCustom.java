@@ -0,0 +1,15 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.RollupBucket;
+
+import java.util.Collection;
+
+public interface RollupBucketRepositoryCustom {
+
+    /**
+     * Adds the counters of each delta to its bucket in one unordered bulk write, creating the missing buckets with the
+     * delta's expiry.
+     */
+    void increment(Collection<RollupBucket> deltas);
+
+}
@@ -0,0 +1,42 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.RollupBucket;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class RollupBucketRepositoryCustomImpl implements RollupBucketRepositoryCustom {
+
+    private final MongoTemplate template;
+
+    public RollupBucketRepositoryCustomImpl(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public void increment(Collection<RollupBucket> deltas) {
+        BulkOperations operations = template.bulkOps(BulkOperations.BulkMode.UNORDERED, RollupBucket.class);
+        for (RollupBucket delta : deltas) {
+            Update update = new Update()
+                    .inc("orders", delta.getOrders())
+                    .inc("items", delta.getItems())
+                    .inc("revenue", delta.getRevenue())
+                    .setOnInsert("granularity", delta.getGranularity())
+                    .setOnInsert("start", delta.getStart());
+
+            if (delta.getExpiresAt() != null) {
+                update.setOnInsert("expiresAt", delta.getExpiresAt());
+            }
+
+            operations.upsert(query(where("_id").is(delta.getId())), update);
+        }
+
+        operations.execute();
+    }
+
+}
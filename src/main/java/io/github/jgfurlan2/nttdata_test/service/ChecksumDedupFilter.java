@@ -0,0 +1,176 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.github.jgfurlan2.nttdata_test.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Answers "was this checksum already stored?" without touching Mongo whenever possible. A Bloom filter rules out
+ * unseen checksums and a bounded cache remembers the most recent ones; only Bloom filter hits that are not recent fall
+ * back to {@link OrdersRepository#findByChecksum(String)}. The unique checksum index stays the final arbiter, so a
+ * filter that is still warming up or missing checksums stored by other instances never lets a duplicate through.
+ */
+@Component
+public class ChecksumDedupFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChecksumDedupFilter.class);
+
+    private final OrdersRepository repository;
+    private final BloomFilter bloomFilter;
+    private final Map<String, Boolean> recent;
+    private final ReentrantLock recentLock = new ReentrantLock();
+
+    private final Counter filtered;
+    private final Counter recentHits;
+    private final Counter falsePositives;
+    private final Counter duplicates;
+
+    public ChecksumDedupFilter(
+            OrdersRepository repository,
+            MeterRegistry registry,
+            @Value("${orders.dedup.expected-checksums:1000000}") long expectedChecksums,
+            @Value("${orders.dedup.false-positive-probability:0.01}") double falsePositiveProbability,
+            @Value("${orders.dedup.recent-size:10000}") int recentSize
+    ) {
+        this.repository = repository;
+        this.bloomFilter = new BloomFilter(expectedChecksums, falsePositiveProbability);
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > recentSize;
+            }
+        };
+
+        this.filtered = checks(registry, "filtered");
+        this.recentHits = checks(registry, "recent");
+        this.falsePositives = checks(registry, "false_positive");
+        this.duplicates = checks(registry, "duplicate");
+
+        Gauge.builder("orders.dedup.false_positive_rate", this, ChecksumDedupFilter::falsePositiveRate)
+                .description("Share of unseen checksums the Bloom filter failed to rule out")
+                .register(registry);
+        Gauge.builder("orders.dedup.lookups_avoided", this, f -> f.filtered.count() + f.recentHits.count())
+                .description("Checksum checks answered without querying Mongo")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long count = 0;
+        try (Stream<Order> orders = repository.streamAllChecksums()) {
+            for (Iterator<Order> iterator = orders.iterator(); iterator.hasNext(); count++) {
+                bloomFilter.put(iterator.next().getChecksum());
+            }
+        }
+
+        LOGGER.info("Checksum filter warmed with {} stored orders", count);
+    }
+
+    public boolean contains(String checksum) {
+        Boolean known = containsLocally(checksum);
+        if (known != null) {
+            return known;
+        }
+
+        boolean found = repository.findByChecksum(checksum) != null;
+        recordLookup(checksum, found);
+        return found;
+    }
+
+    /**
+     * Answers from memory only, returning {@code null} when the checksum must be looked up in Mongo, whose answer is
+     * then reported through {@link #recordLookup(String, boolean)}.
+     */
+    public Boolean containsLocally(String checksum) {
+        if (!bloomFilter.mightContain(checksum)) {
+            filtered.increment();
+            return Boolean.FALSE;
+        }
+
+        if (isRecent(checksum)) {
+            recentHits.increment();
+            return Boolean.TRUE;
+        }
+
+        return null;
+    }
+
+    public void recordLookup(String checksum, boolean found) {
+        if (found) {
+            duplicates.increment();
+            record(checksum);
+        } else {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Splits a batch of checksums, returning the ones that are already known to be stored and leaving in
+     * {@code unresolved} only the ones that must still be looked up in Mongo.
+     */
+    public Set<String> containsAny(Collection<String> checksums, Collection<String> unresolved) {
+        Set<String> known = new HashSet<>();
+        for (String checksum : checksums) {
+            Boolean contained = containsLocally(checksum);
+            if (contained == null) {
+                unresolved.add(checksum);
+            } else if (contained) {
+                known.add(checksum);
+            }
+        }
+
+        return known;
+    }
+
+    public void recordLookups(Collection<String> lookedUp, Set<String> found) {
+        for (String checksum : lookedUp) {
+            recordLookup(checksum, found.contains(checksum));
+        }
+    }
+
+    public void record(String checksum) {
+        bloomFilter.put(checksum);
+
+        recentLock.lock();
+        try {
+            recent.put(checksum, Boolean.TRUE);
+        } finally {
+            recentLock.unlock();
+        }
+    }
+
+    public double falsePositiveRate() {
+        double negatives = filtered.count() + falsePositives.count();
+        return negatives == 0 ? 0 : falsePositives.count() / negatives;
+    }
+
+    private boolean isRecent(String checksum) {
+        recentLock.lock();
+        try {
+            return recent.get(checksum) != null;
+        } finally {
+            recentLock.unlock();
+        }
+    }
+
+    private static Counter checks(MeterRegistry registry, String result) {
+        return Counter.builder("orders.dedup.checks")
+                .description("Checksum duplicate checks by how they were answered")
+                .tag("result", result)
+                .register(registry);
+    }
+
+}
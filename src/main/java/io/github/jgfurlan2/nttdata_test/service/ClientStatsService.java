@@ -0,0 +1,200 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.ClientStats;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+import io.github.jgfurlan2.nttdata_test.repository.ClientStatsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-client order count, item count, revenue and first/last order time, kept in the client_stats collection and
+ * incremented as orders are stored, so dashboards read one document instead of every order of the client.
+ * <p>
+ * Recently read or written clients are kept in a hot set. Counters only grow, so between a cached copy and a newer
+ * one from Mongo the one with more orders wins; the hot set expires after a while to pick up the orders stored by
+ * other instances.
+ * <p>
+ * The increments are not idempotent, so a failed one is not retried: its orders are left out of the stats, counted by
+ * {@code orders.client_stats.drift}, until the stats are rebuilt from the orders ({@link #rebuild()}, also run on
+ * startup when {@code orders.stats.rebuild-on-startup} is set).
+ */
+@Component
+public class ClientStatsService implements OrdersListener {
+
+    private final ClientStatsRepository repository;
+    private final Cache<Long, ClientStats> hot;
+    private final Counter drift;
+    private final boolean rebuildOnStartup;
+
+    public ClientStatsService(
+            ClientStatsRepository repository,
+            MeterRegistry registry,
+            @Value("${orders.stats.hot-size:100000}") long hotSize,
+            @Value("${orders.stats.hot-ttl-ms:10000}") long hotTtl,
+            @Value("${orders.stats.rebuild-on-startup:false}") boolean rebuildOnStartup
+    ) {
+        this.repository = repository;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.hot = Caffeine.newBuilder()
+                .maximumSize(hotSize)
+                .expireAfterWrite(Duration.ofMillis(hotTtl))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, hot, "orders.client_stats");
+        this.drift = Counter.builder("orders.client_stats.drift")
+                .description("Stored orders left out of the client stats by a failed increment, until they are rebuilt")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (rebuildOnStartup) {
+            // Before the order receivers and the WAL replay start, so no increment races with it
+            rebuild();
+        }
+    }
+
+    /**
+     * Recomputes the stats of every client from the stored orders, bringing back the orders failed increments left
+     * out. Increments made while it runs may be lost or counted twice.
+     */
+    public void rebuild() {
+        repository.rebuild();
+        hot.invalidateAll();
+    }
+
+    public ClientStats get(Long clientId) throws Exception {
+        ClientStats stats = peek(clientId);
+        if (stats != null) {
+            return stats;
+        }
+
+        // Loaded outside Caffeine's compute, which runs under a monitor and would pin a virtual thread during the query
+        return putLoaded(repository.findById(clientId).orElseGet(() -> empty(clientId)));
+    }
+
+    /**
+     * Returns the hot copy of the client's stats, or {@code null} when they must be loaded.
+     */
+    public ClientStats peek(Long clientId) throws InvalidOrderFilterException {
+        if (clientId == null || clientId <= 0) {
+            throw new InvalidOrderFilterException("Invalid client id");
+        }
+
+        return hot.getIfPresent(clientId);
+    }
+
+    public ClientStats putLoaded(ClientStats stats) {
+        return hot.asMap().merge(stats.getClientId(), stats, ClientStatsService::latest);
+    }
+
+    @Override
+    public void ordersStored(List<Order> orders) {
+        Map<Long, ClientStats> deltas = new LinkedHashMap<>();
+        for (Order order : orders) {
+            Long clientId = order.getClient() == null ? null : order.getClient().getId();
+            if (clientId != null) {
+                add(deltas.computeIfAbsent(clientId, ClientStatsService::empty), order);
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            // One round trip for the whole batch, without reading the documents back
+            repository.increment(deltas.values());
+        } catch (RuntimeException e) {
+            lost(new ArrayList<>(deltas.values()), e);
+            throw e;
+        }
+
+        for (ClientStats delta : deltas.values()) {
+            hot.asMap().computeIfPresent(delta.getClientId(), (clientId, current) -> plus(current, delta));
+        }
+    }
+
+    /**
+     * Counts the orders whose increment failed, all of them when it is not known which ones, and drops their clients
+     * from the hot set so they are read back as Mongo has them.
+     */
+    private void lost(List<ClientStats> deltas, RuntimeException e) {
+        List<ClientStats> failed = deltas;
+        if (e instanceof BulkOperationException bulk) {
+            failed = bulk.getErrors().stream().map(error -> deltas.get(error.getIndex())).toList();
+        }
+
+        for (ClientStats delta : failed) {
+            drift.increment(delta.getOrders());
+            hot.invalidate(delta.getClientId());
+        }
+    }
+
+    private static ClientStats plus(ClientStats current, ClientStats delta) {
+        return new ClientStats(
+                current.getClientId(),
+                current.getOrders() + delta.getOrders(),
+                current.getItems() + delta.getItems(),
+                current.getRevenue() + delta.getRevenue(),
+                min(current.getFirstOrderedAt(), delta.getFirstOrderedAt()),
+                max(current.getLastOrderedAt(), delta.getLastOrderedAt())
+        );
+    }
+
+    private static Long min(Long a, Long b) {
+        return a == null ? b : b == null ? a : Long.valueOf(Math.min(a, b));
+    }
+
+    private static Long max(Long a, Long b) {
+        return a == null ? b : b == null ? a : Long.valueOf(Math.max(a, b));
+    }
+
+    private static void add(ClientStats stats, Order order) {
+        stats.setOrders(stats.getOrders() + 1);
+
+        if (order.getProducts() != null) {
+            for (Product product : order.getProducts()) {
+                long quantity = product.getQuantity() == null ? 0 : product.getQuantity();
+                stats.setItems(stats.getItems() + quantity);
+                if (product.getPrice() != null) {
+                    stats.setRevenue(stats.getRevenue() + product.getPrice() * quantity);
+                }
+            }
+        }
+
+        long orderedAt = order.getOrderedAt();
+        if (stats.getFirstOrderedAt() == null || orderedAt < stats.getFirstOrderedAt()) {
+            stats.setFirstOrderedAt(orderedAt);
+        }
+
+        if (stats.getLastOrderedAt() == null || orderedAt > stats.getLastOrderedAt()) {
+            stats.setLastOrderedAt(orderedAt);
+        }
+    }
+
+    private static ClientStats latest(ClientStats current, ClientStats loaded) {
+        return current.getOrders() > loaded.getOrders() ? current : loaded;
+    }
+
+    private static ClientStats empty(Long clientId) {
+        return new ClientStats(clientId, 0, 0, 0, null, null);
+    }
+
+}
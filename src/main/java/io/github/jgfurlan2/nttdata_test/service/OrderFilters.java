@@ -0,0 +1,47 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.util.Dates;
+
+/**
+ * The checks of the query filters shared by {@link OrdersService} and {@link ReactiveOrdersService}, so both stacks
+ * reject the same ranges and pages with the same messages.
+ */
+public class OrderFilters {
+
+    /**
+     * Checks a range whose orders are all read at once, which is bounded to 24h.
+     */
+    public static void validateRange(Long begin, Long end) throws InvalidOrderFilterException {
+        validateRange(begin, end, Dates.DAY_TIMESTAMP);
+    }
+
+    /**
+     * Checks a range that is streamed or paged, which is only bounded to protect Mongo, by {@code maxStreamRange} when
+     * positive.
+     */
+    public static void validateStreamRange(Long begin, Long end, long maxStreamRange) throws InvalidOrderFilterException {
+        validateRange(begin, end, maxStreamRange > 0 ? maxStreamRange : Long.MAX_VALUE);
+    }
+
+    public static void validatePageSize(int size, int maxPageSize) throws InvalidOrderFilterException {
+        if (size <= 0) {
+            throw new InvalidOrderFilterException("Invalid page size");
+        }
+
+        if (size > maxPageSize) {
+            throw new InvalidOrderFilterException("Max page size exceeded");
+        }
+    }
+
+    private static void validateRange(Long begin, Long end, long maxRange) throws InvalidOrderFilterException {
+        if (begin > end) {
+            throw new InvalidOrderFilterException("Begin date is after end date");
+        }
+
+        if (end - begin > maxRange) {
+            throw new InvalidOrderFilterException("Max range exceeded");
+        }
+    }
+
+}
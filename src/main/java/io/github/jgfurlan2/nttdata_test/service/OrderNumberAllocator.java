@@ -0,0 +1,79 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out order numbers from blocks reserved on a shared {@link OrderNumberBlockSource}, so the source is only hit
+ * once per block. Numbers are unique across instances and increasing within one instance; the unused tail of a block
+ * is lost when the instance stops, so gaps are expected.
+ */
+@Component
+public class OrderNumberAllocator {
+
+    private final OrderNumberBlockSource source;
+    private final int blockSize;
+    private final AtomicReference<Block> block = new AtomicReference<>(new Block(0, 0));
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    public OrderNumberAllocator(OrderNumberBlockSource source, @Value("${orders.number.block-size:100}") int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Order number block size must be positive");
+        }
+
+        this.source = source;
+        this.blockSize = blockSize;
+    }
+
+    public long next() {
+        while (true) {
+            Block current = block.get();
+            long orderNumber = current.next.getAndIncrement();
+            if (orderNumber < current.limit) {
+                return orderNumber;
+            }
+
+            refill(current);
+        }
+    }
+
+    /**
+     * Returns the next number of the current block without blocking, or {@code -1} when the block is exhausted and
+     * {@link #next()} must be called to reserve another one.
+     */
+    public long tryNext() {
+        Block current = block.get();
+        long orderNumber = current.next.getAndIncrement();
+        return orderNumber < current.limit ? orderNumber : -1;
+    }
+
+    private void refill(Block exhausted) {
+        // Not synchronized: the reservation is a Mongo round trip and must not pin a virtual thread's carrier
+        refillLock.lock();
+        try {
+            if (block.get() == exhausted) {
+                long first = source.reserve(blockSize);
+                block.set(new Block(first, first + blockSize));
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long limit;
+
+        private Block(long first, long limit) {
+            this.next = new AtomicLong(first);
+            this.limit = limit;
+        }
+
+    }
+
+}
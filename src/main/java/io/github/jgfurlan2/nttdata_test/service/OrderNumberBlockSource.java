@@ -0,0 +1,12 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+/**
+ * Shared source of order number ranges. Each call must atomically reserve {@code size} numbers that no other caller,
+ * in this or any other instance, will ever receive, returning the first one of the range.
+ */
+@FunctionalInterface
+public interface OrderNumberBlockSource {
+
+    long reserve(int size);
+
+}
@@ -0,0 +1,142 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.model.Address;
+import io.github.jgfurlan2.nttdata_test.model.Client;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+import io.github.jgfurlan2.nttdata_test.util.Strings;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static io.github.jgfurlan2.nttdata_test.service.OrderViolation.*;
+
+/**
+ * Checks every {@link OrderViolation} rule in a single walk over the order, recording each one that fails instead of
+ * stopping at the first. Children of a missing client, address or product are not checked.
+ */
+@Component
+public class OrderValidator {
+
+    /**
+     * Throws an exception of the first violation's type, with every violation in its message.
+     */
+    public void validate(Order order) throws Exception {
+        OrderViolations violations = new OrderViolations();
+        if (!check(order, violations)) {
+            throw violations.toException();
+        }
+    }
+
+    /**
+     * Records the violations of the order, after the ones already in {@code violations}, and returns whether there
+     * were none. Throws nothing.
+     */
+    public boolean check(Order order, OrderViolations violations) {
+        int found = violations.size();
+        if (order == null) {
+            violations.add(MISSING_ORDER);
+            return false;
+        }
+
+        if (Strings.isNullOrEmpty(order.getChecksum())) {
+            violations.add(MISSING_CHECKSUM);
+        }
+
+        checkClient(order.getClient(), violations);
+        checkProducts(order.getProducts(), violations);
+
+        return violations.size() == found;
+    }
+
+    private static void checkClient(Client client, OrderViolations violations) {
+        if (client == null) {
+            violations.add(MISSING_CLIENT);
+            return;
+        }
+
+        if (client.getId() == null || client.getId() <= 0) {
+            violations.add(INVALID_CLIENT_ID);
+        }
+
+        if (Strings.isNullOrEmpty(client.getName())) {
+            violations.add(MISSING_CLIENT_NAME);
+        }
+
+        if (Strings.isNullOrEmpty(client.getTaxId())) {
+            violations.add(MISSING_CLIENT_TAX_ID);
+        }
+
+        Address address = client.getAddress();
+        if (address == null) {
+            violations.add(MISSING_ADDRESS);
+            return;
+        }
+
+        if (Strings.isNullOrEmpty(address.getZipCode())) {
+            violations.add(MISSING_ZIP_CODE);
+        }
+
+        if (Strings.isNullOrEmpty(address.getStreetName())) {
+            violations.add(MISSING_STREET_NAME);
+        }
+
+        if (Strings.isNullOrEmpty(address.getStreetNumber())) {
+            violations.add(MISSING_STREET_NUMBER);
+        }
+
+        if (Strings.isNullOrEmpty(address.getNeighborhood())) {
+            violations.add(MISSING_NEIGHBORHOOD);
+        }
+
+        if (Strings.isNullOrEmpty(address.getCity())) {
+            violations.add(MISSING_CITY);
+        }
+
+        if (Strings.isNullOrEmpty(address.getState())) {
+            violations.add(MISSING_STATE);
+        }
+
+        if (Strings.isNullOrEmpty(address.getCountry())) {
+            violations.add(MISSING_COUNTRY);
+        }
+    }
+
+    private static void checkProducts(List<Product> products, OrderViolations violations) {
+        if (products == null || products.isEmpty()) {
+            violations.add(MISSING_PRODUCTS);
+            return;
+        }
+
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            int position = i + 1;
+
+            if (product == null) {
+                violations.add(NULL_PRODUCT, position);
+                continue;
+            }
+
+            if (product.getId() == null || product.getId() <= 0) {
+                violations.add(INVALID_PRODUCT_ID, position);
+            }
+
+            if (Strings.isNullOrEmpty(product.getGs1())) {
+                violations.add(MISSING_PRODUCT_GS1, position);
+            }
+
+            if (Strings.isNullOrEmpty(product.getName())) {
+                violations.add(MISSING_PRODUCT_NAME, position);
+            }
+
+            if (product.getQuantity() == null || product.getQuantity() <= 0) {
+                violations.add(INVALID_PRODUCT_QUANTITY, position);
+            }
+
+            if (product.getPrice() == null || product.getPrice() <= 0) {
+                violations.add(INVALID_PRODUCT_PRICE, position);
+            }
+        }
+    }
+
+}
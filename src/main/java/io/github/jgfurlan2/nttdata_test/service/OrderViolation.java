@@ -0,0 +1,93 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidClientAddressException;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidClientException;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderException;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidProductException;
+
+import java.util.function.Function;
+
+/**
+ * Rules checked by {@link OrderValidator}, each with its error code (the constant name), the path of the field it
+ * checks and the message reported for it. Product rules are reported per product, by its 1-based position.
+ */
+public enum OrderViolation {
+
+    MISSING_ORDER(Kind.ORDER, "", "Missing order"),
+    MISSING_CHECKSUM(Kind.ORDER, "checksum", "Missing order checksum"),
+
+    MISSING_CLIENT(Kind.CLIENT, "client", "Missing client"),
+    INVALID_CLIENT_ID(Kind.CLIENT, "client.id", "Missing or invalid client id"),
+    MISSING_CLIENT_NAME(Kind.CLIENT, "client.name", "Null or empty client name"),
+    MISSING_CLIENT_TAX_ID(Kind.CLIENT, "client.taxId", "Null or empty client tax id"),
+
+    MISSING_ADDRESS(Kind.ADDRESS, "client.address", "Missing client address"),
+    MISSING_ZIP_CODE(Kind.ADDRESS, "client.address.zipCode", "Missing client address zip code"),
+    MISSING_STREET_NAME(Kind.ADDRESS, "client.address.streetName", "Missing client address street name"),
+    MISSING_STREET_NUMBER(Kind.ADDRESS, "client.address.streetNumber", "Missing client address street number"),
+    MISSING_NEIGHBORHOOD(Kind.ADDRESS, "client.address.neighborhood", "Missing client address neighborhood"),
+    MISSING_CITY(Kind.ADDRESS, "client.address.city", "Missing client address city"),
+    MISSING_STATE(Kind.ADDRESS, "client.address.state", "Missing client address state"),
+    MISSING_COUNTRY(Kind.ADDRESS, "client.address.country", "Missing client address country"),
+
+    MISSING_PRODUCTS(Kind.PRODUCTS, "products", "Products list is null or empty"),
+    NULL_PRODUCT(Kind.PRODUCT, "", "is null"),
+    INVALID_PRODUCT_ID(Kind.PRODUCT, "id", "missing id"),
+    MISSING_PRODUCT_GS1(Kind.PRODUCT, "gs1", "missing GS1 code"),
+    MISSING_PRODUCT_NAME(Kind.PRODUCT, "name", "missing name"),
+    INVALID_PRODUCT_QUANTITY(Kind.PRODUCT, "quantity", "missing or invalid quantity"),
+    INVALID_PRODUCT_PRICE(Kind.PRODUCT, "price", "missing or invalid price");
+
+    private enum Kind {
+
+        ORDER(InvalidOrderException.class, message -> new InvalidOrderException(message, false)),
+        CLIENT(InvalidClientException.class, message -> new InvalidClientException(message, false)),
+        ADDRESS(InvalidClientAddressException.class, message -> new InvalidClientAddressException(message, false)),
+        PRODUCTS(InvalidProductException.class, message -> new InvalidProductException(message, false)),
+        PRODUCT(InvalidProductException.class, message -> new InvalidProductException(message, false));
+
+        private final Class<? extends Exception> type;
+        private final Function<String, Exception> exception;
+
+        Kind(Class<? extends Exception> type, Function<String, Exception> exception) {
+            this.type = type;
+            this.exception = exception;
+        }
+
+    }
+
+    private final Kind kind;
+    private final String path;
+    private final String message;
+
+    OrderViolation(Kind kind, String path, String message) {
+        this.kind = kind;
+        this.path = path;
+        this.message = message;
+    }
+
+    public String path(int position) {
+        if (kind != Kind.PRODUCT) {
+            return path;
+        }
+
+        String product = "products[" + (position - 1) + "]";
+        return path.isEmpty() ? product : product + "." + path;
+    }
+
+    public String message(int position) {
+        return kind == Kind.PRODUCT ? "Product " + position + " " + message : message;
+    }
+
+    /**
+     * Returns the exception type reported for this rule, the one thrown for it before violations were collected.
+     */
+    public Class<? extends Exception> type() {
+        return kind.type;
+    }
+
+    Exception exception(String message) {
+        return kind.exception.apply(message);
+    }
+
+}
@@ -0,0 +1,99 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import java.util.Arrays;
+
+/**
+ * Violations found in one order, in the order they were checked. Meant to be reused across orders with
+ * {@link #clear()}: nothing is allocated while orders are valid, and messages are only built when asked for.
+ */
+public final class OrderViolations {
+
+    private static final int[] EMPTY = new int[0];
+    private static final OrderViolation[] VIOLATIONS = OrderViolation.values();
+
+    private int[] violations = EMPTY;
+    private int[] positions = EMPTY;
+    private int size;
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(OrderViolation violation) {
+        add(violation, 0);
+    }
+
+    public void add(OrderViolation violation, int position) {
+        if (size == violations.length) {
+            violations = Arrays.copyOf(violations, Math.max(8, size * 2));
+            positions = Arrays.copyOf(positions, violations.length);
+        }
+
+        violations[size] = violation.ordinal();
+        positions[size] = position;
+        size++;
+    }
+
+    public OrderViolation violation(int index) {
+        return VIOLATIONS[violations[index]];
+    }
+
+    /**
+     * Returns the 1-based position of the product the violation refers to, or 0 for the other fields.
+     */
+    public int position(int index) {
+        return positions[index];
+    }
+
+    public String code(int index) {
+        return violation(index).name();
+    }
+
+    public String path(int index) {
+        return violation(index).path(positions[index]);
+    }
+
+    public String message(int index) {
+        return violation(index).message(positions[index]);
+    }
+
+    /**
+     * Returns every message, separated by {@code "; "}.
+     */
+    public String describe() {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                description.append("; ");
+            }
+
+            description.append(message(i));
+        }
+
+        return description.toString();
+    }
+
+    /**
+     * Returns the exception type of the first violation, used to tag the rejection.
+     */
+    public Class<? extends Exception> type() {
+        return violation(0).type();
+    }
+
+    /**
+     * Returns an exception of the first violation's type describing all of them, without a stack trace: it reports a
+     * rejected order, not a failure of the code that found it.
+     */
+    public Exception toException() {
+        return violation(0).exception(describe());
+    }
+
+}
@@ -0,0 +1,90 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of orders by number. Orders never change once inserted, so found orders stay until evicted by
+ * the W-TinyLFU policy, weighted by their number of products; unknown numbers are cached for a short time only, since
+ * they may be assigned by this or another instance at any moment.
+ */
+@Component
+public class OrdersCache {
+
+    private final OrdersRepository repository;
+    private final Cache<Long, Optional<Order>> cache;
+
+    public OrdersCache(
+            OrdersRepository repository,
+            MeterRegistry registry,
+            @Value("${orders.cache.max-weight:100000}") long maxWeight,
+            @Value("${orders.cache.negative-ttl-ms:5000}") long negativeTtl
+    ) {
+        this.repository = repository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Long orderNumber, Optional<Order> order) -> order.map(OrdersCache::weight).orElse(1))
+                .expireAfter(new Expiry<Long, Optional<Order>>() {
+                    @Override
+                    public long expireAfterCreate(Long orderNumber, Optional<Order> order, long currentTime) {
+                        return order.isPresent() ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(negativeTtl);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long orderNumber, Optional<Order> order, long currentTime, long currentDuration) {
+                        return expireAfterCreate(orderNumber, order, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long orderNumber, Optional<Order> order, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, cache, "orders.by_number");
+    }
+
+    public Order get(long orderNumber) {
+        // Loaded outside Caffeine's compute, which runs under a monitor and would pin a virtual thread during the query
+        Optional<Order> order = peek(orderNumber);
+        if (order == null) {
+            order = putLoaded(orderNumber, repository.findByOrderNumber(orderNumber));
+        }
+
+        return order.orElse(null);
+    }
+
+    /**
+     * Returns the cached lookup, empty for a known unknown number, or {@code null} when the number must be loaded.
+     */
+    public Optional<Order> peek(long orderNumber) {
+        return cache.getIfPresent(orderNumber);
+    }
+
+    public Optional<Order> putLoaded(long orderNumber, Order order) {
+        Optional<Order> loaded = Optional.ofNullable(order);
+        Optional<Order> current = cache.asMap().putIfAbsent(orderNumber, loaded);
+        return current != null ? current : loaded;
+    }
+
+    public void put(Order order) {
+        cache.put(order.getOrderNumber(), Optional.of(order));
+    }
+
+    private static int weight(Order order) {
+        return 1 + (order.getProducts() == null ? 0 : order.getProducts().size());
+    }
+
+}
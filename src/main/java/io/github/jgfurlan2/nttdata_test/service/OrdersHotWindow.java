@@ -0,0 +1,262 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrdersVersion;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.github.jgfurlan2.nttdata_test.util.Dates;
+import io.github.jgfurlan2.nttdata_test.util.ETags;
+import io.github.jgfurlan2.nttdata_test.util.OffHeapOrderLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * The orders placed in the last {@code window} milliseconds, kept as JSON outside the heap so the {@code /orders}
+ * ranges that fall inside it are copied to the response as stored, instead of read from Mongo and encoded again.
+ * <p>
+ * Orders are appended as they are stored, to one {@link OffHeapOrderLog} per {@code shard} milliseconds of
+ * {@code orderedAt}; a shard is dropped whole once it ends before the window, or when the shards exceed
+ * {@code max-bytes}. On startup the window is loaded from Mongo in the background, and no range is served from it until
+ * then. It only sees the orders stored by this instance, so it must only be enabled where a single instance receives
+ * the orders.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "orders.hot-window.enabled", havingValue = "true")
+public class OrdersHotWindow implements OrdersListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrdersHotWindow.class);
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final OrdersRepository repository;
+    private final OrdersMetrics metrics;
+    private final ObjectWriter writer;
+    private final long windowMillis;
+    private final long shardMillis;
+    private final int chunkSize;
+    private final long maxBytes;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ConcurrentSkipListMap<Long, OffHeapOrderLog> shards = new ConcurrentSkipListMap<>();
+    private volatile long floor;
+    private volatile boolean loaded;
+    private volatile Set<Long> loading;
+    private Thread loader;
+
+    public OrdersHotWindow(
+            OrdersRepository repository,
+            OrdersMetrics metrics,
+            ObjectMapper objectMapper,
+            @Value("${orders.hot-window.window-ms:86400000}") long windowMillis,
+            @Value("${orders.hot-window.shard-ms:3600000}") long shardMillis,
+            @Value("${orders.hot-window.chunk-size:1048576}") int chunkSize,
+            @Value("${orders.hot-window.max-bytes:536870912}") long maxBytes
+    ) {
+        this.repository = repository;
+        this.metrics = metrics;
+        this.writer = objectMapper.writerFor(Order.class);
+        this.windowMillis = windowMillis;
+        this.shardMillis = shardMillis;
+        this.chunkSize = chunkSize;
+        this.maxBytes = maxBytes;
+    }
+
+    @PostConstruct
+    public void start() {
+        floor = shardStart(System.currentTimeMillis() - windowMillis);
+        loading = ConcurrentHashMap.newKeySet();
+        metrics.hotWindowBytes(this::allocated);
+
+        loader = new Thread(this::load, "orders-hot-window-loader");
+        loader.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        loader.interrupt();
+        loader.join();
+    }
+
+    @Override
+    public void ordersStored(List<Order> orders) throws Exception {
+        append(orders, loading);
+    }
+
+    /**
+     * Returns the orders placed between {@code begin} and {@code end} as stored now, or {@code null} when the range is
+     * not entirely inside the window and must be read from Mongo.
+     */
+    public Slice slice(long begin, long end) {
+        if (begin > end || end - begin > Dates.DAY_TIMESTAMP) {
+            return null;
+        }
+
+        List<OffHeapOrderLog.Snapshot> snapshots = new ArrayList<>();
+        for (OffHeapOrderLog shard : shards.subMap(shardStart(begin), true, end, true).values()) {
+            snapshots.add(shard.snapshot());
+        }
+
+        // Checked after the snapshots were taken: a shard is only dropped after the floor is raised past it
+        if (!loaded || begin < floor) {
+            return null;
+        }
+
+        return new Slice(begin, end, snapshots);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Bytes of direct memory held by the window.
+     */
+    public long allocated() {
+        long allocated = 0;
+        for (OffHeapOrderLog shard : shards.values()) {
+            allocated += shard.allocated();
+        }
+
+        return allocated;
+    }
+
+    private void load() {
+        Set<Long> appended = loading;
+        long count = 0;
+        try (Stream<Order> orders = repository.streamByRange(floor, Long.MAX_VALUE)) {
+            List<Order> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                batch.add(iterator.next());
+                if (batch.size() == LOAD_BATCH_SIZE) {
+                    append(batch, appended);
+                    count += batch.size();
+                    batch.clear();
+                }
+            }
+
+            append(batch, appended);
+            count += batch.size();
+        } catch (Exception e) {
+            LOGGER.error("Failed to load the hot window, order ranges will be read from Mongo: " + e.getMessage(), e);
+            return;
+        }
+
+        // Appends still running with the set keep deduplicating against it, so it is only dropped, never cleared
+        loading = null;
+        loaded = true;
+        LOGGER.info("Loaded {} orders into the hot window", count);
+    }
+
+    private void append(List<Order> orders, Set<Long> loading) throws IOException {
+        // Encoded before taking the lock, so appends only contend on copying bytes
+        byte[][] encoded = new byte[orders.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = writer.writeValueAsBytes(orders.get(i));
+        }
+
+        appendLock.lock();
+        try {
+            for (int i = 0; i < encoded.length; i++) {
+                Order order = orders.get(i);
+                long orderedAt = order.getOrderedAt();
+                if (orderedAt < floor) {
+                    continue;
+                }
+
+                // While the window is loaded, an order both stored and read from Mongo is appended once
+                if (loading != null && !loading.add(order.getOrderNumber())) {
+                    continue;
+                }
+
+                shards.computeIfAbsent(shardStart(orderedAt), start -> new OffHeapOrderLog(chunkSize))
+                        .append(orderedAt, order.getOrderNumber(), encoded[i]);
+            }
+
+            expire(System.currentTimeMillis());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void expire(long now) {
+        Map.Entry<Long, OffHeapOrderLog> oldest;
+        while ((oldest = shards.firstEntry()) != null) {
+            boolean ended = oldest.getKey() + shardMillis <= now - windowMillis;
+            if (!ended && (shards.size() == 1 || allocated() <= maxBytes)) {
+                return;
+            }
+
+            // Raised before the shard goes, so a reader that misses the shard also sees it is no longer covered
+            floor = Math.max(floor, oldest.getKey() + shardMillis);
+            shards.remove(oldest.getKey());
+        }
+    }
+
+    private long shardStart(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, shardMillis);
+    }
+
+    /**
+     * The orders of a range in the window, from snapshots of its shards, so its version and body always agree.
+     */
+    public static final class Slice {
+
+        private final long begin;
+        private final long end;
+        private final List<OffHeapOrderLog.Snapshot> snapshots;
+
+        private Slice(long begin, long end, List<OffHeapOrderLog.Snapshot> snapshots) {
+            this.begin = begin;
+            this.end = end;
+            this.snapshots = snapshots;
+        }
+
+        public OrdersVersion version() throws IOException {
+            long[] summary = new long[4];
+            for (OffHeapOrderLog.Snapshot snapshot : snapshots) {
+                snapshot.forEach(begin, end, (orderedAt, orderNumber, buffer, offset, length) -> {
+                    summary[0]++;
+                    summary[1] = Math.max(summary[1], orderNumber);
+                    summary[2] += orderNumber;
+                    summary[3] = Math.max(summary[3], orderedAt);
+                });
+            }
+
+            return ETags.range(summary[0], summary[1], summary[2], summary[3]);
+        }
+
+        /**
+         * Writes the orders as a JSON array.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            out.write('[');
+            boolean empty = true;
+            for (OffHeapOrderLog.Snapshot snapshot : snapshots) {
+                empty = snapshot.writeTo(begin, end, out, (byte) ',', empty);
+            }
+            out.write(']');
+        }
+
+    }
+
+}
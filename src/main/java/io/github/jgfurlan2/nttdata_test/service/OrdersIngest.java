@@ -0,0 +1,191 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersInsert;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * The steps of order ingestion that do not touch Mongo, shared by {@link OrdersService} and
+ * {@link ReactiveOrdersService}: validation, numbering, deduplication inside a batch and the acks, along with the
+ * metrics, dedup filter and cache updates they imply. Each service only adds the checksum lookups and the inserts
+ * through its own client.
+ */
+@Component
+public class OrdersIngest {
+
+    private final OrderValidator orderValidator;
+    private final OrderNumberAllocator orderNumberAllocator;
+    private final ChecksumDedupFilter checksumFilter;
+    private final OrdersCache ordersCache;
+    private final OrdersMetrics metrics;
+
+    public OrdersIngest(
+            OrderValidator orderValidator,
+            OrderNumberAllocator orderNumberAllocator,
+            ChecksumDedupFilter checksumFilter,
+            OrdersCache ordersCache,
+            OrdersMetrics metrics
+    ) {
+        this.orderValidator = orderValidator;
+        this.orderNumberAllocator = orderNumberAllocator;
+        this.checksumFilter = checksumFilter;
+        this.ordersCache = ordersCache;
+        this.metrics = metrics;
+    }
+
+    public void validateOrder(Order order) throws Exception {
+        OrderViolations violations = new OrderViolations();
+        if (!checkOrder(order, violations)) {
+            throw violations.toException();
+        }
+    }
+
+    /**
+     * Replaces the content of {@code violations} with the violations of the order, returning whether it is valid.
+     */
+    public boolean checkOrder(Order order, OrderViolations violations) {
+        violations.clear();
+        if (orderValidator.check(order, violations)) {
+            return true;
+        }
+
+        metrics.rejected(violations.type());
+        return false;
+    }
+
+    /**
+     * Returns one ack per order: an error for each invalid order, and {@code null} for the valid ones, which are still to
+     * be stored.
+     */
+    public List<OrderAck> checkOrders(List<Order> orders) {
+        List<OrderAck> acks = new ArrayList<>(orders.size());
+        OrderViolations violations = new OrderViolations();
+        for (Order order : orders) {
+            acks.add(checkOrder(order, violations) ? null : OrderAck.error(violations.describe()));
+        }
+
+        return acks;
+    }
+
+    /**
+     * Returns the checksums of the orders whose ack is still {@code null}.
+     */
+    public Set<String> unacked(List<Order> orders, List<OrderAck> acks) {
+        Set<String> checksums = new HashSet<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (acks.get(i) == null) {
+                checksums.add(orders.get(i).getChecksum());
+            }
+        }
+
+        return checksums;
+    }
+
+    /**
+     * May block refilling the block of order numbers.
+     */
+    public void number(Order order, long orderedAt) {
+        order.setOrderNumber(orderNumberAllocator.next());
+        order.setOrderedAt(orderedAt);
+    }
+
+    /**
+     * Numbers the order only when the current block has numbers left, returning whether it did.
+     */
+    public boolean tryNumber(Order order, long orderedAt) {
+        long orderNumber = orderNumberAllocator.tryNext();
+        if (orderNumber < 0) {
+            return false;
+        }
+
+        order.setOrderNumber(orderNumber);
+        order.setOrderedAt(orderedAt);
+        return true;
+    }
+
+    /**
+     * Numbers the orders whose ack is still {@code null} and whose checksum is not in {@code seen}, acking them as
+     * registered, and acks the others as duplicated, repeats inside the batch included. Returns the numbered orders,
+     * which are still to be inserted. May block refilling the block of order numbers.
+     */
+    public List<Order> allocate(List<Order> orders, List<OrderAck> acks, Set<String> seen) {
+        int duplicated = 0;
+        List<Order> accepted = new ArrayList<>(orders.size());
+        long orderedAt = System.currentTimeMillis();
+        for (int i = 0; i < orders.size(); i++) {
+            if (acks.get(i) != null) {
+                continue;
+            }
+
+            Order order = orders.get(i);
+            if (seen.add(order.getChecksum())) {
+                number(order, orderedAt);
+                accepted.add(order);
+                acks.set(i, OrderAck.registered(order.getOrderNumber()));
+            } else {
+                acks.set(i, OrderAck.duplicated());
+                duplicated++;
+            }
+        }
+
+        metrics.duplicated(duplicated);
+        return accepted;
+    }
+
+    /**
+     * Acks the accepted orders the unique checksum index rejected as duplicated and the ones that failed with their
+     * error, and returns the others, which were stored.
+     */
+    public List<Order> inserted(List<Order> orders, List<OrderAck> acks, List<Order> accepted, OrdersInsert insert) {
+        Set<Order> duplicated = Collections.newSetFromMap(new IdentityHashMap<>());
+        duplicated.addAll(insert.duplicated());
+        metrics.duplicated(duplicated.size());
+
+        for (int i = 0; i < orders.size(); i++) {
+            if (acks.get(i).getOrderNumber() == null) {
+                continue;
+            }
+
+            Order order = orders.get(i);
+            if (duplicated.contains(order)) {
+                acks.set(i, OrderAck.duplicated());
+            } else if (insert.failed().containsKey(order)) {
+                acks.set(i, OrderAck.error(insert.failed().get(order)));
+            }
+        }
+
+        List<Order> stored = new ArrayList<>(accepted.size());
+        for (Order order : accepted) {
+            // A failed order was not stored, so its checksum is still free to be sent again
+            if (insert.failed().containsKey(order)) {
+                continue;
+            }
+
+            checksumFilter.record(order.getChecksum());
+            if (!duplicated.contains(order)) {
+                ordersCache.put(order);
+                stored.add(order);
+            }
+        }
+
+        return stored;
+    }
+
+    public void stored(Order order) {
+        checksumFilter.record(order.getChecksum());
+        ordersCache.put(order);
+    }
+
+    /**
+     * Records an order the unique checksum index rejected: another session or instance stored the same checksum since
+     * the filter was checked.
+     */
+    public void duplicated(String checksum) {
+        checksumFilter.record(checksum);
+        metrics.duplicated();
+    }
+
+}
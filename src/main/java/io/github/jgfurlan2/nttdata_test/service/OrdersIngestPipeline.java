@@ -0,0 +1,166 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.OrderQueueFullException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind ingestion: orders are validated on the caller thread and queued, and a pool of writers drains the queue
+ * in batches through {@link OrdersService#receiveValidatedOrders(List)}, completing each order's ack once its batch
+ * commits. The queue is bounded; when it stays full for longer than the offer timeout the order is rejected.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.pipeline.enabled", havingValue = "true")
+public class OrdersIngestPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrdersIngestPipeline.class);
+
+    private final OrdersService ordersService;
+    private final BlockingQueue<PendingOrder> queue;
+    private final int writers;
+    private final int maxBatchSize;
+    private final long offerTimeout;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    private final DistributionSummary batchSize;
+    private final Timer commitLatency;
+
+    public OrdersIngestPipeline(
+            OrdersService ordersService,
+            MeterRegistry registry,
+            @Value("${orders.pipeline.queue-capacity:10000}") int queueCapacity,
+            @Value("${orders.pipeline.writers:2}") int writers,
+            @Value("${orders.pipeline.max-batch-size:500}") int maxBatchSize,
+            @Value("${orders.pipeline.offer-timeout-ms:100}") long offerTimeout
+    ) {
+        this.ordersService = ordersService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writers = writers;
+        this.maxBatchSize = maxBatchSize;
+        this.offerTimeout = offerTimeout;
+
+        Gauge.builder("orders.pipeline.queue.depth", queue, BlockingQueue::size)
+                .description("Orders waiting to be written")
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("orders.pipeline.batch.size")
+                .description("Orders written per batch")
+                .register(registry);
+        this.commitLatency = Timer.builder("orders.pipeline.commit.latency")
+                .description("Time to persist one batch")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < writers; i++) {
+            Thread thread = new Thread(this::drain, "orders-writer-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Only left when there were no writers, or when they were interrupted
+        List<PendingOrder> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (PendingOrder pending : left) {
+            pending.ack.completeExceptionally(new OrderQueueFullException("Order pipeline stopped"));
+        }
+    }
+
+    public CompletableFuture<OrderAck> submit(Order order) throws Exception {
+        ordersService.validateOrder(order);
+
+        PendingOrder pending = new PendingOrder(order, new CompletableFuture<>());
+        if (!running || !queue.offer(pending, offerTimeout, TimeUnit.MILLISECONDS)) {
+            throw new OrderQueueFullException("Order queue is full, try again later");
+        }
+
+        // Stopped while offering: the writers and stop() may have already seen the queue empty. Whoever took the order
+        // out otherwise completes its ack
+        if (!running && queue.remove(pending)) {
+            throw new OrderQueueFullException("Order pipeline stopped");
+        }
+
+        return pending.ack;
+    }
+
+    private void drain() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        List<Order> orders = new ArrayList<>(maxBatchSize);
+
+        // Keep writing until stopped and the queue is empty, so accepted orders are never dropped on shutdown
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                for (PendingOrder pending : batch) {
+                    orders.add(pending.order);
+                }
+
+                write(batch, orders);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+                orders.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingOrder> batch, List<Order> orders) {
+        batchSize.record(batch.size());
+
+        long start = System.nanoTime();
+        try {
+            List<OrderAck> acks = ordersService.receiveValidatedOrders(orders);
+            commitLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).ack.complete(acks.get(i));
+            }
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            for (PendingOrder pending : batch) {
+                pending.ack.completeExceptionally(e);
+            }
+        }
+    }
+
+    private record PendingOrder(Order order, CompletableFuture<OrderAck> ack) {
+    }
+
+}
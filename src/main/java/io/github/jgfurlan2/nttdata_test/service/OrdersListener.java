@@ -0,0 +1,15 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+
+import java.util.List;
+
+/**
+ * Notified with the orders just written to Mongo, in the thread that wrote them and before they are acknowledged.
+ * Duplicates turned down by the unique indexes are never passed on.
+ */
+public interface OrdersListener {
+
+    void ordersStored(List<Order> orders) throws Exception;
+
+}
@@ -0,0 +1,39 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fans stored orders out to every {@link OrdersListener}. The orders are already stored when listeners run, so a
+ * failing listener is logged and never fails the order or the listeners after it.
+ */
+@Component
+public class OrdersListeners {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrdersListeners.class);
+
+    private final List<OrdersListener> listeners;
+
+    public OrdersListeners(List<OrdersListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    public void stored(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        for (OrdersListener listener : listeners) {
+            try {
+                listener.ordersStored(orders);
+            } catch (Exception e) {
+                LOGGER.error("Failed to notify " + listener.getClass().getSimpleName() + " of stored orders: " + e.getMessage(), e);
+            }
+        }
+    }
+
+}
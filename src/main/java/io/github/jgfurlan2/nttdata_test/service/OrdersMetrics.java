@@ -0,0 +1,116 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the order ingestion flow: how long each stage takes and why orders are turned down.
+ * <p>
+ * Stage timers are recorded per call, so a batch frame records one sample per stage for the whole batch.
+ */
+@Component
+public class OrdersMetrics {
+
+    public enum Stage {
+        PARSE, VALIDATE, CHECKSUM, ALLOCATE, INSERT
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Map<Class<?>, Counter> rejections = new ConcurrentHashMap<>();
+    private final Counter duplicates;
+    private final Counter slowSubscribers;
+    private final Counter walDuplicates;
+
+    public OrdersMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("orders.ingest.stage")
+                    .description("Time spent in each stage of order ingestion")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+
+        this.duplicates = rejection("duplicate");
+        this.slowSubscribers = Counter.builder("orders.subscriptions.dropped")
+                .description("Order subscriptions dropped for falling behind")
+                .register(registry);
+        this.walDuplicates = Counter.builder("orders.wal.replay.duplicates")
+                .description("Acknowledged orders the WAL replay found already stored")
+                .register(registry);
+    }
+
+    /**
+     * Records the time elapsed since {@code since} for the stage and returns the current {@link System#nanoTime()},
+     * so consecutive stages can be chained from a single start time.
+     */
+    public long record(Stage stage, long since) {
+        long now = System.nanoTime();
+        stages.get(stage).record(now - since, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void rejected(Throwable error) {
+        rejected(error.getClass());
+    }
+
+    public void rejected(Class<?> reason) {
+        // Tagged by exception type, which is bounded by the validation exceptions and the JSON parser's ones
+        rejections.computeIfAbsent(reason, type -> rejection(type.getSimpleName())).increment();
+    }
+
+    public void duplicated() {
+        duplicates.increment();
+    }
+
+    public void duplicated(int count) {
+        duplicates.increment(count);
+    }
+
+    public void walDuplicated(int count) {
+        walDuplicates.increment(count);
+    }
+
+    public void sessions(Supplier<Number> openSessions) {
+        Gauge.builder("orders.ws.sessions", openSessions)
+                .description("Open order WebSocket sessions")
+                .register(registry);
+    }
+
+    public void subscriptions(Supplier<Number> activeSubscriptions) {
+        Gauge.builder("orders.subscriptions", activeSubscriptions)
+                .description("Active order push subscriptions")
+                .register(registry);
+    }
+
+    public void hotWindowBytes(Supplier<Number> allocated) {
+        Gauge.builder("orders.hot-window.bytes", allocated)
+                .description("Direct memory held by the hot window of recent orders")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public void slowSubscriber() {
+        slowSubscribers.increment();
+    }
+
+    private Counter rejection(String reason) {
+        return Counter.builder("orders.rejected")
+                .description("Orders not stored, by reason")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,17 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+
+import java.util.List;
+
+public interface OrdersReceiver {
+
+    /**
+     * Registers the order, returning its number or {@code null} when it is a duplicate.
+     */
+    Long receiveOrder(Order order) throws Exception;
+
+    List<OrderAck> receiveOrders(List<Order> orders) throws Exception;
+
+}
@@ -0,0 +1,215 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrdersRollup;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+import io.github.jgfurlan2.nttdata_test.model.RollupBucket;
+import io.github.jgfurlan2.nttdata_test.model.RollupGranularity;
+import io.github.jgfurlan2.nttdata_test.repository.RollupBucketRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Order count, item count and revenue per minute, hour and day, incremented as orders are stored so range analytics
+ * read one document per bucket instead of every order of the range.
+ * <p>
+ * Minute and hour buckets expire through a TTL index once the coarser buckets cover them. A bucket that ended more than
+ * the close delay ago no longer receives orders, so it is cached and served from memory; the rare late increment,
+ * such as a WAL replay after an outage, evicts it.
+ * <p>
+ * Increments that fail are kept and added to the next batch's, so an outage delays the counts instead of losing them.
+ * When Mongo does not say which writes of the bulk failed they are all retried, so a write whose reply was lost is
+ * counted twice.
+ */
+@Component
+public class OrdersRollups implements OrdersListener {
+
+    private final RollupBucketRepository repository;
+    private final Map<RollupGranularity, Long> retention = new EnumMap<>(RollupGranularity.class);
+    private final long closeDelay;
+    private final int maxBuckets;
+    private final Cache<String, RollupBucket> closed;
+    private final Map<String, RollupBucket> failed = new ConcurrentHashMap<>();
+
+    public OrdersRollups(
+            RollupBucketRepository repository,
+            MeterRegistry registry,
+            @Value("${orders.rollups.minute-retention-ms:172800000}") long minuteRetention,
+            @Value("${orders.rollups.hour-retention-ms:7776000000}") long hourRetention,
+            @Value("${orders.rollups.close-delay-ms:60000}") long closeDelay,
+            @Value("${orders.rollups.max-buckets:10000}") int maxBuckets,
+            @Value("${orders.rollups.cache-size:100000}") long cacheSize
+    ) {
+        this.repository = repository;
+        this.retention.put(RollupGranularity.MINUTE, minuteRetention);
+        this.retention.put(RollupGranularity.HOUR, hourRetention);
+        this.retention.put(RollupGranularity.DAY, 0L);
+        this.closeDelay = closeDelay;
+        this.maxBuckets = maxBuckets;
+        this.closed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, closed, "orders.rollups");
+    }
+
+    @Override
+    public void ordersStored(List<Order> orders) {
+        Map<String, RollupBucket> deltas = new LinkedHashMap<>();
+        for (Order order : orders) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                long start = granularity.start(order.getOrderedAt());
+                add(deltas.computeIfAbsent(granularity.id(start), id -> delta(granularity, start)), order);
+            }
+        }
+
+        for (String id : failed.keySet()) {
+            RollupBucket retried = failed.remove(id);
+            if (retried != null) {
+                deltas.merge(id, retried, OrdersRollups::merge);
+            }
+        }
+
+        try {
+            repository.increment(deltas.values());
+        } catch (RuntimeException e) {
+            retryLater(new ArrayList<>(deltas.values()), e);
+            throw e;
+        } finally {
+            // Even a failed bulk may have applied some of its writes
+            closed.invalidateAll(deltas.keySet());
+        }
+    }
+
+    private void retryLater(List<RollupBucket> deltas, RuntimeException e) {
+        List<RollupBucket> lost = deltas;
+        if (e instanceof BulkOperationException bulk) {
+            lost = bulk.getErrors().stream().map(error -> deltas.get(error.getIndex())).toList();
+        }
+
+        for (RollupBucket delta : lost) {
+            failed.merge(delta.getId(), delta, OrdersRollups::merge);
+        }
+    }
+
+    /**
+     * Returns every bucket of the granularity from the one holding {@code begin} to the one holding {@code end}, empty
+     * buckets included, and their sum.
+     */
+    public OrdersRollup getRollup(Long begin, Long end, String granularityName) throws Exception {
+        RollupGranularity granularity = granularity(granularityName);
+
+        if (begin > end) {
+            throw new InvalidOrderFilterException("Begin date is after end date");
+        }
+
+        long first = granularity.start(begin);
+        long last = granularity.start(end);
+        if ((last - first) / granularity.millis() + 1 > maxBuckets) {
+            throw new InvalidOrderFilterException("Max buckets exceeded");
+        }
+
+        long now = System.currentTimeMillis();
+        long kept = retention.get(granularity);
+        if (kept > 0 && first < granularity.start(now - kept)) {
+            throw new InvalidOrderFilterException("Granularity not available for range");
+        }
+
+        List<RollupBucket> buckets = new ArrayList<>();
+        long missing = -1;
+        for (long start = first; start <= last; start += granularity.millis()) {
+            RollupBucket bucket = isClosed(granularity, start, now) ? closed.getIfPresent(granularity.id(start)) : null;
+            if (bucket == null && missing < 0) {
+                missing = buckets.size();
+            }
+
+            buckets.add(bucket);
+        }
+
+        if (missing >= 0) {
+            // Cached buckets are all closed, so the ones left to read form a single run up to the open tail
+            long from = first + missing * granularity.millis();
+            Map<Long, RollupBucket> stored = new HashMap<>();
+            for (RollupBucket bucket : repository.listByRange(granularity, from, last)) {
+                stored.put(bucket.getStart(), bucket);
+            }
+
+            for (int i = (int) missing; i < buckets.size(); i++) {
+                if (buckets.get(i) != null) {
+                    continue;
+                }
+
+                long start = first + i * granularity.millis();
+                RollupBucket bucket = stored.getOrDefault(start, RollupBucket.empty(granularity, start));
+                if (isClosed(granularity, start, now)) {
+                    closed.put(bucket.getId(), bucket);
+                }
+
+                buckets.set(i, bucket);
+            }
+        }
+
+        RollupBucket total = RollupBucket.empty(granularity, first);
+        for (RollupBucket bucket : buckets) {
+            total.add(bucket);
+        }
+
+        return new OrdersRollup(granularity, buckets, total);
+    }
+
+    private boolean isClosed(RollupGranularity granularity, long start, long now) {
+        return start + granularity.millis() + closeDelay <= now;
+    }
+
+    private RollupBucket delta(RollupGranularity granularity, long start) {
+        RollupBucket delta = RollupBucket.empty(granularity, start);
+        long kept = retention.get(granularity);
+        if (kept > 0) {
+            delta.setExpiresAt(new Date(start + granularity.millis() + kept));
+        }
+
+        return delta;
+    }
+
+    private static RollupBucket merge(RollupBucket bucket, RollupBucket other) {
+        bucket.add(other);
+        return bucket;
+    }
+
+    private static void add(RollupBucket bucket, Order order) {
+        bucket.setOrders(bucket.getOrders() + 1);
+
+        if (order.getProducts() != null) {
+            for (Product product : order.getProducts()) {
+                long quantity = product.getQuantity() == null ? 0 : product.getQuantity();
+                bucket.setItems(bucket.getItems() + quantity);
+                if (product.getPrice() != null) {
+                    bucket.setRevenue(bucket.getRevenue() + product.getPrice() * quantity);
+                }
+            }
+        }
+    }
+
+    private static RollupGranularity granularity(String name) throws InvalidOrderFilterException {
+        if (name == null) {
+            return RollupGranularity.HOUR;
+        }
+
+        try {
+            return RollupGranularity.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOrderFilterException("Invalid granularity");
+        }
+    }
+
+}
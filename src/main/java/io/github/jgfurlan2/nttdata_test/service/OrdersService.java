@@ -1,124 +1,290 @@
 package io.github.jgfurlan2.nttdata_test.service;
 
-import io.github.jgfurlan2.nttdata_test.exception.*;
-import io.github.jgfurlan2.nttdata_test.model.Address;
-import io.github.jgfurlan2.nttdata_test.model.Client;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
 import io.github.jgfurlan2.nttdata_test.model.Order;
-import io.github.jgfurlan2.nttdata_test.model.Product;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.model.OrdersPage;
+import io.github.jgfurlan2.nttdata_test.model.OrdersVersion;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersInsert;
 import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
-import io.github.jgfurlan2.nttdata_test.util.Dates;
-import io.github.jgfurlan2.nttdata_test.util.Strings;
+import io.github.jgfurlan2.nttdata_test.util.DuplicateKeys;
+import io.github.jgfurlan2.nttdata_test.util.ETags;
+import io.github.jgfurlan2.nttdata_test.util.OrderFields;
+import io.github.jgfurlan2.nttdata_test.util.PageTokens;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.*;
+import java.util.stream.Stream;
 
 @Service
-public class OrdersService {
+public class OrdersService implements OrdersReceiver {
+
+    private static final Sort KEYSET_SORT = Sort.by("orderedAt", "orderNumber");
 
-    private Long latestOrderNumber;
     private final OrdersRepository repository;
+    private final OrdersIngest ingest;
+    private final ChecksumDedupFilter checksumFilter;
+    private final OrdersCache ordersCache;
+    private final OrdersMetrics metrics;
+    private final OrdersListeners listeners;
+    private final long maxStreamRange;
+    private final int maxPageSize;
 
-    public OrdersService(OrdersRepository repository) {
+    public OrdersService(
+            OrdersRepository repository,
+            OrdersIngest ingest,
+            ChecksumDedupFilter checksumFilter,
+            OrdersCache ordersCache,
+            OrdersMetrics metrics,
+            OrdersListeners listeners,
+            @Value("${orders.stream.max-range:2678400000}") long maxStreamRange,
+            @Value("${orders.page.max-size:1000}") int maxPageSize
+    ) {
         this.repository = repository;
+        this.ingest = ingest;
+        this.checksumFilter = checksumFilter;
+        this.ordersCache = ordersCache;
+        this.metrics = metrics;
+        this.listeners = listeners;
+        this.maxStreamRange = maxStreamRange;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public List<Order> getOrdersByClientId(Long clientId) throws Exception {
+        return getOrdersByClientId(clientId, null);
+    }
 
-        Order highestOrderNumber = repository.findFirstByOrderByOrderNumberDesc();
-        if (highestOrderNumber != null) {
-            this.latestOrderNumber = highestOrderNumber.getOrderNumber();
-        } else {
-            this.latestOrderNumber = 0L;
+    /**
+     * Returns only the selected fields of the orders, or the whole orders when {@code fields} is null. So do the other
+     * overloads taking {@link OrderFields}.
+     */
+    public List<Order> getOrdersByClientId(Long clientId, OrderFields fields) throws Exception {
+        if (fields == null) {
+            return repository.listByClientId(clientId);
         }
+
+        return repository.projectByClientId(clientId, fields);
     }
 
-    public List<Order> getOrdersByClientId(Long clientId) throws Exception {
-        return repository.listByClientId(clientId);
+    public OrdersPage getOrdersPageByClientId(Long clientId, String token, int size) throws Exception {
+        return getOrdersPageByClientId(clientId, token, size, null);
+    }
+
+    public OrdersPage getOrdersPageByClientId(Long clientId, String token, int size, OrderFields fields) throws Exception {
+        OrderFilters.validatePageSize(size, maxPageSize);
+
+        long[] after = token == null ? new long[]{Long.MIN_VALUE, 0L} : PageTokens.decode(token);
+        if (fields == null) {
+            return toPage(repository.listByClientIdAfter(clientId, after[0], after[1], keysetPage(size)), size);
+        }
+
+        return toPage(repository.projectByClientIdAfter(clientId, after[0], after[1], keysetPage(size), fields.withKeyset()), size);
     }
 
     public Order getOrderByOrderNumber(Long orderNumber) throws Exception {
-        return repository.findByOrderNumber(orderNumber);
+        return ordersCache.get(orderNumber);
+    }
+
+    public Order getOrderByOrderNumber(Long orderNumber, OrderFields fields) throws Exception {
+        if (fields == null) {
+            return getOrderByOrderNumber(orderNumber);
+        }
+
+        // A cached order is projected in memory; otherwise only the selected fields are read, and not cached
+        Optional<Order> cached = ordersCache.peek(orderNumber);
+        if (cached != null) {
+            return cached.map(fields::project).orElse(null);
+        }
+
+        return repository.projectByOrderNumber(orderNumber, fields);
+    }
+
+    /**
+     * Returns the version of an order without loading it when it is not cached, or {@code null} when it is not found.
+     */
+    public OrdersVersion getOrderVersion(Long orderNumber) throws Exception {
+        Optional<Order> cached = ordersCache.peek(orderNumber);
+        if (cached != null) {
+            return cached.map(ETags::order).orElse(null);
+        }
+
+        Order order = repository.findVersionByOrderNumber(orderNumber);
+        return order == null ? null : ETags.order(order);
     }
 
     public List<Order> getOrdersByRange(Long begin, Long end) throws Exception {
-        if (begin > end) {
-            throw new InvalidOrderFilterException("Begin date is after end date");
+        return getOrdersByRange(begin, end, null);
+    }
+
+    public List<Order> getOrdersByRange(Long begin, Long end, OrderFields fields) throws Exception {
+        OrderFilters.validateRange(begin, end);
+        if (fields == null) {
+            return repository.listByRange(begin, end);
+        }
+
+        return repository.projectByRange(begin, end, fields);
+    }
+
+    /**
+     * Returns the version of the orders {@link #getOrdersByRange} would return, without reading them.
+     */
+    public OrdersVersion getOrdersVersionByRange(Long begin, Long end) throws Exception {
+        OrderFilters.validateRange(begin, end);
+        return repository.findRangeVersion(begin, end);
+    }
+
+    public Stream<Order> streamOrdersByRange(Long begin, Long end) throws InvalidOrderFilterException {
+        validateStreamRange(begin, end);
+        return repository.streamByRange(begin, end);
+    }
+
+    /**
+     * Throws the error {@link #streamOrdersByRange} would throw for the range, so it can be reported before the stream
+     * is opened.
+     */
+    public void validateStreamRange(Long begin, Long end) throws InvalidOrderFilterException {
+        // Streamed orders are never held in memory together, so the window is only bounded to protect Mongo
+        OrderFilters.validateStreamRange(begin, end, maxStreamRange);
+    }
+
+    public OrdersPage getOrdersPageByRange(Long begin, Long end, String token, int size) throws Exception {
+        return getOrdersPageByRange(begin, end, token, size, null);
+    }
+
+    public OrdersPage getOrdersPageByRange(Long begin, Long end, String token, int size, OrderFields fields) throws Exception {
+        // Pages are bounded by size, so the window follows the streaming limit instead of the 24h one
+        validateStreamRange(begin, end);
+        OrderFilters.validatePageSize(size, maxPageSize);
+
+        long[] after = token == null ? new long[]{begin, 0L} : PageTokens.decode(token);
+        if (after[0] < begin) {
+            after = new long[]{begin, 0L};
         }
 
-        if (end - begin > Dates.DAY_TIMESTAMP) {
-            throw new InvalidOrderFilterException("Max range exceeded");
+        if (fields == null) {
+            return toPage(repository.listByRangeAfter(after[0], after[1], end, keysetPage(size)), size);
         }
 
-        return repository.listByRange(begin, end);
+        return toPage(repository.projectByRangeAfter(after[0], after[1], end, keysetPage(size), fields.withKeyset()), size);
     }
 
+    @Override
     public Long receiveOrder(Order order) throws Exception {
-        if (validateOrder(order)) {
-            order.setOrderNumber(++latestOrderNumber);
-            order.setOrderedAt(System.currentTimeMillis());
+        long started = System.nanoTime();
+        try {
+            validateOrder(order);
+        } finally {
+            started = metrics.record(OrdersMetrics.Stage.VALIDATE, started);
+        }
+
+        boolean seen = checksumFilter.contains(order.getChecksum());
+        started = metrics.record(OrdersMetrics.Stage.CHECKSUM, started);
+        if (seen) {
+            metrics.duplicated();
+            return null;
+        }
+
+        ingest.number(order, System.currentTimeMillis());
+        started = metrics.record(OrdersMetrics.Stage.ALLOCATE, started);
+
+        try {
             repository.insert(order);
+        } catch (DuplicateKeyException e) {
+            if (!DuplicateKeys.isChecksum(e)) {
+                throw e;
+            }
 
-            return order.getOrderNumber();
+            ingest.duplicated(order.getChecksum());
+            return null;
+        } finally {
+            metrics.record(OrdersMetrics.Stage.INSERT, started);
         }
 
-        return null;
+        ingest.stored(order);
+        listeners.stored(List.of(order));
+        return order.getOrderNumber();
     }
 
-    private boolean validateOrder(Order order) throws Exception {
-        if (Strings.isNullOrEmpty(order.getChecksum())) {
-            throw new InvalidOrderException("Missing order checksum");
-        }
+    @Override
+    public List<OrderAck> receiveOrders(List<Order> orders) throws Exception {
+        long started = System.nanoTime();
+        List<OrderAck> acks = ingest.checkOrders(orders);
+        started = metrics.record(OrdersMetrics.Stage.VALIDATE, started);
+        return storeOrders(orders, acks, started);
+    }
+
+    /**
+     * Same as {@link #receiveOrders}, for orders already checked with {@link #validateOrder}.
+     */
+    public List<OrderAck> receiveValidatedOrders(List<Order> orders) throws Exception {
+        return storeOrders(orders, new ArrayList<>(Collections.nCopies(orders.size(), null)), System.nanoTime());
+    }
 
-        Client client = order.getClient();
-        if (client == null) {
-            throw new InvalidClientException("Missing client");
-        } else if (client.getId() == null || client.getId() <= 0) {
-            throw new InvalidClientException("Missing or invalid client id");
-        } else if (Strings.isNullOrEmpty(client.getName())) {
-            throw new InvalidClientException("Null or empty client name");
-        } else if (Strings.isNullOrEmpty(client.getTaxId())) {
-            throw new InvalidClientException("Null or empty client tax id");
+    /**
+     * Stores the orders whose ack is still {@code null}, filling in their acks.
+     */
+    private List<OrderAck> storeOrders(List<Order> orders, List<OrderAck> acks, long started) throws Exception {
+        Set<String> checksums = ingest.unacked(orders, acks);
+        if (checksums.isEmpty()) {
+            return acks;
         }
 
-        Address address = client.getAddress();
-        if (client.getAddress() == null) {
-            throw new InvalidClientAddressException("Missing client address");
-        } else if (Strings.isNullOrEmpty(address.getZipCode())) {
-            throw new InvalidClientAddressException("Missing client address zip code");
-        } else if (Strings.isNullOrEmpty(address.getStreetName())) {
-            throw new InvalidClientAddressException("Missing client address street name");
-        } else if (Strings.isNullOrEmpty(address.getStreetNumber())) {
-            throw new InvalidClientAddressException("Missing client address street number");
-        } else if (Strings.isNullOrEmpty(address.getNeighborhood())) {
-            throw new InvalidClientAddressException("Missing client address neighborhood");
-        } else if (Strings.isNullOrEmpty(address.getCity())) {
-            throw new InvalidClientAddressException("Missing client address city");
-        } else if (Strings.isNullOrEmpty(address.getState())) {
-            throw new InvalidClientAddressException("Missing client address state");
-        } else if (Strings.isNullOrEmpty(address.getCountry())) {
-            throw new InvalidClientAddressException("Missing client address country");
+        Set<String> unresolved = new HashSet<>();
+        Set<String> seen = checksumFilter.containsAny(checksums, unresolved);
+        if (!unresolved.isEmpty()) {
+            Set<String> found = new HashSet<>();
+            for (Order existing : repository.findByChecksumIn(unresolved)) {
+                found.add(existing.getChecksum());
+            }
+
+            checksumFilter.recordLookups(unresolved, found);
+            seen.addAll(found);
         }
 
-        if (order.getProducts() == null || order.getProducts().isEmpty()) {
-            throw new InvalidProductException("Products list is null or empty");
-        } else {
-            for (int i = 0; i < order.getProducts().size() - 1; i++) {
-                Product product = order.getProducts().get(i);
-
-                if (product == null) {
-                    throw new InvalidProductException("Product " + (i + 1) + " is null");
-                } else if (product.getId() == null || product.getId() <= 0) {
-                    throw new InvalidProductException("Product " + (i + 1) + " missing id");
-                } else if (Strings.isNullOrEmpty(product.getGs1())) {
-                    throw new InvalidProductException("Product " + (i + 1) + " missing GS1 code");
-                } else if (Strings.isNullOrEmpty(product.getName())) {
-                    throw new InvalidProductException("Product " + (i + 1) + " missing name");
-                } else if (product.getQuantity() == null || product.getQuantity() <= 0) {
-                    throw new InvalidProductException("Product " + (i + 1) + " missing or invalid quantity");
-                } else if (product.getPrice() == null || product.getPrice() <= 0) {
-                    throw new InvalidProductException("Product " + (i + 1) + " missing or invalid price");
-                }
+        started = metrics.record(OrdersMetrics.Stage.CHECKSUM, started);
+
+        List<Order> accepted = ingest.allocate(orders, acks, seen);
+        started = metrics.record(OrdersMetrics.Stage.ALLOCATE, started);
+
+        if (!accepted.isEmpty()) {
+            OrdersInsert insert;
+            try {
+                insert = repository.insertIgnoringDuplicates(accepted);
+            } finally {
+                metrics.record(OrdersMetrics.Stage.INSERT, started);
             }
+
+            listeners.stored(ingest.inserted(orders, acks, accepted, insert));
         }
 
-        return repository.findByChecksum(order.getChecksum()) == null;
+        return acks;
+    }
+
+    private static Pageable keysetPage(int size) {
+        // One extra order tells whether there is a next page without a count query
+        return PageRequest.of(0, size + 1, KEYSET_SORT);
+    }
+
+    private static OrdersPage toPage(List<Order> orders, int size) {
+        if (orders.size() <= size) {
+            return new OrdersPage(orders, null);
+        }
+
+        List<Order> page = orders.subList(0, size);
+        return new OrdersPage(page, PageTokens.encode(page.get(size - 1)));
+    }
+
+    public void validateOrder(Order order) throws Exception {
+        ingest.validateOrder(order);
+    }
+
+    public boolean checkOrder(Order order, OrderViolations violations) {
+        return ingest.checkOrder(order, violations);
     }
 
 }
@@ -0,0 +1,330 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes orders to subscribers as soon as they are stored, so consumers don't have to poll the range endpoint.
+ * <p>
+ * Each subscription has a bounded queue drained by its own virtual thread; a subscriber that falls behind until its
+ * queue is full is dropped and must reconnect. A subscription may resume after an order number: the orders stored
+ * since then, up to the highest order number stored when the backfill starts, are read from Mongo first, and live
+ * orders arriving meanwhile wait in the queue, skipping those already sent by the backfill. Live orders that overflow
+ * the queue during the backfill are not held against the subscriber; the backfill reads them from Mongo again before
+ * going live. Delivery is at-least-once and follows the commit order, not the order number.
+ * <p>
+ * Order numbers are handed out in blocks and orders are stored in batches, so an order may be stored after others
+ * numbered above it. The backfill therefore walks the {@code (orderedAt, orderNumber)} keyset starting a margin before
+ * the resume point, sending again the orders dated in the margin. An order stored longer than the margin after being
+ * numbered, like one held in the WAL while Mongo is down, may still be missed by a resume.
+ * <p>
+ * Orders are only pushed by the instance that stored them, so live delivery is only complete when a single instance
+ * receives the orders; with several, orders stored by the others reach a subscriber only through a resume.
+ */
+@Component
+public class OrdersSubscriptions implements OrdersListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrdersSubscriptions.class);
+    private static final Sort BACKFILL_SORT = Sort.by("orderedAt", "orderNumber");
+
+    /**
+     * Receives the orders of a subscription, one at a time and never concurrently.
+     */
+    public interface Subscriber {
+
+        void send(Order order) throws Exception;
+
+        /**
+         * Called once when the subscription is dropped, either because the subscriber fell behind or failed.
+         */
+        void dropped(String reason);
+
+    }
+
+    private final OrdersRepository repository;
+    private final OrdersMetrics metrics;
+    private final int queueCapacity;
+    private final int maxBackfill;
+    private final int backfillPageSize;
+    private final long resumeMargin;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("orders-subscription-", 0).factory());
+
+    public OrdersSubscriptions(
+            OrdersRepository repository,
+            OrdersMetrics metrics,
+            @Value("${orders.subscriptions.queue-capacity:1000}") int queueCapacity,
+            @Value("${orders.subscriptions.max-backfill:100000}") int maxBackfill,
+            @Value("${orders.subscriptions.backfill-page-size:500}") int backfillPageSize,
+            @Value("${orders.subscriptions.resume-margin-ms:5000}") long resumeMargin
+    ) {
+        this.repository = repository;
+        this.metrics = metrics;
+        this.queueCapacity = queueCapacity;
+        this.maxBackfill = maxBackfill;
+        this.backfillPageSize = backfillPageSize;
+        this.resumeMargin = resumeMargin;
+
+        metrics.subscriptions(subscriptions::size);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Subscribes to the orders of a client, or of all clients when {@code clientId} is null, sending first the orders
+     * stored since the one numbered {@code after} when it is given.
+     */
+    public Subscription subscribe(Long clientId, Long after, Subscriber subscriber) throws Exception {
+        if (clientId != null && clientId <= 0) {
+            throw new InvalidOrderFilterException("Invalid client id");
+        }
+
+        if (after != null && after < 0) {
+            throw new InvalidOrderFilterException("Invalid order number");
+        }
+
+        Subscription subscription = new Subscription(clientId, subscriber, after != null);
+        subscriptions.add(subscription);
+
+        if (after != null) {
+            executor.execute(() -> subscription.backfill(after));
+        }
+
+        return subscription;
+    }
+
+    public void publish(Order order) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(order);
+        }
+    }
+
+    public void publish(List<Order> orders) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+
+        for (Order order : orders) {
+            publish(order);
+        }
+    }
+
+    @Override
+    public void ordersStored(List<Order> orders) {
+        publish(orders);
+    }
+
+    public final class Subscription {
+
+        private final Long clientId;
+        private final Subscriber subscriber;
+        private final BlockingQueue<Order> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final Set<Long> backfilled = new HashSet<>();
+        private final ReentrantLock liveLock = new ReentrantLock();
+        private final AtomicLong missedSince = new AtomicLong(Long.MAX_VALUE);
+        private long highWaterMark;
+        private volatile boolean live;
+
+        private Subscription(Long clientId, Subscriber subscriber, boolean backfill) {
+            this.clientId = clientId;
+            this.subscriber = subscriber;
+            this.live = !backfill;
+        }
+
+        public boolean cancel() {
+            if (!cancelled.compareAndSet(false, true)) {
+                return false;
+            }
+
+            subscriptions.remove(this);
+            queue.clear();
+            return true;
+        }
+
+        private void offer(Order order) {
+            if (cancelled.get() || (clientId != null && !clientId.equals(order.getClient().getId()))) {
+                return;
+            }
+
+            if (!queue.offer(order)) {
+                if (missedWhileBackfilling(order)) {
+                    return;
+                }
+
+                metrics.slowSubscriber();
+                drop("Slow consumer");
+                return;
+            }
+
+            schedule();
+        }
+
+        private boolean missedWhileBackfilling(Order order) {
+            liveLock.lock();
+            try {
+                if (live) {
+                    return false;
+                }
+
+                missedSince.accumulateAndGet(order.getOrderedAt(), Math::min);
+                return true;
+            } finally {
+                liveLock.unlock();
+            }
+        }
+
+        private void backfill(long after) {
+            try {
+                long since = 0;
+                if (after > 0) {
+                    Order resumed = repository.findVersionByOrderNumber(after);
+                    if (resumed == null) {
+                        drop("Unknown order number");
+                        return;
+                    }
+
+                    // The subscriber has the resume point itself, unless the orders dated before it were stored later
+                    backfilled.add(after);
+                    since = resumed.getOrderedAt() - resumeMargin;
+                }
+
+                while (true) {
+                    // Orders stored from now on are queued, so the ones to read are at most the highest stored number
+                    Order highest = repository.findFirstByOrderByOrderNumberDesc();
+                    highWaterMark = Math.max(highWaterMark, highest == null ? 0 : highest.getOrderNumber());
+                    if (!backfill(since, System.currentTimeMillis())) {
+                        return;
+                    }
+
+                    liveLock.lock();
+                    try {
+                        since = missedSince.getAndSet(Long.MAX_VALUE);
+                        live = since == Long.MAX_VALUE;
+                    } finally {
+                        liveLock.unlock();
+                    }
+
+                    if (live) {
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.error("Failed to resume order subscription: " + e.getMessage(), e);
+                drop("Failed to resume subscription");
+                return;
+            }
+
+            schedule();
+        }
+
+        /**
+         * Sends the stored orders dated from {@code since} to {@code until} and numbered up to the high-water mark that
+         * were not sent yet, returning whether the subscription is still active.
+         */
+        private boolean backfill(long since, long until) throws Exception {
+            long lastOrderedAt = since;
+            long lastOrderNumber = 0;
+            List<Order> page;
+            do {
+                PageRequest request = PageRequest.of(0, backfillPageSize, BACKFILL_SORT);
+                page = clientId == null
+                        ? repository.listByRangeAfter(lastOrderedAt, lastOrderNumber, until, request)
+                        : repository.listByClientIdAfter(clientId, lastOrderedAt, lastOrderNumber, request);
+
+                for (Order order : page) {
+                    if (cancelled.get()) {
+                        return false;
+                    }
+
+                    lastOrderedAt = order.getOrderedAt();
+                    lastOrderNumber = order.getOrderNumber();
+                    if (lastOrderedAt > until) {
+                        return true;
+                    }
+
+                    if (lastOrderNumber > highWaterMark || !backfilled.add(lastOrderNumber)) {
+                        continue;
+                    }
+
+                    if (backfilled.size() > maxBackfill) {
+                        drop("Resume point too far behind");
+                        return false;
+                    }
+
+                    subscriber.send(order);
+                }
+            } while (page.size() == backfillPageSize);
+
+            return true;
+        }
+
+        private void schedule() {
+            if (live && !cancelled.get() && draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down, publishing must never fail the order that was just stored
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Order order;
+                while (!cancelled.get() && (order = queue.poll()) != null) {
+                    // Orders stored while the backfill ran may have been read by it already, but none past its
+                    // high-water mark, so the sent numbers are no longer needed once the queue gets there
+                    if (!backfilled.isEmpty()) {
+                        if (order.getOrderNumber() > highWaterMark) {
+                            backfilled.clear();
+                        } else if (backfilled.contains(order.getOrderNumber())) {
+                            continue;
+                        }
+                    }
+
+                    subscriber.send(order);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Failed to push order to subscriber: " + e.getMessage(), e);
+                drop("Failed to send order");
+            } finally {
+                draining.set(false);
+            }
+
+            // An order offered after the last poll but before the flag was cleared would otherwise wait for the next one
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void drop(String reason) {
+            if (cancel()) {
+                subscriber.dropped(reason);
+            }
+        }
+
+    }
+
+}
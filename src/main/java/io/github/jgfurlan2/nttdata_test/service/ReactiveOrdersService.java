@@ -0,0 +1,284 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.ClientStats;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.model.OrdersPage;
+import io.github.jgfurlan2.nttdata_test.model.OrdersRollup;
+import io.github.jgfurlan2.nttdata_test.model.TopProduct;
+import io.github.jgfurlan2.nttdata_test.repository.ReactiveOrdersRepository;
+import io.github.jgfurlan2.nttdata_test.util.DuplicateKeys;
+import io.github.jgfurlan2.nttdata_test.util.PageTokens;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.*;
+
+/**
+ * Non-blocking counterpart of {@link OrdersService}, sharing its {@link OrdersIngest} steps, dedup filter and cache.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveOrdersService {
+
+    private static final Sort KEYSET_SORT = Sort.by("orderedAt", "orderNumber");
+
+    private final ReactiveOrdersRepository repository;
+    private final OrdersIngest ingest;
+    private final ChecksumDedupFilter checksumFilter;
+    private final OrdersCache ordersCache;
+    private final OrdersMetrics metrics;
+    private final OrdersListeners listeners;
+    private final ClientStatsService clientStats;
+    private final OrdersRollups rollups;
+    private final TopProducts topProducts;
+    private final long maxStreamRange;
+    private final int maxPageSize;
+
+    public ReactiveOrdersService(
+            ReactiveOrdersRepository repository,
+            OrdersIngest ingest,
+            ChecksumDedupFilter checksumFilter,
+            OrdersCache ordersCache,
+            OrdersMetrics metrics,
+            OrdersListeners listeners,
+            ClientStatsService clientStats,
+            OrdersRollups rollups,
+            TopProducts topProducts,
+            @Value("${orders.stream.max-range:2678400000}") long maxStreamRange,
+            @Value("${orders.page.max-size:1000}") int maxPageSize
+    ) {
+        this.repository = repository;
+        this.ingest = ingest;
+        this.checksumFilter = checksumFilter;
+        this.ordersCache = ordersCache;
+        this.metrics = metrics;
+        this.listeners = listeners;
+        this.clientStats = clientStats;
+        this.rollups = rollups;
+        this.topProducts = topProducts;
+        this.maxStreamRange = maxStreamRange;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public Flux<Order> getOrdersByClientId(Long clientId) {
+        return repository.listByClientId(clientId);
+    }
+
+    public Mono<OrdersPage> getOrdersPageByClientId(Long clientId, String token, int size) {
+        try {
+            OrderFilters.validatePageSize(size, maxPageSize);
+
+            long[] after = token == null ? new long[]{Long.MIN_VALUE, 0L} : PageTokens.decode(token);
+            return toPage(repository.listByClientIdAfter(clientId, after[0], after[1], keysetPage(size)), size);
+        } catch (InvalidOrderFilterException e) {
+            return Mono.error(e);
+        }
+    }
+
+    public Mono<Order> getOrderByOrderNumber(Long orderNumber) {
+        Optional<Order> cached = ordersCache.peek(orderNumber);
+        if (cached != null) {
+            return Mono.justOrEmpty(cached);
+        }
+
+        return repository.findByOrderNumber(orderNumber)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(order -> Mono.justOrEmpty(ordersCache.putLoaded(orderNumber, order.orElse(null))));
+    }
+
+    public Mono<ClientStats> getClientStats(Long clientId) {
+        try {
+            ClientStats cached = clientStats.peek(clientId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+        } catch (InvalidOrderFilterException e) {
+            return Mono.error(e);
+        }
+
+        return Mono.fromCallable(() -> clientStats.get(clientId)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<OrdersRollup> getRollup(Long begin, Long end, String granularity) {
+        // Closed buckets are usually cached, but the open ones are read through the blocking Mongo client
+        return Mono.fromCallable(() -> rollups.getRollup(begin, end, granularity)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<List<TopProduct>> getTopProducts(String window, int limit) {
+        // Merging the in-memory sketches never blocks, so it runs on the event loop
+        return Mono.fromCallable(() -> topProducts.getTopProducts(window, limit));
+    }
+
+    public Flux<Order> getOrdersByRange(Long begin, Long end) {
+        try {
+            OrderFilters.validateRange(begin, end);
+        } catch (InvalidOrderFilterException e) {
+            return Flux.error(e);
+        }
+
+        return repository.listByRange(begin, end);
+    }
+
+    public Flux<Order> streamOrdersByRange(Long begin, Long end) {
+        try {
+            // The cursor is consumed on demand, so the window is only bounded to protect Mongo
+            OrderFilters.validateStreamRange(begin, end, maxStreamRange);
+        } catch (InvalidOrderFilterException e) {
+            return Flux.error(e);
+        }
+
+        return repository.listByRange(begin, end);
+    }
+
+    public Mono<OrdersPage> getOrdersPageByRange(Long begin, Long end, String token, int size) {
+        try {
+            // Pages are bounded by size, so the window follows the streaming limit instead of the 24h one
+            OrderFilters.validateStreamRange(begin, end, maxStreamRange);
+            OrderFilters.validatePageSize(size, maxPageSize);
+
+            long[] after = token == null ? new long[]{begin, 0L} : PageTokens.decode(token);
+            if (after[0] < begin) {
+                after = new long[]{begin, 0L};
+            }
+
+            return toPage(repository.listByRangeAfter(after[0], after[1], end, keysetPage(size)), size);
+        } catch (InvalidOrderFilterException e) {
+            return Mono.error(e);
+        }
+    }
+
+    /**
+     * Emits the stored order number, or completes empty when the order is a duplicate.
+     */
+    public Mono<Long> receiveOrder(Order order) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            try {
+                ingest.validateOrder(order);
+            } catch (Exception e) {
+                metrics.record(OrdersMetrics.Stage.VALIDATE, started);
+                return Mono.error(e);
+            }
+
+            long validated = metrics.record(OrdersMetrics.Stage.VALIDATE, started);
+            return isDuplicate(order.getChecksum()).flatMap(duplicated -> {
+                long checked = metrics.record(OrdersMetrics.Stage.CHECKSUM, validated);
+                if (duplicated) {
+                    metrics.duplicated();
+                    return Mono.empty();
+                }
+
+                return number(order).flatMap(numbered -> {
+                    long allocated = metrics.record(OrdersMetrics.Stage.ALLOCATE, checked);
+                    return repository.insert(numbered).doFinally(signal -> metrics.record(OrdersMetrics.Stage.INSERT, allocated));
+                });
+            });
+        }).flatMap(stored -> {
+            ingest.stored(stored);
+            return notifyStored(List.of(stored)).thenReturn(stored.getOrderNumber());
+        }).onErrorResume(e -> e instanceof DuplicateKeyException && DuplicateKeys.isChecksum(e), e -> {
+            ingest.duplicated(order.getChecksum());
+            return Mono.empty();
+        });
+    }
+
+    public Mono<List<OrderAck>> receiveOrders(List<Order> orders) {
+        long started = System.nanoTime();
+        List<OrderAck> acks = ingest.checkOrders(orders);
+        long validated = metrics.record(OrdersMetrics.Stage.VALIDATE, started);
+
+        Set<String> checksums = ingest.unacked(orders, acks);
+        if (checksums.isEmpty()) {
+            return Mono.just(acks);
+        }
+
+        Set<String> unresolved = new HashSet<>();
+        Set<String> seen = checksumFilter.containsAny(checksums, unresolved);
+        Mono<Set<String>> found = unresolved.isEmpty()
+                ? Mono.just(Set.of())
+                : repository.findByChecksumIn(unresolved).map(Order::getChecksum).collect(HashSet::new, Set::add);
+
+        return found.flatMap(stored -> {
+            checksumFilter.recordLookups(unresolved, stored);
+            seen.addAll(stored);
+
+            long checked = metrics.record(OrdersMetrics.Stage.CHECKSUM, validated);
+            return allocate(orders, acks, seen).map(accepted -> {
+                metrics.record(OrdersMetrics.Stage.ALLOCATE, checked);
+                return accepted;
+            });
+        }).flatMap(accepted -> {
+            if (accepted.isEmpty()) {
+                return Mono.just(acks);
+            }
+
+            long allocated = System.nanoTime();
+            return repository.insertIgnoringDuplicates(accepted).flatMap(insert -> {
+                metrics.record(OrdersMetrics.Stage.INSERT, allocated);
+                return notifyStored(ingest.inserted(orders, acks, accepted, insert)).thenReturn(acks);
+            });
+        });
+    }
+
+    private Mono<List<Order>> allocate(List<Order> orders, List<OrderAck> acks, Set<String> seen) {
+        // Refilling a block is a blocking Mongo round trip, so it is kept off the event loop
+        return Mono.fromCallable(() -> ingest.allocate(orders, acks, seen)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Void> notifyStored(List<Order> stored) {
+        // Listeners write through the blocking Mongo client, so they are kept off the event loop
+        return Mono.<Void>fromRunnable(() -> listeners.stored(stored)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Boolean> isDuplicate(String checksum) {
+        Boolean known = checksumFilter.containsLocally(checksum);
+        if (known != null) {
+            return Mono.just(known);
+        }
+
+        return repository.findByChecksum(checksum)
+                .hasElement()
+                .doOnNext(found -> checksumFilter.recordLookup(checksum, found));
+    }
+
+    private Mono<Order> number(Order order) {
+        long orderedAt = System.currentTimeMillis();
+        if (ingest.tryNumber(order, orderedAt)) {
+            return Mono.just(order);
+        }
+
+        // Only a block refill reaches Mongo, and it does so through the blocking counters document
+        return Mono.fromCallable(() -> {
+            ingest.number(order, orderedAt);
+            return order;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static Pageable keysetPage(int size) {
+        // One extra order tells whether there is a next page without a count query
+        return PageRequest.of(0, size + 1, KEYSET_SORT);
+    }
+
+    private static Mono<OrdersPage> toPage(Flux<Order> orders, int size) {
+        return orders.collectList().map(list -> {
+            if (list.size() <= size) {
+                return new OrdersPage(list, null);
+            }
+
+            List<Order> page = list.subList(0, size);
+            return new OrdersPage(page, PageTokens.encode(page.get(size - 1)));
+        });
+    }
+
+}
@@ -0,0 +1,152 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+import io.github.jgfurlan2.nttdata_test.model.RollupGranularity;
+import io.github.jgfurlan2.nttdata_test.model.TopProduct;
+import io.github.jgfurlan2.nttdata_test.util.SpaceSaving;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Best-selling products by GS1 over the last hour or day, by quantity, from {@link SpaceSaving} sketches fed with the
+ * stored orders. Each window is a ring of sketches, one per minute for the hour and one per hour for the day, merged
+ * when queried; a slot is reset when the ring comes back to it, so memory stays at a fixed number of counters.
+ * <p>
+ * The sketches only see the orders stored by this instance since it started.
+ */
+@Component
+public class TopProducts implements OrdersListener {
+
+    public enum Window {
+
+        HOUR(RollupGranularity.MINUTE, 60), DAY(RollupGranularity.HOUR, 24);
+
+        private final RollupGranularity slot;
+        private final int slots;
+
+        Window(RollupGranularity slot, int slots) {
+            this.slot = slot;
+            this.slots = slots;
+        }
+
+    }
+
+    private final int capacity;
+    private final Map<Window, Slot[]> rings = new EnumMap<>(Window.class);
+
+    public TopProducts(@Value("${orders.top-products.capacity:1000}") int capacity) {
+        this.capacity = capacity;
+
+        for (Window window : Window.values()) {
+            Slot[] ring = new Slot[window.slots];
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = new Slot();
+            }
+
+            rings.put(window, ring);
+        }
+    }
+
+    @Override
+    public void ordersStored(List<Order> orders) {
+        // Orders of a batch share their timestamp, so each slot is locked once per batch
+        Map<Long, Map<String, Long>> quantities = new HashMap<>();
+        for (Order order : orders) {
+            if (order.getProducts() == null) {
+                continue;
+            }
+
+            Map<String, Long> sold = quantities.computeIfAbsent(order.getOrderedAt(), orderedAt -> new HashMap<>());
+            for (Product product : order.getProducts()) {
+                if (product.getGs1() != null && product.getQuantity() != null && product.getQuantity() > 0) {
+                    sold.merge(product.getGs1(), product.getQuantity(), Long::sum);
+                }
+            }
+        }
+
+        quantities.forEach((orderedAt, sold) -> {
+            for (Window window : Window.values()) {
+                add(window, orderedAt, sold);
+            }
+        });
+    }
+
+    public List<TopProduct> getTopProducts(String windowName, int limit) throws Exception {
+        Window window = window(windowName);
+
+        if (limit <= 0) {
+            throw new InvalidOrderFilterException("Invalid limit");
+        }
+
+        if (limit > capacity) {
+            throw new InvalidOrderFilterException("Max limit exceeded");
+        }
+
+        List<TopProduct> products = new ArrayList<>(limit);
+        for (SpaceSaving.Entry entry : snapshot(window, System.currentTimeMillis()).top(limit)) {
+            products.add(new TopProduct(entry.key(), entry.count(), entry.error()));
+        }
+
+        return products;
+    }
+
+    /**
+     * Merges the slots of the window ending at {@code now} into a new sketch, which may be merged further, e.g. with
+     * the snapshots of other instances.
+     */
+    public SpaceSaving snapshot(Window window, long now) {
+        long oldest = window.slot.start(now) - (window.slots - 1) * window.slot.millis();
+
+        SpaceSaving merged = new SpaceSaving(capacity);
+        for (Slot slot : rings.get(window)) {
+            synchronized (slot) {
+                if (slot.sketch != null && slot.start >= oldest) {
+                    merged.merge(slot.sketch);
+                }
+            }
+        }
+
+        return merged;
+    }
+
+    private void add(Window window, long orderedAt, Map<String, Long> sold) {
+        long start = window.slot.start(orderedAt);
+        Slot slot = rings.get(window)[(int) Math.floorMod(start / window.slot.millis(), (long) window.slots)];
+
+        synchronized (slot) {
+            if (slot.sketch == null || slot.start < start) {
+                slot.start = start;
+                slot.sketch = new SpaceSaving(capacity);
+            } else if (slot.start > start) {
+                // The ring already moved past this order's slot
+                return;
+            }
+
+            sold.forEach(slot.sketch::add);
+        }
+    }
+
+    private static Window window(String name) throws InvalidOrderFilterException {
+        if (name == null) {
+            return Window.HOUR;
+        }
+
+        try {
+            return Window.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOrderFilterException("Invalid window");
+        }
+    }
+
+    private static final class Slot {
+
+        private long start;
+        private SpaceSaving sketch;
+
+    }
+
+}
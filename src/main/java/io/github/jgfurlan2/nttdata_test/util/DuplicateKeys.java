@@ -0,0 +1,26 @@
+package io.github.jgfurlan2.nttdata_test.util;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+
+/**
+ * Tells which unique index of the orders a duplicate key error comes from. Only a repeated checksum means the order was
+ * already stored; any other collision, like an order number handed out twice, is a failure of its own.
+ */
+public class DuplicateKeys {
+
+    public static boolean isChecksum(Throwable error) {
+        return isChecksum(error.getMessage());
+    }
+
+    public static boolean isChecksum(String message) {
+        return message != null && message.contains("index: " + Order.CHECKSUM_INDEX + " dup key");
+    }
+
+    /**
+     * Message of a duplicate key error on the index, in the format of the Mongo server.
+     */
+    public static String message(String index, Object key) {
+        return "E11000 duplicate key error collection: orders index: " + index + " dup key: { " + index + ": " + key + " }";
+    }
+
+}
@@ -0,0 +1,67 @@
+package io.github.jgfurlan2.nttdata_test.util;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrdersVersion;
+
+import java.util.List;
+
+/**
+ * Strong entity tags of order resources. Orders never change once inserted, so an order is identified by its number
+ * and checksum, and the orders of a range by how many there are and which numbers they have.
+ */
+public class ETags {
+
+    public static OrdersVersion order(Order order) {
+        String etag = "\"" + order.getOrderNumber() + "-" + Integer.toHexString(order.getChecksum().hashCode()) + "\"";
+        return new OrdersVersion(etag, order.getOrderedAt() == null ? 0 : order.getOrderedAt());
+    }
+
+    public static OrdersVersion range(List<Order> orders) {
+        long maxOrderNumber = 0;
+        long orderNumberSum = 0;
+        long lastOrderedAt = 0;
+        for (Order order : orders) {
+            maxOrderNumber = Math.max(maxOrderNumber, order.getOrderNumber());
+            orderNumberSum += order.getOrderNumber();
+            lastOrderedAt = Math.max(lastOrderedAt, order.getOrderedAt());
+        }
+
+        return range(orders.size(), maxOrderNumber, orderNumberSum, lastOrderedAt);
+    }
+
+    /**
+     * Orders are only ever added, so the count alone tells a fixed window apart; the sum of the numbers also tells apart
+     * a window that moved, with orders leaving it while others came in.
+     */
+    public static OrdersVersion range(long count, long maxOrderNumber, long orderNumberSum, long lastOrderedAt) {
+        String etag = "\"r" + count + "-" + maxOrderNumber + "-" + Long.toHexString(orderNumberSum) + "\"";
+        return new OrdersVersion(etag, lastOrderedAt);
+    }
+
+    /**
+     * Returns whether an {@code If-None-Match} header lists the tag, comparing weakly as RFC 9110 requires for it.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+
+            if (candidate.equals(etag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,137 @@
+package io.github.jgfurlan2.nttdata_test.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+
+/**
+ * Open addressing hash map from positive {@code long} keys to values, with linear probing and no boxed keys or entry
+ * objects.
+ * <p>
+ * Made for a single writer and any number of concurrent readers without locking: a key is published after its value,
+ * so a reader that finds the key also sees the value, and a resize fills a new table before swapping it in. Entries
+ * are never removed one by one, only all at once by {@link #clear()}.
+ */
+public final class LongHashMap<V> {
+
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 16;
+
+    private static final class Table {
+
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+        }
+
+    }
+
+    private final int initialCapacity;
+    private volatile Table table;
+    private volatile int size;
+
+    public LongHashMap(int expectedSize) {
+        // Kept at most half full, so probe sequences stay short
+        initialCapacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+        table = new Table(initialCapacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        Table current = table;
+        for (int i = index(key, current.mask); ; i = (i + 1) & current.mask) {
+            long found = (long) KEYS.getAcquire(current.keys, i);
+            if (found == key) {
+                return (V) VALUES.getAcquire(current.values, i);
+            } else if (found == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Maps the key to the value, returning the value it replaced. Must only be called by the writer.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive");
+        }
+
+        Table current = table;
+        for (int i = index(key, current.mask); ; i = (i + 1) & current.mask) {
+            long found = current.keys[i];
+            if (found == key) {
+                V previous = (V) current.values[i];
+                VALUES.setRelease(current.values, i, value);
+                return previous;
+            } else if (found == EMPTY) {
+                current.values[i] = value;
+                KEYS.setRelease(current.keys, i, key);
+
+                size = size + 1;
+                if (size * 2 > current.keys.length) {
+                    resize(current);
+                }
+
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Must only be called by the writer.
+     */
+    public void clear() {
+        table = new Table(initialCapacity);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        Table current = table;
+        for (int i = 0; i < current.keys.length; i++) {
+            if ((long) KEYS.getAcquire(current.keys, i) != EMPTY) {
+                action.accept((V) VALUES.getAcquire(current.values, i));
+            }
+        }
+    }
+
+    private void resize(Table current) {
+        Table resized = new Table(current.keys.length * 2);
+        for (int i = 0; i < current.keys.length; i++) {
+            long key = current.keys[i];
+            if (key == EMPTY) {
+                continue;
+            }
+
+            int j = index(key, resized.mask);
+            while (resized.keys[j] != EMPTY) {
+                j = (j + 1) & resized.mask;
+            }
+
+            resized.keys[j] = key;
+            resized.values[j] = current.values[i];
+        }
+
+        // Readers still probing the old table finish there; the volatile write publishes the filled new one
+        table = resized;
+    }
+
+    private static int index(long key, int mask) {
+        // Fibonacci hashing spreads the sequential order numbers and client ids over the whole table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+}
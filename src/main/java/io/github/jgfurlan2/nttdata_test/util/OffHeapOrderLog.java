@@ -0,0 +1,151 @@
+package io.github.jgfurlan2.nttdata_test.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Append-only log of serialized orders kept outside the heap, in direct buffers of {@code chunkSize} bytes. Each record
+ * is the order's {@code orderedAt} and number followed by its length and bytes, and never spans two chunks.
+ * <p>
+ * Made for a single writer and any number of concurrent readers without locking: a chunk's limit is published after
+ * the record it covers is written, and a {@link Snapshot} only reads up to the limits it saw, so records appended later
+ * are left out. Memory is freed along with the log once no snapshot references it.
+ */
+public final class OffHeapOrderLog {
+
+    private static final int HEADER_SIZE = Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private static final class Chunk {
+
+        private final ByteBuffer buffer;
+        private volatile int limit;
+
+        private Chunk(int capacity) {
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+
+    }
+
+    private final int chunkSize;
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile long allocated;
+
+    public OffHeapOrderLog(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Bytes of direct memory held by the log.
+     */
+    public long allocated() {
+        return allocated;
+    }
+
+    /**
+     * Must only be called by the writer.
+     */
+    public void append(long orderedAt, long orderNumber, byte[] order) {
+        int size = HEADER_SIZE + order.length;
+        Chunk[] current = chunks;
+        Chunk last = current.length == 0 ? null : current[current.length - 1];
+        if (last == null || last.buffer.capacity() - last.limit < size) {
+            last = new Chunk(Math.max(chunkSize, size));
+            Chunk[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = last;
+            chunks = grown;
+            allocated = allocated + last.buffer.capacity();
+        }
+
+        int position = last.limit;
+        last.buffer.putLong(position, orderedAt);
+        last.buffer.putLong(position + Long.BYTES, orderNumber);
+        last.buffer.putInt(position + 2 * Long.BYTES, order.length);
+        last.buffer.put(position + HEADER_SIZE, order);
+        last.limit = position + size;
+    }
+
+    public Snapshot snapshot() {
+        Chunk[] current = chunks;
+        int[] limits = new int[current.length];
+        for (int i = 0; i < current.length; i++) {
+            limits[i] = current[i].limit;
+        }
+
+        return new Snapshot(current, limits);
+    }
+
+    /**
+     * The records of the log when the snapshot was taken.
+     */
+    public static final class Snapshot {
+
+        private final Chunk[] chunks;
+        private final int[] limits;
+
+        private Snapshot(Chunk[] chunks, int[] limits) {
+            this.chunks = chunks;
+            this.limits = limits;
+        }
+
+        /**
+         * Calls the visitor with each record placed between {@code begin} and {@code end}, both inclusive, in the order
+         * they were appended.
+         */
+        public void forEach(long begin, long end, Visitor visitor) throws IOException {
+            for (int i = 0; i < chunks.length; i++) {
+                ByteBuffer buffer = chunks[i].buffer;
+                for (int position = 0; position < limits[i]; ) {
+                    long orderedAt = buffer.getLong(position);
+                    int length = buffer.getInt(position + 2 * Long.BYTES);
+                    if (orderedAt >= begin && orderedAt <= end) {
+                        visitor.visit(orderedAt, buffer.getLong(position + Long.BYTES), buffer, position + HEADER_SIZE, length);
+                    }
+
+                    position += HEADER_SIZE + length;
+                }
+            }
+        }
+
+        /**
+         * Copies the serialized orders placed between {@code begin} and {@code end} to the stream as they were appended,
+         * separated by {@code separator}, which also precedes the first one unless the list written so far is
+         * {@code empty}. Returns whether the list is still empty, so the next snapshot can go on with it.
+         */
+        public boolean writeTo(long begin, long end, OutputStream out, byte separator, boolean empty) throws IOException {
+            byte[] copy = new byte[COPY_BUFFER_SIZE];
+            boolean[] stillEmpty = {empty};
+            forEach(begin, end, (orderedAt, orderNumber, buffer, offset, length) -> {
+                if (!stillEmpty[0]) {
+                    out.write(separator);
+                }
+
+                for (int written = 0; written < length; ) {
+                    int count = Math.min(copy.length, length - written);
+                    buffer.get(offset + written, copy, 0, count);
+                    out.write(copy, 0, count);
+                    written += count;
+                }
+
+                stillEmpty[0] = false;
+            });
+
+            return stillEmpty[0];
+        }
+
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * Receives a record whose serialized order takes {@code length} bytes of {@code buffer} from {@code offset}. The
+         * buffer is shared, so it must only be read with absolute gets.
+         */
+        void visit(long orderedAt, long orderNumber, ByteBuffer buffer, int offset, int length) throws IOException;
+
+    }
+
+}
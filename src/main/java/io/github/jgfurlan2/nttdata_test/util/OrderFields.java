@@ -0,0 +1,199 @@
+package io.github.jgfurlan2.nttdata_test.util;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.Address;
+import io.github.jgfurlan2.nttdata_test.model.Client;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+
+import java.util.*;
+
+/**
+ * Fields of the orders requested with the {@code fields} parameter, as a comma separated list of property paths
+ * ({@code orderNumber,products.gs1}). Selecting {@code client}, {@code client.address} or {@code products} selects all
+ * of their fields.
+ */
+public class OrderFields {
+
+    private static final List<String> ORDER = List.of("orderNumber", "orderedAt", "checksum");
+    private static final List<String> CLIENT = List.of("client.id", "client.name", "client.taxId");
+    private static final List<String> ADDRESS = List.of(
+            "client.address.zipCode", "client.address.streetName", "client.address.streetNumber",
+            "client.address.neighborhood", "client.address.city", "client.address.state", "client.address.country"
+    );
+    private static final List<String> PRODUCTS = List.of("products.id", "products.gs1", "products.name", "products.quantity", "products.price");
+    private static final Map<String, List<String>> SELECTORS = selectors();
+
+    private final Set<String> fields;
+
+    private OrderFields(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Returns the selected fields, or {@code null} when {@code fields} is empty and the whole order is wanted.
+     */
+    public static OrderFields parse(String fields) throws InvalidOrderFilterException {
+        if (Strings.isNullOrEmpty(fields)) {
+            return null;
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            List<String> expanded = SELECTORS.get(field.trim());
+            if (expanded == null) {
+                throw new InvalidOrderFilterException("Invalid field " + field.trim());
+            }
+
+            selected.addAll(expanded);
+        }
+
+        return new OrderFields(selected);
+    }
+
+    /**
+     * Adds the fields pages are sorted and continued by.
+     */
+    public OrderFields withKeyset() {
+        if (fields.contains("orderedAt") && fields.contains("orderNumber")) {
+            return this;
+        }
+
+        Set<String> keyset = new LinkedHashSet<>(fields);
+        keyset.add("orderedAt");
+        keyset.add("orderNumber");
+        return new OrderFields(keyset);
+    }
+
+    /**
+     * Adds the fields the entity tag of an order is computed from.
+     */
+    public OrderFields withVersion() {
+        if (fields.containsAll(ORDER)) {
+            return this;
+        }
+
+        Set<String> version = new LinkedHashSet<>(fields);
+        version.addAll(ORDER);
+        return new OrderFields(version);
+    }
+
+    /**
+     * Clears the fields of an order read with {@link #withKeyset()} or {@link #withVersion()} that were not selected.
+     */
+    public Order trim(Order order) {
+        if (!contains("orderNumber")) {
+            order.setOrderNumber(null);
+        }
+
+        if (!contains("orderedAt")) {
+            order.setOrderedAt(null);
+        }
+
+        if (!contains("checksum")) {
+            order.setChecksum(null);
+        }
+
+        return order;
+    }
+
+    public boolean contains(String field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * Returns the selected fields as Mongo document paths.
+     */
+    public List<String> paths() {
+        List<String> paths = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            paths.add(field.endsWith(".id") ? field.substring(0, field.length() - 2) + "_id" : field);
+        }
+
+        return paths;
+    }
+
+    /**
+     * Copies the selected fields of an order already in memory, leaving the others null.
+     */
+    public Order project(Order order) {
+        Order projected = new Order();
+        projected.setOrderNumber(contains("orderNumber") ? order.getOrderNumber() : null);
+        projected.setOrderedAt(contains("orderedAt") ? order.getOrderedAt() : null);
+        projected.setChecksum(contains("checksum") ? order.getChecksum() : null);
+
+        if (order.getClient() != null && (any(CLIENT) || any(ADDRESS))) {
+            projected.setClient(project(order.getClient()));
+        }
+
+        if (order.getProducts() != null && any(PRODUCTS)) {
+            List<Product> products = new ArrayList<>(order.getProducts().size());
+            for (Product product : order.getProducts()) {
+                products.add(product == null ? null : project(product));
+            }
+
+            projected.setProducts(products);
+        }
+
+        return projected;
+    }
+
+    private Client project(Client client) {
+        Client projected = new Client();
+        projected.setId(contains("client.id") ? client.getId() : null);
+        projected.setName(contains("client.name") ? client.getName() : null);
+        projected.setTaxId(contains("client.taxId") ? client.getTaxId() : null);
+
+        Address address = client.getAddress();
+        if (address != null && any(ADDRESS)) {
+            projected.setAddress(new Address(
+                    contains("client.address.zipCode") ? address.getZipCode() : null,
+                    contains("client.address.streetName") ? address.getStreetName() : null,
+                    contains("client.address.streetNumber") ? address.getStreetNumber() : null,
+                    contains("client.address.neighborhood") ? address.getNeighborhood() : null,
+                    contains("client.address.city") ? address.getCity() : null,
+                    contains("client.address.state") ? address.getState() : null,
+                    contains("client.address.country") ? address.getCountry() : null
+            ));
+        }
+
+        return projected;
+    }
+
+    private Product project(Product product) {
+        return new Product(
+                contains("products.id") ? product.getId() : null,
+                contains("products.gs1") ? product.getGs1() : null,
+                contains("products.name") ? product.getName() : null,
+                contains("products.quantity") ? product.getQuantity() : null,
+                contains("products.price") ? product.getPrice() : null
+        );
+    }
+
+    private boolean any(List<String> group) {
+        for (String field : group) {
+            if (fields.contains(field)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Map<String, List<String>> selectors() {
+        Map<String, List<String>> selectors = new HashMap<>();
+        for (List<String> group : List.of(ORDER, CLIENT, ADDRESS, PRODUCTS)) {
+            for (String field : group) {
+                selectors.put(field, List.of(field));
+            }
+        }
+
+        List<String> client = new ArrayList<>(CLIENT);
+        client.addAll(ADDRESS);
+        selectors.put("client", client);
+        selectors.put("client.address", ADDRESS);
+        selectors.put("products", PRODUCTS);
+        return selectors;
+    }
+
+}
@@ -0,0 +1,31 @@
+package io.github.jgfurlan2.nttdata_test.util;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation tokens for keyset pagination, holding the {@code (orderedAt, orderNumber)} of the last order
+ * returned in the previous page.
+ */
+public class PageTokens {
+
+    public static String encode(Order last) {
+        String key = last.getOrderedAt() + ":" + last.getOrderNumber();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static long[] decode(String token) throws InvalidOrderFilterException {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int separator = key.indexOf(':');
+
+            return new long[]{Long.parseLong(key.substring(0, separator)), Long.parseLong(key.substring(separator + 1))};
+        } catch (RuntimeException e) {
+            throw new InvalidOrderFilterException("Invalid page token");
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package io.github.jgfurlan2.nttdata_test.util;
+
+import java.util.*;
+
+/**
+ * Space-Saving summary of the heaviest keys of a weighted stream, in a fixed number of counters kept in a min-heap.
+ * A key's count is never below its true weight and exceeds it by at most its error, itself at most
+ * {@code total / capacity}, so every key heavier than that is kept. Summaries of two streams merge into a summary of
+ * both with the same guarantee.
+ * <p>
+ * Not thread-safe.
+ */
+public class SpaceSaving {
+
+    public record Entry(String key, long count, long error) {
+    }
+
+    private final int capacity;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<String, Integer> positions;
+    private int size;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String key, long weight) {
+        total += weight;
+
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] += weight;
+            siftDown(position);
+        } else if (size < capacity) {
+            keys[size] = key;
+            counts[size] = weight;
+            errors[size] = 0;
+            positions.put(key, size);
+            siftUp(size++);
+        } else {
+            // The lightest key gives its counter away, and its count becomes the newcomer's possible overestimation
+            positions.remove(keys[0]);
+            keys[0] = key;
+            errors[0] = counts[0];
+            counts[0] += weight;
+            positions.put(key, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Adds the stream summarized by {@code other}. A key missing from a full summary may still have had up to its
+     * smallest count there, so that much is added to its count and error.
+     */
+    public void merge(SpaceSaving other) {
+        long missingHere = minCount();
+        long missingThere = other.minCount();
+        List<Entry> merged = new ArrayList<>(size + other.size);
+
+        for (int i = 0; i < size; i++) {
+            Integer j = other.positions.get(keys[i]);
+            if (j != null) {
+                merged.add(new Entry(keys[i], counts[i] + other.counts[j], errors[i] + other.errors[j]));
+            } else {
+                merged.add(new Entry(keys[i], counts[i] + missingThere, errors[i] + missingThere));
+            }
+        }
+
+        for (int j = 0; j < other.size; j++) {
+            if (!positions.containsKey(other.keys[j])) {
+                merged.add(new Entry(other.keys[j], other.counts[j] + missingHere, other.errors[j] + missingHere));
+            }
+        }
+
+        // Ascending counts already satisfy the heap order
+        merged.sort(Comparator.comparingLong(Entry::count));
+        List<Entry> kept = merged.subList(Math.max(0, merged.size() - capacity), merged.size());
+
+        positions.clear();
+        size = 0;
+        for (Entry entry : kept) {
+            keys[size] = entry.key();
+            counts[size] = entry.count();
+            errors[size] = entry.error();
+            positions.put(entry.key(), size++);
+        }
+
+        total += other.total;
+    }
+
+    /**
+     * Returns up to {@code limit} keys, heaviest first.
+     */
+    public List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(keys[i], counts[i], errors[i]));
+        }
+
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries.subList(0, Math.min(limit, entries.size()));
+    }
+
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Returns the most a key left out of the summary may weigh.
+     */
+    public long minCount() {
+        return size < capacity ? 0 : counts[0];
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+
+            if (smallest == position) {
+                return;
+            }
+
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+
+        positions.put(keys[a], a);
+        positions.put(keys[b], b);
+    }
+
+}
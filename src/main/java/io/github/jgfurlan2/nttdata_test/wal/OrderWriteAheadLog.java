@@ -0,0 +1,347 @@
+package io.github.jgfurlan2.nttdata_test.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of memory-mapped, fixed-size segment files. Each record is stored as
+ * {@code [int length][int crc32c][payload]}; a length of {@code -1} marks the end of a segment. Positions are global
+ * byte offsets ({@code segment * segmentSize + offset}), so they can be compared and persisted as a single long.
+ * <p>
+ * Opening a log recovers it: records are validated from the applied checkpoint onwards and the first torn or corrupt
+ * record, left by a crash in the middle of an append, is discarded together with everything after it.
+ */
+public class OrderWriteAheadLog implements Closeable {
+
+    public enum FsyncPolicy {
+        /** Forces every append to disk before returning. */
+        RECORD,
+        /** Forces before returning too, but concurrent appenders share a single force. */
+        GROUP,
+        /** Forces in the background on a fixed interval; a crash may lose the last interval of appends. */
+        INTERVAL
+    }
+
+    private static final int HEADER_SIZE = 8;
+    private static final int END_OF_SEGMENT = -1;
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CHECKPOINT = "applied.checkpoint";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final Map<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ScheduledExecutorService syncScheduler;
+
+    private volatile long writePosition;
+    private volatile long syncedPosition;
+    private volatile long appliedPosition;
+
+    private OrderWriteAheadLog(Path directory, int segmentSize, FsyncPolicy fsyncPolicy) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.syncScheduler = fsyncPolicy == FsyncPolicy.INTERVAL ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "orders-wal-sync");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public static OrderWriteAheadLog open(Path directory, int segmentSize, FsyncPolicy fsyncPolicy, long fsyncInterval) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be larger than a record header");
+        }
+
+        Files.createDirectories(directory);
+
+        OrderWriteAheadLog log = new OrderWriteAheadLog(directory, segmentSize, fsyncPolicy);
+        log.recover();
+        if (log.syncScheduler != null) {
+            log.syncScheduler.scheduleWithFixedDelay(log::syncQuietly, fsyncInterval, fsyncInterval, TimeUnit.MILLISECONDS);
+        }
+
+        return log;
+    }
+
+    /**
+     * Appends the payloads as consecutive records, returning the position right after the last one. Unless the policy
+     * is {@link FsyncPolicy#INTERVAL}, the records are on disk when this method returns.
+     */
+    public long append(List<byte[]> payloads) throws IOException {
+        long end;
+
+        writeLock.lock();
+        try {
+            for (byte[] payload : payloads) {
+                write(payload);
+            }
+
+            end = writePosition;
+        } finally {
+            writeLock.unlock();
+        }
+
+        if (fsyncPolicy == FsyncPolicy.RECORD) {
+            syncLock.lock();
+            try {
+                force(end);
+            } finally {
+                syncLock.unlock();
+            }
+        } else if (fsyncPolicy == FsyncPolicy.GROUP) {
+            syncTo(end);
+        }
+
+        return end;
+    }
+
+    public long append(byte[] payload) throws IOException {
+        return append(List.of(payload));
+    }
+
+    /**
+     * Reads up to {@code maxRecords} records written from {@code position} onwards.
+     */
+    public Batch read(long position, int maxRecords) {
+        List<byte[]> records = new ArrayList<>();
+        long limit = writePosition;
+
+        while (position < limit && records.size() < maxRecords) {
+            ByteBuffer segment = segments.get(position / segmentSize);
+            int offset = (int) (position % segmentSize);
+
+            if (segmentSize - offset < HEADER_SIZE || segment.getInt(offset) == END_OF_SEGMENT) {
+                position = (position / segmentSize + 1) * segmentSize;
+                continue;
+            }
+
+            int length = segment.getInt(offset);
+            byte[] payload = new byte[length];
+            segment.get(offset + HEADER_SIZE, payload);
+            records.add(payload);
+            position += HEADER_SIZE + length;
+        }
+
+        return new Batch(records, position);
+    }
+
+    /**
+     * Records that everything before {@code position} was applied, dropping the segments that are no longer needed.
+     */
+    public void markApplied(long position) throws IOException {
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, position));
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        appliedPosition = position;
+
+        long firstNeeded = position / segmentSize;
+        for (Long index : List.copyOf(segments.keySet())) {
+            if (index < firstNeeded) {
+                segments.remove(index);
+                Files.deleteIfExists(segmentPath(index));
+            }
+        }
+    }
+
+    public long appliedPosition() {
+        return appliedPosition;
+    }
+
+    public long writePosition() {
+        return writePosition;
+    }
+
+    public void sync() {
+        syncTo(writePosition);
+    }
+
+    @Override
+    public void close() {
+        if (syncScheduler != null) {
+            syncScheduler.shutdown();
+        }
+
+        sync();
+    }
+
+    private void write(byte[] payload) throws IOException {
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IOException("Record of " + payload.length + " bytes does not fit in a WAL segment");
+        }
+
+        long position = writePosition;
+        int offset = (int) (position % segmentSize);
+        if (segmentSize - offset < recordSize) {
+            if (segmentSize - offset >= HEADER_SIZE) {
+                segments.get(position / segmentSize).putInt(offset, END_OF_SEGMENT);
+            }
+
+            position = (position / segmentSize + 1) * segmentSize;
+            offset = 0;
+        }
+
+        MappedByteBuffer segment = segment(position / segmentSize);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        segment.put(offset + HEADER_SIZE, payload);
+        segment.putInt(offset + 4, (int) crc.getValue());
+        segment.putInt(offset, payload.length);
+
+        writePosition = position + recordSize;
+    }
+
+    private void syncTo(long position) {
+        if (syncedPosition >= position) {
+            return;
+        }
+
+        // Whoever takes the lock forces everything written so far, covering the appenders queued behind it
+        syncLock.lock();
+        try {
+            if (syncedPosition < position) {
+                force(writePosition);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // Must be called holding the sync lock
+    private void force(long position) {
+        long from = syncedPosition / segmentSize;
+        for (Map.Entry<Long, MappedByteBuffer> entry : segments.entrySet()) {
+            if (entry.getKey() >= from) {
+                entry.getValue().force();
+            }
+        }
+
+        if (position > syncedPosition) {
+            syncedPosition = position;
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException ignored) {
+            // Retried on the next interval
+        }
+    }
+
+    private void recover() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        appliedPosition = Files.exists(checkpoint) ? ByteBuffer.wrap(Files.readAllBytes(checkpoint)).getLong() : 0L;
+
+        List<Long> indexes;
+        try (Stream<Path> files = Files.list(directory)) {
+            indexes = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+
+        long position = appliedPosition;
+        for (long index : indexes) {
+            if (index < appliedPosition / segmentSize) {
+                Files.deleteIfExists(segmentPath(index));
+            } else {
+                segment(index);
+            }
+        }
+
+        // Walk the records after the checkpoint until the first empty, torn or corrupt one
+        while (segments.containsKey(position / segmentSize)) {
+            MappedByteBuffer segment = segments.get(position / segmentSize);
+            int offset = (int) (position % segmentSize);
+
+            if (segmentSize - offset < HEADER_SIZE || segment.getInt(offset) == END_OF_SEGMENT) {
+                position = (position / segmentSize + 1) * segmentSize;
+                continue;
+            }
+
+            int length = segment.getInt(offset);
+            if (length <= 0 || length > segmentSize - offset - HEADER_SIZE || !isValid(segment, offset, length)) {
+                break;
+            }
+
+            position += HEADER_SIZE + length;
+        }
+
+        truncate(position);
+        writePosition = position;
+        syncedPosition = position;
+    }
+
+    private void truncate(long position) throws IOException {
+        long index = position / segmentSize;
+        MappedByteBuffer segment = segments.get(index);
+        if (segment != null) {
+            for (int offset = (int) (position % segmentSize); offset < segmentSize; offset++) {
+                segment.put(offset, (byte) 0);
+            }
+            segment.force();
+        }
+
+        for (Long later : List.copyOf(segments.keySet())) {
+            if (later > index) {
+                segments.remove(later);
+                Files.deleteIfExists(segmentPath(later));
+            }
+        }
+    }
+
+    private static boolean isValid(ByteBuffer segment, int offset, int length) {
+        byte[] payload = new byte[length];
+        segment.get(offset + HEADER_SIZE, payload);
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue() == segment.getInt(offset + 4);
+    }
+
+    private MappedByteBuffer segment(long index) throws IOException {
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+            segments.put(index, segment);
+        }
+
+        return segment;
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+    }
+
+    public record Batch(List<byte[]> records, long next) {
+    }
+
+}
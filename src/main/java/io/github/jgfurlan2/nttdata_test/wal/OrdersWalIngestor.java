@@ -0,0 +1,332 @@
+package io.github.jgfurlan2.nttdata_test.wal;
+
+import com.google.gson.Gson;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersInsert;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.github.jgfurlan2.nttdata_test.service.ChecksumDedupFilter;
+import io.github.jgfurlan2.nttdata_test.service.OrderNumberAllocator;
+import io.github.jgfurlan2.nttdata_test.service.OrderViolations;
+import io.github.jgfurlan2.nttdata_test.service.OrdersCache;
+import io.github.jgfurlan2.nttdata_test.service.OrdersListeners;
+import io.github.jgfurlan2.nttdata_test.service.OrdersMetrics;
+import io.github.jgfurlan2.nttdata_test.service.OrdersReceiver;
+import io.github.jgfurlan2.nttdata_test.service.OrdersService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Acknowledges orders as soon as they are numbered and durably appended to the local {@link OrderWriteAheadLog}, so a
+ * slow or failing Mongo never stalls or loses them. A background replayer copies the log into the orders collection
+ * and advances the applied checkpoint; orders left unapplied by a crash are replayed after the next startup.
+ * <p>
+ * The checksums of orders in the log that are not replayed yet are held in memory and claimed atomically before an
+ * order is appended, so concurrent sessions never both accept the same order, and Mongo is only asked about checksums
+ * that are no longer pending, which are already stored there.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.wal.enabled", havingValue = "true")
+public class OrdersWalIngestor implements OrdersReceiver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrdersWalIngestor.class);
+    private static final Gson PARSER = new Gson();
+
+    private final OrdersService ordersService;
+    private final OrdersRepository repository;
+    private final OrderNumberAllocator orderNumberAllocator;
+    private final ChecksumDedupFilter checksumFilter;
+    private final OrdersCache ordersCache;
+    private final OrdersListeners listeners;
+    private final OrdersMetrics metrics;
+    private final Path directory;
+    private final int segmentSize;
+    private final OrderWriteAheadLog.FsyncPolicy fsyncPolicy;
+    private final long fsyncInterval;
+    private final int replayBatchSize;
+    private final long replayRetryDelay;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private OrderWriteAheadLog wal;
+    private Thread replayer;
+    private volatile boolean running;
+
+    public OrdersWalIngestor(
+            OrdersService ordersService,
+            OrdersRepository repository,
+            OrderNumberAllocator orderNumberAllocator,
+            ChecksumDedupFilter checksumFilter,
+            OrdersCache ordersCache,
+            OrdersListeners listeners,
+            OrdersMetrics metrics,
+            @Value("${orders.wal.directory:data/wal}") Path directory,
+            @Value("${orders.wal.segment-size:67108864}") int segmentSize,
+            @Value("${orders.wal.fsync:GROUP}") OrderWriteAheadLog.FsyncPolicy fsyncPolicy,
+            @Value("${orders.wal.fsync-interval-ms:10}") long fsyncInterval,
+            @Value("${orders.wal.replay-batch-size:500}") int replayBatchSize,
+            @Value("${orders.wal.replay-retry-ms:1000}") long replayRetryDelay
+    ) {
+        this.ordersService = ordersService;
+        this.repository = repository;
+        this.orderNumberAllocator = orderNumberAllocator;
+        this.checksumFilter = checksumFilter;
+        this.ordersCache = ordersCache;
+        this.listeners = listeners;
+        this.metrics = metrics;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncInterval = fsyncInterval;
+        this.replayBatchSize = replayBatchSize;
+        this.replayRetryDelay = replayRetryDelay;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        wal = OrderWriteAheadLog.open(directory, segmentSize, fsyncPolicy, fsyncInterval);
+
+        // Acknowledged orders that were not applied yet must be known before new ones are accepted
+        long recovered = 0;
+        long position = wal.appliedPosition();
+        for (OrderWriteAheadLog.Batch batch = wal.read(position, replayBatchSize); !batch.records().isEmpty(); batch = wal.read(position, replayBatchSize)) {
+            for (byte[] record : batch.records()) {
+                Order order = decode(record);
+                pending.add(order.getChecksum());
+                checksumFilter.record(order.getChecksum());
+                ordersCache.put(order);
+                recovered++;
+            }
+
+            position = batch.next();
+        }
+        LOGGER.info("Recovered {} unapplied orders from the WAL at {}", recovered, directory.toAbsolutePath());
+
+        running = true;
+        replayer = new Thread(this::replay, "orders-wal-replayer");
+        replayer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        replayer.interrupt();
+        replayer.join();
+        wal.close();
+    }
+
+    @Override
+    public Long receiveOrder(Order order) throws Exception {
+        ordersService.validateOrder(order);
+
+        if (!claim(order.getChecksum())) {
+            metrics.duplicated();
+            return null;
+        }
+
+        try {
+            assign(order, System.currentTimeMillis());
+            wal.append(encode(order));
+        } catch (Exception e) {
+            pending.remove(order.getChecksum());
+            throw e;
+        }
+
+        accepted(order);
+
+        return order.getOrderNumber();
+    }
+
+    @Override
+    public List<OrderAck> receiveOrders(List<Order> orders) throws Exception {
+        List<OrderAck> acks = new ArrayList<>(orders.size());
+        List<Order> accepted = new ArrayList<>(orders.size());
+        List<byte[]> records = new ArrayList<>(orders.size());
+        int duplicated = 0;
+        long orderedAt = System.currentTimeMillis();
+
+        OrderViolations violations = new OrderViolations();
+        for (Order order : orders) {
+            if (!ordersService.checkOrder(order, violations)) {
+                acks.add(OrderAck.error(violations.describe()));
+                continue;
+            }
+
+            boolean claimed = false;
+            try {
+                claimed = claim(order.getChecksum());
+                if (!claimed) {
+                    acks.add(OrderAck.duplicated());
+                    duplicated++;
+                } else {
+                    assign(order, orderedAt);
+                    records.add(encode(order));
+                    accepted.add(order);
+                    acks.add(OrderAck.registered(order.getOrderNumber()));
+                }
+            } catch (Exception e) {
+                if (claimed) {
+                    pending.remove(order.getChecksum());
+                }
+
+                acks.add(OrderAck.error(e.getMessage()));
+            }
+        }
+
+        // The whole batch shares a single append and fsync
+        if (!records.isEmpty()) {
+            try {
+                wal.append(records);
+            } catch (Exception e) {
+                accepted.forEach(order -> pending.remove(order.getChecksum()));
+                throw e;
+            }
+
+            accepted.forEach(this::accepted);
+        }
+
+        metrics.duplicated(duplicated);
+        return acks;
+    }
+
+    /**
+     * Claims the checksum of an order about to be appended, returning {@code false} when it is pending in the log or
+     * already stored. A claim is only released once its order was replayed, or when it could not be appended.
+     */
+    private boolean claim(String checksum) {
+        if (!pending.add(checksum)) {
+            return false;
+        }
+
+        boolean stored;
+        try {
+            stored = checksumFilter.contains(checksum);
+        } catch (RuntimeException e) {
+            pending.remove(checksum);
+            throw e;
+        }
+
+        if (stored) {
+            pending.remove(checksum);
+        }
+
+        return !stored;
+    }
+
+    private void assign(Order order, long orderedAt) {
+        order.setOrderNumber(orderNumberAllocator.next());
+        order.setOrderedAt(orderedAt);
+    }
+
+    private void accepted(Order order) {
+        checksumFilter.record(order.getChecksum());
+        ordersCache.put(order);
+    }
+
+    private void replay() {
+        long position = wal.appliedPosition();
+
+        while (running) {
+            OrderWriteAheadLog.Batch batch = wal.read(position, replayBatchSize);
+            if (batch.records().isEmpty()) {
+                pause(10);
+                continue;
+            }
+
+            try {
+                List<Order> orders = new ArrayList<>(batch.records().size());
+                for (byte[] record : batch.records()) {
+                    orders.add(decode(record));
+                }
+
+                // Orders inserted before a crash or a failed bulk write are rejected by the unique indexes, making the
+                // replay idempotent. Only rejected orders stored under another number were acknowledged twice
+                OrdersInsert insert = repository.insertIgnoringDuplicates(orders);
+                if (!insert.failed().isEmpty()) {
+                    // Orders of the batch that were stored are found by their checksum when it is retried
+                    throw new IllegalStateException(insert.failed().size() + " orders failed to be stored: "
+                            + insert.failed().values().iterator().next());
+                }
+
+                List<Order> duplicated = duplicated(insert.duplicated());
+                if (!duplicated.isEmpty()) {
+                    LOGGER.error("{} acknowledged orders replayed from the WAL were already stored: {}", duplicated.size(),
+                            duplicated.stream().map(Order::getChecksum).toList());
+                    metrics.walDuplicated(duplicated.size());
+                }
+
+                wal.markApplied(batch.next());
+                position = batch.next();
+                for (Order order : orders) {
+                    pending.remove(order.getChecksum());
+                }
+
+                // Subscribers resume from Mongo, so orders are passed on once replayed rather than when acknowledged.
+                // Listeners only run after the batch is marked applied, so orders found stored were never passed on
+                if (!duplicated.isEmpty()) {
+                    Set<Order> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+                    rejected.addAll(duplicated);
+                    orders.removeIf(rejected::contains);
+                }
+
+                listeners.stored(orders);
+            } catch (Exception e) {
+                LOGGER.error("Failed to replay WAL into Mongo, retrying: " + e.getMessage(), e);
+                pause(replayRetryDelay);
+            }
+        }
+    }
+
+    /**
+     * Returns the rejected orders whose checksum is stored under another order number. The others were stored by an
+     * earlier attempt at the same batch and are applied.
+     */
+    private List<Order> duplicated(List<Order> rejected) {
+        if (rejected.isEmpty()) {
+            return rejected;
+        }
+
+        Map<String, Long> stored = new HashMap<>();
+        for (Order order : repository.findByChecksumIn(rejected.stream().map(Order::getChecksum).toList())) {
+            stored.put(order.getChecksum(), order.getOrderNumber());
+        }
+
+        return rejected.stream()
+                .filter(order -> !order.getOrderNumber().equals(stored.get(order.getChecksum())))
+                .toList();
+    }
+
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static byte[] encode(Order order) {
+        return PARSER.toJson(order).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Order decode(byte[] record) {
+        return PARSER.fromJson(new String(record, StandardCharsets.UTF_8), Order.class);
+    }
+
+}
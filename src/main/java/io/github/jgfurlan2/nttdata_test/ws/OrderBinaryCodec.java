@@ -0,0 +1,380 @@
+package io.github.jgfurlan2.nttdata_test.ws;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderException;
+import io.github.jgfurlan2.nttdata_test.model.Address;
+import io.github.jgfurlan2.nttdata_test.model.Client;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact binary encoding of orders for the {@code /order} WebSocket, and the reference encoder for gateways.
+ * <p>
+ * A frame is a version byte, a kind byte ({@code 0} for a single order, {@code 1} for a batch) and a varint order
+ * count, followed by the orders. Every block starts with a presence byte with one bit per nullable field, in field
+ * order, and only the present fields follow. Counts and string lengths are unsigned varints, strings are UTF-8, longs
+ * are zigzag varints and prices are 8 byte IEEE doubles.
+ * <p>
+ * Clients and addresses are written as a varint tag: {@code 0} for null, {@code 1} for an inline block, which is then
+ * added to the frame dictionary, and {@code n + 2} to repeat the n-th inline block of the frame. A batch of orders of
+ * the same client therefore carries the client and its address only once.
+ */
+public final class OrderBinaryCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final byte SINGLE = 0;
+    private static final byte BATCH = 1;
+    private static final int NULL_TAG = 0;
+    private static final int INLINE_TAG = 1;
+    private static final int NULL_PRODUCT = 0x80;
+
+    private OrderBinaryCodec() {
+    }
+
+    public static byte[] encode(Order order) {
+        return encode(List.of(order), SINGLE);
+    }
+
+    public static byte[] encodeAll(List<Order> orders) {
+        return encode(orders, BATCH);
+    }
+
+    static OrderFrames.Frame decode(ByteBuffer frame) throws InvalidOrderException {
+        try {
+            return new Decoder(frame).frame();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new InvalidOrderException("Malformed binary frame: unexpected end of frame");
+        }
+    }
+
+    private static byte[] encode(List<Order> orders, byte kind) {
+        Encoder encoder = new Encoder();
+        encoder.writeByte(VERSION);
+        encoder.writeByte(kind);
+        encoder.writeVarint(orders.size());
+        for (Order order : orders) {
+            encoder.writeOrder(order);
+        }
+
+        return encoder.toByteArray();
+    }
+
+    private static final class Encoder {
+
+        private final Map<Client, Integer> clients = new HashMap<>();
+        private final Map<Address, Integer> addresses = new HashMap<>();
+        private byte[] buffer = new byte[256];
+        private int size;
+
+        void writeOrder(Order order) {
+            writeByte(presence(order.getChecksum(), order.getProducts()));
+            writeString(order.getChecksum());
+            writeClient(order.getClient());
+
+            if (order.getProducts() != null) {
+                writeVarint(order.getProducts().size());
+                for (Product product : order.getProducts()) {
+                    writeProduct(product);
+                }
+            }
+        }
+
+        private void writeClient(Client client) {
+            if (writeTag(clients, client)) {
+                writeByte(presence(client.getId(), client.getName(), client.getTaxId()));
+                writeLong(client.getId());
+                writeString(client.getName());
+                writeString(client.getTaxId());
+                writeAddress(client.getAddress());
+            }
+        }
+
+        private void writeAddress(Address address) {
+            if (writeTag(addresses, address)) {
+                writeByte(presence(address.getZipCode(), address.getStreetName(), address.getStreetNumber(),
+                        address.getNeighborhood(), address.getCity(), address.getState(), address.getCountry()));
+                writeString(address.getZipCode());
+                writeString(address.getStreetName());
+                writeString(address.getStreetNumber());
+                writeString(address.getNeighborhood());
+                writeString(address.getCity());
+                writeString(address.getState());
+                writeString(address.getCountry());
+            }
+        }
+
+        private void writeProduct(Product product) {
+            if (product == null) {
+                writeByte(NULL_PRODUCT);
+                return;
+            }
+
+            writeByte(presence(product.getId(), product.getGs1(), product.getName(), product.getQuantity(), product.getPrice()));
+            writeLong(product.getId());
+            writeString(product.getGs1());
+            writeString(product.getName());
+            writeLong(product.getQuantity());
+            if (product.getPrice() != null) {
+                long bits = Double.doubleToLongBits(product.getPrice());
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    writeByte((int) (bits >>> shift));
+                }
+            }
+        }
+
+        /**
+         * Writes the tag of a client or address block, returning whether the block itself must follow.
+         */
+        private <T> boolean writeTag(Map<T, Integer> dictionary, T block) {
+            if (block == null) {
+                writeVarint(NULL_TAG);
+                return false;
+            }
+
+            Integer index = dictionary.get(block);
+            if (index != null) {
+                writeVarint(index + 2);
+                return false;
+            }
+
+            dictionary.put(block, dictionary.size());
+            writeVarint(INLINE_TAG);
+            return true;
+        }
+
+        private static int presence(Object... fields) {
+            int presence = 0;
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] != null) {
+                    presence |= 1 << i;
+                }
+            }
+
+            return presence;
+        }
+
+        private void writeString(String value) {
+            if (value != null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length);
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, buffer, size, bytes.length);
+                size += bytes.length;
+            }
+        }
+
+        private void writeLong(Long value) {
+            if (value != null) {
+                writeVarint((value << 1) ^ (value >> 63));
+            }
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+
+            writeByte((int) value);
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        private void ensureCapacity(int length) {
+            if (size + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+    }
+
+    private static final class Decoder {
+
+        private final ByteBuffer in;
+        private final List<Client> clients = new ArrayList<>();
+        private final List<Address> addresses = new ArrayList<>();
+
+        Decoder(ByteBuffer in) {
+            this.in = in;
+        }
+
+        OrderFrames.Frame frame() throws InvalidOrderException {
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new InvalidOrderException("Unsupported binary frame version " + version);
+            }
+
+            byte kind = in.get();
+            if (kind != SINGLE && kind != BATCH) {
+                throw new InvalidOrderException("Malformed binary frame: unknown frame kind " + kind);
+            }
+
+            int count = readCount();
+            if (kind == SINGLE && count != 1) {
+                throw new InvalidOrderException("Malformed binary frame: single order frame with " + count + " orders");
+            }
+
+            List<Order> orders = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                orders.add(readOrder());
+            }
+
+            if (in.hasRemaining()) {
+                throw new InvalidOrderException("Malformed binary frame: unexpected content after the orders");
+            }
+
+            return new OrderFrames.Frame(orders, Map.of(), kind == SINGLE);
+        }
+
+        private Order readOrder() throws InvalidOrderException {
+            int presence = in.get();
+
+            Order order = new Order();
+            order.setChecksum(present(presence, 0) ? readString() : null);
+            order.setClient(readClient());
+
+            if (present(presence, 1)) {
+                int count = readCount();
+                List<Product> products = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    products.add(readProduct());
+                }
+
+                order.setProducts(products);
+            }
+
+            return order;
+        }
+
+        private Client readClient() throws InvalidOrderException {
+            long tag = readVarint();
+            if (tag == NULL_TAG) {
+                return null;
+            } else if (tag != INLINE_TAG) {
+                return reference(clients, tag);
+            }
+
+            int presence = in.get();
+
+            // Repeated clients share the decoded instance, which is never mutated after parsing
+            Client client = new Client();
+            client.setId(present(presence, 0) ? readLong() : null);
+            client.setName(present(presence, 1) ? readString() : null);
+            client.setTaxId(present(presence, 2) ? readString() : null);
+            client.setAddress(readAddress());
+            clients.add(client);
+            return client;
+        }
+
+        private Address readAddress() throws InvalidOrderException {
+            long tag = readVarint();
+            if (tag == NULL_TAG) {
+                return null;
+            } else if (tag != INLINE_TAG) {
+                return reference(addresses, tag);
+            }
+
+            int presence = in.get();
+
+            Address address = new Address();
+            address.setZipCode(present(presence, 0) ? readString() : null);
+            address.setStreetName(present(presence, 1) ? readString() : null);
+            address.setStreetNumber(present(presence, 2) ? readString() : null);
+            address.setNeighborhood(present(presence, 3) ? readString() : null);
+            address.setCity(present(presence, 4) ? readString() : null);
+            address.setState(present(presence, 5) ? readString() : null);
+            address.setCountry(present(presence, 6) ? readString() : null);
+            addresses.add(address);
+            return address;
+        }
+
+        private Product readProduct() {
+            int presence = in.get() & 0xFF;
+            if (presence == NULL_PRODUCT) {
+                return null;
+            }
+
+            Product product = new Product();
+            product.setId(present(presence, 0) ? readLong() : null);
+            product.setGs1(present(presence, 1) ? readString() : null);
+            product.setName(present(presence, 2) ? readString() : null);
+            product.setQuantity(present(presence, 3) ? readLong() : null);
+            product.setPrice(present(presence, 4) ? in.getDouble() : null);
+            return product;
+        }
+
+        private static <T> T reference(List<T> dictionary, long tag) throws InvalidOrderException {
+            long index = tag - 2;
+            if (index >= dictionary.size()) {
+                throw new InvalidOrderException("Malformed binary frame: unknown dictionary reference " + index);
+            }
+
+            return dictionary.get((int) index);
+        }
+
+        private static boolean present(int presence, int field) {
+            return (presence & (1 << field)) != 0;
+        }
+
+        private String readString() {
+            int length = readCount();
+            if (length > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+
+            String value;
+            if (in.hasArray()) {
+                value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            return value;
+        }
+
+        private Long readLong() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private int readCount() {
+            long value = readVarint();
+            if (value > in.remaining()) {
+                // Every counted item takes at least a byte, so a larger count can only come from a corrupt frame
+                throw new BufferUnderflowException();
+            }
+
+            return (int) value;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new BufferUnderflowException();
+        }
+
+    }
+
+}
@@ -0,0 +1,171 @@
+package io.github.jgfurlan2.nttdata_test.ws;
+
+import com.google.gson.Gson;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.service.OrderValidator;
+import io.github.jgfurlan2.nttdata_test.service.OrderViolations;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Text frame format shared by the servlet and reactive WebSocket handlers.
+ */
+final class OrderFrames {
+
+    private static final Gson PARSER = new Gson();
+    private static final OrderValidator VALIDATOR = new OrderValidator();
+
+    private OrderFrames() {
+    }
+
+    /**
+     * Orders read from a frame, with the orders rejected while reading kept apart by their position in the frame.
+     */
+    record Frame(List<Order> orders, Map<Integer, Exception> rejected, boolean single) {
+
+        int size() {
+            return orders.size() + rejected.size();
+        }
+
+        /**
+         * Interleaves the acks of the accepted orders with the rejected ones, back in frame order.
+         */
+        List<OrderAck> acks(List<OrderAck> accepted) {
+            if (rejected.isEmpty()) {
+                return accepted;
+            }
+
+            List<OrderAck> acks = new ArrayList<>(size());
+            Iterator<OrderAck> iterator = accepted.iterator();
+            for (int i = 0; i < size(); i++) {
+                Exception error = rejected.get(i);
+                acks.add(error == null ? iterator.next() : OrderAck.error(error.getMessage()));
+            }
+
+            return acks;
+        }
+
+    }
+
+    static Frame parse(CharSequence payload) throws IOException {
+        return parse(new CharSequenceReader(payload));
+    }
+
+    static Frame parse(Reader payload) throws IOException {
+        // Lenient so that several NDJSON lines can be read as consecutive top level values
+        JsonReader in = new JsonReader(payload);
+        in.setStrictness(Strictness.LENIENT);
+
+        List<Order> orders = new ArrayList<>();
+        Map<Integer, Exception> rejected = new HashMap<>();
+        OrderViolations violations = new OrderViolations();
+
+        // A frame carries either a single order, a JSON array of orders or several NDJSON lines
+        if (in.peek() == JsonToken.BEGIN_ARRAY) {
+            in.beginArray();
+            while (in.hasNext()) {
+                read(in, orders, rejected, violations);
+            }
+
+            in.endArray();
+            expectEnd(in);
+            return new Frame(orders, rejected, false);
+        }
+
+        read(in, orders, rejected, violations);
+        boolean single = in.peek() == JsonToken.END_DOCUMENT;
+        while (in.peek() != JsonToken.END_DOCUMENT) {
+            read(in, orders, rejected, violations);
+        }
+
+        return new Frame(orders, rejected, single);
+    }
+
+    private static void read(JsonReader in, List<Order> orders, Map<Integer, Exception> rejected, OrderViolations violations) throws IOException {
+        int position = orders.size() + rejected.size();
+        Order order = OrderJsonReader.readOrder(in);
+
+        violations.clear();
+        if (VALIDATOR.check(order, violations)) {
+            orders.add(order);
+        } else {
+            rejected.put(position, violations.toException());
+        }
+    }
+
+    private static void expectEnd(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.END_DOCUMENT) {
+            throw new MalformedJsonException("Unexpected content after the orders array");
+        }
+    }
+
+    static String ackMessages(List<OrderAck> acks) {
+        List<String> messages = new ArrayList<>(acks.size());
+        for (OrderAck ack : acks) {
+            messages.add(ackMessage(ack));
+        }
+
+        return PARSER.toJson(messages);
+    }
+
+    static String ackMessage(OrderAck ack) {
+        if (ack.getError() != null) {
+            return "An error occurred on register order: " + ack.getError();
+        } else if (ack.isDuplicated()) {
+            return "Duplicated order detected!";
+        }
+
+        return "Successfully registered order " + ack.getOrderNumber() + "!";
+    }
+
+    static String errorMessage(Throwable error) {
+        return "An error occurred on register order: " + error.getMessage();
+    }
+
+    /**
+     * Reads a frame buffer in place, without copying it into a String first.
+     */
+    private static final class CharSequenceReader extends Reader {
+
+        private final CharSequence text;
+        private int position;
+
+        CharSequenceReader(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position >= text.length()) {
+                return -1;
+            }
+
+            int count = Math.min(length, text.length() - position);
+            if (text instanceof StringBuilder builder) {
+                builder.getChars(position, position + count, buffer, offset);
+            } else if (text instanceof String string) {
+                string.getChars(position, position + count, buffer, offset);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    buffer[offset + i] = text.charAt(position + i);
+                }
+            }
+
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
@@ -0,0 +1,148 @@
+package io.github.jgfurlan2.nttdata_test.ws;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.github.jgfurlan2.nttdata_test.model.Address;
+import io.github.jgfurlan2.nttdata_test.model.Client;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads orders token by token into the model, leaving missing or null fields as null so that
+ * {@link io.github.jgfurlan2.nttdata_test.service.OrderValidator} can report every problem of the order at once.
+ * <p>
+ * Malformed JSON is thrown as an {@link IOException} or a runtime exception and leaves the reader unusable.
+ */
+final class OrderJsonReader {
+
+    private OrderJsonReader() {
+    }
+
+    static Order readOrder(JsonReader in) throws IOException {
+        if (nextNull(in)) {
+            return null;
+        }
+
+        Order order = new Order();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "checksum" -> order.setChecksum(nextString(in));
+                case "client" -> order.setClient(readClient(in));
+                case "products" -> order.setProducts(readProducts(in));
+                default -> in.skipValue();
+            }
+        }
+
+        in.endObject();
+        return order;
+    }
+
+    private static Client readClient(JsonReader in) throws IOException {
+        if (nextNull(in)) {
+            return null;
+        }
+
+        Client client = new Client();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id" -> client.setId(nextLong(in));
+                case "name" -> client.setName(nextString(in));
+                case "taxId" -> client.setTaxId(nextString(in));
+                case "address" -> client.setAddress(readAddress(in));
+                default -> in.skipValue();
+            }
+        }
+
+        in.endObject();
+        return client;
+    }
+
+    private static Address readAddress(JsonReader in) throws IOException {
+        if (nextNull(in)) {
+            return null;
+        }
+
+        Address address = new Address();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "zipCode" -> address.setZipCode(nextString(in));
+                case "streetName" -> address.setStreetName(nextString(in));
+                case "streetNumber" -> address.setStreetNumber(nextString(in));
+                case "neighborhood" -> address.setNeighborhood(nextString(in));
+                case "city" -> address.setCity(nextString(in));
+                case "state" -> address.setState(nextString(in));
+                case "country" -> address.setCountry(nextString(in));
+                default -> in.skipValue();
+            }
+        }
+
+        in.endObject();
+        return address;
+    }
+
+    private static List<Product> readProducts(JsonReader in) throws IOException {
+        if (nextNull(in)) {
+            return null;
+        }
+
+        List<Product> products = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            products.add(readProduct(in));
+        }
+
+        in.endArray();
+        return products;
+    }
+
+    private static Product readProduct(JsonReader in) throws IOException {
+        if (nextNull(in)) {
+            return null;
+        }
+
+        Product product = new Product();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id" -> product.setId(nextLong(in));
+                case "gs1" -> product.setGs1(nextString(in));
+                case "name" -> product.setName(nextString(in));
+                case "quantity" -> product.setQuantity(nextLong(in));
+                case "price" -> product.setPrice(nextDouble(in));
+                default -> in.skipValue();
+            }
+        }
+
+        in.endObject();
+        return product;
+    }
+
+    private static boolean nextNull(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL) {
+            return false;
+        }
+
+        in.nextNull();
+        return true;
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        return nextNull(in) ? null : in.nextString();
+    }
+
+    private static Long nextLong(JsonReader in) throws IOException {
+        return nextNull(in) ? null : in.nextLong();
+    }
+
+    private static Double nextDouble(JsonReader in) throws IOException {
+        return nextNull(in) ? null : in.nextDouble();
+    }
+
+}
@@ -0,0 +1,94 @@
+package io.github.jgfurlan2.nttdata_test.ws;
+
+import com.google.gson.Gson;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.service.OrdersSubscriptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes each stored order as a JSON text message. The subscription is set by the query string: {@code clientId} to
+ * receive the orders of a single client and {@code after}, the number of the last order seen before a reconnect, to
+ * first receive the orders stored since it.
+ */
+public class OrdersSubscriptionHandler extends TextWebSocketHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrdersSubscriptionHandler.class);
+    private static final Gson PARSER = new Gson();
+    private static final int SEND_TIME_LIMIT = 10_000;
+    private static final int SEND_BUFFER_SIZE = 512 * 1024;
+
+    private final OrdersSubscriptions subscriptions;
+    private final Map<String, OrdersSubscriptions.Subscription> active = new ConcurrentHashMap<>();
+
+    public OrdersSubscriptionHandler(OrdersSubscriptions subscriptions) {
+        this.subscriptions = subscriptions;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        WebSocketSession pushes = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT, SEND_BUFFER_SIZE);
+
+        try {
+            MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+            Long clientId = parameter(params, "clientId");
+            Long after = parameter(params, "after");
+
+            active.put(session.getId(), subscriptions.subscribe(clientId, after, new OrdersSubscriptions.Subscriber() {
+                @Override
+                public void send(Order order) throws IOException {
+                    pushes.sendMessage(new TextMessage(PARSER.toJson(order)));
+                }
+
+                @Override
+                public void dropped(String reason) {
+                    close(session, CloseStatus.SESSION_NOT_RELIABLE.withReason(reason));
+                }
+            }));
+        } catch (Exception e) {
+            close(session, CloseStatus.BAD_DATA.withReason(e.getMessage()));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        OrdersSubscriptions.Subscription subscription = active.remove(session.getId());
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private static Long parameter(MultiValueMap<String, String> params, String name) throws Exception {
+        String value = params.getFirst(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidOrderFilterException("Invalid " + name + " parameter");
+        }
+    }
+
+    private static void close(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+    }
+
+}
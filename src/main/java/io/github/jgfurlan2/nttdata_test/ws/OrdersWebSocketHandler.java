@@ -1,37 +1,216 @@
 package io.github.jgfurlan2.nttdata_test.ws;
 
-import com.google.gson.Gson;
 import io.github.jgfurlan2.nttdata_test.model.Order;
-import io.github.jgfurlan2.nttdata_test.service.OrdersService;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.service.OrdersIngestPipeline;
+import io.github.jgfurlan2.nttdata_test.service.OrdersMetrics;
+import io.github.jgfurlan2.nttdata_test.service.OrdersReceiver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
-public class OrdersWebSocketHandler extends TextWebSocketHandler {
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.github.jgfurlan2.nttdata_test.ws.OrderFrames.*;
+
+public class OrdersWebSocketHandler extends AbstractWebSocketHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OrdersWebSocketHandler.class);
-    private static final Gson PARSER = new Gson();
-    private final OrdersService ordersService;
+    private static final int SEND_TIME_LIMIT = 10_000;
+    private static final int SEND_BUFFER_SIZE = 512 * 1024;
+    private static final int FRAGMENT_BUFFER_SIZE = 64 * 1024;
+
+    private final OrdersReceiver ordersReceiver;
+    private final OrdersIngestPipeline pipeline;
+    private final OrdersMetrics metrics;
+    private final int maxFrameSize;
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, StringBuilder> fragments = new ConcurrentHashMap<>();
+    private final Map<String, ByteArrayOutputStream> binaryFragments = new ConcurrentHashMap<>();
+
+    public OrdersWebSocketHandler(OrdersReceiver ordersReceiver, OrdersIngestPipeline pipeline, OrdersMetrics metrics, int maxFrameSize) {
+        this.ordersReceiver = ordersReceiver;
+        this.pipeline = pipeline;
+        this.metrics = metrics;
+        this.maxFrameSize = maxFrameSize;
+
+        metrics.sessions(sessions::size);
+    }
+
+    @Override
+    public boolean supportsPartialMessages() {
+        // Large frames arrive in fragments sized by the container buffer and are joined here up to maxFrameSize
+        return true;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        // Pipeline acks are sent from writer threads, so sends must be serialized per session
+        sessions.put(session.getId(), new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT, SEND_BUFFER_SIZE));
+    }
 
-    public OrdersWebSocketHandler(OrdersService ordersService) {
-        this.ordersService = ordersService;
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessions.remove(session.getId());
+        fragments.remove(session.getId());
+        binaryFragments.remove(session.getId());
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        CharSequence payload = message.getPayload();
+        StringBuilder buffer = fragments.get(session.getId());
+
+        if (!message.isLast() || buffer != null) {
+            if (buffer == null) {
+                buffer = new StringBuilder(Math.min(maxFrameSize, FRAGMENT_BUFFER_SIZE));
+                fragments.put(session.getId(), buffer);
+            }
+
+            if (buffer.length() + message.getPayloadLength() > maxFrameSize) {
+                fragments.remove(session.getId());
+                session.close(CloseStatus.TOO_BIG_TO_PROCESS);
+                return;
+            }
+
+            buffer.append(message.getPayload());
+            if (!message.isLast()) {
+                return;
+            }
+
+            fragments.remove(session.getId());
+            payload = buffer;
+        }
+
+        WebSocketSession replies = sessions.getOrDefault(session.getId(), session);
         try {
-            String payload = message.getPayload();
+            handleFrame(replies, parse(payload));
+        } catch (Exception e) {
+            reply(replies, errorMessage(e));
+            LOGGER.error(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        ByteBuffer payload = message.getPayload();
+        ByteArrayOutputStream buffer = binaryFragments.get(session.getId());
+
+        if (!message.isLast() || buffer != null) {
+            if (buffer == null) {
+                buffer = new ByteArrayOutputStream(Math.min(maxFrameSize, FRAGMENT_BUFFER_SIZE));
+                binaryFragments.put(session.getId(), buffer);
+            }
+
+            if (buffer.size() + message.getPayloadLength() > maxFrameSize) {
+                binaryFragments.remove(session.getId());
+                session.close(CloseStatus.TOO_BIG_TO_PROCESS);
+                return;
+            }
 
-            Long order = ordersService.receiveOrder(PARSER.fromJson(payload, Order.class));
-            if (order == null) {
-                session.sendMessage(new TextMessage("Duplicated order detected!"));
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            buffer.write(bytes);
+            if (!message.isLast()) {
+                return;
+            }
+
+            binaryFragments.remove(session.getId());
+            payload = ByteBuffer.wrap(buffer.toByteArray());
+        }
+
+        WebSocketSession replies = sessions.getOrDefault(session.getId(), session);
+        try {
+            handleFrame(replies, decode(payload));
+        } catch (Exception e) {
+            reply(replies, errorMessage(e));
+            LOGGER.error(e.getMessage(), e);
+        }
+    }
+
+    private void handleFrame(WebSocketSession replies, OrderFrames.Frame frame) throws Exception {
+        if (frame.single()) {
+            if (!frame.rejected().isEmpty()) {
+                reply(replies, errorMessage(frame.rejected().get(0)));
+                return;
+            }
+
+            Order order = frame.orders().get(0);
+            if (pipeline == null) {
+                reply(replies, ackMessage(receiveOrder(order)));
             } else {
-                session.sendMessage(new TextMessage("Successfully registered order " + order + "!"));
+                pipeline.submit(order).whenComplete((ack, error) ->
+                        reply(replies, error == null ? ackMessage(ack) : errorMessage(error)));
             }
+        } else if (pipeline == null) {
+            List<OrderAck> acks = frame.orders().isEmpty() ? List.of() : ordersReceiver.receiveOrders(frame.orders());
+            reply(replies, ackMessages(frame.acks(acks)));
+        } else {
+            submitAll(replies, frame);
+        }
+    }
+
+    private OrderFrames.Frame parse(CharSequence payload) throws IOException {
+        long started = System.nanoTime();
+        try {
+            OrderFrames.Frame frame = OrderFrames.parse(payload);
+            frame.rejected().values().forEach(metrics::rejected);
+            return frame;
+        } catch (IOException | RuntimeException e) {
+            metrics.rejected(e);
+            throw e;
+        } finally {
+            metrics.record(OrdersMetrics.Stage.PARSE, started);
+        }
+    }
+
+    private OrderFrames.Frame decode(ByteBuffer payload) throws Exception {
+        long started = System.nanoTime();
+        try {
+            return OrderBinaryCodec.decode(payload);
         } catch (Exception e) {
-            session.sendMessage(new TextMessage("An error occurred on register order: " + e.getMessage()));
+            metrics.rejected(e);
+            throw e;
+        } finally {
+            metrics.record(OrdersMetrics.Stage.PARSE, started);
+        }
+    }
+
+    private OrderAck receiveOrder(Order order) throws Exception {
+        Long orderNumber = ordersReceiver.receiveOrder(order);
+        return orderNumber == null ? OrderAck.duplicated() : OrderAck.registered(orderNumber);
+    }
+
+    private void submitAll(WebSocketSession session, OrderFrames.Frame frame) {
+        List<CompletableFuture<OrderAck>> futures = new ArrayList<>(frame.orders().size());
+        for (Order order : frame.orders()) {
+            try {
+                futures.add(pipeline.submit(order).exceptionally(e -> OrderAck.error(e.getMessage())));
+            } catch (Exception e) {
+                futures.add(CompletableFuture.completedFuture(OrderAck.error(e.getMessage())));
+            }
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenRun(() -> reply(session, ackMessages(frame.acks(futures.stream().map(CompletableFuture::join).toList()))));
+    }
+
+    private static void reply(WebSocketSession session, String text) {
+        try {
+            session.sendMessage(new TextMessage(text));
+        } catch (IOException e) {
             LOGGER.error(e.getMessage(), e);
         }
     }
@@ -0,0 +1,103 @@
+package io.github.jgfurlan2.nttdata_test.ws;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.service.OrdersMetrics;
+import io.github.jgfurlan2.nttdata_test.service.ReactiveOrdersService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Mono;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static io.github.jgfurlan2.nttdata_test.ws.OrderFrames.*;
+
+public class ReactiveOrdersWebSocketHandler implements WebSocketHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveOrdersWebSocketHandler.class);
+
+    private final ReactiveOrdersService ordersService;
+    private final OrdersMetrics metrics;
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    public ReactiveOrdersWebSocketHandler(ReactiveOrdersService ordersService, OrdersMetrics metrics) {
+        this.ordersService = ordersService;
+        this.metrics = metrics;
+
+        metrics.sessions(sessions::get);
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        // Frames are parsed straight from the pooled buffer before it is released, then handled one at a time per
+        // session so acks keep the order their frames arrived in
+        sessions.incrementAndGet();
+        return session.send(session.receive()
+                        .map(this::handleFrame)
+                        .concatMap(Function.identity())
+                        .map(session::textMessage))
+                .doFinally(signal -> sessions.decrementAndGet());
+    }
+
+    private Mono<String> handleFrame(WebSocketMessage message) {
+        Frame frame;
+        long started = System.nanoTime();
+        try {
+            frame = read(message);
+            frame.rejected().values().forEach(metrics::rejected);
+        } catch (Exception e) {
+            metrics.rejected(e);
+            LOGGER.error(e.getMessage(), e);
+            return Mono.just(errorMessage(e));
+        } finally {
+            metrics.record(OrdersMetrics.Stage.PARSE, started);
+        }
+
+        Mono<String> reply;
+        if (frame.single()) {
+            reply = frame.rejected().isEmpty()
+                    ? receiveOrder(frame.orders().get(0)).map(OrderFrames::ackMessage)
+                    : Mono.just(errorMessage(frame.rejected().get(0)));
+        } else if (frame.orders().isEmpty()) {
+            reply = Mono.fromSupplier(() -> ackMessages(frame.acks(List.of())));
+        } else {
+            reply = Mono.defer(() -> ordersService.receiveOrders(frame.orders()))
+                    .map(acks -> ackMessages(frame.acks(acks)));
+        }
+
+        return reply.onErrorResume(e -> {
+            LOGGER.error(e.getMessage(), e);
+            return Mono.just(errorMessage(e));
+        });
+    }
+
+    private static Frame read(WebSocketMessage message) throws Exception {
+        if (message.getType() == WebSocketMessage.Type.BINARY) {
+            DataBuffer payload = message.getPayload();
+            ByteBuffer bytes = ByteBuffer.allocate(payload.readableByteCount());
+            payload.toByteBuffer(bytes);
+            return OrderBinaryCodec.decode(bytes);
+        }
+
+        try (Reader payload = new InputStreamReader(message.getPayload().asInputStream(), StandardCharsets.UTF_8)) {
+            return parse(payload);
+        }
+    }
+
+    private Mono<OrderAck> receiveOrder(Order order) {
+        return ordersService.receiveOrder(order)
+                .map(OrderAck::registered)
+                .defaultIfEmpty(OrderAck.duplicated());
+    }
+
+}
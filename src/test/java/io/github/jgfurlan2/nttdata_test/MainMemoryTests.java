@@ -0,0 +1,24 @@
+package io.github.jgfurlan2.nttdata_test;
+
+import io.github.jgfurlan2.nttdata_test.repository.InMemoryOrdersRepository;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+class MainMemoryTests {
+
+	@Autowired
+	private OrdersRepository repository;
+
+	@Test
+	void contextLoadsWithoutMongo() {
+		assertInstanceOf(InMemoryOrdersRepository.class, repository);
+	}
+
+}
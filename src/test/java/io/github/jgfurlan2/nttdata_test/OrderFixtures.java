@@ -0,0 +1,110 @@
+package io.github.jgfurlan2.nttdata_test;
+
+import io.github.jgfurlan2.nttdata_test.model.Address;
+import io.github.jgfurlan2.nttdata_test.model.Client;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Orders shared by the tests and the benchmarks. Every order is valid and built anew, so callers are free to change it.
+ */
+public final class OrderFixtures {
+
+    private OrderFixtures() {
+    }
+
+    /**
+     * An order as a client sends it: no order number nor date yet, a random checksum and two products.
+     */
+    public static Order createDummyOrder() {
+        return createDummyOrder(1L);
+    }
+
+    public static Order createDummyOrder(long clientId) {
+        Order order = new Order();
+        order.setChecksum(UUID.randomUUID().toString());
+        order.setClient(createClient(clientId));
+        order.setProducts(new ArrayList<>(List.of(
+                new Product(1L, "7908887777776", "Something Product", 3L, 10.9),
+                new Product(2L, "7908884443339", "Another Product", 10L, 5.28)
+        )));
+        return order;
+    }
+
+    public static Order createDummyOrder(String checksum) {
+        Order order = createDummyOrder();
+        order.setChecksum(checksum);
+        return order;
+    }
+
+    /**
+     * An order as stored, numbered and dated, with the checksum {@code checksum-<orderNumber>} and one product.
+     */
+    public static Order createStoredOrder(long orderNumber, long orderedAt) {
+        Product product = new Product(1L, "7908887777776", "Something Product", 3L, 10.9);
+        return new Order(orderNumber, createClient(1L), new ArrayList<>(List.of(product)), orderedAt, "checksum-" + orderNumber);
+    }
+
+    /**
+     * An order of the client placed at {@code orderedAt} with the given products, not numbered yet.
+     */
+    public static Order createOrder(long clientId, long orderedAt, Product... products) {
+        Order order = new Order();
+        order.setChecksum(UUID.randomUUID().toString());
+        order.setClient(createClient(clientId));
+        order.setProducts(new ArrayList<>(List.of(products)));
+        order.setOrderedAt(orderedAt);
+        return order;
+    }
+
+    public static Product createProduct(long quantity, double price) {
+        return createProduct("7908887777776", quantity, price);
+    }
+
+    public static Product createProduct(String gs1, long quantity, double price) {
+        return new Product(1L, gs1, "Product " + gs1, quantity, price);
+    }
+
+    /**
+     * An order shaped like the gateway traffic, with {@code products} distinct products.
+     */
+    public static Order createOrder(long clientId, int products) {
+        Order order = new Order();
+        order.setChecksum(UUID.randomUUID().toString());
+        order.setClient(createClient(clientId));
+        order.setProducts(new ArrayList<>(products));
+        for (int i = 1; i <= products; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setGs1("790888777777" + (i % 10));
+            product.setName("Product " + i);
+            product.setQuantity((long) i);
+            product.setPrice(10.9 * i);
+            order.getProducts().add(product);
+        }
+
+        return order;
+    }
+
+    public static List<Order> createOrders(int count, int products) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = createOrder(1 + i % 100, products);
+            order.setOrderNumber(i + 1L);
+            order.setOrderedAt(1_700_000_000_000L + i);
+            orders.add(order);
+        }
+
+        return orders;
+    }
+
+    private static Client createClient(long clientId) {
+        Address address = new Address("01310200", "Avenida Paulista", "1578", "Bela Vista", "Sao Paulo", "Sao Paulo", "Brazil");
+        return new Client(clientId, "Foo Bar", "12345678900", address);
+    }
+
+}
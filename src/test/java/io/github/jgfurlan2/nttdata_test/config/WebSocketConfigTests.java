@@ -0,0 +1,37 @@
+package io.github.jgfurlan2.nttdata_test.config;
+
+import io.github.jgfurlan2.nttdata_test.service.OrdersIngestPipeline;
+import io.github.jgfurlan2.nttdata_test.service.OrdersMetrics;
+import io.github.jgfurlan2.nttdata_test.service.OrdersService;
+import io.github.jgfurlan2.nttdata_test.service.OrdersSubscriptions;
+import io.github.jgfurlan2.nttdata_test.wal.OrdersWalIngestor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WebSocketConfigTests {
+
+    @Mock
+    private ObjectProvider<OrdersWalIngestor> walIngestor;
+
+    @Mock
+    private ObjectProvider<OrdersIngestPipeline> pipeline;
+
+    @Test
+    public void shouldRejectPipelineWithWal() {
+        when(walIngestor.getIfAvailable()).thenReturn(mock(OrdersWalIngestor.class));
+        when(pipeline.getIfAvailable()).thenReturn(mock(OrdersIngestPipeline.class));
+
+        assertThrows(IllegalArgumentException.class, () -> new WebSocketConfig(
+                mock(OrdersService.class), mock(OrdersMetrics.class), mock(OrdersSubscriptions.class), walIngestor, pipeline, 1024
+        ));
+    }
+
+}
@@ -0,0 +1,204 @@
+package io.github.jgfurlan2.nttdata_test.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrdersPage;
+import io.github.jgfurlan2.nttdata_test.model.OrdersVersion;
+import io.github.jgfurlan2.nttdata_test.service.ClientStatsService;
+import io.github.jgfurlan2.nttdata_test.service.OrdersHotWindow;
+import io.github.jgfurlan2.nttdata_test.service.OrdersRollups;
+import io.github.jgfurlan2.nttdata_test.service.OrdersService;
+import io.github.jgfurlan2.nttdata_test.service.TopProducts;
+import io.github.jgfurlan2.nttdata_test.util.ETags;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createStoredOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class OrdersControllerTests {
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    @Mock
+    private OrdersService ordersService;
+
+    @Mock
+    private ClientStatsService clientStatsService;
+
+    @Mock
+    private OrdersRollups ordersRollups;
+
+    @Mock
+    private TopProducts topProducts;
+
+    @Mock
+    private ObjectProvider<OrdersHotWindow> hotWindowProvider;
+
+    @Mock
+    private OrdersHotWindow hotWindow;
+
+    @Mock
+    private OrdersHotWindow.Slice slice;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        mockMvc = createMockMvc();
+    }
+
+    private MockMvc createMockMvc() {
+        return MockMvcBuilders.standaloneSetup(
+                new OrdersController(ordersService, clientStatsService, ordersRollups, topProducts, hotWindowProvider, objectMapper)
+        ).build();
+    }
+
+    @Test
+    public void shouldStreamOrdersAsNdjson() throws Exception {
+        when(ordersService.streamOrdersByRange(1000L, 2000L)).thenReturn(Stream.of(createStoredOrder(1L, 1001L), createStoredOrder(2L, 1002L)));
+
+        MvcResult result = mockMvc.perform(get("/orders").param("begin", "1000").param("end", "2000").accept(APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals(1L, objectMapper.readValue(lines.get(0), Order.class).getOrderNumber());
+        assertEquals(2L, objectMapper.readValue(lines.get(1), Order.class).getOrderNumber());
+    }
+
+    @Test
+    public void shouldReportInvalidStreamRangeBeforeStreaming() throws Exception {
+        doThrow(new InvalidOrderFilterException("Begin date is after end date"))
+                .when(ordersService).validateStreamRange(2000L, 1000L);
+
+        mockMvc.perform(get("/orders").param("begin", "2000").param("end", "1000").accept(APPLICATION_NDJSON))
+                .andExpect(status().isInternalServerError())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.message").value("Begin date is after end date"));
+
+        verify(ordersService, never()).streamOrdersByRange(2000L, 1000L);
+    }
+
+    @Test
+    public void shouldWriteRecentOrdersFromHotWindow() throws Exception {
+        OrdersVersion version = ETags.range(2, 2, 3, 1002);
+        when(hotWindowProvider.getIfAvailable()).thenReturn(hotWindow);
+        when(hotWindow.slice(1000L, 2000L)).thenReturn(slice);
+        when(slice.version()).thenReturn(version);
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write(objectMapper.writeValueAsBytes(List.of(createStoredOrder(1L, 1001L), createStoredOrder(2L, 1002L))));
+            return null;
+        }).when(slice).writeTo(any());
+        mockMvc = createMockMvc();
+
+        MvcResult result = mockMvc.perform(get("/orders").param("begin", "1000").param("end", "2000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, version.getEtag()))
+                .andExpect(jsonPath("$[0].orderNumber").value(1))
+                .andExpect(jsonPath("$[1].orderNumber").value(2));
+
+        verifyNoInteractions(ordersService);
+    }
+
+    @Test
+    public void shouldAnswerConditionalRequestFromHotWindow() throws Exception {
+        OrdersVersion version = ETags.range(2, 2, 3, 1002);
+        when(hotWindowProvider.getIfAvailable()).thenReturn(hotWindow);
+        when(hotWindow.slice(1000L, 2000L)).thenReturn(slice);
+        when(slice.version()).thenReturn(version);
+        mockMvc = createMockMvc();
+
+        mockMvc.perform(get("/orders").param("begin", "1000").param("end", "2000").header(HttpHeaders.IF_NONE_MATCH, version.getEtag()))
+                .andExpect(status().isNotModified());
+
+        verify(slice, never()).writeTo(any());
+        verifyNoInteractions(ordersService);
+    }
+
+    @Test
+    public void shouldListOrdersOutsideHotWindow() throws Exception {
+        List<Order> orders = List.of(createStoredOrder(1L, 1001L), createStoredOrder(2L, 1002L));
+        when(ordersService.getOrdersByRange(1000L, 2000L, null)).thenReturn(orders);
+
+        MvcResult result = mockMvc.perform(get("/orders").param("begin", "1000").param("end", "2000").accept(MediaType.ALL))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, ETags.range(orders).getEtag()))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].orderNumber").value(2));
+    }
+
+    @Test
+    public void shouldReportInvalidRangeOutsideHotWindow() throws Exception {
+        when(ordersService.getOrdersByRange(2000L, 1000L, null)).thenThrow(new InvalidOrderFilterException("Begin date is after end date"));
+
+        MvcResult result = mockMvc.perform(get("/orders").param("begin", "2000").param("end", "1000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value("Begin date is after end date"));
+    }
+
+    @Test
+    public void shouldPageOrdersWithoutHotWindow() throws Exception {
+        OrdersPage page = new OrdersPage(List.of(createStoredOrder(1L, 1001L)), null);
+        when(ordersService.getOrdersPageByRange(1000L, 2000L, null, 1, null)).thenReturn(page);
+
+        mockMvc.perform(get("/orders").param("begin", "1000").param("end", "2000").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders[0].orderNumber").value(1));
+    }
+
+}
@@ -0,0 +1,69 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryOrdersRepositoryTests extends OrdersRepositoryBehaviorTests {
+
+    @Override
+    protected OrdersRepository createRepository() {
+        // Sized far below the stored orders, so the tests also cover the indexes growing
+        return new InMemoryOrdersRepository(4);
+    }
+
+    @Test
+    public void shouldDeleteOrderFromEveryIndex() {
+        repository.deleteById(7L);
+
+        assertEquals(19, repository.count());
+        assertNull(repository.findByOrderNumber(7L));
+        assertNull(repository.findByChecksum("checksum-7"));
+        assertFalse(repository.listByClientId(2L).stream().anyMatch(order -> order.getOrderNumber() == 7L));
+        assertEquals(List.of(8L), repository.listByRange(4000L, 4000L).stream().map(Order::getOrderNumber).toList());
+    }
+
+    @Test
+    public void shouldServeReadersWhileWriting() throws Exception {
+        int orders = 20_000;
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            started.countDown();
+            try {
+                for (long stored = 20; stored < 20 + orders; stored = repository.count()) {
+                    // Every order counted must be readable through every index
+                    Order order = repository.findByOrderNumber(stored);
+                    assertNotNull(order);
+                    assertSame(order, repository.findByChecksum(order.getChecksum()));
+                    assertTrue(repository.listByRange(order.getOrderedAt(), order.getOrderedAt()).contains(order));
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        started.await();
+
+        List<Order> batch = new ArrayList<>();
+        for (long i = 21; i <= 20 + orders; i++) {
+            batch.add(order(i));
+            if (batch.size() == 100) {
+                repository.insertIgnoringDuplicates(batch);
+                batch.clear();
+            }
+        }
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(20 + orders, repository.count());
+    }
+
+}
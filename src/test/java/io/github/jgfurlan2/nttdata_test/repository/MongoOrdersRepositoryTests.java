@@ -0,0 +1,70 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.github.jgfurlan2.nttdata_test.config.MongoIndexConfig;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the {@link OrdersRepositoryBehaviorTests} against a local mongod. Skipped when no mongod is reachable.
+ */
+public class MongoOrdersRepositoryTests extends OrdersRepositoryBehaviorTests {
+
+    private static final String DATABASE = "orderdb_repository_tests";
+
+    private static MongoClient client;
+    private static OrdersRepository mongoRepository;
+
+    @BeforeAll
+    public static void setUp() {
+        String uri = System.getenv().getOrDefault("SPRING_DATA_MONGODB_URI", "mongodb://localhost:27017");
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+                .build());
+
+        boolean reachable;
+        try {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+            reachable = true;
+        } catch (Exception e) {
+            reachable = false;
+        }
+        assumeTrue(reachable, "No local mongod available");
+
+        MongoTemplate template = new MongoTemplate(client, DATABASE);
+        template.dropCollection(Order.class);
+        template.getConverter().getMappingContext().getPersistentEntity(Order.class);
+        new MongoIndexConfig(template).provisionIndexes();
+
+        mongoRepository = new MongoRepositoryFactory(template)
+                .getRepository(OrdersRepository.class, RepositoryFragments.just(new OrdersRepositoryCustomImpl(template)));
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        if (mongoRepository != null) {
+            client.getDatabase(DATABASE).drop();
+        }
+
+        client.close();
+    }
+
+    @Override
+    protected OrdersRepository createRepository() {
+        return mongoRepository;
+    }
+
+}
@@ -0,0 +1,211 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import io.github.jgfurlan2.nttdata_test.model.Client;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.util.DuplicateKeys;
+import io.github.jgfurlan2.nttdata_test.util.ETags;
+import io.github.jgfurlan2.nttdata_test.util.OrderFields;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createStoredOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behavior every {@link OrdersRepository} must have, run against each implementation by its subclasses.
+ * <p>
+ * Orders 1 to 20 are stored before each test: order {@code n} belongs to client {@code n % 3 + 1} and was placed at
+ * {@code (n + 1) / 2 * 1000}, so every timestamp is shared by two orders.
+ */
+public abstract class OrdersRepositoryBehaviorTests {
+
+    private static final Sort KEYSET_SORT = Sort.by("orderedAt", "orderNumber");
+
+    protected OrdersRepository repository;
+
+    protected abstract OrdersRepository createRepository();
+
+    @BeforeEach
+    public void setUpOrders() throws Exception {
+        repository = createRepository();
+        repository.deleteAll();
+
+        List<Order> orders = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            orders.add(order(i));
+        }
+        repository.insert(orders);
+    }
+
+    @Test
+    public void shouldFindOrdersByNumberAndChecksum() {
+        assertEquals(20, repository.count());
+        assertEquals(order(7), repository.findByOrderNumber(7L));
+        assertEquals(order(7), repository.findByChecksum("checksum-7"));
+        assertEquals(7L, repository.findVersionByOrderNumber(7L).getOrderNumber());
+        assertEquals(20L, repository.findFirstByOrderByOrderNumberDesc().getOrderNumber());
+        assertNull(repository.findByOrderNumber(21L));
+        assertNull(repository.findByChecksum("checksum-21"));
+
+        Set<Long> found = repository.findByChecksumIn(List.of("checksum-3", "checksum-21", "checksum-5")).stream()
+                .map(Order::getOrderNumber)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(3L, 5L), found);
+    }
+
+    @Test
+    public void shouldRejectDuplicatedOrderNumberOrChecksum() {
+        Order sameNumber = order(21);
+        sameNumber.setOrderNumber(1L);
+        Order sameChecksum = order(22);
+        sameChecksum.setChecksum("checksum-2");
+
+        DuplicateKeyException number = assertThrows(DuplicateKeyException.class, () -> repository.insert(sameNumber));
+        DuplicateKeyException checksum = assertThrows(DuplicateKeyException.class, () -> repository.insert(sameChecksum));
+
+        assertFalse(DuplicateKeys.isChecksum(number));
+        assertTrue(DuplicateKeys.isChecksum(checksum));
+        assertEquals(20, repository.count());
+    }
+
+    @Test
+    public void shouldFailOnlyOrderWithDuplicatedOrderNumber() {
+        Order sameNumber = order(22);
+        sameNumber.setOrderNumber(3L);
+
+        OrdersInsert insert = repository.insertIgnoringDuplicates(List.of(order(21), sameNumber));
+
+        assertEquals(List.of(), insert.duplicated());
+        assertEquals(Set.of(sameNumber), insert.failed().keySet());
+        assertFalse(DuplicateKeys.isChecksum(insert.failed().get(sameNumber)));
+        assertNotNull(repository.findByOrderNumber(21L));
+        assertNull(repository.findByChecksum("checksum-22"));
+    }
+
+    @Test
+    public void shouldInsertAllButDuplicatedOrders() {
+        Order duplicated = order(22);
+        duplicated.setChecksum("checksum-4");
+
+        OrdersInsert insert = repository.insertIgnoringDuplicates(List.of(order(21), duplicated, order(23)));
+
+        assertEquals(List.of(duplicated), insert.duplicated());
+        assertEquals(Map.of(), insert.failed());
+        assertEquals(22, repository.count());
+        assertNotNull(repository.findByOrderNumber(23L));
+        assertNull(repository.findByOrderNumber(22L));
+    }
+
+    @Test
+    public void shouldListOrdersOfClient() {
+        Set<Long> found = numbers(repository.listByClientId(2L).stream());
+
+        assertEquals(Set.of(1L, 4L, 7L, 10L, 13L, 16L, 19L), found);
+        assertTrue(repository.listByClientId(4L).isEmpty());
+    }
+
+    @Test
+    public void shouldPageOrdersOfClientAfterKey() {
+        List<Order> page = repository.listByClientIdAfter(2L, 2000L, 4L, PageRequest.of(0, 3, KEYSET_SORT));
+
+        assertEquals(List.of(7L, 10L, 13L), page.stream().map(Order::getOrderNumber).toList());
+    }
+
+    @Test
+    public void shouldListOrdersOfInclusiveRange() {
+        assertEquals(Set.of(3L, 4L, 5L, 6L), numbers(repository.listByRange(2000L, 3000L).stream()));
+        try (Stream<Order> orders = repository.streamByRange(2500L, 10000L)) {
+            assertEquals(Set.of(5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L, 20L), numbers(orders));
+        }
+        assertTrue(repository.listByRange(3000L, 2000L).isEmpty());
+    }
+
+    @Test
+    public void shouldPageRangeAfterKey() {
+        List<Order> page = repository.listByRangeAfter(2000L, 3L, 5000L, PageRequest.of(0, 4, KEYSET_SORT));
+
+        assertEquals(List.of(4L, 5L, 6L, 7L), page.stream().map(Order::getOrderNumber).toList());
+    }
+
+    @Test
+    public void shouldComputeVersionOfRange() {
+        assertEquals(ETags.range(repository.listByRange(2000L, 6000L)), repository.findRangeVersion(2000L, 6000L));
+        assertEquals(ETags.range(List.of()), repository.findRangeVersion(50000L, 60000L));
+    }
+
+    @Test
+    public void shouldProjectSelectedFields() throws Exception {
+        OrderFields fields = OrderFields.parse("orderNumber,client.id");
+
+        Order projected = repository.projectByOrderNumber(7L, fields);
+        List<Order> page = repository.projectByRangeAfter(2000L, 3L, 5000L, PageRequest.of(0, 2, KEYSET_SORT), fields.withKeyset());
+
+        assertEquals(7L, projected.getOrderNumber());
+        assertEquals(2L, projected.getClient().getId());
+        assertNull(projected.getClient().getName());
+        assertNull(projected.getProducts());
+        assertNull(projected.getChecksum());
+        assertEquals(List.of(4L, 5L), page.stream().map(Order::getOrderNumber).toList());
+        assertEquals(3000L, page.get(1).getOrderedAt());
+        assertEquals(Set.of(1L, 4L, 7L, 10L, 13L, 16L, 19L), numbers(repository.projectByClientId(2L, fields).stream()));
+    }
+
+    @Test
+    public void shouldSortAndPageAllOrders() {
+        assertEquals(20L, repository.findAll(Sort.by(Sort.Direction.DESC, "orderNumber")).get(0).getOrderNumber());
+
+        Page<Order> page = repository.findAll(PageRequest.of(1, 5, Sort.by("orderNumber")));
+        assertEquals(List.of(6L, 7L, 8L, 9L, 10L), page.getContent().stream().map(Order::getOrderNumber).toList());
+        assertEquals(20, page.getTotalElements());
+    }
+
+    @Test
+    public void shouldFindOrdersByExample() {
+        Order ofClient = new Order();
+        ofClient.setClient(new Client(2L, null, null, null));
+        Example<Order> byClient = Example.of(ofClient);
+
+        assertEquals(Set.of(1L, 4L, 7L, 10L, 13L, 16L, 19L), numbers(repository.findAll(byClient).stream()));
+        assertEquals(7, repository.count(byClient));
+        assertEquals(List.of(19L, 16L), repository.findAll(byClient, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "orderNumber")))
+                .getContent().stream().map(Order::getOrderNumber).toList());
+        assertEquals(19L, repository.findBy(byClient, query -> query.sortBy(Sort.by(Sort.Direction.DESC, "orderNumber")).firstValue()).getOrderNumber());
+
+        Order withChecksum = new Order();
+        withChecksum.setChecksum("checksum-7");
+        assertEquals(order(7), repository.findOne(Example.of(withChecksum)).orElseThrow());
+
+        withChecksum.setChecksum("1");
+        Example<Order> endingWith = Example.of(withChecksum, ExampleMatcher.matching().withMatcher("checksum", ExampleMatcher.GenericPropertyMatchers.endsWith()));
+        assertEquals(List.of(1L, 11L), repository.findAll(endingWith, Sort.by("orderNumber")).stream().map(Order::getOrderNumber).toList());
+
+        withChecksum.setChecksum("checksum-21");
+        assertFalse(repository.exists(Example.of(withChecksum)));
+    }
+
+    protected static Order order(long orderNumber) {
+        // Three clients, two orders per second and a quantity per order, so filters and sorts tell orders apart
+        Order order = createStoredOrder(orderNumber, (orderNumber + 1) / 2 * 1000);
+        order.getClient().setId(orderNumber % 3 + 1);
+        order.getProducts().get(0).setQuantity(orderNumber);
+        return order;
+    }
+
+    private static Set<Long> numbers(Stream<Order> orders) {
+        return orders.map(Order::getOrderNumber).collect(Collectors.toSet());
+    }
+
+}
@@ -0,0 +1,219 @@
+package io.github.jgfurlan2.nttdata_test.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import io.github.jgfurlan2.nttdata_test.config.MongoIndexConfig;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.util.OrderFields;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createStoredOrder;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Calls each {@link OrdersRepository} query against a local mongod with the profiler on and fails if any of the
+ * operations it ran used a collection scan. Skipped when no mongod is reachable.
+ */
+public class OrdersRepositoryIndexTests {
+
+    private static final String DATABASE = "orderdb_index_tests";
+    private static final Pageable PAGE = PageRequest.of(0, 10, Sort.by("orderedAt", "orderNumber"));
+
+    private static MongoClient client;
+    private static MongoDatabase database;
+    private static OrdersRepository repository;
+
+    @BeforeAll
+    public static void setUp() {
+        String uri = System.getenv().getOrDefault("SPRING_DATA_MONGODB_URI", "mongodb://localhost:27017");
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+                .build());
+
+        boolean reachable;
+        try {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+            reachable = true;
+        } catch (Exception e) {
+            reachable = false;
+        }
+        assumeTrue(reachable, "No local mongod available");
+
+        MongoTemplate template = new MongoTemplate(client, DATABASE);
+        template.dropCollection(Order.class);
+        template.getConverter().getMappingContext().getPersistentEntity(Order.class);
+        new MongoIndexConfig(template).provisionIndexes();
+
+        repository = new MongoRepositoryFactory(template)
+                .getRepository(OrdersRepository.class, RepositoryFragments.just(new OrdersRepositoryCustomImpl(template)));
+
+        List<Order> dummyOrders = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            Order order = createStoredOrder(i, i * 1000);
+            order.getClient().setId(i % 10 + 1);
+            dummyOrders.add(order);
+        }
+        repository.insertIgnoringDuplicates(dummyOrders);
+
+        database = client.getDatabase(DATABASE);
+    }
+
+    @BeforeEach
+    public void resetProfiler() {
+        database.runCommand(new Document("profile", 0));
+        database.getCollection("system.profile").drop();
+        database.runCommand(new Document("profile", 2));
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        if (database != null) {
+            database.drop();
+        }
+
+        client.close();
+    }
+
+    @Test
+    public void findFirstByOrderByOrderNumberDescShouldUseIndex() {
+        repository.findFirstByOrderByOrderNumberDesc();
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void findByChecksumShouldUseIndex() {
+        repository.findByChecksum("checksum-42");
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void findByChecksumInShouldUseIndex() {
+        repository.findByChecksumIn(List.of("checksum-1", "checksum-2"));
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void streamAllChecksumsShouldUseIndex() {
+        try (Stream<Order> checksums = repository.streamAllChecksums()) {
+            checksums.forEach(order -> {
+            });
+        }
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void findByOrderNumberShouldUseIndex() {
+        repository.findByOrderNumber(42L);
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void findVersionByOrderNumberShouldUseIndex() {
+        repository.findVersionByOrderNumber(42L);
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void listByClientIdShouldUseIndex() {
+        repository.listByClientId(3L);
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void listByClientIdAfterShouldUseIndex() {
+        repository.listByClientIdAfter(3L, 30_000L, 30L, PAGE);
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void listByRangeShouldUseIndex() {
+        repository.listByRange(10_000L, 20_000L);
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void streamByRangeShouldUseIndex() {
+        try (Stream<Order> orders = repository.streamByRange(10_000L, 20_000L)) {
+            orders.forEach(order -> {
+            });
+        }
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void listByRangeAfterShouldUseIndex() {
+        repository.listByRangeAfter(30_000L, 30L, 90_000L, PAGE);
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void findRangeVersionShouldUseIndex() {
+        repository.findRangeVersion(10_000L, 20_000L);
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void projectByOrderNumberShouldUseIndex() throws Exception {
+        repository.projectByOrderNumber(42L, OrderFields.parse("orderNumber,client"));
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void projectByClientIdShouldUseIndex() throws Exception {
+        repository.projectByClientId(3L, OrderFields.parse("orderNumber,client"));
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void projectByClientIdAfterShouldUseIndex() throws Exception {
+        repository.projectByClientIdAfter(3L, 30_000L, 30L, PAGE, OrderFields.parse("orderNumber,client").withKeyset());
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void projectByRangeShouldUseIndex() throws Exception {
+        repository.projectByRange(10_000L, 20_000L, OrderFields.parse("orderNumber,client"));
+        assertNoCollectionScan();
+    }
+
+    @Test
+    public void projectByRangeAfterShouldUseIndex() throws Exception {
+        repository.projectByRangeAfter(30_000L, 30L, 90_000L, PAGE, OrderFields.parse("orderNumber,client").withKeyset());
+        assertNoCollectionScan();
+    }
+
+    /**
+     * Checks the plans of the operations the profiler recorded on the orders collection since the last reset.
+     */
+    private static void assertNoCollectionScan() {
+        List<Document> operations = database.getCollection("system.profile")
+                .find(new Document("ns", DATABASE + ".orders").append("planSummary", new Document("$exists", true)))
+                .into(new ArrayList<>());
+
+        assertFalse(operations.isEmpty(), "No query was profiled");
+        for (Document operation : operations) {
+            assertFalse(operation.getString("planSummary").contains("COLLSCAN"), "Query plan uses COLLSCAN: " + operation.toJson());
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.ClientStats;
+import io.github.jgfurlan2.nttdata_test.repository.ClientStatsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createOrder;
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createProduct;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ClientStatsServiceTests {
+
+    @Mock
+    private ClientStatsRepository repository;
+
+    private SimpleMeterRegistry registry;
+    private ClientStatsService clientStats;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        clientStats = new ClientStatsService(repository, registry, 100, 60_000, false);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldIncrementOncePerClientOfBatch() {
+        clientStats.ordersStored(List.of(
+                createOrder(1L, 100L, createProduct(2L, 10.0), createProduct(1L, 5.5)),
+                createOrder(2L, 150L, createProduct(4L, 1.0)),
+                createOrder(1L, 50L, createProduct(3L, 2.0))
+        ));
+
+        ArgumentCaptor<Collection<ClientStats>> deltas = ArgumentCaptor.forClass(Collection.class);
+        verify(repository, times(1)).increment(deltas.capture());
+        assertEquals(List.of(new ClientStats(1L, 2, 6, 31.5, 50L, 100L), new ClientStats(2L, 1, 4, 4.0, 150L, 150L)),
+                List.copyOf(deltas.getValue()));
+    }
+
+    @Test
+    public void shouldServeUpdatedClientsFromHotSet() throws Exception {
+        clientStats.putLoaded(new ClientStats(1L, 6, 19, 98.0, 10L, 90L));
+
+        clientStats.ordersStored(List.of(createOrder(1L, 100L, createProduct(1L, 1.0))));
+
+        assertEquals(new ClientStats(1L, 7, 20, 99.0, 10L, 100L), clientStats.get(1L));
+        verify(repository, times(0)).findById(1L);
+    }
+
+    @Test
+    public void shouldCountOrdersOfFailedIncrementAsDrift() throws Exception {
+        clientStats.putLoaded(new ClientStats(1L, 6, 19, 98.0, 10L, 90L));
+        doThrow(new DataAccessResourceFailureException("Mongo is down")).when(repository).increment(anyCollection());
+
+        assertThrows(DataAccessResourceFailureException.class, () -> clientStats.ordersStored(List.of(
+                createOrder(1L, 100L, createProduct(1L, 1.0)),
+                createOrder(1L, 110L, createProduct(1L, 1.0)),
+                createOrder(2L, 120L, createProduct(1L, 1.0))
+        )));
+
+        assertEquals(3, registry.get("orders.client_stats.drift").counter().count());
+
+        // The hot copy is dropped rather than showing orders Mongo may not have
+        ClientStats stored = new ClientStats(1L, 6, 19, 98.0, 10L, 90L);
+        when(repository.findById(1L)).thenReturn(Optional.of(stored));
+        assertEquals(stored, clientStats.get(1L));
+    }
+
+    @Test
+    public void shouldRebuildStatsOnStartupWhenEnabled() throws Exception {
+        clientStats = new ClientStatsService(repository, registry, 100, 60_000, true);
+        clientStats.putLoaded(new ClientStats(1L, 6, 19, 98.0, 10L, 90L));
+
+        clientStats.start();
+
+        verify(repository).rebuild();
+        assertNull(clientStats.peek(1L));
+    }
+
+    @Test
+    public void shouldNotRebuildStatsOnStartupByDefault() {
+        clientStats.start();
+
+        verify(repository, never()).rebuild();
+    }
+
+    @Test
+    public void shouldLoadClientStatsOnce() throws Exception {
+        ClientStats stored = new ClientStats(1L, 3, 5, 12.0, 10L, 20L);
+        when(repository.findById(1L)).thenReturn(Optional.of(stored));
+
+        assertEquals(stored, clientStats.get(1L));
+        assertEquals(stored, clientStats.get(1L));
+
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void shouldReturnEmptyStatsForUnknownClient() throws Exception {
+        when(repository.findById(9L)).thenReturn(Optional.empty());
+
+        assertEquals(new ClientStats(9L, 0, 0, 0, null, null), clientStats.get(9L));
+    }
+
+    @Test
+    public void shouldKeepNewestStatsWhenLoadRacesWithUpdate() {
+        ClientStats updated = new ClientStats(1L, 4, 8, 40.0, 10L, 30L);
+        clientStats.putLoaded(updated);
+
+        // A load that read the document before the last increment must not replace it
+        assertSame(updated, clientStats.putLoaded(new ClientStats(1L, 3, 6, 30.0, 10L, 20L)));
+    }
+
+    @Test
+    public void shouldRejectInvalidClientId() {
+        Exception e = assertThrows(InvalidOrderFilterException.class, () -> clientStats.get(0L));
+        assertEquals("Invalid client id", e.getMessage());
+    }
+
+}
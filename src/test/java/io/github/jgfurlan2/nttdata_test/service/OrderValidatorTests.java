@@ -0,0 +1,116 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidClientAddressException;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderException;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidProductException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createDummyOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderValidatorTests {
+
+    private final OrderValidator validator = new OrderValidator();
+    private final OrderViolations violations = new OrderViolations();
+
+    @Test
+    public void shouldAcceptValidOrder() {
+        assertTrue(validator.check(createDummyOrder(), violations));
+        assertTrue(violations.isEmpty());
+    }
+
+    @Test
+    public void shouldRecordEveryViolation() {
+        Order order = createDummyOrder();
+        order.setChecksum(" ");
+        order.getClient().getAddress().setCity(null);
+        order.getProducts().get(0).setGs1("");
+        order.getProducts().get(1).setQuantity(0L);
+        order.getProducts().get(1).setPrice(null);
+
+        assertFalse(validator.check(order, violations));
+        assertEquals(5, violations.size());
+        assertEquals(List.of("MISSING_CHECKSUM", "MISSING_CITY", "MISSING_PRODUCT_GS1", "INVALID_PRODUCT_QUANTITY", "INVALID_PRODUCT_PRICE"), codes());
+        assertEquals(List.of("checksum", "client.address.city", "products[0].gs1", "products[1].quantity", "products[1].price"), paths());
+        assertEquals("Missing order checksum; Missing client address city; Product 1 missing GS1 code; "
+                + "Product 2 missing or invalid quantity; Product 2 missing or invalid price", violations.describe());
+        assertEquals(InvalidOrderException.class, violations.type());
+    }
+
+    @Test
+    public void shouldSkipFieldsOfMissingParts() {
+        Order order = createDummyOrder();
+        order.getClient().setAddress(null);
+        order.getProducts().set(0, null);
+
+        assertFalse(validator.check(order, violations));
+        assertEquals(List.of("MISSING_ADDRESS", "NULL_PRODUCT"), codes());
+        assertEquals(List.of("client.address", "products[0]"), paths());
+        assertEquals(1, violations.position(1));
+    }
+
+    @Test
+    public void shouldCheckLastProduct() {
+        Order order = createDummyOrder();
+        order.getProducts().get(1).setPrice(-1d);
+
+        assertFalse(validator.check(order, violations));
+        assertEquals("Product 2 missing or invalid price", violations.describe());
+    }
+
+    @Test
+    public void shouldReuseViolationsAfterClear() {
+        Order invalid = createDummyOrder();
+        invalid.setClient(null);
+        invalid.setProducts(List.of());
+
+        assertFalse(validator.check(invalid, violations));
+        assertEquals(List.of("MISSING_CLIENT", "MISSING_PRODUCTS"), codes());
+
+        violations.clear();
+        assertTrue(validator.check(createDummyOrder(), violations));
+
+        assertFalse(validator.check(null, violations));
+        assertEquals(List.of("MISSING_ORDER"), codes());
+        assertEquals("Missing order", violations.describe());
+    }
+
+    @Test
+    public void shouldThrowFirstViolationTypeWithEveryMessage() {
+        Order order = createDummyOrder();
+        order.getClient().getAddress().setZipCode(null);
+        order.getProducts().get(0).setId(0L);
+
+        Exception e = assertThrows(InvalidClientAddressException.class, () -> validator.validate(order));
+        assertEquals("Missing client address zip code; Product 1 missing id", e.getMessage());
+        assertEquals(0, e.getStackTrace().length);
+
+        Order products = createDummyOrder();
+        products.setProducts(null);
+        assertThrows(InvalidProductException.class, () -> validator.validate(products));
+    }
+
+    private List<String> codes() {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < violations.size(); i++) {
+            codes.add(violations.code(i));
+        }
+
+        return codes;
+    }
+
+    private List<String> paths() {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < violations.size(); i++) {
+            paths.add(violations.path(i));
+        }
+
+        return paths;
+    }
+
+}
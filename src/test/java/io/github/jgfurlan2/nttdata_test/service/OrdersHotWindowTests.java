@@ -0,0 +1,148 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.github.jgfurlan2.nttdata_test.util.ETags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createStoredOrder;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+public class OrdersHotWindowTests {
+
+    private static final long DAY = 86_400_000L;
+    private static final long HOUR = 3_600_000L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private OrdersRepository repository;
+    private OrdersHotWindow hotWindow;
+    private long now;
+
+    @BeforeEach
+    public void setUp() {
+        repository = Mockito.mock(OrdersRepository.class);
+        now = System.currentTimeMillis();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (hotWindow != null) {
+            hotWindow.stop();
+        }
+    }
+
+    @Test
+    public void shouldServeRangeAsJacksonWouldWriteIt() throws Exception {
+        Order loaded = createStoredOrder(1L, now - 2 * HOUR);
+        when(repository.streamByRange(anyLong(), anyLong())).thenReturn(Stream.of(loaded));
+        start(DAY, 1 << 20);
+        awaitLoaded();
+
+        Order stored = createStoredOrder(2L, now - HOUR);
+        Order outside = createStoredOrder(3L, now);
+        hotWindow.ordersStored(List.of(stored, outside));
+
+        OrdersHotWindow.Slice slice = hotWindow.slice(now - DAY, now - 1);
+        assertEquals(objectMapper.writeValueAsString(List.of(loaded, stored)), body(slice));
+        assertEquals(ETags.range(List.of(loaded, stored)), slice.version());
+        assertEquals("[]", body(hotWindow.slice(now + 1, now + 2)));
+        assertEquals(ETags.range(List.of()), hotWindow.slice(now + 1, now + 2).version());
+    }
+
+    @Test
+    public void shouldOnlyServeRangesInsideLoadedWindow() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Order loaded = createStoredOrder(1L, now - HOUR);
+        when(repository.streamByRange(anyLong(), anyLong())).thenReturn(blockingStream(release, loaded));
+        start(DAY, 1 << 20);
+
+        // Stored while the window is still loaded from Mongo, which returns it too
+        hotWindow.ordersStored(List.of(loaded));
+        assertNull(hotWindow.slice(now - HOUR, now));
+
+        release.countDown();
+        awaitLoaded();
+
+        assertEquals(objectMapper.writeValueAsString(List.of(loaded)), body(hotWindow.slice(now - HOUR, now)));
+        assertNull(hotWindow.slice(now - 2 * DAY, now - DAY));
+        assertNull(hotWindow.slice(now - DAY - 1, now));
+        assertNull(hotWindow.slice(now, now - 1));
+    }
+
+    @Test
+    public void shouldDropOldestShardsPastMaxBytes() throws Exception {
+        when(repository.streamByRange(anyLong(), anyLong())).thenReturn(Stream.empty());
+        start(DAY, 1500);
+        awaitLoaded();
+
+        Order oldest = createStoredOrder(1L, now - 3 * HOUR);
+        Order older = createStoredOrder(2L, now - 2 * HOUR);
+        Order recent = createStoredOrder(3L, now);
+        hotWindow.ordersStored(List.of(oldest));
+        hotWindow.ordersStored(List.of(older));
+        hotWindow.ordersStored(List.of(recent));
+
+        assertNull(hotWindow.slice(now - 3 * HOUR, now));
+        assertEquals(objectMapper.writeValueAsString(List.of(older, recent)), body(hotWindow.slice(now - 2 * HOUR, now)));
+        assertTrue(hotWindow.allocated() <= 1500);
+    }
+
+    private void start(long window, long maxBytes) throws Exception {
+        hotWindow = new OrdersHotWindow(repository, new OrdersMetrics(new SimpleMeterRegistry()), objectMapper, window, HOUR, 512, maxBytes);
+        hotWindow.start();
+    }
+
+    private void awaitLoaded() throws InterruptedException {
+        for (int i = 0; i < 500 && !hotWindow.isLoaded(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(hotWindow.isLoaded());
+    }
+
+    private static String body(OrdersHotWindow.Slice slice) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        slice.writeTo(out);
+        return out.toString();
+    }
+
+    private static Stream<Order> blockingStream(CountDownLatch release, Order... orders) {
+        Iterator<Order> iterator = List.of(orders).iterator();
+        Iterator<Order> blocking = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Order next() {
+                return iterator.next();
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(blocking, Spliterator.ORDERED), false);
+    }
+
+}
@@ -0,0 +1,117 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderException;
+import io.github.jgfurlan2.nttdata_test.exception.OrderQueueFullException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createDummyOrder;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrdersIngestPipelineTests {
+
+    @Mock
+    private OrdersService ordersService;
+
+    private OrdersIngestPipeline pipeline;
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        pipeline.stop();
+    }
+
+    @Test
+    public void shouldAckOrdersOnceTheirBatchCommits() throws Exception {
+        when(ordersService.receiveValidatedOrders(anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            List<OrderAck> acks = new ArrayList<>();
+            for (Order order : orders) {
+                acks.add(OrderAck.registered(Long.valueOf(order.getChecksum())));
+            }
+
+            return acks;
+        });
+        pipeline = startPipeline(100, 2);
+
+        List<CompletableFuture<OrderAck>> acks = new ArrayList<>();
+        for (long i = 1; i <= 50; i++) {
+            acks.add(pipeline.submit(createDummyOrder(String.valueOf(i))));
+        }
+
+        for (int i = 0; i < acks.size(); i++) {
+            assertEquals(OrderAck.registered(i + 1L), acks.get(i).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void shouldFailAcksWhenBatchCannotBeWritten() throws Exception {
+        when(ordersService.receiveValidatedOrders(anyList())).thenThrow(new IllegalStateException("Mongo is down"));
+        pipeline = startPipeline(100, 1);
+
+        CompletableFuture<OrderAck> ack = pipeline.submit(createDummyOrder("1"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> ack.get(5, TimeUnit.SECONDS));
+        assertEquals("Mongo is down", e.getCause().getMessage());
+    }
+
+    @Test
+    public void shouldRejectInvalidOrdersBeforeQueueing() throws Exception {
+        Order order = createDummyOrder("1");
+        doThrow(new InvalidOrderException("Missing order checksum")).when(ordersService).validateOrder(order);
+        pipeline = startPipeline(1, 0);
+
+        assertThrows(InvalidOrderException.class, () -> pipeline.submit(order));
+        pipeline.submit(createDummyOrder("2"));
+    }
+
+    @Test
+    public void shouldRejectOrdersWhenQueueIsFull() throws Exception {
+        pipeline = startPipeline(1, 0);
+
+        pipeline.submit(createDummyOrder("1"));
+        Exception e = assertThrows(OrderQueueFullException.class, () -> pipeline.submit(createDummyOrder("2")));
+        assertEquals("Order queue is full, try again later", e.getMessage());
+    }
+
+    @Test
+    public void shouldFailOrdersLeftInQueueOnStop() throws Exception {
+        pipeline = startPipeline(10, 0);
+
+        CompletableFuture<OrderAck> ack = pipeline.submit(createDummyOrder("1"));
+        pipeline.stop();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> ack.get(5, TimeUnit.SECONDS));
+        assertEquals("Order pipeline stopped", e.getCause().getMessage());
+    }
+
+    @Test
+    public void shouldRejectOrdersOnceStopped() throws Exception {
+        pipeline = startPipeline(10, 1);
+        pipeline.stop();
+
+        assertThrows(OrderQueueFullException.class, () -> pipeline.submit(createDummyOrder("1")));
+    }
+
+    private OrdersIngestPipeline startPipeline(int queueCapacity, int writers) {
+        OrdersIngestPipeline pipeline = new OrdersIngestPipeline(ordersService, new SimpleMeterRegistry(), queueCapacity, writers, 16, 10);
+        pipeline.start();
+        return pipeline;
+    }
+
+}
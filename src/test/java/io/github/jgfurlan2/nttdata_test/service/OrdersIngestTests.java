@@ -0,0 +1,92 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersInsert;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createDummyOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrdersIngestTests {
+
+    private SimpleMeterRegistry registry;
+    private OrdersCache ordersCache;
+    private ChecksumDedupFilter checksumFilter;
+    private OrdersIngest ingest;
+
+    @BeforeEach
+    public void setUp() {
+        OrdersRepository repository = Mockito.mock(OrdersRepository.class);
+        AtomicLong counter = new AtomicLong(42L);
+        registry = new SimpleMeterRegistry();
+        ordersCache = new OrdersCache(repository, new SimpleMeterRegistry(), 1000, 60_000);
+        checksumFilter = new ChecksumDedupFilter(repository, new SimpleMeterRegistry(), 1000, 0.01, 100);
+        ingest = new OrdersIngest(
+                new OrderValidator(),
+                new OrderNumberAllocator(size -> counter.getAndAdd(size) + 1, 10),
+                checksumFilter,
+                ordersCache,
+                new OrdersMetrics(registry)
+        );
+    }
+
+    @Test
+    public void shouldNumberFirstValidOrderOfEachUnseenChecksum() {
+        List<Order> orders = List.of(createDummyOrder("a"), createDummyOrder("b"), createDummyOrder("a"), createDummyOrder("c"));
+        List<OrderAck> acks = new ArrayList<>(Arrays.asList(OrderAck.error("Missing client"), null, null, null));
+        Set<String> seen = new HashSet<>(Set.of("c"));
+
+        assertEquals(Set.of("b", "a", "c"), ingest.unacked(orders, acks));
+
+        List<Order> accepted = ingest.allocate(orders, acks, seen);
+        assertEquals(List.of(orders.get(1), orders.get(2)), accepted);
+        assertEquals(List.of(OrderAck.error("Missing client"), OrderAck.registered(43L), OrderAck.registered(44L), OrderAck.duplicated()), acks);
+        assertEquals(1, registry.get("orders.rejected").tag("reason", "duplicate").counter().count());
+    }
+
+    @Test
+    public void shouldAckOrdersRejectedOnInsertAsDuplicated() {
+        List<Order> orders = List.of(createDummyOrder("a"), createDummyOrder("b"));
+        List<OrderAck> acks = new ArrayList<>(List.of(OrderAck.registered(1L), OrderAck.registered(2L)));
+        orders.get(0).setOrderNumber(1L);
+        orders.get(1).setOrderNumber(2L);
+
+        List<Order> stored = ingest.inserted(orders, acks, orders, new OrdersInsert(List.of(orders.get(1)), Map.of()));
+
+        assertEquals(List.of(orders.get(0)), stored);
+        assertEquals(List.of(OrderAck.registered(1L), OrderAck.duplicated()), acks);
+        assertTrue(ordersCache.peek(1L).isPresent());
+        assertNull(ordersCache.peek(2L));
+        assertEquals(1, registry.get("orders.rejected").tag("reason", "duplicate").counter().count());
+    }
+
+    @Test
+    public void shouldAckOrdersFailedOnInsertWithTheirError() {
+        List<Order> orders = List.of(createDummyOrder("a"), createDummyOrder("b"));
+        List<OrderAck> acks = new ArrayList<>(List.of(OrderAck.registered(1L), OrderAck.registered(2L)));
+        orders.get(0).setOrderNumber(1L);
+        orders.get(1).setOrderNumber(2L);
+
+        List<Order> stored = ingest.inserted(orders, acks, orders, new OrdersInsert(List.of(), Map.of(orders.get(1), "Write failed")));
+
+        assertEquals(List.of(orders.get(0)), stored);
+        assertEquals(List.of(OrderAck.registered(1L), OrderAck.error("Write failed")), acks);
+        assertTrue(ordersCache.peek(1L).isPresent());
+        assertNull(ordersCache.peek(2L));
+        assertFalse(checksumFilter.contains("b"));
+    }
+
+}
@@ -0,0 +1,190 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.OrdersRollup;
+import io.github.jgfurlan2.nttdata_test.model.RollupBucket;
+import io.github.jgfurlan2.nttdata_test.model.RollupGranularity;
+import io.github.jgfurlan2.nttdata_test.repository.RollupBucketRepository;
+import io.github.jgfurlan2.nttdata_test.util.Dates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.*;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createOrder;
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createProduct;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrdersRollupsTests {
+
+    private static final long MINUTE = RollupGranularity.MINUTE.millis();
+    private static final long HOUR = RollupGranularity.HOUR.millis();
+    private static final long MINUTE_RETENTION = 2 * Dates.DAY_TIMESTAMP;
+
+    @Mock
+    private RollupBucketRepository repository;
+
+    private OrdersRollups rollups;
+    private long hour;
+
+    @BeforeEach
+    public void setUp() {
+        rollups = new OrdersRollups(repository, new SimpleMeterRegistry(), MINUTE_RETENTION, 0, 0, 100, 1000);
+
+        // An hour that is already closed
+        hour = RollupGranularity.HOUR.start(System.currentTimeMillis()) - 3 * HOUR;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldIncrementEveryGranularityOncePerBatch() {
+        // Ingestion does not depend on the current time, so a fixed day keeps both hours in the same day bucket
+        long day = RollupGranularity.DAY.start(1_700_000_000_000L);
+        rollups.ordersStored(List.of(
+                createOrder(1L, day + 10, createProduct(2L, 10.0)),
+                createOrder(1L, day + 20, createProduct(1L, 5.0)),
+                createOrder(1L, day + HOUR + MINUTE, createProduct(3L, 1.0))
+        ));
+
+        ArgumentCaptor<Collection<RollupBucket>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(repository).increment(captor.capture());
+
+        Map<String, RollupBucket> deltas = new HashMap<>();
+        for (RollupBucket delta : captor.getValue()) {
+            deltas.put(delta.getId(), delta);
+        }
+
+        assertEquals(5, deltas.size());
+        RollupBucket minute = deltas.get(RollupGranularity.MINUTE.id(day));
+        assertEquals(2, minute.getOrders());
+        assertEquals(3, minute.getItems());
+        assertEquals(25.0, minute.getRevenue(), 1e-9);
+        assertEquals(new Date(day + MINUTE + MINUTE_RETENTION), minute.getExpiresAt());
+        assertEquals(1, deltas.get(RollupGranularity.MINUTE.id(day + HOUR + MINUTE)).getOrders());
+        assertEquals(1, deltas.get(RollupGranularity.HOUR.id(day + HOUR)).getOrders());
+        assertNull(deltas.get(RollupGranularity.HOUR.id(day)).getExpiresAt());
+        assertEquals(3, deltas.get(RollupGranularity.DAY.id(day)).getOrders());
+        assertEquals(28.0, deltas.get(RollupGranularity.DAY.id(day)).getRevenue(), 1e-9);
+    }
+
+    @Test
+    public void shouldReturnEveryBucketOfRangeAndTheirSum() throws Exception {
+        when(repository.listByRange(RollupGranularity.MINUTE, hour, hour + 4 * MINUTE)).thenReturn(List.of(
+                bucket(RollupGranularity.MINUTE, hour + MINUTE, 2, 5, 10.0),
+                bucket(RollupGranularity.MINUTE, hour + 3 * MINUTE, 1, 1, 2.5)
+        ));
+
+        OrdersRollup rollup = rollups.getRollup(hour + 30_000, hour + 4 * MINUTE + 1, "minute");
+
+        assertEquals(RollupGranularity.MINUTE, rollup.getGranularity());
+        assertEquals(List.of(0L, 2L, 0L, 1L, 0L), rollup.getBuckets().stream().map(RollupBucket::getOrders).toList());
+        assertEquals(hour + 2 * MINUTE, rollup.getBuckets().get(2).getStart());
+        assertEquals(3, rollup.getTotal().getOrders());
+        assertEquals(6, rollup.getTotal().getItems());
+        assertEquals(12.5, rollup.getTotal().getRevenue(), 1e-9);
+    }
+
+    @Test
+    public void shouldServeClosedBucketsFromMemory() throws Exception {
+        when(repository.listByRange(RollupGranularity.HOUR, hour - HOUR, hour)).thenReturn(List.of(bucket(RollupGranularity.HOUR, hour, 7, 7, 7.0)));
+
+        rollups.getRollup(hour - HOUR, hour, "hour");
+        OrdersRollup rollup = rollups.getRollup(hour - HOUR, hour, "HOUR");
+
+        assertEquals(7, rollup.getTotal().getOrders());
+        verify(repository, times(1)).listByRange(eq(RollupGranularity.HOUR), anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldOnlyReadUncachedAndOpenBuckets() throws Exception {
+        long now = RollupGranularity.HOUR.start(System.currentTimeMillis());
+        when(repository.listByRange(eq(RollupGranularity.HOUR), anyLong(), anyLong())).thenReturn(List.of());
+
+        rollups.getRollup(hour, now, "hour");
+        rollups.getRollup(hour, now, "hour");
+
+        verify(repository).listByRange(RollupGranularity.HOUR, hour, now);
+        verify(repository).listByRange(RollupGranularity.HOUR, now, now);
+    }
+
+    @Test
+    public void shouldEvictClosedBucketsOnLateIncrement() throws Exception {
+        when(repository.listByRange(RollupGranularity.HOUR, hour, hour))
+                .thenReturn(List.of(bucket(RollupGranularity.HOUR, hour, 1, 1, 1.0)))
+                .thenReturn(List.of(bucket(RollupGranularity.HOUR, hour, 2, 2, 2.0)));
+
+        assertEquals(1, rollups.getRollup(hour, hour, "hour").getTotal().getOrders());
+        rollups.ordersStored(List.of(createOrder(1L, hour + 1, createProduct(1L, 1.0))));
+        assertEquals(2, rollups.getRollup(hour, hour, "hour").getTotal().getOrders());
+
+        verify(repository).increment(anyCollection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldRetryFailedIncrementsWithNextBatch() throws Exception {
+        when(repository.listByRange(RollupGranularity.HOUR, hour, hour)).thenReturn(List.of(bucket(RollupGranularity.HOUR, hour, 1, 1, 1.0)));
+        rollups.getRollup(hour, hour, "hour");
+
+        List<Map<String, Long>> increments = new ArrayList<>();
+        doAnswer(invocation -> {
+            Map<String, Long> orders = new HashMap<>();
+            for (RollupBucket delta : (Collection<RollupBucket>) invocation.getArgument(0)) {
+                orders.put(delta.getId(), delta.getOrders());
+            }
+
+            increments.add(orders);
+            if (increments.size() == 1) {
+                throw new DataAccessResourceFailureException("Mongo is down");
+            }
+
+            return null;
+        }).when(repository).increment(anyCollection());
+
+        assertThrows(DataAccessResourceFailureException.class, () -> rollups.ordersStored(List.of(createOrder(1L, hour + 1, createProduct(1L, 1.0)))));
+        rollups.ordersStored(List.of(createOrder(1L, hour + 2, createProduct(1L, 1.0))));
+        rollups.ordersStored(List.of(createOrder(1L, hour + 3, createProduct(1L, 1.0))));
+
+        String id = RollupGranularity.HOUR.id(hour);
+        assertEquals(List.of(1L, 2L, 1L), increments.stream().map(orders -> orders.get(id)).toList());
+
+        // The bucket cached before the failure is read again
+        rollups.getRollup(hour, hour, "hour");
+        verify(repository, times(2)).listByRange(RollupGranularity.HOUR, hour, hour);
+    }
+
+    @Test
+    public void shouldRejectInvalidQueries() {
+        Exception e1 = assertThrows(InvalidOrderFilterException.class, () -> rollups.getRollup(0L, 1L, "week"));
+        assertEquals("Invalid granularity", e1.getMessage());
+
+        Exception e2 = assertThrows(InvalidOrderFilterException.class, () -> rollups.getRollup(hour, hour - 1, "hour"));
+        assertEquals("Begin date is after end date", e2.getMessage());
+
+        Exception e3 = assertThrows(InvalidOrderFilterException.class, () -> rollups.getRollup(hour, hour + 100 * MINUTE, "minute"));
+        assertEquals("Max buckets exceeded", e3.getMessage());
+
+        long expired = hour - MINUTE_RETENTION;
+        Exception e4 = assertThrows(InvalidOrderFilterException.class, () -> rollups.getRollup(expired, expired + MINUTE, "minute"));
+        assertEquals("Granularity not available for range", e4.getMessage());
+    }
+
+    private static RollupBucket bucket(RollupGranularity granularity, long start, long orders, long items, double revenue) {
+        return new RollupBucket(granularity.id(start), granularity, start, orders, items, revenue, null);
+    }
+
+}
@@ -0,0 +1,580 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.*;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.model.OrdersPage;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersInsert;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.github.jgfurlan2.nttdata_test.util.Dates;
+import io.github.jgfurlan2.nttdata_test.util.DuplicateKeys;
+import io.github.jgfurlan2.nttdata_test.util.PageTokens;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createDummyOrder;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the same scenarios against the servlet and the reactive stack, through the {@link Service} each subclass sets
+ * up. Both stacks read the {@link OrdersRepository} mock, so a scenario stubs and verifies a single repository.
+ */
+@ExtendWith(MockitoExtension.class)
+public abstract class OrdersServiceBehaviorTests {
+
+    protected static final long MAX_STREAM_RANGE = 7 * Dates.DAY_TIMESTAMP;
+    protected static final int MAX_PAGE_SIZE = 50;
+
+    @Mock
+    protected OrdersRepository repository;
+
+    protected AtomicLong counter;
+    protected ChecksumDedupFilter checksumFilter;
+    protected OrdersCache ordersCache;
+    protected SimpleMeterRegistry registry;
+    protected OrdersMetrics metrics;
+
+    /**
+     * The service under test, set up by the subclasses with {@link #createService(int)}.
+     */
+    protected Service service;
+
+    @BeforeEach
+    public void setUpIngest() {
+        // Simulate the counters document already holding the highest order number
+        counter = new AtomicLong(42L);
+
+        checksumFilter = new ChecksumDedupFilter(repository, new SimpleMeterRegistry(), 1000, 0.01, 100);
+        registry = new SimpleMeterRegistry();
+        metrics = new OrdersMetrics(registry);
+        ordersCache = new OrdersCache(repository, new SimpleMeterRegistry(), 1000, 60_000);
+        lenient().when(repository.insert(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(repository.insertIgnoringDuplicates(anyList())).thenReturn(OrdersInsert.stored());
+    }
+
+    protected OrdersIngest createIngest(int blockSize) {
+        return new OrdersIngest(new OrderValidator(), new OrderNumberAllocator(this::reserve, blockSize), checksumFilter, ordersCache, metrics);
+    }
+
+    private long reserve(int size) {
+        return counter.getAndAdd(size) + 1;
+    }
+
+    /**
+     * Creates a service of the stack, allocating order numbers in blocks of {@code blockSize}.
+     */
+    protected abstract Service createService(int blockSize);
+
+    /**
+     * Stubs the repository query the stack streams a range from.
+     */
+    protected abstract void whenStreamByRange(long begin, long end, List<Order> orders);
+
+    @Test
+    public void shouldReturnOrdersByClientId() throws Exception {
+        List<Order> orders = List.of(new Order(), new Order());
+        when(repository.listByClientId(1L)).thenReturn(orders);
+
+        assertEquals(orders, service.getOrdersByClientId(1L));
+
+        verify(repository).listByClientId(1L);
+    }
+
+    @Test
+    public void shouldReturnOrderByNumber() throws Exception {
+        Order order = createDummyOrder();
+        when(repository.findByOrderNumber(43L)).thenReturn(order);
+
+        assertEquals(order, service.getOrderByOrderNumber(43L));
+
+        verify(repository).findByOrderNumber(43L);
+    }
+
+    @Test
+    public void shouldReturnCachedOrderByNumber() throws Exception {
+        Order order = createDummyOrder();
+        when(repository.findByOrderNumber(43L)).thenReturn(order);
+
+        assertEquals(order, service.getOrderByOrderNumber(43L));
+        assertEquals(order, service.getOrderByOrderNumber(43L));
+
+        verify(repository).findByOrderNumber(43L);
+    }
+
+    @Test
+    public void shouldCacheUnknownOrderNumbers() throws Exception {
+        assertNull(service.getOrderByOrderNumber(99L));
+        assertNull(service.getOrderByOrderNumber(99L));
+
+        verify(repository).findByOrderNumber(99L);
+    }
+
+    @Test
+    public void shouldCacheCreatedOrders() throws Exception {
+        assertNull(service.getOrderByOrderNumber(43L));
+
+        Order order = createDummyOrder();
+        assertEquals(43L, service.receiveOrder(order));
+        assertEquals(order, service.getOrderByOrderNumber(43L));
+
+        verify(repository).findByOrderNumber(43L);
+    }
+
+    @Test
+    public void shouldReturnOrdersByRange() throws Exception {
+        Order o1 = createDummyOrder();
+        o1.setOrderedAt(5L);
+        Order o2 = createDummyOrder();
+        o2.setOrderedAt(5L);
+        List<Order> orders = List.of(o1, o2);
+        when(repository.listByRange(5L, 6L)).thenReturn(orders);
+
+        assertEquals(orders, service.getOrdersByRange(5L, 6L));
+
+        verify(repository).listByRange(5L, 6L);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenBeginDateIsHigherThanEndDate() {
+        Exception e = assertThrows(InvalidOrderFilterException.class, () -> service.getOrdersByRange(6L, 5L));
+        assertEquals("Begin date is after end date", e.getMessage());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenMaxRangeExceeds() {
+        Exception e = assertThrows(InvalidOrderFilterException.class, () -> service.getOrdersByRange(0L, Dates.DAY_TIMESTAMP + 1));
+        assertEquals("Max range exceeded", e.getMessage());
+    }
+
+    @Test
+    public void shouldStreamOrdersByRangeBeyondOneDay() throws Exception {
+        long end = 3 * Dates.DAY_TIMESTAMP;
+        List<Order> orders = List.of(createDummyOrder(), createDummyOrder());
+        whenStreamByRange(0L, end, orders);
+
+        assertEquals(orders, service.streamOrdersByRange(0L, end));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenStreamRangeIsInvalid() {
+        Exception e1 = assertThrows(InvalidOrderFilterException.class, () -> service.streamOrdersByRange(6L, 5L));
+        assertEquals("Begin date is after end date", e1.getMessage());
+
+        Exception e2 = assertThrows(InvalidOrderFilterException.class, () -> service.streamOrdersByRange(0L, MAX_STREAM_RANGE + 1));
+        assertEquals("Max range exceeded", e2.getMessage());
+    }
+
+    @Test
+    public void shouldReturnFirstOrdersPageByRange() throws Exception {
+        Order o1 = createDummyOrder();
+        o1.setOrderedAt(10L);
+        o1.setOrderNumber(1L);
+        Order o2 = createDummyOrder();
+        o2.setOrderedAt(10L);
+        o2.setOrderNumber(2L);
+        Order o3 = createDummyOrder();
+        o3.setOrderedAt(11L);
+        o3.setOrderNumber(3L);
+        when(repository.listByRangeAfter(eq(5L), eq(0L), eq(20L), any(Pageable.class))).thenReturn(new ArrayList<>(List.of(o1, o2, o3)));
+
+        OrdersPage page = service.getOrdersPageByRange(5L, 20L, null, 2);
+        assertEquals(List.of(o1, o2), page.getOrders());
+        assertEquals(PageTokens.encode(o2), page.getNext());
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(repository).listByRangeAfter(eq(5L), eq(0L), eq(20L), pageable.capture());
+        assertEquals(0, pageable.getValue().getOffset());
+        assertEquals(3, pageable.getValue().getPageSize());
+        assertEquals(Sort.by("orderedAt", "orderNumber"), pageable.getValue().getSort());
+    }
+
+    @Test
+    public void shouldContinueOrdersPageByRangeFromToken() throws Exception {
+        Order last = createDummyOrder();
+        last.setOrderedAt(10L);
+        last.setOrderNumber(2L);
+        Order o3 = createDummyOrder();
+        o3.setOrderedAt(11L);
+        o3.setOrderNumber(3L);
+        when(repository.listByRangeAfter(eq(10L), eq(2L), eq(20L), any(Pageable.class))).thenReturn(List.of(o3));
+
+        OrdersPage page = service.getOrdersPageByRange(5L, 20L, PageTokens.encode(last), 2);
+        assertEquals(List.of(o3), page.getOrders());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    public void shouldReturnOrdersPageByClientId() throws Exception {
+        Order last = createDummyOrder();
+        last.setOrderedAt(10L);
+        last.setOrderNumber(2L);
+        List<Order> orders = List.of(createDummyOrder());
+        when(repository.listByClientIdAfter(eq(1L), eq(Long.MIN_VALUE), eq(0L), any(Pageable.class))).thenReturn(orders);
+        when(repository.listByClientIdAfter(eq(1L), eq(10L), eq(2L), any(Pageable.class))).thenReturn(orders);
+
+        assertEquals(new OrdersPage(orders, null), service.getOrdersPageByClientId(1L, null, 10));
+        assertEquals(new OrdersPage(orders, null), service.getOrdersPageByClientId(1L, PageTokens.encode(last), 10));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenPageIsInvalid() {
+        Exception e1 = assertThrows(InvalidOrderFilterException.class, () -> service.getOrdersPageByClientId(1L, null, 0));
+        assertEquals("Invalid page size", e1.getMessage());
+
+        Exception e2 = assertThrows(InvalidOrderFilterException.class, () -> service.getOrdersPageByClientId(1L, null, MAX_PAGE_SIZE + 1));
+        assertEquals("Max page size exceeded", e2.getMessage());
+
+        Exception e3 = assertThrows(InvalidOrderFilterException.class, () -> service.getOrdersPageByRange(0L, 1L, "not a token", 10));
+        assertEquals("Invalid page token", e3.getMessage());
+    }
+
+    @Test
+    public void shouldCreateOrder() throws Exception {
+        Order order = createDummyOrder();
+
+        assertEquals(43L, service.receiveOrder(order));
+
+        verify(repository).insert(order);
+    }
+
+    @Test
+    public void shouldCreateOrdersInBatch() throws Exception {
+        Order order1 = createDummyOrder();
+        Order order2 = createDummyOrder();
+
+        List<OrderAck> acks = service.receiveOrders(List.of(order1, order2));
+        assertEquals(List.of(OrderAck.registered(43L), OrderAck.registered(44L)), acks);
+        assertEquals(order1.getOrderedAt(), order2.getOrderedAt());
+
+        verify(repository, never()).findByChecksumIn(anyCollection());
+        verify(repository).insertIgnoringDuplicates(List.of(order1, order2));
+    }
+
+    @Test
+    public void shouldDetectDuplicatedOrdersInBatch() throws Exception {
+        Order existing = createDummyOrder();
+        Order repeated = createDummyOrder();
+        Order order = createDummyOrder();
+        repeated.setChecksum(order.getChecksum());
+        when(repository.streamAllChecksums()).thenReturn(Stream.of(existing));
+        when(repository.findByChecksumIn(Set.of(existing.getChecksum()))).thenReturn(List.of(existing));
+        checksumFilter.warmUp();
+
+        List<OrderAck> acks = service.receiveOrders(List.of(existing, order, repeated));
+        assertEquals(List.of(OrderAck.duplicated(), OrderAck.registered(43L), OrderAck.duplicated()), acks);
+
+        verify(repository).insertIgnoringDuplicates(List.of(order));
+    }
+
+    @Test
+    public void shouldAckStoredOrdersWhenOthersFailOnInsert() throws Exception {
+        Order order1 = createDummyOrder();
+        Order order2 = createDummyOrder();
+        when(repository.insertIgnoringDuplicates(List.of(order1, order2))).thenReturn(new OrdersInsert(List.of(), Map.of(order2, "Write failed")));
+
+        List<OrderAck> acks = service.receiveOrders(List.of(order1, order2));
+
+        assertEquals(List.of(OrderAck.registered(43L), OrderAck.error("Write failed")), acks);
+        assertTrue(ordersCache.peek(43L).isPresent());
+        assertNull(ordersCache.peek(44L));
+    }
+
+    @Test
+    public void shouldReportOrdersRejectedByUniqueIndexInBatchAsDuplicated() throws Exception {
+        Order order1 = createDummyOrder();
+        Order order2 = createDummyOrder();
+        when(repository.insertIgnoringDuplicates(List.of(order1, order2))).thenReturn(new OrdersInsert(List.of(order2), Map.of()));
+
+        List<OrderAck> acks = service.receiveOrders(List.of(order1, order2));
+        assertEquals(List.of(OrderAck.registered(43L), OrderAck.duplicated()), acks);
+    }
+
+    @Test
+    public void shouldReportInvalidOrdersInBatch() throws Exception {
+        Order invalid = createDummyOrder();
+        invalid.setClient(null);
+        Order order = createDummyOrder();
+
+        List<OrderAck> acks = service.receiveOrders(List.of(invalid, order));
+        assertEquals(List.of(OrderAck.error("Missing client"), OrderAck.registered(43L)), acks);
+
+        verify(repository).insertIgnoringDuplicates(List.of(order));
+    }
+
+    @Test
+    public void shouldSkipPersistenceWhenWholeBatchIsInvalid() throws Exception {
+        Order invalid = createDummyOrder();
+        invalid.setChecksum(null);
+
+        List<OrderAck> acks = service.receiveOrders(List.of(invalid));
+        assertEquals(List.of(OrderAck.error("Missing order checksum")), acks);
+
+        verify(repository, never()).findByChecksumIn(anyCollection());
+        verify(repository, never()).insertIgnoringDuplicates(anyList());
+    }
+
+    @Test
+    public void shouldSkipChecksumLookupForUnseenChecksums() throws Exception {
+        Order order = createDummyOrder();
+
+        assertEquals(43L, service.receiveOrder(order));
+
+        verify(repository, never()).findByChecksum(order.getChecksum());
+    }
+
+    @Test
+    public void shouldDetectRecentDuplicatedOrderWithoutLookup() throws Exception {
+        Order order = createDummyOrder();
+        Order repeated = createDummyOrder();
+        repeated.setChecksum(order.getChecksum());
+
+        assertEquals(43L, service.receiveOrder(order));
+        assertNull(service.receiveOrder(repeated));
+
+        verify(repository, never()).findByChecksum(order.getChecksum());
+    }
+
+    @Test
+    public void shouldLookUpStoredChecksumsAfterWarmUp() throws Exception {
+        Order existing = createDummyOrder();
+        Order repeated = createDummyOrder();
+        repeated.setChecksum(existing.getChecksum());
+        when(repository.streamAllChecksums()).thenReturn(Stream.of(existing));
+        when(repository.findByChecksum(existing.getChecksum())).thenReturn(existing);
+        checksumFilter.warmUp();
+
+        assertNull(service.receiveOrder(repeated));
+        assertNull(service.receiveOrder(repeated));
+
+        // The second attempt is answered by the recent checksums cache
+        verify(repository).findByChecksum(existing.getChecksum());
+    }
+
+    @Test
+    public void shouldTreatDuplicateKeyOnInsertAsDuplicatedOrder() throws Exception {
+        Order order = createDummyOrder();
+        when(repository.insert(order)).thenThrow(new DuplicateKeyException(DuplicateKeys.message(Order.CHECKSUM_INDEX, order.getChecksum())));
+
+        assertNull(service.receiveOrder(order));
+    }
+
+    @Test
+    public void shouldFailOrderWhenOrderNumberIsAlreadyStored() {
+        Order order = createDummyOrder();
+        when(repository.insert(order)).thenThrow(new DuplicateKeyException(DuplicateKeys.message(Order.ORDER_NUMBER_INDEX, 43L)));
+
+        assertThrows(DuplicateKeyException.class, () -> service.receiveOrder(order));
+        assertEquals(0, registry.get("orders.rejected").tag("reason", "duplicate").counter().count());
+    }
+
+    @Test
+    public void shouldRecordIngestStagesAndRejections() throws Exception {
+        Order order = createDummyOrder();
+        Order repeated = createDummyOrder();
+        repeated.setChecksum(order.getChecksum());
+        Order invalid = createDummyOrder();
+        invalid.getClient().setName(null);
+
+        assertEquals(43L, service.receiveOrder(order));
+        assertNull(service.receiveOrder(repeated));
+        assertThrows(InvalidClientException.class, () -> service.receiveOrder(invalid));
+
+        assertEquals(3, registry.get("orders.ingest.stage").tag("stage", "validate").timer().count());
+        assertEquals(2, registry.get("orders.ingest.stage").tag("stage", "checksum").timer().count());
+        assertEquals(1, registry.get("orders.ingest.stage").tag("stage", "allocate").timer().count());
+        assertEquals(1, registry.get("orders.ingest.stage").tag("stage", "insert").timer().count());
+        assertEquals(1, registry.get("orders.rejected").tag("reason", "duplicate").counter().count());
+        assertEquals(1, registry.get("orders.rejected").tag("reason", "InvalidClientException").counter().count());
+    }
+
+    @Test
+    public void shouldCountDuplicatedAndInvalidOrdersInBatch() throws Exception {
+        Order order = createDummyOrder();
+        Order repeated = createDummyOrder();
+        repeated.setChecksum(order.getChecksum());
+        Order rejected = createDummyOrder();
+        Order invalid = createDummyOrder();
+        invalid.getProducts().get(0).setPrice(null);
+        when(repository.insertIgnoringDuplicates(List.of(order, rejected))).thenReturn(new OrdersInsert(List.of(rejected), Map.of()));
+
+        service.receiveOrders(List.of(order, repeated, rejected, invalid));
+
+        assertEquals(2, registry.get("orders.rejected").tag("reason", "duplicate").counter().count());
+        assertEquals(1, registry.get("orders.rejected").tag("reason", "InvalidProductException").counter().count());
+        assertEquals(1, registry.get("orders.ingest.stage").tag("stage", "insert").timer().count());
+    }
+
+    @Test
+    public void shouldAllocateUniqueOrderNumbersUnderConcurrency() throws Exception {
+        int nodes = 2;
+        int threadsPerNode = 8;
+        int ordersPerThread = 500;
+        int blockSize = 7;
+
+        // Every node shares the same counters document but owns its allocator, like separate app instances
+        List<Service> services = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            services.add(createService(blockSize));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(nodes * threadsPerNode);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (Service node : services) {
+            for (int t = 0; t < threadsPerNode; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+
+                    List<Long> orderNumbers = new ArrayList<>(ordersPerThread);
+                    for (int i = 0; i < ordersPerThread; i++) {
+                        orderNumbers.add(node.receiveOrder(createDummyOrder()));
+                    }
+
+                    return orderNumbers;
+                }));
+            }
+        }
+
+        start.countDown();
+        Set<Long> allocated = new HashSet<>();
+        for (Future<List<Long>> future : futures) {
+            List<Long> orderNumbers = future.get(30, TimeUnit.SECONDS);
+            for (int i = 0; i < orderNumbers.size(); i++) {
+                assertTrue(allocated.add(orderNumbers.get(i)), "Duplicated order number " + orderNumbers.get(i));
+                if (i > 0) {
+                    assertTrue(orderNumbers.get(i) > orderNumbers.get(i - 1), "Order numbers must increase per node");
+                }
+            }
+        }
+        executor.shutdown();
+
+        // Only the unused tail of the last block of each node may be left as a gap
+        int total = nodes * threadsPerNode * ordersPerThread;
+        assertEquals(total, allocated.size());
+        assertEquals(43L, Collections.min(allocated));
+        assertTrue(Collections.max(allocated) - 42L - total < (long) nodes * blockSize);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("invalidOrders")
+    public void shouldThrowExceptionWhenOrderIsInvalid(String description, Consumer<Order> change, Class<? extends Exception> type, String message) {
+        Order order = createDummyOrder();
+        change.accept(order);
+
+        Exception e = assertThrows(type, () -> service.receiveOrder(order));
+        assertEquals(message, e.getMessage());
+
+        verify(repository, never()).insert(any(Order.class));
+    }
+
+    private static Stream<Arguments> invalidOrders() {
+        return Stream.of(
+                invalid("null checksum", o -> o.setChecksum(null), InvalidOrderException.class, "Missing order checksum"),
+                invalid("empty checksum", o -> o.setChecksum(""), InvalidOrderException.class, "Missing order checksum"),
+                invalid("blank checksum", o -> o.setChecksum(" "), InvalidOrderException.class, "Missing order checksum"),
+                invalid("null client", o -> o.setClient(null), InvalidClientException.class, "Missing client"),
+                invalid("null client id", o -> o.getClient().setId(null), InvalidClientException.class, "Missing or invalid client id"),
+                invalid("negative client id", o -> o.getClient().setId(-1L), InvalidClientException.class, "Missing or invalid client id"),
+                invalid("zero client id", o -> o.getClient().setId(0L), InvalidClientException.class, "Missing or invalid client id"),
+                invalid("null client name", o -> o.getClient().setName(null), InvalidClientException.class, "Null or empty client name"),
+                invalid("empty client name", o -> o.getClient().setName(""), InvalidClientException.class, "Null or empty client name"),
+                invalid("blank client name", o -> o.getClient().setName(" "), InvalidClientException.class, "Null or empty client name"),
+                invalid("null client tax id", o -> o.getClient().setTaxId(null), InvalidClientException.class, "Null or empty client tax id"),
+                invalid("empty client tax id", o -> o.getClient().setTaxId(""), InvalidClientException.class, "Null or empty client tax id"),
+                invalid("blank client tax id", o -> o.getClient().setTaxId(" "), InvalidClientException.class, "Null or empty client tax id"),
+                invalid("null address", o -> o.getClient().setAddress(null), InvalidClientAddressException.class, "Missing client address"),
+                invalid("null zip code", o -> o.getClient().getAddress().setZipCode(null), InvalidClientAddressException.class, "Missing client address zip code"),
+                invalid("empty zip code", o -> o.getClient().getAddress().setZipCode(""), InvalidClientAddressException.class, "Missing client address zip code"),
+                invalid("blank zip code", o -> o.getClient().getAddress().setZipCode(" "), InvalidClientAddressException.class, "Missing client address zip code"),
+                invalid("null street name", o -> o.getClient().getAddress().setStreetName(null), InvalidClientAddressException.class, "Missing client address street name"),
+                invalid("empty street name", o -> o.getClient().getAddress().setStreetName(""), InvalidClientAddressException.class, "Missing client address street name"),
+                invalid("blank street name", o -> o.getClient().getAddress().setStreetName(" "), InvalidClientAddressException.class, "Missing client address street name"),
+                invalid("null street number", o -> o.getClient().getAddress().setStreetNumber(null), InvalidClientAddressException.class, "Missing client address street number"),
+                invalid("empty street number", o -> o.getClient().getAddress().setStreetNumber(""), InvalidClientAddressException.class, "Missing client address street number"),
+                invalid("blank street number", o -> o.getClient().getAddress().setStreetNumber(" "), InvalidClientAddressException.class, "Missing client address street number"),
+                invalid("null neighborhood", o -> o.getClient().getAddress().setNeighborhood(null), InvalidClientAddressException.class, "Missing client address neighborhood"),
+                invalid("empty neighborhood", o -> o.getClient().getAddress().setNeighborhood(""), InvalidClientAddressException.class, "Missing client address neighborhood"),
+                invalid("blank neighborhood", o -> o.getClient().getAddress().setNeighborhood(" "), InvalidClientAddressException.class, "Missing client address neighborhood"),
+                invalid("null city", o -> o.getClient().getAddress().setCity(null), InvalidClientAddressException.class, "Missing client address city"),
+                invalid("empty city", o -> o.getClient().getAddress().setCity(""), InvalidClientAddressException.class, "Missing client address city"),
+                invalid("blank city", o -> o.getClient().getAddress().setCity(" "), InvalidClientAddressException.class, "Missing client address city"),
+                invalid("null state", o -> o.getClient().getAddress().setState(null), InvalidClientAddressException.class, "Missing client address state"),
+                invalid("empty state", o -> o.getClient().getAddress().setState(""), InvalidClientAddressException.class, "Missing client address state"),
+                invalid("blank state", o -> o.getClient().getAddress().setState(" "), InvalidClientAddressException.class, "Missing client address state"),
+                invalid("null country", o -> o.getClient().getAddress().setCountry(null), InvalidClientAddressException.class, "Missing client address country"),
+                invalid("empty country", o -> o.getClient().getAddress().setCountry(""), InvalidClientAddressException.class, "Missing client address country"),
+                invalid("blank country", o -> o.getClient().getAddress().setCountry(" "), InvalidClientAddressException.class, "Missing client address country"),
+                invalid("null products", o -> o.setProducts(null), InvalidProductException.class, "Products list is null or empty"),
+                invalid("empty products", o -> o.setProducts(Collections.emptyList()), InvalidProductException.class, "Products list is null or empty"),
+                invalid("null product", o -> o.getProducts().set(0, null), InvalidProductException.class, "Product 1 is null"),
+                invalid("null product id", o -> o.getProducts().get(0).setId(null), InvalidProductException.class, "Product 1 missing id"),
+                invalid("negative product id", o -> o.getProducts().get(0).setId(-1L), InvalidProductException.class, "Product 1 missing id"),
+                invalid("zero product id", o -> o.getProducts().get(0).setId(0L), InvalidProductException.class, "Product 1 missing id"),
+                invalid("null product GS1", o -> o.getProducts().get(0).setGs1(null), InvalidProductException.class, "Product 1 missing GS1 code"),
+                invalid("empty product GS1", o -> o.getProducts().get(0).setGs1(""), InvalidProductException.class, "Product 1 missing GS1 code"),
+                invalid("blank product GS1", o -> o.getProducts().get(0).setGs1(" "), InvalidProductException.class, "Product 1 missing GS1 code"),
+                invalid("null product name", o -> o.getProducts().get(0).setName(null), InvalidProductException.class, "Product 1 missing name"),
+                invalid("empty product name", o -> o.getProducts().get(0).setName(""), InvalidProductException.class, "Product 1 missing name"),
+                invalid("blank product name", o -> o.getProducts().get(0).setName(" "), InvalidProductException.class, "Product 1 missing name"),
+                invalid("null product quantity", o -> o.getProducts().get(0).setQuantity(null), InvalidProductException.class, "Product 1 missing or invalid quantity"),
+                invalid("zero product quantity", o -> o.getProducts().get(0).setQuantity(0L), InvalidProductException.class, "Product 1 missing or invalid quantity"),
+                invalid("negative product quantity", o -> o.getProducts().get(0).setQuantity(-1L), InvalidProductException.class, "Product 1 missing or invalid quantity"),
+                invalid("null product price", o -> o.getProducts().get(0).setPrice(null), InvalidProductException.class, "Product 1 missing or invalid price"),
+                invalid("zero product price", o -> o.getProducts().get(0).setPrice(0d), InvalidProductException.class, "Product 1 missing or invalid price"),
+                invalid("negative product price", o -> o.getProducts().get(0).setPrice(-1d), InvalidProductException.class, "Product 1 missing or invalid price")
+        );
+    }
+
+    private static Arguments invalid(String description, Consumer<Order> change, Class<? extends Exception> type, String message) {
+        return Arguments.of(description, change, type, message);
+    }
+
+    /**
+     * The calls the scenarios make, answered synchronously whatever the stack. An empty result is {@code null}.
+     */
+    protected interface Service {
+
+        List<Order> getOrdersByClientId(long clientId) throws Exception;
+
+        OrdersPage getOrdersPageByClientId(long clientId, String token, int size) throws Exception;
+
+        Order getOrderByOrderNumber(long orderNumber) throws Exception;
+
+        List<Order> getOrdersByRange(long begin, long end) throws Exception;
+
+        List<Order> streamOrdersByRange(long begin, long end) throws Exception;
+
+        OrdersPage getOrdersPageByRange(long begin, long end, String token, int size) throws Exception;
+
+        Long receiveOrder(Order order) throws Exception;
+
+        List<OrderAck> receiveOrders(List<Order> orders) throws Exception;
+
+    }
+
+}
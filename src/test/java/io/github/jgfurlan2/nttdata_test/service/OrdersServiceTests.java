@@ -1,470 +1,250 @@
 package io.github.jgfurlan2.nttdata_test.service;
 
-import io.github.jgfurlan2.nttdata_test.exception.*;
-import io.github.jgfurlan2.nttdata_test.model.Address;
-import io.github.jgfurlan2.nttdata_test.model.Client;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
 import io.github.jgfurlan2.nttdata_test.model.Order;
-import io.github.jgfurlan2.nttdata_test.model.Product;
-import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.model.OrdersPage;
+import io.github.jgfurlan2.nttdata_test.model.OrdersVersion;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersInsert;
 import io.github.jgfurlan2.nttdata_test.util.Dates;
+import io.github.jgfurlan2.nttdata_test.util.ETags;
+import io.github.jgfurlan2.nttdata_test.util.OrderFields;
+import io.github.jgfurlan2.nttdata_test.util.PageTokens;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
-
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createDummyOrder;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
-@ExtendWith(MockitoExtension.class)
-public class OrdersServiceTests {
-
-    @Mock
-    private OrdersRepository repository;
+public class OrdersServiceTests extends OrdersServiceBehaviorTests {
 
-    @InjectMocks
     private OrdersService ordersService;
 
+    private OrdersSubscriptions subscriptions;
+    private OrdersListeners listeners;
+
     @BeforeEach
     public void setUp() {
-        // Mock the repository to return the highest order number
-        Order mockOrder = new Order();
-        mockOrder.setOrderNumber(42L);
-        when(repository.findFirstByOrderByOrderNumberDesc()).thenReturn(mockOrder);
-
-        // Initialize the service
-        ordersService = new OrdersService(repository);
+        subscriptions = new OrdersSubscriptions(repository, metrics, 100, 1000, 10, 5000);
+        listeners = new OrdersListeners(List.of(subscriptions));
+        ordersService = createOrdersService(10);
+        service = new Blocking(ordersService);
     }
 
-    @Test
-    public void shouldReturnOrdersByClientId() throws Exception {
-        Long clientId = 1L;
-        List<Order> orders = List.of(new Order(), new Order());
-        when(repository.listByClientId(clientId)).thenReturn(orders);
-
-        List<Order> result = ordersService.getOrdersByClientId(clientId);
-        assertEquals(orders, result);
-
-        verify(repository).listByClientId(clientId);
+    private OrdersService createOrdersService(int blockSize) {
+        return new OrdersService(repository, createIngest(blockSize), checksumFilter, ordersCache, metrics, listeners, MAX_STREAM_RANGE, MAX_PAGE_SIZE);
     }
 
-    @Test
-    public void shouldReturnOrderByNumber() throws Exception {
-        Long clientNumber = 43L;
-        Order order = createDummyOrder();
-        when(repository.findByOrderNumber(clientNumber)).thenReturn(order);
-
-        Order result = ordersService.getOrderByOrderNumber(clientNumber);
-        assertEquals(order, result);
-
-        verify(repository).findByOrderNumber(clientNumber);
+    @Override
+    protected Service createService(int blockSize) {
+        return new Blocking(createOrdersService(blockSize));
     }
 
-    @Test
-    public void shouldReturnOrdersByRange() throws Exception {
-        long begin = 5;
-        long end = 6;
-        Order o1 = createDummyOrder();
-        o1.setOrderedAt(5L);
-        Order o2 = createDummyOrder();
-        o2.setOrderedAt(5L);
-        List<Order> orders = List.of(o1, o2);
-        when(repository.listByRange(begin, end)).thenReturn(orders);
-
-        List<Order> result = ordersService.getOrdersByRange(begin, end);
-        assertEquals(orders, result);
-
-        verify(repository).listByRange(begin, end);
+    @Override
+    protected void whenStreamByRange(long begin, long end, List<Order> orders) {
+        when(repository.streamByRange(begin, end)).thenReturn(orders.stream());
     }
 
     @Test
-    public void shouldThrowExceptionWhenBeginDateIsHigherThanEndDate() throws Exception {
-        Exception e = assertThrows(InvalidOrderFilterException.class, () -> ordersService.getOrdersByRange(6L, 5L));
-        assertEquals("Begin date is after end date", e.getMessage());
-    }
+    public void shouldReturnVersionOfOrderWithoutLoadingIt() throws Exception {
+        Order version = new Order();
+        version.setOrderNumber(43L);
+        version.setChecksum("abc");
+        version.setOrderedAt(1_700_000_000_000L);
+        when(repository.findVersionByOrderNumber(43L)).thenReturn(version);
 
-    @Test
-    public void shouldThrowExceptionWhenMaxRangeExceeds() throws Exception {
-        Exception e = assertThrows(InvalidOrderFilterException.class, () -> ordersService.getOrdersByRange(0L, Dates.DAY_TIMESTAMP + 1));
-        assertEquals("Max range exceeded", e.getMessage());
-    }
-
-    @Test
-    public void shouldCreateOrder() throws Exception {
-        Order order = createDummyOrder();
-        when(repository.insert(order)).thenReturn(order);
+        OrdersVersion result = ordersService.getOrderVersion(43L);
+        assertEquals(ETags.order(version), result);
+        assertEquals(1_700_000_000_000L, result.getLastModified());
+        assertNull(ordersService.getOrderVersion(44L));
 
-        assertEquals(ordersService.receiveOrder(order), 43L);
+        verify(repository, never()).findByOrderNumber(any());
     }
 
     @Test
-    public void shouldThrowExceptionWhenMissingChecksum() throws Exception {
+    public void shouldReturnVersionOfCachedOrder() throws Exception {
         Order order = createDummyOrder();
-        order.setChecksum(null);
-        Exception e = assertThrows(InvalidOrderException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Missing order checksum", e.getMessage());
+        assertEquals(43L, ordersService.receiveOrder(order));
 
-        Order order1 = createDummyOrder();
-        order1.setChecksum("");
-        Exception e1 = assertThrows(InvalidOrderException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Missing order checksum", e1.getMessage());
+        assertEquals(ETags.order(order), ordersService.getOrderVersion(43L));
 
-        Order order2 = createDummyOrder();
-        order2.setChecksum(" ");
-        Exception e2 = assertThrows(InvalidOrderException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Missing order checksum", e2.getMessage());
-    }
-
-    @Test
-    public void shouldThrowExceptionWhenMissingClient() throws Exception {
-        Order order = createDummyOrder();
-        order.setClient(null);
+        // Unknown numbers cached by a lookup are answered from the cache too
+        assertNull(ordersService.getOrderByOrderNumber(99L));
+        assertNull(ordersService.getOrderVersion(99L));
 
-        Exception e = assertThrows(InvalidClientException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Missing client", e.getMessage());
+        verify(repository, never()).findVersionByOrderNumber(any());
     }
 
     @Test
-    public void shouldThrowExceptionWhenMissingClientId() throws Exception {
-        Order order1 = createDummyOrder();
-        order1.getClient().setId(null);
-        Exception e1 = assertThrows(InvalidClientException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Missing or invalid client id", e1.getMessage());
-
-        Order order2 = createDummyOrder();
-        order2.getClient().setId(-1L);
-        Exception e2 = assertThrows(InvalidClientException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Missing or invalid client id", e2.getMessage());
-
-        Order order3 = createDummyOrder();
-        order3.getClient().setId(0L);
-        Exception e3 = assertThrows(InvalidClientException.class, () -> ordersService.receiveOrder(order3));
-        assertEquals("Missing or invalid client id", e3.getMessage());
-    }
-
-    @Test
-    public void shouldThrowExceptionWhenMissingClientName() throws Exception {
-        Order order = createDummyOrder();
-        order.getClient().setName(null);
-        Exception e = assertThrows(InvalidClientException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Null or empty client name", e.getMessage());
-
-        Order order1 = createDummyOrder();
-        order1.getClient().setName("");
-        Exception e1 = assertThrows(InvalidClientException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Null or empty client name", e1.getMessage());
-
-        Order order2 = createDummyOrder();
-        order2.getClient().setName(" ");
-        Exception e2 = assertThrows(InvalidClientException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Null or empty client name", e2.getMessage());
-    }
-
-    @Test
-    public void shouldThrowExceptionWhenMissingClientTaxId() throws Exception {
-        Order order = createDummyOrder();
-        order.getClient().setTaxId(null);
-        Exception e = assertThrows(InvalidClientException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Null or empty client tax id", e.getMessage());
-
-        Order order1 = createDummyOrder();
-        order1.getClient().setTaxId("");
-        Exception e1 = assertThrows(InvalidClientException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Null or empty client tax id", e1.getMessage());
-
-        Order order2 = createDummyOrder();
-        order2.getClient().setTaxId(" ");
-        Exception e2 = assertThrows(InvalidClientException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Null or empty client tax id", e2.getMessage());
-    }
-
-    @Test
-    public void shouldThrowExceptionWhenMissingClientAddress() throws Exception {
-        Order order = createDummyOrder();
-        order.getClient().setAddress(null);
-        Exception e = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Missing client address", e.getMessage());
-    }
+    public void shouldReturnVersionOfOrdersByRange() throws Exception {
+        OrdersVersion version = ETags.range(2, 44L, 87L, 5L);
+        when(repository.findRangeVersion(5L, 6L)).thenReturn(version);
 
-    @Test
-    public void shouldThrowExceptionWhenMissingClientAddressZipCode() throws Exception {
-        Order order = createDummyOrder();
-        order.getClient().getAddress().setZipCode(null);
-        Exception e = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Missing client address zip code", e.getMessage());
-
-        Order order1 = createDummyOrder();
-        order1.getClient().getAddress().setZipCode("");
-        Exception e1 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Missing client address zip code", e1.getMessage());
+        assertEquals(version, ordersService.getOrdersVersionByRange(5L, 6L));
 
-        Order order2 = createDummyOrder();
-        order2.getClient().getAddress().setZipCode(" ");
-        Exception e2 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Missing client address zip code", e2.getMessage());
+        Exception e = assertThrows(InvalidOrderFilterException.class, () -> ordersService.getOrdersVersionByRange(0L, Dates.DAY_TIMESTAMP + 1));
+        assertEquals("Max range exceeded", e.getMessage());
     }
 
     @Test
-    public void shouldThrowExceptionWhenMissingClientAddressStreetName() throws Exception {
-        Order order = createDummyOrder();
-        order.getClient().getAddress().setStreetName(null);
-        Exception e = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Missing client address street name", e.getMessage());
+    public void shouldReadOnlySelectedFields() throws Exception {
+        OrderFields fields = OrderFields.parse("orderNumber,products.gs1,products.quantity");
+        List<Order> orders = List.of(new Order());
+        when(repository.projectByRange(5L, 6L, fields)).thenReturn(orders);
+        when(repository.projectByClientId(1L, fields)).thenReturn(orders);
 
-        Order order1 = createDummyOrder();
-        order1.getClient().getAddress().setStreetName("");
-        Exception e1 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Missing client address street name", e1.getMessage());
+        assertEquals(orders, ordersService.getOrdersByRange(5L, 6L, fields));
+        assertEquals(orders, ordersService.getOrdersByClientId(1L, fields));
 
-        Order order2 = createDummyOrder();
-        order2.getClient().getAddress().setStreetName(" ");
-        Exception e2 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Missing client address street name", e2.getMessage());
+        verify(repository, never()).listByRange(any(), any());
+        verify(repository, never()).listByClientId(any());
     }
 
     @Test
-    public void shouldThrowExceptionWhenMissingClientAddressStreetNumber() throws Exception {
-        Order order = createDummyOrder();
-        order.getClient().getAddress().setStreetNumber(null);
-        Exception e = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Missing client address street number", e.getMessage());
-
-        Order order1 = createDummyOrder();
-        order1.getClient().getAddress().setStreetNumber("");
-        Exception e1 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Missing client address street number", e1.getMessage());
+    public void shouldReadKeysetFieldsOfProjectedPages() throws Exception {
+        Order o1 = new Order();
+        o1.setOrderNumber(43L);
+        o1.setOrderedAt(5L);
+        Order o2 = new Order();
+        o2.setOrderNumber(44L);
+        o2.setOrderedAt(5L);
+        ArgumentCaptor<OrderFields> fields = ArgumentCaptor.forClass(OrderFields.class);
+        when(repository.projectByRangeAfter(eq(5L), eq(0L), eq(6L), any(Pageable.class), fields.capture())).thenReturn(List.of(o1, o2));
 
-        Order order2 = createDummyOrder();
-        order2.getClient().getAddress().setStreetNumber(" ");
-        Exception e2 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Missing client address street number", e2.getMessage());
+        OrdersPage page = ordersService.getOrdersPageByRange(5L, 6L, null, 1, OrderFields.parse("products.gs1"));
+        assertEquals(List.of(o1), page.getOrders());
+        assertEquals(PageTokens.encode(o1), page.getNext());
+        assertEquals(List.of("products.gs1", "orderedAt", "orderNumber"), fields.getValue().paths());
     }
 
     @Test
-    public void shouldThrowExceptionWhenMissingClientAddressNeighborhood() throws Exception {
+    public void shouldProjectCachedOrderInMemory() throws Exception {
+        OrderFields fields = OrderFields.parse("orderNumber,client.id");
         Order order = createDummyOrder();
-        order.getClient().getAddress().setNeighborhood(null);
-        Exception e = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Missing client address neighborhood", e.getMessage());
-
-        Order order1 = createDummyOrder();
-        order1.getClient().getAddress().setNeighborhood("");
-        Exception e1 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Missing client address neighborhood", e1.getMessage());
-
-        Order order2 = createDummyOrder();
-        order2.getClient().getAddress().setNeighborhood(" ");
-        Exception e2 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Missing client address neighborhood", e2.getMessage());
-    }
+        assertEquals(43L, ordersService.receiveOrder(order));
 
-    @Test
-    public void shouldThrowExceptionWhenMissingClientAddressCity() throws Exception {
-        Order order = createDummyOrder();
-        order.getClient().getAddress().setCity(null);
-        Exception e = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Missing client address city", e.getMessage());
+        Order projected = ordersService.getOrderByOrderNumber(43L, fields);
+        assertEquals(43L, projected.getOrderNumber());
+        assertEquals(1L, projected.getClient().getId());
+        assertNull(projected.getClient().getName());
+        assertNull(projected.getProducts());
 
-        Order order1 = createDummyOrder();
-        order1.getClient().getAddress().setCity("");
-        Exception e1 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Missing client address city", e1.getMessage());
+        Order stored = new Order();
+        when(repository.projectByOrderNumber(44L, fields)).thenReturn(stored);
+        assertSame(stored, ordersService.getOrderByOrderNumber(44L, fields));
 
-        Order order2 = createDummyOrder();
-        order2.getClient().getAddress().setCity(" ");
-        Exception e2 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Missing client address city", e2.getMessage());
+        verify(repository, never()).findByOrderNumber(any());
     }
 
     @Test
-    public void shouldThrowExceptionWhenMissingClientAddressState() throws Exception {
-        Order order = createDummyOrder();
-        order.getClient().getAddress().setState(null);
-        Exception e = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Missing client address state", e.getMessage());
+    public void shouldValidateStreamRangeWithoutOpeningIt() throws Exception {
+        ordersService.validateStreamRange(0L, MAX_STREAM_RANGE);
+        assertThrows(InvalidOrderFilterException.class, () -> ordersService.validateStreamRange(6L, 5L));
+        assertThrows(InvalidOrderFilterException.class, () -> ordersService.validateStreamRange(0L, MAX_STREAM_RANGE + 1));
 
-        Order order1 = createDummyOrder();
-        order1.getClient().getAddress().setState("");
-        Exception e1 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Missing client address state", e1.getMessage());
-
-        Order order2 = createDummyOrder();
-        order2.getClient().getAddress().setState(" ");
-        Exception e2 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Missing client address state", e2.getMessage());
+        verifyNoInteractions(repository);
     }
 
     @Test
-    public void shouldThrowExceptionWhenMissingClientAddressCountry() throws Exception {
-        Order order = createDummyOrder();
-        order.getClient().getAddress().setCountry(null);
-        Exception e = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Missing client address country", e.getMessage());
-
+    public void shouldCreateValidatedOrdersInBatchWithoutValidatingThemAgain() throws Exception {
         Order order1 = createDummyOrder();
-        order1.getClient().getAddress().setCountry("");
-        Exception e1 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Missing client address country", e1.getMessage());
-
         Order order2 = createDummyOrder();
-        order2.getClient().getAddress().setCountry(" ");
-        Exception e2 = assertThrows(InvalidClientAddressException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Missing client address country", e2.getMessage());
-    }
 
-    @Test
-    public void shouldThrowExceptionWhenMissingProducts() throws Exception {
-        Order order1 = createDummyOrder();
-        order1.setProducts(null);
-        Exception e1 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Products list is null or empty", e1.getMessage());
+        List<OrderAck> acks = ordersService.receiveValidatedOrders(List.of(order1, order2));
+        assertEquals(List.of(OrderAck.registered(43L), OrderAck.registered(44L)), acks);
+        assertEquals(0, registry.get("orders.ingest.stage").tag("stage", "validate").timer().count());
 
-        Order order2 = createDummyOrder();
-        order2.setProducts(Collections.emptyList());
-        Exception e2 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Products list is null or empty", e2.getMessage());
-    }
-
-    @Test
-    public void shouldThrowExceptionWhenMissingProduct() throws Exception {
-        Order order = createDummyOrder();
-        order.getProducts().set(0, null);
-        Exception e = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Product 1 is null", e.getMessage());
+        verify(repository).insertIgnoringDuplicates(List.of(order1, order2));
     }
 
     @Test
-    public void shouldThrowExceptionWhenMissingProductId() throws Exception {
-        Order order1 = createDummyOrder();
-        order1.getProducts().get(0).setId(null);
-        Exception e1 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Product 1 missing id", e1.getMessage());
+    public void shouldPublishOnlyStoredOrders() throws Exception {
+        BlockingQueue<Long> pushed = new LinkedBlockingQueue<>();
+        subscriptions.subscribe(null, null, new OrdersSubscriptions.Subscriber() {
+            @Override
+            public void send(Order order) {
+                pushed.add(order.getOrderNumber());
+            }
 
-        Order order2 = createDummyOrder();
-        order2.getProducts().get(0).setId(-1L);
-        Exception e2 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Product 1 missing id", e2.getMessage());
-
-        Order order3 = createDummyOrder();
-        order3.getProducts().get(0).setId(0L);
-        Exception e3 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order3));
-        assertEquals("Product 1 missing id", e3.getMessage());
-    }
+            @Override
+            public void dropped(String reason) {
+            }
+        });
 
-    @Test
-    public void shouldThrowExceptionWhenMissingProductGS1() throws Exception {
         Order order = createDummyOrder();
-        order.getProducts().get(0).setGs1(null);
-        Exception e = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Product 1 missing GS1 code", e.getMessage());
+        Order repeated = createDummyOrder();
+        repeated.setChecksum(order.getChecksum());
+        Order rejected = createDummyOrder();
+        Order single = createDummyOrder();
+        when(repository.insertIgnoringDuplicates(List.of(order, rejected))).thenReturn(new OrdersInsert(List.of(rejected), Map.of()));
 
-        Order order1 = createDummyOrder();
-        order1.getProducts().get(0).setGs1("");
-        Exception e1 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Product 1 missing GS1 code", e1.getMessage());
+        ordersService.receiveOrders(List.of(order, repeated, rejected));
+        ordersService.receiveOrder(single);
 
-        Order order2 = createDummyOrder();
-        order2.getProducts().get(0).setGs1(" ");
-        Exception e2 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Product 1 missing GS1 code", e2.getMessage());
+        assertEquals(order.getOrderNumber(), pushed.poll(5, TimeUnit.SECONDS));
+        assertEquals(single.getOrderNumber(), pushed.poll(5, TimeUnit.SECONDS));
+        assertNull(pushed.poll(100, TimeUnit.MILLISECONDS));
     }
 
-    @Test
-    public void shouldThrowExceptionWhenMissingProductName() throws Exception {
-        Order order = createDummyOrder();
-        order.getProducts().get(0).setName(null);
-        Exception e = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Product 1 missing name", e.getMessage());
+    private record Blocking(OrdersService service) implements Service {
 
-        Order order1 = createDummyOrder();
-        order1.getProducts().get(0).setName("");
-        Exception e1 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Product 1 missing name", e1.getMessage());
+        @Override
+        public List<Order> getOrdersByClientId(long clientId) throws Exception {
+            return service.getOrdersByClientId(clientId);
+        }
 
-        Order order2 = createDummyOrder();
-        order2.getProducts().get(0).setName(" ");
-        Exception e2 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Product 1 missing name", e2.getMessage());
-    }
+        @Override
+        public OrdersPage getOrdersPageByClientId(long clientId, String token, int size) throws Exception {
+            return service.getOrdersPageByClientId(clientId, token, size);
+        }
 
-    @Test
-    public void shouldThrowExceptionWhenMissingProductQuantity() throws Exception {
-        Order order = createDummyOrder();
-        order.getProducts().get(0).setQuantity(null);
-        Exception e = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Product 1 missing or invalid quantity", e.getMessage());
+        @Override
+        public Order getOrderByOrderNumber(long orderNumber) throws Exception {
+            return service.getOrderByOrderNumber(orderNumber);
+        }
 
-        Order order1 = createDummyOrder();
-        order1.getProducts().get(0).setQuantity(0L);
-        Exception e1 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Product 1 missing or invalid quantity", e1.getMessage());
+        @Override
+        public List<Order> getOrdersByRange(long begin, long end) throws Exception {
+            return service.getOrdersByRange(begin, end);
+        }
 
-        Order order2 = createDummyOrder();
-        order2.getProducts().get(0).setQuantity(-1L);
-        Exception e2 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Product 1 missing or invalid quantity", e2.getMessage());
-    }
+        @Override
+        public List<Order> streamOrdersByRange(long begin, long end) throws Exception {
+            try (Stream<Order> orders = service.streamOrdersByRange(begin, end)) {
+                return orders.toList();
+            }
+        }
 
-    @Test
-    public void shouldThrowExceptionWhenMissingProductPrice() throws Exception {
-        Order order = createDummyOrder();
-        order.getProducts().get(0).setPrice(null);
-        Exception e = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order));
-        assertEquals("Product 1 missing or invalid price", e.getMessage());
+        @Override
+        public OrdersPage getOrdersPageByRange(long begin, long end, String token, int size) throws Exception {
+            return service.getOrdersPageByRange(begin, end, token, size);
+        }
 
-        Order order1 = createDummyOrder();
-        order1.getProducts().get(0).setPrice(0d);
-        Exception e1 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order1));
-        assertEquals("Product 1 missing or invalid price", e1.getMessage());
+        @Override
+        public Long receiveOrder(Order order) throws Exception {
+            return service.receiveOrder(order);
+        }
 
-        Order order2 = createDummyOrder();
-        order2.getProducts().get(0).setPrice(-1d);
-        Exception e2 = assertThrows(InvalidProductException.class, () -> ordersService.receiveOrder(order2));
-        assertEquals("Product 1 missing or invalid price", e2.getMessage());
-    }
+        @Override
+        public List<OrderAck> receiveOrders(List<Order> orders) throws Exception {
+            return service.receiveOrders(orders);
+        }
 
-    private Order createDummyOrder() {
-        Order order = new Order();
-        order.setOrderNumber(43L);
-        order.setChecksum(UUID.randomUUID().toString());
-        order.setClient(new Client());
-        order.getClient().setId(1L);
-        order.getClient().setName("Foo Bar");
-        order.getClient().setTaxId("12345678900");
-        order.getClient().setAddress(new Address());
-        order.getClient().getAddress().setZipCode("01310200");
-        order.getClient().getAddress().setStreetName("Avenida Paulista");
-        order.getClient().getAddress().setStreetNumber("1578");
-        order.getClient().getAddress().setNeighborhood("Bela Vista");
-        order.getClient().getAddress().setCity("Sao Paulo");
-        order.getClient().getAddress().setState("Sao Paulo");
-        order.getClient().getAddress().setCountry("Brazil");
-        order.setProducts(new ArrayList<>());
-        Product p1 = new Product();
-        p1.setId(1L);
-        p1.setGs1("7908887777776");
-        p1.setName("Something Product");
-        p1.setQuantity(3L);
-        p1.setPrice(10.9);
-        order.getProducts().add(p1);
-        Product p2 = new Product();
-        p2.setId(2L);
-        p2.setGs1("7908884443339");
-        p2.setName("Another Product");
-        p2.setQuantity(10L);
-        p2.setPrice(5.28);
-        order.getProducts().add(p2);
-        order.setOrderedAt(System.currentTimeMillis());
-
-        return order;
     }
 
 }
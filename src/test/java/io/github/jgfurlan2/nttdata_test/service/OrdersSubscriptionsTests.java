@@ -0,0 +1,279 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createStoredOrder;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrdersSubscriptionsTests {
+
+    @Mock
+    private OrdersRepository repository;
+
+    private SimpleMeterRegistry registry;
+    private OrdersSubscriptions subscriptions;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        subscriptions = new OrdersSubscriptions(repository, new OrdersMetrics(registry), 3, 5, 2, 1000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        subscriptions.stop();
+    }
+
+    @Test
+    public void shouldPushPublishedOrdersOfSubscribedClient() throws Exception {
+        RecordingSubscriber all = new RecordingSubscriber();
+        RecordingSubscriber client2 = new RecordingSubscriber();
+        subscriptions.subscribe(null, null, all);
+        subscriptions.subscribe(2L, null, client2);
+        assertEquals(2.0, registry.get("orders.subscriptions").gauge().value());
+
+        subscriptions.publish(List.of(createOrder(1L, 1L), createOrder(2L, 2L), createOrder(3L, 1L)));
+
+        assertEquals(List.of(1L, 2L, 3L), all.take(3));
+        assertEquals(List.of(2L), client2.take(1));
+        assertNull(client2.orders.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldStopPushingAfterCancel() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        OrdersSubscriptions.Subscription subscription = subscriptions.subscribe(null, null, subscriber);
+
+        assertTrue(subscription.cancel());
+        assertFalse(subscription.cancel());
+        subscriptions.publish(createOrder(1L, 1L));
+
+        assertNull(subscriber.orders.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(0.0, registry.get("orders.subscriptions").gauge().value());
+        assertNull(subscriber.reason);
+    }
+
+    @Test
+    public void shouldDropSlowSubscriber() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void send(Order order) throws Exception {
+                blocked.countDown();
+                release.await();
+                super.send(order);
+            }
+        };
+        subscriptions.subscribe(null, null, subscriber);
+
+        // The first order is taken by the sender, which then blocks while the queue fills up
+        subscriptions.publish(createOrder(1L, 1L));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (long i = 2; i <= 5; i++) {
+            subscriptions.publish(createOrder(i, 1L));
+        }
+        release.countDown();
+
+        assertEquals("Slow consumer", subscriber.reason);
+        assertEquals(1.0, registry.get("orders.subscriptions.dropped").counter().count());
+        assertEquals(0.0, registry.get("orders.subscriptions").gauge().value());
+    }
+
+    @Test
+    public void shouldResumeAfterOrderNumberWithoutDuplicates() throws Exception {
+        CountDownLatch backfilling = new CountDownLatch(1);
+        CountDownLatch published = new CountDownLatch(1);
+        when(repository.findVersionByOrderNumber(10L)).thenReturn(createOrder(10L, 1L));
+        when(repository.listByRangeAfter(eq(9000L), eq(0L), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            backfilling.countDown();
+            assertTrue(published.await(5, TimeUnit.SECONDS));
+            return List.of(createOrder(11L, 1L), createOrder(12L, 1L));
+        });
+        when(repository.listByRangeAfter(eq(12_000L), eq(12L), anyLong(), any(Pageable.class))).thenReturn(List.of(createOrder(13L, 2L)));
+        when(repository.findFirstByOrderByOrderNumberDesc()).thenReturn(createOrder(13L, 2L));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        subscriptions.subscribe(null, 10L, subscriber);
+
+        // Orders stored while the backfill is running are read by it and also published
+        assertTrue(backfilling.await(5, TimeUnit.SECONDS));
+        subscriptions.publish(createOrder(12L, 1L));
+        subscriptions.publish(createOrder(14L, 1L));
+        published.countDown();
+
+        assertEquals(List.of(11L, 12L, 13L, 14L), subscriber.take(4));
+        assertNull(subscriber.orders.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldResumeWithOrdersStoredAfterHigherNumbers() throws Exception {
+        // Numbered from an earlier block, order 8 was stored only after the subscriber received order 10
+        Order late = createOrder(8L, 1L);
+        late.setOrderedAt(9500L);
+        when(repository.findVersionByOrderNumber(10L)).thenReturn(createOrder(10L, 1L));
+        when(repository.listByRangeAfter(eq(9000L), eq(0L), anyLong(), any(Pageable.class))).thenReturn(List.of(late, createOrder(10L, 1L)));
+        when(repository.listByRangeAfter(eq(10_000L), eq(10L), anyLong(), any(Pageable.class))).thenReturn(List.of(createOrder(11L, 1L)));
+        when(repository.findFirstByOrderByOrderNumberDesc()).thenReturn(createOrder(11L, 1L));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        subscriptions.subscribe(null, 10L, subscriber);
+
+        assertEquals(List.of(8L, 11L), subscriber.take(2));
+        assertNull(subscriber.orders.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldDropSubscriptionResumingAfterUnknownOrder() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        subscriptions.subscribe(null, 10L, subscriber);
+
+        assertEquals("Unknown order number", subscriber.awaitReason());
+    }
+
+    @Test
+    public void shouldStopBackfillAtHighWaterMark() throws Exception {
+        when(repository.findVersionByOrderNumber(10L)).thenReturn(createOrder(10L, 1L));
+        when(repository.listByRangeAfter(eq(9000L), eq(0L), anyLong(), any(Pageable.class))).thenReturn(List.of(createOrder(11L, 1L), createOrder(12L, 1L)));
+        when(repository.listByRangeAfter(eq(12_000L), eq(12L), anyLong(), any(Pageable.class))).thenReturn(List.of());
+        when(repository.findFirstByOrderByOrderNumberDesc()).thenReturn(createOrder(11L, 1L));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        subscriptions.subscribe(null, 10L, subscriber);
+
+        // Stored after the backfill started, so it is only sent once published
+        assertEquals(List.of(11L), subscriber.take(1));
+        assertNull(subscriber.orders.poll(100, TimeUnit.MILLISECONDS));
+        subscriptions.publish(createOrder(12L, 1L));
+        assertEquals(List.of(12L), subscriber.take(1));
+    }
+
+    @Test
+    public void shouldReadOrdersOverflowingQueueDuringBackfillAgain() throws Exception {
+        CountDownLatch published = new CountDownLatch(1);
+        when(repository.findVersionByOrderNumber(10L)).thenReturn(createOrder(10L, 1L));
+        when(repository.listByRangeAfter(eq(9000L), eq(0L), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            assertTrue(published.await(5, TimeUnit.SECONDS));
+            return List.of(createOrder(11L, 1L));
+        });
+        when(repository.listByRangeAfter(eq(15_000L), eq(0L), anyLong(), any(Pageable.class))).thenReturn(List.of(createOrder(15L, 1L), createOrder(16L, 1L)));
+        when(repository.listByRangeAfter(eq(16_000L), eq(16L), anyLong(), any(Pageable.class))).thenReturn(List.of());
+        when(repository.findFirstByOrderByOrderNumberDesc()).thenReturn(createOrder(11L, 1L), createOrder(16L, 1L));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        subscriptions.subscribe(null, 10L, subscriber);
+
+        // Only three of them fit in the queue while the backfill is running
+        for (long i = 12; i <= 16; i++) {
+            subscriptions.publish(createOrder(i, 1L));
+        }
+        published.countDown();
+
+        assertEquals(List.of(11L, 15L, 16L, 12L, 13L, 14L), subscriber.take(6));
+        assertNull(subscriber.orders.poll(100, TimeUnit.MILLISECONDS));
+        assertNull(subscriber.reason);
+        assertEquals(0.0, registry.get("orders.subscriptions.dropped").counter().count());
+    }
+
+    @Test
+    public void shouldResumeClientSubscription() throws Exception {
+        when(repository.findVersionByOrderNumber(10L)).thenReturn(createOrder(10L, 2L));
+        when(repository.listByClientIdAfter(eq(2L), eq(9000L), eq(0L), any(Pageable.class))).thenReturn(List.of(createOrder(15L, 2L)));
+        when(repository.findFirstByOrderByOrderNumberDesc()).thenReturn(createOrder(15L, 2L));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        subscriptions.subscribe(2L, 10L, subscriber);
+
+        assertEquals(List.of(15L), subscriber.take(1));
+    }
+
+    @Test
+    public void shouldDropSubscriptionResumingTooFarBehind() throws Exception {
+        when(repository.listByRangeAfter(anyLong(), anyLong(), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(1);
+            return List.of(createOrder(after + 1, 1L), createOrder(after + 2, 1L));
+        });
+        when(repository.findFirstByOrderByOrderNumberDesc()).thenReturn(createOrder(100L, 1L));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        subscriptions.subscribe(null, 0L, subscriber);
+
+        assertEquals(5, subscriber.take(5).size());
+        assertEquals("Resume point too far behind", subscriber.awaitReason());
+    }
+
+    @Test
+    public void shouldRejectInvalidSubscriptions() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        Exception e1 = assertThrows(InvalidOrderFilterException.class, () -> subscriptions.subscribe(0L, null, subscriber));
+        assertEquals("Invalid client id", e1.getMessage());
+
+        Exception e2 = assertThrows(InvalidOrderFilterException.class, () -> subscriptions.subscribe(null, -1L, subscriber));
+        assertEquals("Invalid order number", e2.getMessage());
+    }
+
+    private static Order createOrder(long orderNumber, long clientId) {
+        Order order = createStoredOrder(orderNumber, orderNumber * 1000);
+        order.getClient().setId(clientId);
+        return order;
+    }
+
+    private static class RecordingSubscriber implements OrdersSubscriptions.Subscriber {
+
+        private final BlockingQueue<Long> orders = new LinkedBlockingQueue<>();
+        private final CountDownLatch dropped = new CountDownLatch(1);
+        private volatile String reason;
+
+        @Override
+        public void send(Order order) throws Exception {
+            orders.add(order.getOrderNumber());
+        }
+
+        @Override
+        public void dropped(String reason) {
+            this.reason = reason;
+            dropped.countDown();
+        }
+
+        List<Long> take(int count) throws InterruptedException {
+            List<Long> taken = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Long orderNumber = orders.poll(5, TimeUnit.SECONDS);
+                assertNotNull(orderNumber, "Only received " + taken);
+                taken.add(orderNumber);
+            }
+
+            return taken;
+        }
+
+        String awaitReason() throws InterruptedException {
+            assertTrue(dropped.await(5, TimeUnit.SECONDS));
+            return reason;
+        }
+
+    }
+
+}
@@ -0,0 +1,171 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.model.OrdersPage;
+import io.github.jgfurlan2.nttdata_test.repository.ClientStatsRepository;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.github.jgfurlan2.nttdata_test.repository.ReactiveOrdersRepository;
+import io.github.jgfurlan2.nttdata_test.repository.RollupBucketRepository;
+import io.github.jgfurlan2.nttdata_test.util.Dates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createDummyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReactiveOrdersServiceTests extends OrdersServiceBehaviorTests {
+
+    @Mock
+    private ClientStatsRepository clientStatsRepository;
+
+    @Mock
+    private RollupBucketRepository rollupRepository;
+
+    private ReactiveOrdersService ordersService;
+
+    private ReactiveOrdersRepository reactiveRepository;
+    private ClientStatsService clientStats;
+    private OrdersRollups rollups;
+
+    @BeforeEach
+    public void setUp() {
+        reactiveRepository = reactive(repository);
+        clientStats = new ClientStatsService(clientStatsRepository, new SimpleMeterRegistry(), 100, 60_000, false);
+        rollups = new OrdersRollups(rollupRepository, new SimpleMeterRegistry(), Dates.DAY_TIMESTAMP, 0, 60_000, 100, 1000);
+        ordersService = createOrdersService(10);
+        service = new Reactive(ordersService);
+    }
+
+    private ReactiveOrdersService createOrdersService(int blockSize) {
+        return new ReactiveOrdersService(reactiveRepository, createIngest(blockSize), checksumFilter, ordersCache, metrics, new OrdersListeners(List.of(clientStats)), clientStats, rollups, new TopProducts(100), MAX_STREAM_RANGE, MAX_PAGE_SIZE);
+    }
+
+    @Override
+    protected Service createService(int blockSize) {
+        return new Reactive(createOrdersService(blockSize));
+    }
+
+    @Override
+    protected void whenStreamByRange(long begin, long end, List<Order> orders) {
+        // The reactive driver streams the same query it lists with
+        when(repository.listByRange(begin, end)).thenReturn(orders);
+    }
+
+    @Test
+    public void shouldUpdateClientStatsOfCreatedOrders() {
+        when(clientStatsRepository.findById(1L)).thenReturn(Optional.empty());
+        Order order = createDummyOrder();
+
+        StepVerifier.create(ordersService.getClientStats(1L)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(ordersService.receiveOrder(order)).expectNext(43L).verifyComplete();
+        StepVerifier.create(ordersService.getClientStats(1L))
+                .assertNext(stats -> {
+                    assertEquals(1, stats.getOrders());
+                    assertEquals(13, stats.getItems());
+                    assertEquals(85.5, stats.getRevenue(), 1e-9);
+                    assertEquals(order.getOrderedAt(), stats.getLastOrderedAt());
+                })
+                .verifyComplete();
+
+        verify(clientStatsRepository, times(1)).findById(1L);
+    }
+
+    /**
+     * A reactive repository answering each call from the method of the same name of the blocking one when subscribed
+     * to, like the driver, so the scenarios stub and verify only the blocking repository.
+     */
+    private static ReactiveOrdersRepository reactive(OrdersRepository repository) {
+        return mock(ReactiveOrdersRepository.class, invocation -> {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+
+            Method blocking = OrdersRepository.class.getMethod(method.getName(), method.getParameterTypes());
+            Mono<Object> result = Mono.fromCallable(() -> {
+                try {
+                    return blocking.invoke(repository, invocation.getArguments());
+                } catch (InvocationTargetException e) {
+                    throw (Exception) e.getCause();
+                }
+            });
+
+            return method.getReturnType() == Flux.class ? result.flatMapMany(list -> Flux.fromIterable((List<?>) list)) : result;
+        });
+    }
+
+    private record Reactive(ReactiveOrdersService service) implements Service {
+
+        @Override
+        public List<Order> getOrdersByClientId(long clientId) throws Exception {
+            return block(service.getOrdersByClientId(clientId).collectList());
+        }
+
+        @Override
+        public OrdersPage getOrdersPageByClientId(long clientId, String token, int size) throws Exception {
+            return block(service.getOrdersPageByClientId(clientId, token, size));
+        }
+
+        @Override
+        public Order getOrderByOrderNumber(long orderNumber) throws Exception {
+            return block(service.getOrderByOrderNumber(orderNumber));
+        }
+
+        @Override
+        public List<Order> getOrdersByRange(long begin, long end) throws Exception {
+            return block(service.getOrdersByRange(begin, end).collectList());
+        }
+
+        @Override
+        public List<Order> streamOrdersByRange(long begin, long end) throws Exception {
+            return block(service.streamOrdersByRange(begin, end).collectList());
+        }
+
+        @Override
+        public OrdersPage getOrdersPageByRange(long begin, long end, String token, int size) throws Exception {
+            return block(service.getOrdersPageByRange(begin, end, token, size));
+        }
+
+        @Override
+        public Long receiveOrder(Order order) throws Exception {
+            return block(service.receiveOrder(order));
+        }
+
+        @Override
+        public List<OrderAck> receiveOrders(List<Order> orders) throws Exception {
+            return block(service.receiveOrders(orders));
+        }
+
+        private static <T> T block(Mono<T> result) throws Exception {
+            try {
+                return result.block();
+            } catch (RuntimeException e) {
+                // Checked errors are wrapped by block, the scenarios expect them as the blocking stack throws them
+                if (Exceptions.unwrap(e) instanceof Exception cause) {
+                    throw cause;
+                }
+
+                throw e;
+            }
+        }
+
+    }
+
+}
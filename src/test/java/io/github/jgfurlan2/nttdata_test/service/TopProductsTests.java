@@ -0,0 +1,83 @@
+package io.github.jgfurlan2.nttdata_test.service;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.RollupGranularity;
+import io.github.jgfurlan2.nttdata_test.model.TopProduct;
+import io.github.jgfurlan2.nttdata_test.util.SpaceSaving;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createOrder;
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createProduct;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TopProductsTests {
+
+    private static final long MINUTE = RollupGranularity.MINUTE.millis();
+    private static final long HOUR = RollupGranularity.HOUR.millis();
+
+    private TopProducts topProducts;
+
+    @BeforeEach
+    public void setUp() {
+        topProducts = new TopProducts(10);
+    }
+
+    @Test
+    public void shouldRankProductsByQuantity() throws Exception {
+        long now = System.currentTimeMillis();
+        topProducts.ordersStored(List.of(
+                createOrder(1L, now, createProduct("a", 1L, 10.9), createProduct("b", 6L, 10.9)),
+                createOrder(1L, now, createProduct("a", 2L, 10.9), createProduct("c", 1L, 10.9)),
+                createOrder(1L, now - MINUTE, createProduct("c", 4L, 10.9))
+        ));
+
+        assertEquals(List.of(new TopProduct("b", 6, 0), new TopProduct("c", 5, 0)), topProducts.getTopProducts("hour", 2));
+        assertEquals(List.of(new TopProduct("b", 6, 0), new TopProduct("c", 5, 0), new TopProduct("a", 3, 0)), topProducts.getTopProducts("DAY", 10));
+    }
+
+    @Test
+    public void shouldOnlyMergeSlotsOfWindow() {
+        long now = RollupGranularity.HOUR.start(System.currentTimeMillis()) + 30 * MINUTE;
+        topProducts.ordersStored(List.of(
+                createOrder(1L, now, createProduct("recent", 1L, 10.9)),
+                createOrder(1L, now - 59 * MINUTE, createProduct("edge", 2L, 10.9)),
+                createOrder(1L, now - 61 * MINUTE, createProduct("old", 3L, 10.9)),
+                createOrder(1L, now - 25 * HOUR, createProduct("older", 4L, 10.9))
+        ));
+
+        assertEquals(List.of("edge", "recent"), keys(topProducts.snapshot(TopProducts.Window.HOUR, now)));
+        assertEquals(List.of("old", "edge", "recent"), keys(topProducts.snapshot(TopProducts.Window.DAY, now)));
+    }
+
+    @Test
+    public void shouldResetSlotWhenRingWrapsAround() {
+        long now = RollupGranularity.MINUTE.start(System.currentTimeMillis());
+        topProducts.ordersStored(List.of(createOrder(1L, now - HOUR, createProduct("previous", 5L, 10.9))));
+        topProducts.ordersStored(List.of(createOrder(1L, now, createProduct("current", 1L, 10.9))));
+
+        // Late orders for a slot already reused are dropped instead of mixed into the newer minute
+        topProducts.ordersStored(List.of(createOrder(1L, now - HOUR, createProduct("late", 1L, 10.9))));
+
+        assertEquals(List.of("current"), keys(topProducts.snapshot(TopProducts.Window.HOUR, now)));
+    }
+
+    @Test
+    public void shouldRejectInvalidQueries() {
+        Exception e1 = assertThrows(InvalidOrderFilterException.class, () -> topProducts.getTopProducts("week", 1));
+        assertEquals("Invalid window", e1.getMessage());
+
+        Exception e2 = assertThrows(InvalidOrderFilterException.class, () -> topProducts.getTopProducts("hour", 0));
+        assertEquals("Invalid limit", e2.getMessage());
+
+        Exception e3 = assertThrows(InvalidOrderFilterException.class, () -> topProducts.getTopProducts("hour", 11));
+        assertEquals("Max limit exceeded", e3.getMessage());
+    }
+
+    private static List<String> keys(SpaceSaving sketch) {
+        return sketch.top(10).stream().map(SpaceSaving.Entry::key).toList();
+    }
+
+}
@@ -0,0 +1,46 @@
+package io.github.jgfurlan2.nttdata_test.util;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrdersVersion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createStoredOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ETagsTests {
+
+    @Test
+    public void shouldTagRangeAsTheIndexSummaryDoes() {
+        OrdersVersion version = ETags.range(List.of(createStoredOrder(7L, 100L), createStoredOrder(9L, 300L), createStoredOrder(8L, 200L)));
+
+        assertEquals(ETags.range(3, 9L, 24L, 300L), version);
+        assertEquals(300L, version.getLastModified());
+        assertNotEquals(version.getEtag(), ETags.range(List.of(createStoredOrder(6L, 100L), createStoredOrder(9L, 300L), createStoredOrder(8L, 200L))).getEtag());
+        assertEquals(0L, ETags.range(List.of()).getLastModified());
+    }
+
+    @Test
+    public void shouldTagOrderByNumberAndChecksum() {
+        Order order = createStoredOrder(7L, 100L);
+        Order other = createStoredOrder(7L, 100L);
+        other.setChecksum("other");
+
+        assertTrue(ETags.order(order).getEtag().startsWith("\"7-"));
+        assertEquals(ETags.order(order), ETags.order(createStoredOrder(7L, 100L)));
+        assertNotEquals(ETags.order(order), ETags.order(other));
+    }
+
+    @Test
+    public void shouldMatchIfNoneMatchHeader() {
+        String etag = ETags.order(createStoredOrder(7L, 100L)).getEtag();
+
+        assertTrue(ETags.matches(etag, etag));
+        assertTrue(ETags.matches("\"other\", W/" + etag, etag));
+        assertTrue(ETags.matches("*", etag));
+        assertFalse(ETags.matches("\"other\"", etag));
+        assertFalse(ETags.matches(null, etag));
+    }
+
+}
@@ -0,0 +1,81 @@
+package io.github.jgfurlan2.nttdata_test.util;
+
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderFilterException;
+import io.github.jgfurlan2.nttdata_test.model.Address;
+import io.github.jgfurlan2.nttdata_test.model.Client;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createStoredOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderFieldsTests {
+
+    @Test
+    public void shouldMapSelectedFieldsToDocumentPaths() throws Exception {
+        OrderFields fields = OrderFields.parse("orderNumber, orderedAt,products.gs1,products.quantity,client.id");
+
+        assertEquals(List.of("orderNumber", "orderedAt", "products.gs1", "products.quantity", "client._id"), fields.paths());
+        assertNull(OrderFields.parse(null));
+        assertNull(OrderFields.parse(" "));
+    }
+
+    @Test
+    public void shouldExpandNestedObjects() throws Exception {
+        OrderFields fields = OrderFields.parse("client.address,products");
+
+        assertEquals(List.of(
+                "client.address.zipCode", "client.address.streetName", "client.address.streetNumber",
+                "client.address.neighborhood", "client.address.city", "client.address.state", "client.address.country",
+                "products._id", "products.gs1", "products.name", "products.quantity", "products.price"
+        ), fields.paths());
+        // A field selected again through its parent is only read once
+        assertEquals(11, OrderFields.parse("client,products.name,client.name").paths().size());
+    }
+
+    @Test
+    public void shouldRejectUnknownFields() {
+        Exception e = assertThrows(InvalidOrderFilterException.class, () -> OrderFields.parse("orderNumber,client.email"));
+        assertEquals("Invalid field client.email", e.getMessage());
+    }
+
+    @Test
+    public void shouldAddKeysetFields() throws Exception {
+        OrderFields fields = OrderFields.parse("products.gs1");
+
+        assertEquals(List.of("products.gs1", "orderedAt", "orderNumber"), fields.withKeyset().paths());
+        OrderFields keyset = OrderFields.parse("orderNumber,orderedAt");
+        assertSame(keyset, keyset.withKeyset());
+    }
+
+    @Test
+    public void shouldAddAndTrimVersionFields() throws Exception {
+        OrderFields fields = OrderFields.parse("orderNumber,products.gs1");
+        assertEquals(List.of("orderNumber", "products.gs1", "orderedAt", "checksum"), fields.withVersion().paths());
+
+        Order order = new Order();
+        order.setOrderNumber(43L);
+        order.setOrderedAt(1_700_000_000_000L);
+        order.setChecksum("abc");
+        assertEquals(new Order(43L, null, null, null, null), fields.trim(order));
+
+        OrderFields version = OrderFields.parse("orderNumber,orderedAt,checksum");
+        assertSame(version, version.withVersion());
+    }
+
+    @Test
+    public void shouldProjectOrderInMemory() throws Exception {
+        Order order = createStoredOrder(43L, 1_700_000_000_000L);
+
+        Order stock = OrderFields.parse("orderNumber,products.gs1,products.quantity").project(order);
+        assertEquals(new Order(43L, null, List.of(new Product(null, "7908887777776", null, 3L, null)), null, null), stock);
+
+        Order city = OrderFields.parse("client.address.city").project(order);
+        assertEquals(new Client(null, null, null, new Address(null, null, null, null, "Sao Paulo", null, null)), city.getClient());
+        assertNull(city.getProducts());
+    }
+
+}
@@ -0,0 +1,107 @@
+package io.github.jgfurlan2.nttdata_test.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpaceSavingTests {
+
+    private static final int CAPACITY = 100;
+    private static final int KEYS = 10_000;
+
+    @Test
+    public void shouldCountExactlyWhileKeysFit() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        sketch.add("a", 5);
+        sketch.add("b", 2);
+        sketch.add("a", 1);
+        sketch.add("c", 4);
+
+        assertEquals(List.of(new SpaceSaving.Entry("a", 6, 0), new SpaceSaving.Entry("c", 4, 0), new SpaceSaving.Entry("b", 2, 0)), sketch.top(3));
+        assertEquals(12, sketch.total());
+        assertEquals(2, sketch.minCount());
+    }
+
+    @Test
+    public void shouldBoundCountsOfSkewedStream() {
+        Map<String, Long> exact = new HashMap<>();
+        SpaceSaving sketch = new SpaceSaving(CAPACITY);
+        feed(new Random(42), 200_000, exact, sketch);
+
+        assertBounded(exact, sketch, sketch.total() / CAPACITY);
+    }
+
+    @Test
+    public void shouldKeepBoundsWhenMerged() {
+        Map<String, Long> exact = new HashMap<>();
+        SpaceSaving merged = new SpaceSaving(CAPACITY);
+        for (int part = 0; part < 4; part++) {
+            SpaceSaving sketch = new SpaceSaving(CAPACITY);
+            feed(new Random(part), 50_000, exact, sketch);
+            merged.merge(sketch);
+        }
+
+        // Each merged summary may overestimate by its own total / capacity
+        assertBounded(exact, merged, merged.total() / CAPACITY);
+    }
+
+    @Test
+    public void shouldFindTheSameTopKeysAsExactCounts() {
+        Map<String, Long> exact = new HashMap<>();
+        SpaceSaving sketch = new SpaceSaving(CAPACITY);
+        feed(new Random(7), 200_000, exact, sketch);
+
+        List<String> expected = exact.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        assertEquals(expected, sketch.top(10).stream().map(SpaceSaving.Entry::key).toList());
+    }
+
+    private static void assertBounded(Map<String, Long> exact, SpaceSaving sketch, long bound) {
+        long total = exact.values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(total, sketch.total());
+
+        Map<String, SpaceSaving.Entry> kept = new HashMap<>();
+        for (SpaceSaving.Entry entry : sketch.top(CAPACITY)) {
+            kept.put(entry.key(), entry);
+
+            long actual = exact.getOrDefault(entry.key(), 0L);
+            assertTrue(entry.count() >= actual, entry.key() + " underestimated");
+            assertTrue(entry.count() - entry.error() <= actual, entry.key() + " error too small");
+            assertTrue(entry.error() <= bound, entry.key() + " error above bound");
+        }
+
+        exact.forEach((key, count) -> {
+            if (count > bound) {
+                assertTrue(kept.containsKey(key), key + " with " + count + " left out");
+            }
+        });
+    }
+
+    /**
+     * Zipf-like stream: key {@code i} is drawn with probability proportional to {@code 1 / (i + 1)}.
+     */
+    private static void feed(Random random, int events, Map<String, Long> exact, SpaceSaving sketch) {
+        double[] cumulative = new double[KEYS];
+        double sum = 0;
+        for (int i = 0; i < KEYS; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+
+        for (int i = 0; i < events; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            String key = "gs1-" + (index < 0 ? -index - 1 : index);
+            long quantity = 1 + random.nextInt(3);
+
+            exact.merge(key, quantity, Long::sum);
+            sketch.add(key, quantity);
+        }
+    }
+
+}
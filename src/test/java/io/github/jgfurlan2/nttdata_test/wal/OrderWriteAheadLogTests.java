@@ -0,0 +1,178 @@
+package io.github.jgfurlan2.nttdata_test.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderWriteAheadLogTests {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void shouldReadAppendedRecords() throws Exception {
+        try (OrderWriteAheadLog wal = open(OrderWriteAheadLog.FsyncPolicy.RECORD)) {
+            wal.append(record(1));
+            wal.append(List.of(record(2), record(3)));
+
+            assertEquals(List.of("order-1", "order-2", "order-3"), readAll(wal, 0));
+        }
+    }
+
+    @Test
+    public void shouldRotateSegments() throws Exception {
+        try (OrderWriteAheadLog wal = open(OrderWriteAheadLog.FsyncPolicy.GROUP)) {
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                wal.append(record(i));
+                expected.add("order-" + i);
+            }
+
+            assertTrue(segmentCount() > 1);
+            assertEquals(expected, readAll(wal, 0));
+        }
+    }
+
+    @Test
+    public void shouldRejectRecordsLargerThanASegment() throws Exception {
+        try (OrderWriteAheadLog wal = open(OrderWriteAheadLog.FsyncPolicy.RECORD)) {
+            assertThrows(IOException.class, () -> wal.append(new byte[SEGMENT_SIZE]));
+        }
+    }
+
+    @Test
+    public void shouldRecoverUnappliedRecordsAfterCrash() throws Exception {
+        OrderWriteAheadLog crashed = open(OrderWriteAheadLog.FsyncPolicy.RECORD);
+        for (int i = 0; i < 30; i++) {
+            crashed.append(record(i));
+        }
+
+        OrderWriteAheadLog.Batch applied = crashed.read(0, 10);
+        crashed.markApplied(applied.next());
+        // No close: the process dies here
+
+        try (OrderWriteAheadLog recovered = open(OrderWriteAheadLog.FsyncPolicy.RECORD)) {
+            assertEquals(applied.next(), recovered.appliedPosition());
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 10; i < 30; i++) {
+                expected.add("order-" + i);
+            }
+            assertEquals(expected, readAll(recovered, recovered.appliedPosition()));
+        }
+    }
+
+    @Test
+    public void shouldDiscardTornRecordOnRecovery() throws Exception {
+        long tornAt;
+        try (OrderWriteAheadLog wal = open(OrderWriteAheadLog.FsyncPolicy.RECORD)) {
+            wal.append(record(1));
+            wal.append(record(2));
+            tornAt = wal.writePosition();
+        }
+
+        // Simulate a crash halfway through the third append: header written, payload and checksum not
+        try (RandomAccessFile segment = new RandomAccessFile(lastSegment().toFile(), "rw")) {
+            segment.seek(tornAt % SEGMENT_SIZE);
+            segment.writeInt(7);
+            segment.writeInt(0xBADC0DE);
+            segment.write("ord".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (OrderWriteAheadLog recovered = open(OrderWriteAheadLog.FsyncPolicy.RECORD)) {
+            assertEquals(tornAt, recovered.writePosition());
+            assertEquals(List.of("order-1", "order-2"), readAll(recovered, 0));
+
+            recovered.append(record(3));
+            assertEquals(List.of("order-1", "order-2", "order-3"), readAll(recovered, 0));
+        }
+    }
+
+    @Test
+    public void shouldDeleteAppliedSegments() throws Exception {
+        try (OrderWriteAheadLog wal = open(OrderWriteAheadLog.FsyncPolicy.INTERVAL)) {
+            for (int i = 0; i < 100; i++) {
+                wal.append(record(i));
+            }
+
+            int before = segmentCount();
+            wal.markApplied(wal.writePosition());
+
+            assertEquals(1, segmentCount());
+            assertTrue(before > 1);
+            assertTrue(readAll(wal, wal.appliedPosition()).isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldKeepEveryConcurrentAppend() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (OrderWriteAheadLog wal = open(OrderWriteAheadLog.FsyncPolicy.GROUP)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        wal.append(record(thread * 1000 + i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals(400, readAll(wal, 0).stream().distinct().count());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private OrderWriteAheadLog open(OrderWriteAheadLog.FsyncPolicy fsyncPolicy) throws Exception {
+        return OrderWriteAheadLog.open(directory, SEGMENT_SIZE, fsyncPolicy, 10);
+    }
+
+    private static byte[] record(int i) {
+        return ("order-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readAll(OrderWriteAheadLog wal, long position) {
+        List<String> records = new ArrayList<>();
+        for (OrderWriteAheadLog.Batch batch = wal.read(position, 7); !batch.records().isEmpty(); batch = wal.read(position, 7)) {
+            for (byte[] record : batch.records()) {
+                records.add(new String(record, StandardCharsets.UTF_8));
+            }
+            position = batch.next();
+        }
+
+        return records;
+    }
+
+    private int segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.filter(path -> path.toString().endsWith(".wal")).count();
+        }
+    }
+
+    private Path lastSegment() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".wal")).sorted().reduce((first, second) -> second).orElseThrow();
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package io.github.jgfurlan2.nttdata_test.wal;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersInsert;
+import io.github.jgfurlan2.nttdata_test.repository.OrdersRepository;
+import io.github.jgfurlan2.nttdata_test.service.ChecksumDedupFilter;
+import io.github.jgfurlan2.nttdata_test.service.OrderNumberAllocator;
+import io.github.jgfurlan2.nttdata_test.service.OrderValidator;
+import io.github.jgfurlan2.nttdata_test.service.OrdersCache;
+import io.github.jgfurlan2.nttdata_test.service.OrdersIngest;
+import io.github.jgfurlan2.nttdata_test.service.OrdersListeners;
+import io.github.jgfurlan2.nttdata_test.service.OrdersMetrics;
+import io.github.jgfurlan2.nttdata_test.service.OrdersService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createDummyOrder;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OrdersWalIngestorTests {
+
+    @TempDir
+    private Path directory;
+
+    private OrdersRepository repository;
+    private SimpleMeterRegistry registry;
+    private OrdersWalIngestor ingestor;
+    private final List<Order> notified = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        repository = Mockito.mock(OrdersRepository.class);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        ingestor.stop();
+    }
+
+    @Test
+    public void shouldAcceptConcurrentlySentOrderOnce() throws Exception {
+        // Mongo is down, so the order stays in the WAL
+        when(repository.insertIgnoringDuplicates(anyList())).thenThrow(new IllegalStateException("Mongo is down"));
+        start();
+        Order order = createDummyOrder();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> ingestor.receiveOrder(copy(order))));
+            }
+
+            int accepted = 0;
+            for (Future<Long> result : results) {
+                if (result.get() != null) {
+                    accepted++;
+                }
+            }
+
+            assertEquals(1, accepted);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldRejectOrderPendingReplayWithoutQueryingMongo() throws Exception {
+        // Mongo is down, so the order stays in the WAL
+        when(repository.insertIgnoringDuplicates(anyList())).thenThrow(new IllegalStateException("Mongo is down"));
+        start();
+        Order order = createDummyOrder();
+
+        assertNotNull(ingestor.receiveOrder(copy(order)));
+        assertNull(ingestor.receiveOrder(copy(order)));
+        assertEquals(List.of(OrderAck.duplicated()), ingestor.receiveOrders(List.of(copy(order))));
+
+        verify(repository, never()).findByChecksum(order.getChecksum());
+    }
+
+    @Test
+    public void shouldCountAcknowledgedOrdersReplayedAsDuplicates() throws Exception {
+        when(repository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> new OrdersInsert(invocation.getArgument(0), Map.of()));
+        start();
+
+        ingestor.receiveOrder(createDummyOrder());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (registry.get("orders.wal.replay.duplicates").counter().count() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, registry.get("orders.wal.replay.duplicates").counter().count());
+    }
+
+    @Test
+    public void shouldPassOnOrdersStoredByFailedReplayAttempt() throws Exception {
+        // The first bulk write stores the order but fails, so the retry finds it stored under its own number
+        AtomicReference<List<Order>> stored = new AtomicReference<>();
+        when(repository.insertIgnoringDuplicates(anyList()))
+                .thenAnswer(invocation -> {
+                    stored.set(invocation.getArgument(0));
+                    throw new IllegalStateException("Bulk write failed");
+                })
+                .thenAnswer(invocation -> new OrdersInsert(invocation.getArgument(0), Map.of()));
+        when(repository.findByChecksumIn(anyCollection())).thenAnswer(invocation -> stored.get());
+        start(10);
+
+        Long orderNumber = ingestor.receiveOrder(createDummyOrder());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (notified.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(List.of(orderNumber), notified.stream().map(Order::getOrderNumber).toList());
+        assertEquals(0, registry.get("orders.wal.replay.duplicates").counter().count());
+    }
+
+    private void start() throws Exception {
+        start(60_000);
+    }
+
+    private void start(long replayRetryDelay) throws Exception {
+        AtomicLong counter = new AtomicLong();
+        OrderNumberAllocator allocator = new OrderNumberAllocator(size -> counter.getAndAdd(size) + 1, 10);
+        OrdersMetrics metrics = new OrdersMetrics(registry);
+        // No recent checksums, so only the pending ones keep an unreplayed order from being looked up in Mongo
+        ChecksumDedupFilter checksumFilter = new ChecksumDedupFilter(repository, new SimpleMeterRegistry(), 1000, 0.01, 0);
+        OrdersCache ordersCache = new OrdersCache(repository, new SimpleMeterRegistry(), 1000, 60_000);
+        OrdersListeners listeners = new OrdersListeners(List.of(notified::addAll));
+        OrdersService ordersService = new OrdersService(repository, new OrdersIngest(new OrderValidator(), allocator, checksumFilter, ordersCache, metrics), checksumFilter, ordersCache, metrics, listeners, 0, 50);
+
+        ingestor = new OrdersWalIngestor(ordersService, repository, allocator, checksumFilter, ordersCache, listeners, metrics,
+                directory, 1 << 20, OrderWriteAheadLog.FsyncPolicy.GROUP, 10, 100, replayRetryDelay);
+        ingestor.start();
+    }
+
+    private static Order copy(Order order) {
+        Order copy = createDummyOrder();
+        copy.setChecksum(order.getChecksum());
+        return copy;
+    }
+
+}
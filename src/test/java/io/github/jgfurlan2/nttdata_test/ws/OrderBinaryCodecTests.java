@@ -0,0 +1,102 @@
+package io.github.jgfurlan2.nttdata_test.ws;
+
+import com.google.gson.Gson;
+import io.github.jgfurlan2.nttdata_test.exception.InvalidOrderException;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createDummyOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderBinaryCodecTests {
+
+    @Test
+    public void shouldRoundTripSingleOrder() throws Exception {
+        Order order = createDummyOrder(1L);
+        // Text beyond ASCII and an id beyond 32 bits
+        order.getClient().getAddress().setCity("São Paulo");
+        order.getProducts().get(0).setId(79138421386L);
+
+        OrderFrames.Frame frame = OrderBinaryCodec.decode(ByteBuffer.wrap(OrderBinaryCodec.encode(order)));
+        assertTrue(frame.single());
+        assertTrue(frame.rejected().isEmpty());
+        assertEquals(List.of(order), frame.orders());
+    }
+
+    @Test
+    public void shouldRoundTripBatchWithRepeatedClients() throws Exception {
+        List<Order> orders = List.of(createDummyOrder(1L), createDummyOrder(2L), createDummyOrder(1L), createDummyOrder(2L));
+
+        OrderFrames.Frame frame = OrderBinaryCodec.decode(ByteBuffer.wrap(OrderBinaryCodec.encodeAll(orders)));
+        assertFalse(frame.single());
+        assertEquals(orders, frame.orders());
+        assertSame(frame.orders().get(0).getClient(), frame.orders().get(2).getClient());
+        assertSame(frame.orders().get(0).getClient().getAddress(), frame.orders().get(1).getClient().getAddress());
+    }
+
+    @Test
+    public void shouldWriteRepeatedClientOnlyOnce() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            orders.add(createDummyOrder(1L));
+        }
+
+        int single = OrderBinaryCodec.encode(orders.get(0)).length;
+        int batch = OrderBinaryCodec.encodeAll(orders).length;
+        int json = new Gson().toJson(orders).getBytes(StandardCharsets.UTF_8).length;
+
+        assertTrue(batch * 3 < single * 10 * 2, "batch of 10 took " + batch + " bytes, single order " + single);
+        assertTrue(batch * 3 < json, "batch of 10 took " + batch + " bytes, JSON " + json);
+    }
+
+    @Test
+    public void shouldKeepMissingFieldsForValidation() throws Exception {
+        Order order = createDummyOrder(1L);
+        order.setChecksum(null);
+        order.getClient().setTaxId(null);
+        order.getClient().getAddress().setCity(null);
+        order.getProducts().get(0).setPrice(null);
+        order.getProducts().get(1).setId(-5L);
+        order.getProducts().add(null);
+
+        OrderFrames.Frame frame = OrderBinaryCodec.decode(ByteBuffer.wrap(OrderBinaryCodec.encode(order)));
+        assertEquals(order, frame.orders().get(0));
+
+        Order empty = new Order();
+        frame = OrderBinaryCodec.decode(ByteBuffer.wrap(OrderBinaryCodec.encodeAll(List.of(empty))));
+        assertEquals(List.of(empty), frame.orders());
+    }
+
+    @Test
+    public void shouldRejectMalformedFrames() {
+        byte[] encoded = OrderBinaryCodec.encodeAll(List.of(createDummyOrder(1L), createDummyOrder(1L)));
+
+        Exception truncated = assertThrows(InvalidOrderException.class,
+                () -> OrderBinaryCodec.decode(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length - 3))));
+        assertEquals("Malformed binary frame: unexpected end of frame", truncated.getMessage());
+
+        byte[] version = encoded.clone();
+        version[0] = 9;
+        Exception unsupported = assertThrows(InvalidOrderException.class, () -> OrderBinaryCodec.decode(ByteBuffer.wrap(version)));
+        assertEquals("Unsupported binary frame version 9", unsupported.getMessage());
+
+        byte[] trailing = Arrays.copyOf(encoded, encoded.length + 1);
+        assertThrows(InvalidOrderException.class, () -> OrderBinaryCodec.decode(ByteBuffer.wrap(trailing)));
+
+        // A client reference before any inline client: version, batch, one order, no fields, tag 2
+        byte[] reference = {OrderBinaryCodec.VERSION, 1, 1, 0, 2};
+        Exception unknown = assertThrows(InvalidOrderException.class, () -> OrderBinaryCodec.decode(ByteBuffer.wrap(reference)));
+        assertEquals("Malformed binary frame: unknown dictionary reference 0", unknown.getMessage());
+
+        // A count far larger than the frame must not be allocated
+        byte[] count = {OrderBinaryCodec.VERSION, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F};
+        assertThrows(InvalidOrderException.class, () -> OrderBinaryCodec.decode(ByteBuffer.wrap(count)));
+    }
+
+}
@@ -0,0 +1,150 @@
+package io.github.jgfurlan2.nttdata_test.ws;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import io.github.jgfurlan2.nttdata_test.exception.*;
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static io.github.jgfurlan2.nttdata_test.OrderFixtures.createDummyOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderFramesTests {
+
+    private final Gson gson = new Gson();
+
+    @Test
+    public void shouldParseSingleOrder() throws Exception {
+        Order order = createDummyOrder();
+
+        OrderFrames.Frame frame = OrderFrames.parse(gson.toJson(order));
+        assertTrue(frame.single());
+        assertTrue(frame.rejected().isEmpty());
+        assertEquals(List.of(order), frame.orders());
+    }
+
+    @Test
+    public void shouldParseArrayAndNdjsonFrames() throws Exception {
+        Order order1 = createDummyOrder();
+        Order order2 = createDummyOrder();
+
+        OrderFrames.Frame array = OrderFrames.parse(gson.toJson(List.of(order1, order2)));
+        assertFalse(array.single());
+        assertEquals(List.of(order1, order2), array.orders());
+
+        OrderFrames.Frame ndjson = OrderFrames.parse(gson.toJson(order1) + "\n" + gson.toJson(order2) + "\n");
+        assertFalse(ndjson.single());
+        assertEquals(List.of(order1, order2), ndjson.orders());
+    }
+
+    @Test
+    public void shouldParseFromReader() throws Exception {
+        Order order = createDummyOrder();
+
+        OrderFrames.Frame frame = OrderFrames.parse(new StringReader(gson.toJson(order)));
+        assertEquals(List.of(order), frame.orders());
+    }
+
+    @Test
+    public void shouldAcceptNumericStringsAndIgnoreUnknownFields() throws Exception {
+        JsonObject json = gson.toJsonTree(createDummyOrder()).getAsJsonObject();
+        json.getAsJsonArray("products").get(0).getAsJsonObject().addProperty("gs1", 7908887777776L);
+        json.addProperty("channel", "gateway");
+        json.add("metadata", new JsonArray());
+
+        OrderFrames.Frame frame = OrderFrames.parse(json.toString());
+        assertTrue(frame.rejected().isEmpty());
+        assertEquals("7908887777776", frame.orders().get(0).getProducts().get(0).getGs1());
+    }
+
+    @Test
+    public void shouldRejectSingleOrderWithEveryInvalidField() throws Exception {
+        JsonObject json = gson.toJsonTree(createDummyOrder()).getAsJsonObject();
+        json.getAsJsonObject("client").addProperty("taxId", " ");
+        json.getAsJsonArray("products").get(1).getAsJsonObject().addProperty("price", -1);
+
+        OrderFrames.Frame frame = OrderFrames.parse(json.toString());
+        assertTrue(frame.single());
+        assertTrue(frame.orders().isEmpty());
+
+        Exception error = frame.rejected().get(0);
+        assertInstanceOf(InvalidClientException.class, error);
+        assertEquals("Null or empty client tax id; Product 2 missing or invalid price", error.getMessage());
+    }
+
+    @Test
+    public void shouldRejectInvalidFieldsWithValidatorMessages() throws Exception {
+        assertRejected(json -> json.remove("checksum"), InvalidOrderException.class, "Missing order checksum");
+        assertRejected(json -> json.add("client", JsonNull.INSTANCE), InvalidClientException.class, "Missing client");
+        assertRejected(json -> json.getAsJsonObject("client").addProperty("id", 0), InvalidClientException.class, "Missing or invalid client id");
+        assertRejected(json -> json.getAsJsonObject("client").remove("name"), InvalidClientException.class, "Null or empty client name");
+        assertRejected(json -> json.getAsJsonObject("client").remove("address"), InvalidClientAddressException.class, "Missing client address");
+        assertRejected(json -> json.getAsJsonObject("client").getAsJsonObject("address").addProperty("city", ""), InvalidClientAddressException.class, "Missing client address city");
+        assertRejected(json -> json.add("products", new JsonArray()), InvalidProductException.class, "Products list is null or empty");
+        assertRejected(json -> json.getAsJsonArray("products").set(0, JsonNull.INSTANCE), InvalidProductException.class, "Product 1 is null");
+        assertRejected(json -> json.getAsJsonArray("products").get(1).getAsJsonObject().remove("quantity"), InvalidProductException.class, "Product 2 missing or invalid quantity");
+        assertRejected(json -> json.getAsJsonArray("products").get(1).getAsJsonObject().addProperty("name", ""), InvalidProductException.class, "Product 2 missing name");
+    }
+
+    @Test
+    public void shouldKeepReadingBatchAfterRejectedOrders() throws Exception {
+        Order order1 = createDummyOrder();
+        Order order3 = createDummyOrder();
+
+        JsonObject invalid = gson.toJsonTree(createDummyOrder()).getAsJsonObject();
+        invalid.getAsJsonArray("products").get(0).getAsJsonObject().addProperty("quantity", 0);
+
+        JsonArray array = new JsonArray();
+        array.add(gson.toJsonTree(order1));
+        array.add(invalid);
+        array.add(gson.toJsonTree(order3));
+        array.add(JsonNull.INSTANCE);
+
+        OrderFrames.Frame frame = OrderFrames.parse(array.toString());
+        assertFalse(frame.single());
+        assertEquals(4, frame.size());
+        assertEquals(List.of(order1, order3), frame.orders());
+        assertEquals("Product 1 missing or invalid quantity", frame.rejected().get(1).getMessage());
+        assertEquals("Missing order", frame.rejected().get(3).getMessage());
+
+        List<OrderAck> acks = frame.acks(List.of(OrderAck.registered(43L), OrderAck.duplicated()));
+        assertEquals(List.of(
+                OrderAck.registered(43L),
+                OrderAck.error("Product 1 missing or invalid quantity"),
+                OrderAck.duplicated(),
+                OrderAck.error("Missing order")
+        ), acks);
+    }
+
+    @Test
+    public void shouldFailWholeFrameOnMalformedJson() {
+        String payload = "[" + gson.toJson(createDummyOrder()) + ", {\"checksum\": ";
+
+        assertThrows(IOException.class, () -> OrderFrames.parse(payload));
+        assertThrows(IllegalStateException.class, () -> OrderFrames.parse("\"order\""));
+        assertThrows(NumberFormatException.class, () -> OrderFrames.parse("{\"client\": {\"id\": \"abc\"}}"));
+    }
+
+    private void assertRejected(JsonEdit edit, Class<? extends Exception> type, String message) throws Exception {
+        JsonObject json = gson.toJsonTree(createDummyOrder()).getAsJsonObject();
+        edit.apply(json);
+
+        OrderFrames.Frame frame = OrderFrames.parse(json.toString());
+        Exception error = frame.rejected().get(0);
+        assertInstanceOf(type, error);
+        assertEquals(message, error.getMessage());
+    }
+
+    private interface JsonEdit {
+        void apply(JsonObject json);
+    }
+
+}
@@ -0,0 +1,110 @@
+package io.github.jgfurlan2.nttdata_test.ws;
+
+import io.github.jgfurlan2.nttdata_test.model.Order;
+import io.github.jgfurlan2.nttdata_test.model.OrderAck;
+import io.github.jgfurlan2.nttdata_test.service.OrdersMetrics;
+import io.github.jgfurlan2.nttdata_test.service.OrdersReceiver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrdersWebSocketHandlerTests {
+
+    private static final String ORDER = """
+            {"checksum": "c1", "client": {"id": 1, "name": "Foo Bar", "taxId": "12345678900", "address": {
+            "zipCode": "01310200", "streetName": "Avenida Paulista", "streetNumber": "1578", "neighborhood": "Bela Vista",
+            "city": "Sao Paulo", "state": "Sao Paulo", "country": "Brazil"}},
+            "products": [{"id": 1, "gs1": "7908887777776", "name": "Something Product", "quantity": 3, "price": 10.9}]}
+            """;
+
+    @Mock
+    private OrdersReceiver ordersReceiver;
+
+    @Mock
+    private WebSocketSession session;
+
+    private OrdersWebSocketHandler handler;
+
+    @BeforeEach
+    public void setUp() {
+        when(session.getId()).thenReturn("s1");
+        handler = new OrdersWebSocketHandler(ordersReceiver, null, new OrdersMetrics(new SimpleMeterRegistry()), 1024);
+    }
+
+    @Test
+    public void shouldJoinFragmentedMessages() throws Exception {
+        when(ordersReceiver.receiveOrder(any())).thenReturn(43L);
+
+        int split = ORDER.indexOf("products");
+        handler.handleMessage(session, new TextMessage(ORDER.substring(0, split), false));
+        verify(ordersReceiver, never()).receiveOrder(any());
+
+        handler.handleMessage(session, new TextMessage(ORDER.substring(split), true));
+
+        ArgumentCaptor<Order> captor = ArgumentCaptor.forClass(Order.class);
+        verify(ordersReceiver).receiveOrder(captor.capture());
+        assertEquals("c1", captor.getValue().getChecksum());
+        assertEquals(1, captor.getValue().getProducts().size());
+        verify(session).sendMessage(new TextMessage("Successfully registered order 43!"));
+
+        // The next frame starts from an empty buffer
+        handler.handleMessage(session, new TextMessage(ORDER, true));
+        verify(ordersReceiver, times(2)).receiveOrder(any());
+    }
+
+    @Test
+    public void shouldReplyFirstInvalidFieldWithoutCallingReceiver() throws Exception {
+        handler.handleMessage(session, new TextMessage(ORDER.replace("\"taxId\": \"12345678900\"", "\"taxId\": \"\"")));
+
+        verify(ordersReceiver, never()).receiveOrder(any());
+        verify(session).sendMessage(new TextMessage("An error occurred on register order: Null or empty client tax id"));
+    }
+
+    @Test
+    public void shouldHandleFragmentedBinaryFrames() throws Exception {
+        Order order = OrderFrames.parse(ORDER).orders().get(0);
+        byte[] encoded = OrderBinaryCodec.encodeAll(List.of(order, order));
+        when(ordersReceiver.receiveOrders(any())).thenReturn(List.of(OrderAck.registered(43L), OrderAck.duplicated()));
+
+        int split = encoded.length / 2;
+        handler.handleMessage(session, new BinaryMessage(ByteBuffer.wrap(encoded, 0, split), false));
+        handler.handleMessage(session, new BinaryMessage(ByteBuffer.wrap(encoded, split, encoded.length - split), true));
+
+        verify(ordersReceiver).receiveOrders(List.of(order, order));
+        verify(session).sendMessage(new TextMessage("[\"Successfully registered order 43!\",\"Duplicated order detected!\"]"));
+    }
+
+    @Test
+    public void shouldReplyMalformedBinaryFrame() throws Exception {
+        handler.handleMessage(session, new BinaryMessage(new byte[]{OrderBinaryCodec.VERSION, 0, 1}));
+
+        verify(ordersReceiver, never()).receiveOrder(any());
+        verify(session).sendMessage(new TextMessage("An error occurred on register order: Malformed binary frame: unexpected end of frame"));
+    }
+
+    @Test
+    public void shouldCloseSessionWhenFragmentsExceedMaxFrameSize() throws Exception {
+        handler.handleMessage(session, new TextMessage("[" + ORDER + ",", false));
+        handler.handleMessage(session, new TextMessage(ORDER + "," + ORDER + "," + ORDER, false));
+
+        verify(session).close(CloseStatus.TOO_BIG_TO_PROCESS);
+        verify(ordersReceiver, never()).receiveOrders(any());
+    }
+
+}